@@ -0,0 +1,68 @@
+package expressionsolver;
+
+import jadd.ADD;
+import jadd.JADD;
+
+/**
+ * Semantics of formulas over ADDs, in which logical operators are those
+ * of 0,1-ADDs (i.e., BDDs).
+ */
+final class ADDAlgebra extends ADDArithmetic implements Formula.Algebra<ADD> {
+
+    private JADD jadd;
+
+    ADDAlgebra(JADD jadd) {
+        super(jadd);
+        this.jadd = jadd;
+    }
+
+    @Override
+    public void release(ADD value) {
+        value.close();
+    }
+
+    /**
+     * Raises to a constant power by squaring (see {@link #pow(ADD, int)}).
+     *
+     * @throws IllegalArgumentException if the exponent is not a
+     *      non-negative constant.
+     */
+    @Override
+    public ADD power(ADD base, ADD exponent) {
+        if (!exponent.isConstant()) {
+            throw new IllegalArgumentException("Exponent must be constant");
+        }
+        long exponentValue = Math.round(exponent.getTerminalValues()[0]);
+        if (exponentValue < 0) {
+            throw new IllegalArgumentException("Exponent must be non-negative");
+        }
+        if (exponentValue == 0) {
+            try (ADD one = jadd.makeConstant(1);
+                 ADD zero = jadd.makeConstant(0)) {
+                return base.ifThenElse(one, zero);
+            }
+        }
+        return pow(base, Math.toIntExact(exponentValue));
+    }
+
+    @Override
+    public ADD negate(ADD a) {
+        return a.negate();
+    }
+
+    @Override
+    public ADD and(ADD a, ADD b) {
+        return a.and(b);
+    }
+
+    @Override
+    public ADD or(ADD a, ADD b) {
+        return a.or(b);
+    }
+
+    @Override
+    public ADD not(ADD a) {
+        return a.complement();
+    }
+
+}
@@ -0,0 +1,46 @@
+package expressionsolver;
+
+import jadd.ADD;
+import jadd.JADD;
+import paramwrapper.Arithmetic;
+
+/**
+ * Arithmetic over ADDs, for evaluating rational functions whose variables
+ * are interpreted as ADDs (i.e., for lifting them).
+ *
+ * @author thiago
+ */
+public class ADDArithmetic implements Arithmetic<ADD> {
+
+    private JADD jadd;
+
+    public ADDArithmetic(JADD jadd) {
+        this.jadd = jadd;
+    }
+
+    @Override
+    public ADD constant(double value) {
+        return jadd.makeConstant(value);
+    }
+
+    @Override
+    public ADD add(ADD a, ADD b) {
+        return a.plus(b);
+    }
+
+    @Override
+    public ADD subtract(ADD a, ADD b) {
+        return a.minus(b);
+    }
+
+    @Override
+    public ADD multiply(ADD a, ADD b) {
+        return a.times(b);
+    }
+
+    @Override
+    public ADD divide(ADD a, ADD b) {
+        return a.dividedBy(b);
+    }
+
+}
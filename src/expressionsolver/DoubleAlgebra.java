@@ -0,0 +1,64 @@
+package expressionsolver;
+
+/**
+ * Floating-point semantics of formulas, in which non-zero values are true
+ * and logical operators yield 1 or 0.
+ */
+final class DoubleAlgebra implements Formula.Algebra<Double> {
+
+    static final DoubleAlgebra INSTANCE = new DoubleAlgebra();
+
+    private DoubleAlgebra() {
+    }
+
+    @Override
+    public Double constant(double value) {
+        return value;
+    }
+
+    @Override
+    public Double add(Double a, Double b) {
+        return a + b;
+    }
+
+    @Override
+    public Double subtract(Double a, Double b) {
+        return a - b;
+    }
+
+    @Override
+    public Double multiply(Double a, Double b) {
+        return a * b;
+    }
+
+    @Override
+    public Double divide(Double a, Double b) {
+        return a / b;
+    }
+
+    @Override
+    public Double power(Double base, Double exponent) {
+        return Math.pow(base, exponent);
+    }
+
+    @Override
+    public Double negate(Double a) {
+        return -a;
+    }
+
+    @Override
+    public Double and(Double a, Double b) {
+        return (a != 0 && b != 0) ? 1.0 : 0.0;
+    }
+
+    @Override
+    public Double or(Double a, Double b) {
+        return (a != 0 || b != 0) ? 1.0 : 0.0;
+    }
+
+    @Override
+    public Double not(Double a) {
+        return (a == 0) ? 1.0 : 0.0;
+    }
+
+}
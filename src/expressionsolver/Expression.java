@@ -1,25 +1,19 @@
 package expressionsolver;
 
 import java.util.Map;
-import java.util.logging.Logger;
-
-import org.nfunk.jep.JEP;
-import org.nfunk.jep.SymbolTable;
+import java.util.function.Function;
 
 public class Expression<T> {
-    private static final Logger LOGGER = Logger.getLogger(Expression.class.getName());
 
-    private JEP parser;
-    private Class<? extends T> type;
+    private Function<Map<String, T>, T> evaluator;
 
     /**
-     * Creates a new Expression with the underlying {@code parser},
-     * which operates on the given {@code type} (e.g., Double, ADD).
-     * @param parser
+     * Creates a new Expression which is evaluated by the given function
+     * (e.g., of a parsed formula or of a {@link paramwrapper.RationalFunction}).
+     * @param evaluator
      */
-    public Expression(JEP parser, Class<? extends T> type) {
-        this.parser = parser;
-        this.type = type;
+    public Expression(Function<Map<String, T>, T> evaluator) {
+        this.evaluator = evaluator;
     }
 
     /**
@@ -34,20 +28,7 @@ public class Expression<T> {
      *          for type {@code T}.
      */
     public T solve(Map<String, T> interpretation) {
-        fillSymbolTable(interpretation);
-        Object result = parser.getValueAsObject();
-        return type.cast(result);
+        return evaluator.apply(interpretation);
     }
 
-	private void fillSymbolTable(Map<String, T> interpretation) {
-		final SymbolTable symbolTable = parser.getSymbolTable();
-        for (Object var: symbolTable.keySet()) {
-            String varName = (String)var;
-            if (interpretation.containsKey(varName)) {
-                parser.addVariableAsObject(varName, interpretation.get(varName));
-            } else {
-                LOGGER.warning("No interpretation for variable <"+varName+"> was provided");
-            }
-        }
-	}
 }
@@ -1,27 +1,17 @@
 package expressionsolver;
 
 import jadd.ADD;
+import jadd.ADDScope;
 import jadd.JADD;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.logging.Logger;
 
-import org.nfunk.jep.JEP;
-import org.nfunk.jep.SymbolTable;
-import org.nfunk.jep.type.DoubleNumberFactory;
-
-import expressionsolver.functions.ADDAdd;
-import expressionsolver.functions.ADDDivide;
-import expressionsolver.functions.ADDMultiply;
-import expressionsolver.functions.ADDPower;
-import expressionsolver.functions.ADDSubtract;
-import expressionsolver.functions.LogicalAnd;
-import expressionsolver.functions.LogicalNot;
-import expressionsolver.functions.LogicalOr;
-import expressionsolver.functions.UnaryMinus;
+import paramwrapper.RationalFunction;
 
 /**
  * @author thiago
@@ -31,12 +21,14 @@ public class ExpressionSolver {
     private static final Logger LOGGER = Logger.getLogger(ExpressionSolver.class.getName());
 
     private JADD jadd;
+    private ADDAlgebra addAlgebra;
 
     /**
      * Solves expressions using the provided ADD manager.
      */
     public ExpressionSolver(JADD jadd) {
         this.jadd = jadd;
+        this.addAlgebra = new ADDAlgebra(jadd);
     }
 
     /**
@@ -52,6 +44,10 @@ public class ExpressionSolver {
      *         results according to the ADDs involved.
      */
     public ADD solveExpressionAsFunction(String expression, Map<String, ADD> interpretation) {
+        Double constant = parseNumericLiteral(expression);
+        if (constant != null) {
+            return jadd.makeConstant(constant);
+        }
         Expression<ADD> parsedExpression = parseExpressionForFunctions(expression);
         
         if (isParsedExpression(parsedExpression)) {
@@ -81,6 +77,10 @@ public class ExpressionSolver {
      * @return a floating-point result for the evaluated expression.
      */
     public Double solveExpression(String expression, Map<String, Double> interpretation) {
+        Double constant = parseNumericLiteral(expression);
+        if (constant != null) {
+            return constant;
+        }
         Expression<Double> parsedExpression = parseExpression(expression);
         
         if (isParsedExpression(parsedExpression)) {
@@ -93,6 +93,30 @@ public class ExpressionSolver {
     	return parsedExpression == null;
     }
 
+    /**
+     * Shortcut for expressions which are plain decimal numbers (e.g., the
+     * reliabilities of parameter-free models), which need no parsing at all.
+     *
+     * @return the number or {@code null} if {@code expression} is not a
+     *      plain decimal number.
+     */
+    private static Double parseNumericLiteral(String expression) {
+        if (expression == null || expression.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (!Character.isDigit(c) && c != '.') {
+                return null;
+            }
+        }
+        try {
+            return Double.parseDouble(expression);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Useful shortcut for expressions with no variables involved.
      *
@@ -118,7 +142,45 @@ public class ExpressionSolver {
      * @return
      */
     public ADD encodeFormula(String formula) {
-    	return new FormulaEncoder(this).encodeFormula(formula);
+        Formula parsedFormula = parse(formula);
+        if (parsedFormula == null) {
+            return null;
+        }
+        // Partial results are of no use after encoding.
+        try (ADDScope scope = jadd.openScope()) {
+            return scope.keep(parsedFormula.evaluate(addAlgebra, this::encodeVariable));
+        }
+    }
+
+    private ADD encodeVariable(String name) {
+        switch (name) {
+        case "true":
+        case "True":
+            return jadd.makeConstant(1);
+        case "false":
+        case "False":
+            return jadd.makeConstant(0);
+        default:
+            return jadd.getVariable(name);
+        }
+    }
+
+    /**
+     * Lists the variables of a propositional logic formula (see
+     * {@link encodeFormula(String)}) without encoding it, i.e., without
+     * creating any ADD variables.
+     *
+     * @return the variables in order of first occurrence, or {@code null}
+     *      if there is a parsing error.
+     */
+    public List<String> getFormulaVariables(String formula) {
+        Formula parsedFormula = parse(formula);
+        if (parsedFormula == null) {
+            return null;
+        }
+        List<String> variables = new ArrayList<String>(parsedFormula.getVariables());
+        variables.removeAll(Arrays.asList("true", "True", "false", "False"));
+        return variables;
     }
 
     /**
@@ -132,13 +194,11 @@ public class ExpressionSolver {
      *      is a parsing error.
      */
     public Expression<Double> parseExpression(String expression) {
-        JEP parser = makeFloatingPointParser();
-        parser.parseExpression(expression);
-        if (parser.hasError()) {
-            LOGGER.warning("Parser error: " + parser.getErrorInfo());
+        Formula formula = parse(expression);
+        if (formula == null) {
             return null;
         }
-        return new Expression<Double>(parser, Double.class);
+        return new Expression<Double>(interpretation -> evaluate(formula, DoubleAlgebra.INSTANCE, interpretation));
     }
     
     public JADD getJADD() {
@@ -155,40 +215,71 @@ public class ExpressionSolver {
      *      is a parsing error.
      */
     public Expression<ADD> parseExpressionForFunctions(String expression) {
-        JEP parser = makeADDParser(jadd);
-        parser.parseExpression(expression);
-        if (parser.hasError()) {
-            LOGGER.warning("Parser error: " + parser.getErrorInfo());
+        Formula formula = parse(expression);
+        if (formula == null) {
             return null;
         }
-        return new Expression<ADD>(parser, ADD.class);
+        return new Expression<ADD>(interpretation -> {
+            // Partial results are of no use after evaluation.
+            try (ADDScope scope = jadd.openScope()) {
+                return scope.keep(evaluate(formula, addAlgebra, interpretation));
+            }
+        });
     }
 
     /**
-     * @param jadd
+     * @return the parsed formula or {@code null} if there is a parsing error.
      */
-    public JEP makeADDParser(JADD jadd) {
-        JEP parser = new JEP(false, true, true, new ADDNumberFactory(jadd));
-        parser.addFunction("\"+\"", new ADDAdd());
-        parser.addFunction("\"-\":2", new ADDSubtract());
-        parser.addFunction("\"-\":1", new UnaryMinus());
-        parser.addFunction("\"*\"", new ADDMultiply());
-        parser.addFunction("\"^\"", new ADDPower(jadd));
-        parser.addFunction("\"/\"", new ADDDivide());
+    private static Formula parse(String expression) {
+        try {
+            return FormulaParser.parse(expression);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Parser error: " + e.getMessage());
+            return null;
+        }
+    }
 
-        parser.addFunction("\"&&\"", new LogicalAnd());
-        parser.addFunction("\"||\"", new LogicalOr());
-        parser.addFunction("\"!\"", new LogicalNot());
-        return parser;
+    /**
+     * @return the value of {@code formula} or {@code null} if some variable
+     *      has no interpretation.
+     */
+    private static <T> T evaluate(Formula formula, Formula.Algebra<T> algebra, Map<String, T> interpretation) {
+        for (String variable : formula.getVariables()) {
+            if (!interpretation.containsKey(variable)) {
+                LOGGER.warning("No interpretation for variable <" + variable + "> was provided");
+                return null;
+            }
+        }
+        return formula.evaluate(algebra, interpretation::get);
     }
 
     /**
-     * Makes a standard floating-point-based parser.
+     * Lifts a rational function, i.e., turns it into an expression whose
+     * variables are interpreted as ADDs. As opposed to
+     * {@link parseExpressionForFunctions(String)}, there is no parsing involved.
+     *
+     * The function is turned into a {@link Formula} once, so that each solving
+     * performs a single ADD operation per distinct subterm.
+     *
+     * @param function
+     * @return A handle to the lifted function.
+     * @throws IllegalArgumentException when solved if some variable has
+     *      no interpretation.
      */
-    private JEP makeFloatingPointParser() {
-        JEP parser = new JEP(false, true, true, new DoubleNumberFactory());
-        parser.setAllowUndeclared(true);
-        return parser;
+    public Expression<ADD> liftFunction(RationalFunction function) {
+        Formula formula = Formula.of(function);
+        return new Expression<ADD>(interpretation -> {
+            // Partial sums and products are of no use after evaluation.
+            try (ADDScope scope = jadd.openScope()) {
+                return scope.keep(formula.evaluate(addAlgebra, variable -> {
+                    ADD value = interpretation.get(variable);
+                    if (value == null) {
+                        throw new IllegalArgumentException("No interpretation for variable <" + variable + ">");
+                    }
+                    return value;
+                }));
+            }
+        });
     }
 
 }
@@ -0,0 +1,328 @@
+package expressionsolver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import paramwrapper.Arithmetic;
+import paramwrapper.RationalFunction;
+
+/**
+ * Parsed formula, as a DAG in which equal subformulas are shared.
+ *
+ * Nodes are laid out in flat arrays, numbered so that operands come
+ * before the operations on them. Thus, evaluation is a single pass over
+ * the arrays, and each shared subformula is evaluated only once.
+ * Instances are immutable, so they can be evaluated by many threads at once.
+ *
+ * @see FormulaParser
+ * @see #of(RationalFunction)
+ */
+final class Formula {
+
+    static final byte CONSTANT = 0;
+    static final byte VARIABLE = 1;
+    static final byte ADD = 2;
+    static final byte SUBTRACT = 3;
+    static final byte MULTIPLY = 4;
+    static final byte DIVIDE = 5;
+    static final byte POWER = 6;
+    static final byte NEGATE = 7;
+    static final byte AND = 8;
+    static final byte OR = 9;
+    static final byte NOT = 10;
+
+    /**
+     * Operations over the values of formulas (e.g., Double, ADD).
+     */
+    interface Algebra<T> extends Arithmetic<T> {
+        T power(T base, T exponent);
+        T negate(T a);
+        T and(T a, T b);
+        T or(T a, T b);
+        T not(T a);
+
+        /**
+         * Disposes of an intermediate result, once all operations on it
+         * are done. Results of the whole formula and values of variables
+         * are never released.
+         */
+        default void release(T value) {
+            // Garbage-collected values need no disposal.
+        }
+    }
+
+    private final byte[] operators;
+    /** First operand, constant index (for constants) or variable index (for variables). */
+    private final int[] left;
+    private final int[] right;
+    private final double[] constants;
+    private final String[] variables;
+    private final int root;
+    /** Number of times each node is an operand. */
+    private final int[] uses;
+
+    private Formula(Builder builder, int root) {
+        this.operators = Arrays.copyOf(builder.operators, builder.size);
+        this.left = Arrays.copyOf(builder.left, builder.size);
+        this.right = Arrays.copyOf(builder.right, builder.size);
+        this.constants = Arrays.copyOf(builder.constants, builder.constantCount);
+        this.variables = new String[builder.variableIndices.size()];
+        for (Map.Entry<String, Integer> variable : builder.variableIndices.entrySet()) {
+            variables[variable.getValue()] = variable.getKey();
+        }
+        this.root = root;
+        this.uses = new int[operators.length];
+        for (int n = 0; n < operators.length; n++) {
+            if (isOperation(operators[n])) {
+                uses[left[n]]++;
+                if (isBinary(operators[n])) {
+                    uses[right[n]]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns a rational function into a formula, so that subterms which occur
+     * in many terms (e.g., common powers and products of variables) are
+     * evaluated only once. Powers are taken by squaring.
+     */
+    static Formula of(RationalFunction function) {
+        Builder builder = new Builder();
+        Map<String, Integer> variables = new HashMap<String, Integer>();
+        for (String variable : function.getVariables()) {
+            variables.put(variable, builder.variable(variable));
+        }
+        return builder.build(function.evaluate(variables, new BuilderArithmetic(builder)));
+    }
+
+    /**
+     * @return the number of distinct subformulas.
+     */
+    int size() {
+        return operators.length;
+    }
+
+    List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * Intermediate results are released (see {@link Algebra#release(Object)})
+     * right after their last use, so that at most the results which are
+     * still needed are alive at any time.
+     *
+     * @param interpretation Value of each variable.
+     */
+    <T> T evaluate(Algebra<T> algebra, Function<String, T> interpretation) {
+        T[] variableValues = newArray(variables.length);
+        for (int v = 0; v < variables.length; v++) {
+            variableValues[v] = interpretation.apply(variables[v]);
+        }
+        T[] values = newArray(operators.length);
+        // Operations may yield one of their operands as is (e.g., x^1), so
+        // uses are counted by the node which first yielded each value.
+        int[] owner = new int[operators.length];
+        int[] pendingUses = new int[operators.length];
+        for (int n = 0; n < operators.length; n++) {
+            switch (operators[n]) {
+            case CONSTANT:
+                values[n] = algebra.constant(constants[left[n]]);
+                break;
+            case VARIABLE:
+                values[n] = variableValues[left[n]];
+                break;
+            case ADD:
+                values[n] = algebra.add(values[left[n]], values[right[n]]);
+                break;
+            case SUBTRACT:
+                values[n] = algebra.subtract(values[left[n]], values[right[n]]);
+                break;
+            case MULTIPLY:
+                values[n] = algebra.multiply(values[left[n]], values[right[n]]);
+                break;
+            case DIVIDE:
+                values[n] = algebra.divide(values[left[n]], values[right[n]]);
+                break;
+            case POWER:
+                values[n] = algebra.power(values[left[n]], values[right[n]]);
+                break;
+            case NEGATE:
+                values[n] = algebra.negate(values[left[n]]);
+                break;
+            case AND:
+                values[n] = algebra.and(values[left[n]], values[right[n]]);
+                break;
+            case OR:
+                values[n] = algebra.or(values[left[n]], values[right[n]]);
+                break;
+            case NOT:
+                values[n] = algebra.not(values[left[n]]);
+                break;
+            default:
+                throw new IllegalStateException("Unknown operator: " + operators[n]);
+            }
+
+            owner[n] = n;
+            if (isOperation(operators[n])) {
+                if (values[n] == values[left[n]]) {
+                    owner[n] = owner[left[n]];
+                } else if (isBinary(operators[n]) && values[n] == values[right[n]]) {
+                    owner[n] = owner[right[n]];
+                }
+            }
+            pendingUses[owner[n]] += (n == root) ? uses[n] + 1 : uses[n];
+
+            if (isOperation(operators[n])) {
+                releaseUse(left[n], algebra, values, owner, pendingUses);
+                if (isBinary(operators[n])) {
+                    releaseUse(right[n], algebra, values, owner, pendingUses);
+                }
+            }
+        }
+        return values[root];
+    }
+
+    private <T> void releaseUse(int operand, Algebra<T> algebra, T[] values, int[] owner, int[] pendingUses) {
+        int valueOwner = owner[operand];
+        if (--pendingUses[valueOwner] == 0 && operators[valueOwner] != VARIABLE) {
+            algebra.release(values[operand]);
+        }
+    }
+
+    private static boolean isOperation(byte operator) {
+        return operator != CONSTANT && operator != VARIABLE;
+    }
+
+    private static boolean isBinary(byte operator) {
+        return isOperation(operator) && operator != NEGATE && operator != NOT;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(int length) {
+        return (T[]) new Object[length];
+    }
+
+    /**
+     * Builds formulas bottom-up, sharing equal nodes.
+     */
+    static final class Builder {
+        /** Operands and indices fit in 28 bits of the keys of nodes. */
+        private static final int MAX_NODES = 1 << 28;
+
+        private byte[] operators = new byte[16];
+        private int[] left = new int[16];
+        private int[] right = new int[16];
+        private int size = 0;
+        private double[] constants = new double[16];
+        private int constantCount = 0;
+        private Map<Long, Integer> nodes = new HashMap<Long, Integer>();
+        private Map<Long, Integer> constantIndices = new HashMap<Long, Integer>();
+        private Map<String, Integer> variableIndices = new HashMap<String, Integer>();
+
+        int constant(double value) {
+            Integer index = constantIndices.get(Double.doubleToLongBits(value));
+            if (index == null) {
+                if (constantCount == constants.length) {
+                    constants = Arrays.copyOf(constants, 2 * constantCount);
+                }
+                index = constantCount;
+                constants[constantCount++] = value;
+                constantIndices.put(Double.doubleToLongBits(value), index);
+            }
+            return node(CONSTANT, index, 0);
+        }
+
+        int variable(String name) {
+            Integer index = variableIndices.get(name);
+            if (index == null) {
+                index = variableIndices.size();
+                variableIndices.put(name, index);
+            }
+            return node(VARIABLE, index, 0);
+        }
+
+        int unary(byte operator, int operand) {
+            return node(operator, operand, 0);
+        }
+
+        int binary(byte operator, int first, int second) {
+            return node(operator, first, second);
+        }
+
+        Formula build(int root) {
+            return new Formula(this, root);
+        }
+
+        private int node(byte operator, int first, int second) {
+            if (isCommutative(operator) && first > second) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+            if (size == MAX_NODES) {
+                throw new IllegalArgumentException("Formula too large");
+            }
+            long key = ((long) operator << 56) | ((long) first << 28) | second;
+            Integer existing = nodes.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (size == operators.length) {
+                operators = Arrays.copyOf(operators, 2 * size);
+                left = Arrays.copyOf(left, 2 * size);
+                right = Arrays.copyOf(right, 2 * size);
+            }
+            operators[size] = operator;
+            left[size] = first;
+            right[size] = second;
+            nodes.put(key, size);
+            return size++;
+        }
+
+        private static boolean isCommutative(byte operator) {
+            return operator == ADD || operator == MULTIPLY || operator == AND || operator == OR;
+        }
+    }
+
+    /**
+     * Arithmetic whose values are the nodes of a formula being built.
+     */
+    private static final class BuilderArithmetic implements Arithmetic<Integer> {
+        private final Builder builder;
+
+        BuilderArithmetic(Builder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public Integer constant(double value) {
+            return builder.constant(value);
+        }
+
+        @Override
+        public Integer add(Integer a, Integer b) {
+            return builder.binary(ADD, a, b);
+        }
+
+        @Override
+        public Integer subtract(Integer a, Integer b) {
+            return builder.binary(SUBTRACT, a, b);
+        }
+
+        @Override
+        public Integer multiply(Integer a, Integer b) {
+            return builder.binary(MULTIPLY, a, b);
+        }
+
+        @Override
+        public Integer divide(Integer a, Integer b) {
+            return builder.binary(DIVIDE, a, b);
+        }
+    }
+
+}
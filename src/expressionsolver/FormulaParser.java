@@ -0,0 +1,215 @@
+package expressionsolver;
+
+/**
+ * Recursive-descent parser for the formulas accepted by {@link ExpressionSolver},
+ * i.e., arithmetic expressions as yielded by PARAM and propositional formulas
+ * over features (e.g., "0.99*r1 - (1 - r2)^2", "(A && !B) || C").
+ *
+ * Grammar (operators with the same precedence as in JEP):
+ * <pre>
+ *   or     := and ('||' and)*
+ *   and    := sum ('&amp;&amp;' sum)*
+ *   sum    := term (('+' | '-') term)*
+ *   term   := unary (('*' | '/') unary)*
+ *   unary  := ('-' | '+' | '!') unary | power
+ *   power  := atom ('^' unary)?
+ *   atom   := number | identifier | '(' or ')'
+ * </pre>
+ *
+ * The input is read in place, so it can be any character sequence (e.g., a
+ * buffer over a file), and repeated subformulas are parsed into shared nodes.
+ */
+final class FormulaParser {
+
+    /** Number of characters shown on each side of errors in long inputs. */
+    private static final int EXCERPT_RADIUS = 40;
+
+    private final CharSequence input;
+    private final int length;
+    private final Formula.Builder builder = new Formula.Builder();
+    private int position = 0;
+
+    private FormulaParser(CharSequence input) {
+        this.input = input;
+        this.length = input.length();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code input} is malformed.
+     */
+    static Formula parse(CharSequence input) {
+        FormulaParser parser = new FormulaParser(input);
+        int root = parser.parseOr();
+        parser.skipWhitespace();
+        if (parser.position < parser.length) {
+            throw parser.error("Unexpected character");
+        }
+        return parser.builder.build(root);
+    }
+
+    private int parseOr() {
+        int result = parseAnd();
+        while (consume('|', '|')) {
+            result = builder.binary(Formula.OR, result, parseAnd());
+        }
+        return result;
+    }
+
+    private int parseAnd() {
+        int result = parseSum();
+        while (consume('&', '&')) {
+            result = builder.binary(Formula.AND, result, parseSum());
+        }
+        return result;
+    }
+
+    private int parseSum() {
+        int result = parseTerm();
+        while (true) {
+            if (consume('+')) {
+                result = builder.binary(Formula.ADD, result, parseTerm());
+            } else if (consume('-')) {
+                result = builder.binary(Formula.SUBTRACT, result, parseTerm());
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private int parseTerm() {
+        int result = parseUnary();
+        while (true) {
+            if (consume('*')) {
+                result = builder.binary(Formula.MULTIPLY, result, parseUnary());
+            } else if (consume('/')) {
+                result = builder.binary(Formula.DIVIDE, result, parseUnary());
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private int parseUnary() {
+        if (consume('-')) {
+            return builder.unary(Formula.NEGATE, parseUnary());
+        } else if (consume('+')) {
+            return parseUnary();
+        } else if (consume('!')) {
+            return builder.unary(Formula.NOT, parseUnary());
+        }
+        return parsePower();
+    }
+
+    private int parsePower() {
+        int base = parseAtom();
+        if (consume('^')) {
+            return builder.binary(Formula.POWER, base, parseUnary());
+        }
+        return base;
+    }
+
+    private int parseAtom() {
+        skipWhitespace();
+        if (position == length) {
+            throw error("Unexpected end of expression");
+        }
+        char c = input.charAt(position);
+        if (c == '(') {
+            position++;
+            int result = parseOr();
+            if (!consume(')')) {
+                throw error("Expected ')'");
+            }
+            return result;
+        } else if (Character.isDigit(c) || c == '.') {
+            return parseNumber();
+        } else if (Character.isLetter(c) || c == '_') {
+            int start = position;
+            while (position < length && isIdentifierPart(input.charAt(position))) {
+                position++;
+            }
+            return builder.variable(input.subSequence(start, position).toString());
+        }
+        throw error("Unexpected character");
+    }
+
+    private int parseNumber() {
+        int start = position;
+        skipDigits();
+        if (position < length && input.charAt(position) == '.') {
+            position++;
+            skipDigits();
+        }
+        // Scientific notation, as yielded by Double.toString (e.g., "1.0E-4").
+        if (position < length && (input.charAt(position) == 'E' || input.charAt(position) == 'e')) {
+            int mark = position++;
+            if (position < length && (input.charAt(position) == '-' || input.charAt(position) == '+')) {
+                position++;
+            }
+            if (position < length && Character.isDigit(input.charAt(position))) {
+                skipDigits();
+            } else {
+                position = mark;
+            }
+        }
+        try {
+            return builder.constant(Double.parseDouble(input.subSequence(start, position).toString()));
+        } catch (NumberFormatException e) {
+            throw error("Malformed number");
+        }
+    }
+
+    private void skipDigits() {
+        while (position < length && Character.isDigit(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private boolean consume(char expected) {
+        skipWhitespace();
+        if (position < length && input.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean consume(char first, char second) {
+        skipWhitespace();
+        if (position + 1 < length
+                && input.charAt(position) == first
+                && input.charAt(position + 1) == second) {
+            position += 2;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < length && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of \"" + excerpt() + "\"");
+    }
+
+    /**
+     * @return the input, or only its part around the current position if
+     *      it is too long (e.g., a whole feature model).
+     */
+    private String excerpt() {
+        if (length <= 2 * EXCERPT_RADIUS) {
+            return input.toString();
+        }
+        int start = Math.max(0, position - EXCERPT_RADIUS);
+        int end = Math.min(length, position + EXCERPT_RADIUS);
+        return (start > 0 ? "..." : "") + input.subSequence(start, end) + (end < length ? "..." : "");
+    }
+
+}
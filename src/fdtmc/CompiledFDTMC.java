@@ -0,0 +1,192 @@
+package fdtmc;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, array-based snapshot of an {@link FDTMC}, meant for
+ * serialization and model checking.
+ *
+ * States are identified by dense ids (0 until {@link #getNumberOfStates()}),
+ * assigned in the FDTMC's state creation order. Transitions are laid out in
+ * compressed sparse row (CSR) form: the transitions leaving state {@code s}
+ * are the ones with ids from {@code getTransitionsStart(s)} (inclusive) to
+ * {@code getTransitionsEnd(s)} (exclusive). Probability expressions are
+ * interned, so that each distinct expression is stored (and can be
+ * processed) only once.
+ *
+ * @see FDTMC#compile()
+ */
+public final class CompiledFDTMC {
+
+    private final String variableName;
+    private final int initialState;
+    private final int[] stateIndices;
+    private final String[] labels;
+
+    private final int[] rowStart;
+    private final int[] targets;
+    private final int[] probabilityIds;
+    private final String[] probabilities;
+
+    CompiledFDTMC(FDTMC fdtmc) {
+        Map<State, List<Transition>> transitionSystem = fdtmc.getTransitions();
+        int numberOfStates = transitionSystem.size();
+        this.variableName = fdtmc.getVariableName();
+        this.stateIndices = new int[numberOfStates];
+        this.labels = new String[numberOfStates];
+        this.rowStart = new int[numberOfStates + 1];
+
+        Map<State, Integer> ids = new HashMap<State, Integer>(2 * numberOfStates);
+        int numberOfTransitions = 0;
+        for (Map.Entry<State, List<Transition>> entry: transitionSystem.entrySet()) {
+            int id = ids.size();
+            ids.put(entry.getKey(), id);
+            stateIndices[id] = entry.getKey().getIndex();
+            labels[id] = entry.getKey().getLabel();
+            if (entry.getValue() != null) {
+                numberOfTransitions += entry.getValue().size();
+            }
+        }
+        State initial = fdtmc.getInitialState();
+        this.initialState = (initial != null) ? ids.get(initial) : -1;
+
+        this.targets = new int[numberOfTransitions];
+        this.probabilityIds = new int[numberOfTransitions];
+        Map<String, Integer> internedProbabilities = new HashMap<String, Integer>();
+        int transition = 0;
+        int id = 0;
+        for (List<Transition> outgoing: transitionSystem.values()) {
+            rowStart[id++] = transition;
+            if (outgoing == null) {
+                continue;
+            }
+            for (Transition t: outgoing) {
+                targets[transition] = ids.get(t.getTarget());
+                Integer probabilityId = internedProbabilities.get(t.getProbability());
+                if (probabilityId == null) {
+                    probabilityId = internedProbabilities.size();
+                    internedProbabilities.put(t.getProbability(), probabilityId);
+                }
+                probabilityIds[transition] = probabilityId;
+                transition++;
+            }
+        }
+        rowStart[numberOfStates] = transition;
+
+        this.probabilities = toTable(internedProbabilities);
+    }
+
+    CompiledFDTMC(String variableName,
+                  int initialState,
+                  int[] stateIndices,
+                  String[] labels,
+                  int[] rowStart,
+                  int[] targets,
+                  String[] transitionProbabilities) {
+        this.variableName = variableName;
+        this.initialState = initialState;
+        this.stateIndices = stateIndices;
+        this.labels = labels;
+        this.rowStart = rowStart;
+        this.targets = targets;
+        this.probabilityIds = new int[targets.length];
+        Map<String, Integer> internedProbabilities = new HashMap<String, Integer>();
+        for (int transition = 0; transition < targets.length; transition++) {
+            Integer probabilityId = internedProbabilities.get(transitionProbabilities[transition]);
+            if (probabilityId == null) {
+                probabilityId = internedProbabilities.size();
+                internedProbabilities.put(transitionProbabilities[transition], probabilityId);
+            }
+            probabilityIds[transition] = probabilityId;
+        }
+        this.probabilities = toTable(internedProbabilities);
+    }
+
+    /**
+     * Builds a reduced version of this FDTMC, with the same probability of
+     * eventually reaching a "success" state, but usually with far fewer states
+     * and transitions (see {@link Minimization}).
+     *
+     * State indices in the reduced FDTMC do not correspond to the original ones.
+     */
+    public CompiledFDTMC minimize() {
+        return Minimization.minimize(this);
+    }
+
+    private static String[] toTable(Map<String, Integer> internedProbabilities) {
+        String[] probabilities = new String[internedProbabilities.size()];
+        for (Map.Entry<String, Integer> entry: internedProbabilities.entrySet()) {
+            probabilities[entry.getValue()] = entry.getKey();
+        }
+        return probabilities;
+    }
+
+    public String getVariableName() {
+        return variableName;
+    }
+
+    public int getNumberOfStates() {
+        return stateIndices.length;
+    }
+
+    public int getNumberOfTransitions() {
+        return targets.length;
+    }
+
+    /**
+     * @return the id of the initial state, or -1 if there is none.
+     */
+    public int getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * @return the index of the original {@link State} with the given id.
+     */
+    public int getStateIndex(int state) {
+        return stateIndices[state];
+    }
+
+    public String getLabel(int state) {
+        return labels[state];
+    }
+
+    public boolean hasLabel(int state, String label) {
+        return label.equals(labels[state]);
+    }
+
+    public int getTransitionsStart(int state) {
+        return rowStart[state];
+    }
+
+    public int getTransitionsEnd(int state) {
+        return rowStart[state + 1];
+    }
+
+    public int getTarget(int transition) {
+        return targets[transition];
+    }
+
+    /**
+     * @return the id of the (interned) probability expression of the given
+     *      transition, which ranges from 0 until {@link #getNumberOfProbabilities()}.
+     */
+    public int getProbabilityId(int transition) {
+        return probabilityIds[transition];
+    }
+
+    public String getProbability(int transition) {
+        return probabilities[probabilityIds[transition]];
+    }
+
+    public int getNumberOfProbabilities() {
+        return probabilities.length;
+    }
+
+    public String getProbabilityExpression(int probabilityId) {
+        return probabilities[probabilityId];
+    }
+
+}
@@ -10,6 +10,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 public class FDTMC {
 
@@ -217,6 +218,14 @@ public class FDTMC {
 		return transitionManager.getTransitionSystem();
 	}
 
+    /**
+     * Builds an immutable, array-based snapshot of this FDTMC. Later changes
+     * to this FDTMC are not reflected in the returned snapshot.
+     */
+    public CompiledFDTMC compile() {
+        return new CompiledFDTMC(this);
+    }
+
 	/**
 	 * Inlines the given FDTMCs whenever there is an interface corresponding
 	 * to the string in the respective index.
@@ -226,21 +235,23 @@ public class FDTMC {
 	 *         in {@code indexedModels} inlined.
 	 */
     public FDTMC inline(Map<String, FDTMC> indexedModels) {
-        FDTMC inlined = new FDTMC();
-        Map<State, State> statesMapping = copyForInlining(inlined);
-
-        for (Map.Entry<String, List<Interface>> entry: interfaceManager.getInterfaces().entrySet()) {
-            String dependencyId = entry.getKey();
-            if (indexedModels.containsKey(dependencyId)) {
-                FDTMC fragment = indexedModels.get(dependencyId);
-                for (Interface iface: entry.getValue()) {
-                    inlined.interfaceManager.inlineInInterface(iface,
-                                              fragment,
-                                              statesMapping);
-                }
-            }
+        Map<String, InlinedFDTMC> fragments = new HashMap<String, InlinedFDTMC>();
+        for (Map.Entry<String, FDTMC> entry: indexedModels.entrySet()) {
+            fragments.put(entry.getKey(), InlinedFDTMC.of(entry.getValue()));
         }
-        return inlined;
+        return inlineLazily(fragments).materialize();
+    }
+
+    /**
+     * Same as {@link #inline(Map)}, but no states or transitions are copied
+     * until the resulting view is materialized. This allows inlined models
+     * to be composed further at no cost.
+     *
+     * @param indexedModels
+     * @return a view of this FDTMC with the ones specified in {@code indexedModels} inlined.
+     */
+    public InlinedFDTMC inlineLazily(Map<String, InlinedFDTMC> indexedModels) {
+        return new InlinedFDTMC(this, indexedModels);
     }
 
     /**
@@ -290,22 +301,6 @@ public class FDTMC {
         return ifPresent.decoratedWithPresence(presenceVariable);
     }
 
-    /**
-     * Prepares {@code destination} FDTMC to be an inlined version of this one.
-     * @param destination
-     * @return a mapping from states in this FDTMC to the corresponding states
-     *      in the copied one ({@code destination}).
-     */
-    private Map<State, State> copyForInlining(FDTMC destination) {
-        destination.variableName = this.getVariableName();
-
-        Map<State, State> statesMapping = destination.inlineStates(this);
-        setCommonStates(destination, statesMapping);
-
-        destination.transitionManager.inlineTransitions(this, statesMapping);
-        return statesMapping;
-    }
-
     /**
      * Copies this FDTMC.
      * @return a new FDTMC which is a copy of this one.
@@ -315,17 +310,21 @@ public class FDTMC {
         copied.variableName = this.getVariableName();
 
         Map<State, State> statesMapping = copied.inlineStates(this);
-        setCommonStates(copied, statesMapping);
+        setCommonStates(copied, statesMapping::get);
 
         copied.transitionManager.inlineTransitions(this, statesMapping);
         copied.interfaceManager.inlineInterfaces(this, statesMapping);
         return copied;
     }
 
-	private void setCommonStates(FDTMC copied, Map<State, State> statesMapping) {
-		copied.setInitialState(statesMapping.get(this.getInitialState()));
-        copied.setSuccessState(statesMapping.get(this.getSuccessState()));
-        copied.setErrorState(statesMapping.get(this.getErrorState()));
+	void setCommonStates(FDTMC copied, Function<State, State> statesMapping) {
+		copied.setInitialState(statesMapping.apply(this.getInitialState()));
+        if (this.getSuccessState() != null) {
+            copied.setSuccessState(statesMapping.apply(this.getSuccessState()));
+        }
+        if (this.getErrorState() != null) {
+            copied.setErrorState(statesMapping.apply(this.getErrorState()));
+        }
 	}
 
     /**
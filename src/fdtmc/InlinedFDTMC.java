@@ -0,0 +1,164 @@
+package fdtmc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lazily resolved view of an FDTMC with other FDTMCs inlined in its interfaces.
+ *
+ * Instead of copying the states and transitions of each dependency for
+ * every interface occurrence, the view only records, for each occurrence,
+ * the (shared) view to be inlined there and the offset at which its states
+ * start. The states of the whole model are thus laid out as the states of
+ * the base FDTMC followed by the states of each inlined fragment, in the
+ * order of the interfaces.
+ *
+ * Views are immutable, so the same view can be inlined in any number of
+ * interfaces (and of products). States and transitions are only created
+ * by {@link #materialize()}, when a concrete model is actually needed
+ * (e.g., by a model checker).
+ *
+ * @see FDTMC#inlineLazily(Map)
+ */
+public class InlinedFDTMC {
+
+    private final FDTMC base;
+    private final List<Occurrence> occurrences;
+    private final int numberOfStates;
+
+    /**
+     * @param base FDTMC whose interfaces are to be resolved.
+     * @param indexedModels views to be inlined in the interfaces with the respective ids.
+     *          Interfaces whose ids are not mapped are kept as such.
+     */
+    public InlinedFDTMC(FDTMC base, Map<String, InlinedFDTMC> indexedModels) {
+        this.base = base;
+        this.occurrences = new ArrayList<Occurrence>();
+        int offset = base.getStates().size();
+        for (Map.Entry<String, List<Interface>> entry: base.getInterfaces().entrySet()) {
+            InlinedFDTMC fragment = indexedModels.get(entry.getKey());
+            for (Interface iface: entry.getValue()) {
+                occurrences.add(new Occurrence(iface, fragment, offset));
+                if (fragment != null) {
+                    offset += fragment.getNumberOfStates();
+                }
+            }
+        }
+        this.numberOfStates = offset;
+    }
+
+    /**
+     * @return a view of {@code fdtmc} with no interfaces resolved.
+     */
+    public static InlinedFDTMC of(FDTMC fdtmc) {
+        return new InlinedFDTMC(fdtmc, Collections.<String, InlinedFDTMC>emptyMap());
+    }
+
+    /**
+     * @return the number of states of the materialized FDTMC.
+     */
+    public int getNumberOfStates() {
+        return numberOfStates;
+    }
+
+    /**
+     * Builds the FDTMC represented by this view.
+     *
+     * Inlined fragments are stripped of their labels and linked to the
+     * respective interface states by transitions with probability 1, which
+     * replace the interface transitions. Unresolved interfaces are kept.
+     */
+    public FDTMC materialize() {
+        FDTMC materialized = new FDTMC();
+        materialized.setVariableName(base.getVariableName());
+        State[] states = new State[numberOfStates];
+        for (int i = 0; i < numberOfStates; i++) {
+            states[i] = materialized.createState();
+        }
+        appendTransitions(materialized, states, 0);
+        base.setCommonStates(materialized, state -> map(state, states, 0));
+        return materialized;
+    }
+
+    /**
+     * Creates the transitions of this view in {@code destination}, whose
+     * states from {@code start} onwards correspond to the ones of this view.
+     */
+    private void appendTransitions(FDTMC destination, State[] states, int start) {
+        Set<Transition> interfaceTransitions = Collections.newSetFromMap(new IdentityHashMap<Transition, Boolean>());
+        for (Occurrence occurrence: occurrences) {
+            interfaceTransitions.add(occurrence.iface.getSuccessTransition());
+            interfaceTransitions.add(occurrence.iface.getErrorTransition());
+        }
+        for (List<Transition> transitions: base.getTransitions().values()) {
+            if (transitions == null) {
+                continue;
+            }
+            for (Transition transition: transitions) {
+                if (!interfaceTransitions.contains(transition)) {
+                    destination.createTransition(map(transition.getSource(), states, start),
+                                                 map(transition.getTarget(), states, start),
+                                                 transition.getActionName(),
+                                                 transition.getProbability());
+                }
+            }
+        }
+
+        for (Occurrence occurrence: occurrences) {
+            Interface iface = occurrence.iface;
+            State initial = map(iface.getInitial(), states, start);
+            State success = map(iface.getSuccess(), states, start);
+            State error = map(iface.getError(), states, start);
+            if (occurrence.fragment == null) {
+                destination.createInterface(iface.getAbstractedId(), initial, success, error);
+                continue;
+            }
+            FDTMC fragment = occurrence.fragment.base;
+            int fragmentStart = start + occurrence.offset;
+            occurrence.fragment.appendTransitions(destination, states, fragmentStart);
+            destination.createTransition(initial,
+                                         map(fragment.getInitialState(), states, fragmentStart),
+                                         "",
+                                         "1");
+            destination.createTransition(map(fragment.getSuccessState(), states, fragmentStart),
+                                         success,
+                                         "",
+                                         "1");
+            if (fragment.getErrorState() != null) {
+                destination.createTransition(map(fragment.getErrorState(), states, fragmentStart),
+                                             error,
+                                             "",
+                                             "1");
+            }
+        }
+    }
+
+    /**
+     * States are indexed in creation order, so the index of a state is
+     * also its position among the states of the FDTMC it belongs to.
+     */
+    private static State map(State state, State[] states, int start) {
+        return (state != null) ? states[start + state.getIndex()] : null;
+    }
+
+    /**
+     * Interface occurrence, along with the fragment to be inlined in it
+     * ({@code null} if unresolved) and the offset of the fragment's states.
+     */
+    private static class Occurrence {
+        private final Interface iface;
+        private final InlinedFDTMC fragment;
+        private final int offset;
+
+        Occurrence(Interface iface, InlinedFDTMC fragment, int offset) {
+            this.iface = iface;
+            this.fragment = fragment;
+            this.offset = offset;
+        }
+    }
+
+}
@@ -46,8 +46,8 @@ public class InterfaceManager {
             List<Interface> newInterfaces = new LinkedList<Interface>();
             interfaces.put(entry.getKey(), newInterfaces);
             for (Interface iface : entry.getValue()) {
-                Transition successTransition = fdtmc.transitionManager.inlineTransition(iface.getSuccessTransition(), statesOldToNew);
-                Transition errorTransition = fdtmc.transitionManager.inlineTransition(iface.getErrorTransition(), statesOldToNew);
+                Transition successTransition = this.fdtmc.transitionManager.inlineTransition(iface.getSuccessTransition(), statesOldToNew);
+                Transition errorTransition = this.fdtmc.transitionManager.inlineTransition(iface.getErrorTransition(), statesOldToNew);
                 Interface newInterface = new Interface(iface.getAbstractedId(),
                                                        statesOldToNew.get(iface.getInitial()),
                                                        statesOldToNew.get(iface.getSuccess()),
@@ -59,34 +59,6 @@ public class InterfaceManager {
         }
     }
     
-    public void inlineInInterface(Interface iface, FDTMC fragment, Map<State, State> statesMapping) {
-        Map<State, State> fragmentStatesMapping = this.fdtmc.inlineStates(fragment);
-        this.fdtmc.transitionManager.inlineTransitions(fragment, fragmentStatesMapping);
-
-        State initialInlined = iface.getInitial();
-        State initialFragment = fragment.getInitialState();
-        State successInlined = iface.getSuccess();
-        State successFragment = fragment.getSuccessState();
-        State errorInlined = iface.getError();
-        State errorFragment = fragment.getErrorState();
-
-        this.fdtmc.createTransition(statesMapping.get(initialInlined),
-                              fragmentStatesMapping.get(initialFragment),
-                              "",
-                              "1");
-        this.fdtmc.createTransition(fragmentStatesMapping.get(successFragment),
-                              statesMapping.get(successInlined),
-                              "",
-                              "1");
-        if (errorFragment != null) {
-        	this.fdtmc.createTransition(fragmentStatesMapping.get(errorFragment),
-                                  statesMapping.get(errorInlined),
-                                  "",
-                                  "1");
-        }
-    }
-
-	
 	public Map<String, List<Interface>> getInterfaces(){
 		return this.interfaces;
 	}
@@ -0,0 +1,401 @@
+package fdtmc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reduction of an FDTMC which preserves the probability of eventually
+ * reaching a "success" state (for every valuation of the parameters).
+ *
+ * The reduction goes as follows:
+ * <ol>
+ *   <li>All success states are merged into a single target state, and all
+ *       states which cannot reach success at all are merged into a single
+ *       sink state;</li>
+ *   <li>Sequential chains are collapsed: states with a single predecessor
+ *       (and no self-loop) are bypassed by transitions whose probabilities are
+ *       the products of the ones along the chain, and deterministic states
+ *       (i.e., with a single transition of probability 1) are bypassed by
+ *       redirecting their incoming transitions;</li>
+ *   <li>The remaining states are lumped by means of probabilistic bisimulation.
+ *       Since probabilities are symbolic, two states are deemed bisimilar
+ *       if they have the very same probability expressions (syntactically)
+ *       to each block of equivalent states. This is conservative, but sound.
+ *       Chains which show up in the quotient are then collapsed as well.</li>
+ * </ol>
+ *
+ * Collapsing chains first keeps the number of partition refinement rounds
+ * (which grows with the length of the chains) low.
+ *
+ * Probabilities of transitions to the sink do not affect the reachability
+ * probability, so they are written as the complement of the other ones
+ * in the same state.
+ */
+class Minimization {
+
+    /**
+     * Nodes of the reduced graph. All other nodes are either states of
+     * the original FDTMC (shifted by {@link #FIRST_NODE}) or blocks of
+     * bisimilar states.
+     */
+    private static final int TARGET = 0;
+    private static final int SINK = 1;
+    private static final int FIRST_NODE = 2;
+
+    private final CompiledFDTMC fdtmc;
+
+    /**
+     * Transitions to the sink are kept only to record which nodes have
+     * some probability of failing.
+     */
+    private Map<Integer, Map<Integer, String>> successors = new LinkedHashMap<Integer, Map<Integer, String>>();
+    private Map<Integer, Set<Integer>> predecessors = new HashMap<Integer, Set<Integer>>();
+    private int initialNode;
+
+    private Minimization(CompiledFDTMC fdtmc) {
+        this.fdtmc = fdtmc;
+    }
+
+    static CompiledFDTMC minimize(CompiledFDTMC fdtmc) {
+        if (fdtmc.getInitialState() < 0) {
+            return fdtmc;
+        }
+        return new Minimization(fdtmc).minimize();
+    }
+
+    private CompiledFDTMC minimize() {
+        buildGraph(toNodes());
+        collapseChains();
+        if (lump()) {
+            collapseChains();
+        }
+        return toCompiledFDTMC();
+    }
+
+    /**
+     * @return the node of each state: the target for success states, the sink
+     *      for states which cannot reach success, and a node of its own otherwise.
+     */
+    private int[] toNodes() {
+        int numberOfStates = fdtmc.getNumberOfStates();
+        List<List<Integer>> statePredecessors = new ArrayList<List<Integer>>(numberOfStates);
+        for (int state = 0; state < numberOfStates; state++) {
+            statePredecessors.add(new ArrayList<Integer>());
+        }
+        for (int state = 0; state < numberOfStates; state++) {
+            for (int t = fdtmc.getTransitionsStart(state); t < fdtmc.getTransitionsEnd(state); t++) {
+                if (!isZero(fdtmc.getProbability(t))) {
+                    statePredecessors.get(fdtmc.getTarget(t)).add(state);
+                }
+            }
+        }
+
+        int[] nodes = new int[numberOfStates];
+        Arrays.fill(nodes, SINK);
+        Deque<Integer> pending = new ArrayDeque<Integer>();
+        for (int state = 0; state < numberOfStates; state++) {
+            if (fdtmc.hasLabel(state, FDTMC.SUCCESS_LABEL)) {
+                nodes[state] = TARGET;
+                pending.push(state);
+            }
+        }
+        while (!pending.isEmpty()) {
+            for (int predecessor: statePredecessors.get(pending.pop())) {
+                if (nodes[predecessor] == SINK) {
+                    nodes[predecessor] = FIRST_NODE + predecessor;
+                    pending.push(predecessor);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private void buildGraph(int[] nodes) {
+        initialNode = nodes[fdtmc.getInitialState()];
+        for (int state = 0; state < fdtmc.getNumberOfStates(); state++) {
+            int node = nodes[state];
+            if (node == TARGET || node == SINK) {
+                continue;
+            }
+            addNode(node);
+            for (int t = fdtmc.getTransitionsStart(state); t < fdtmc.getTransitionsEnd(state); t++) {
+                if (!isZero(fdtmc.getProbability(t))) {
+                    addEdge(node, nodes[fdtmc.getTarget(t)], fdtmc.getProbability(t));
+                }
+            }
+        }
+    }
+
+    private void addNode(int node) {
+        successors.put(node, new LinkedHashMap<Integer, String>());
+        predecessors.putIfAbsent(node, new HashSet<Integer>());
+    }
+
+    private void addEdge(int source, int target, String probability) {
+        if (target == SINK) {
+            // Only the existence of the transition matters (see toCompiledFDTMC()).
+            successors.get(source).put(target, "");
+        } else {
+            successors.get(source).merge(target, probability, Minimization::sum);
+        }
+        predecessors.computeIfAbsent(target, k -> new HashSet<Integer>()).add(source);
+    }
+
+    private void collapseChains() {
+        Deque<Integer> pending = new ArrayDeque<Integer>(successors.keySet());
+        while (!pending.isEmpty()) {
+            int node = pending.poll();
+            if (node == initialNode || !successors.containsKey(node)) {
+                continue;
+            }
+            Map<Integer, String> outgoing = successors.get(node);
+            Set<Integer> incoming = predecessors.get(node);
+            if (outgoing.containsKey(node) || incoming.isEmpty()) {
+                continue;
+            }
+            boolean isDeterministic = outgoing.size() == 1
+                    && !outgoing.containsKey(SINK)
+                    && isOne(outgoing.values().iterator().next());
+            if (!isDeterministic && incoming.size() != 1) {
+                continue;
+            }
+            successors.remove(node);
+            predecessors.remove(node);
+            for (int successor: outgoing.keySet()) {
+                predecessors.get(successor).remove(node);
+            }
+            for (int predecessor: incoming) {
+                String toNode = successors.get(predecessor).remove(node);
+                for (Map.Entry<Integer, String> edge: outgoing.entrySet()) {
+                    addEdge(predecessor, edge.getKey(), product(toNode, edge.getValue()));
+                }
+                pending.add(predecessor);
+            }
+            pending.addAll(outgoing.keySet());
+        }
+    }
+
+    /**
+     * Replaces the graph by its quotient under (syntactic) bisimulation.
+     *
+     * @return whether any nodes were lumped together.
+     */
+    private boolean lump() {
+        Map<String, Integer> expressionIds = new HashMap<String, Integer>();
+        Map<Integer, Integer> blocks = new HashMap<Integer, Integer>();
+        blocks.put(TARGET, TARGET);
+        blocks.put(SINK, SINK);
+        for (int node: successors.keySet()) {
+            blocks.put(node, FIRST_NODE);
+        }
+        int numberOfBlocks = successors.isEmpty() ? FIRST_NODE : FIRST_NODE + 1;
+        while (true) {
+            Map<List<Integer>, Integer> signatures = new HashMap<List<Integer>, Integer>();
+            Map<Integer, Integer> refined = new HashMap<Integer, Integer>(blocks);
+            for (int node: successors.keySet()) {
+                List<Integer> signature = signature(node, blocks, expressionIds);
+                Integer block = signatures.get(signature);
+                if (block == null) {
+                    block = FIRST_NODE + signatures.size();
+                    signatures.put(signature, block);
+                }
+                refined.put(node, block);
+            }
+            blocks = refined;
+            int refinedNumberOfBlocks = FIRST_NODE + signatures.size();
+            if (refinedNumberOfBlocks == numberOfBlocks) {
+                break;
+            }
+            numberOfBlocks = refinedNumberOfBlocks;
+        }
+        if (numberOfBlocks - FIRST_NODE == successors.size()) {
+            return false;
+        }
+
+        Map<Integer, Map<Integer, String>> nodeSuccessors = successors;
+        successors = new LinkedHashMap<Integer, Map<Integer, String>>();
+        predecessors = new HashMap<Integer, Set<Integer>>();
+        initialNode = blocks.get(initialNode);
+        for (Map.Entry<Integer, Map<Integer, String>> entry: nodeSuccessors.entrySet()) {
+            int block = blocks.get(entry.getKey());
+            if (successors.containsKey(block)) {
+                continue;
+            }
+            addNode(block);
+            for (Map.Entry<Integer, String> edge: entry.getValue().entrySet()) {
+                addEdge(block, blocks.get(edge.getKey()), edge.getValue());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the current block of {@code node} followed by the sorted
+     *      (block, probability) pairs of its transitions to non-sink nodes.
+     */
+    private List<Integer> signature(int node, Map<Integer, Integer> blocks, Map<String, Integer> expressionIds) {
+        Map<Integer, String> outgoing = successors.get(node);
+        long[] edges = new long[outgoing.size()];
+        int count = 0;
+        for (Map.Entry<Integer, String> edge: outgoing.entrySet()) {
+            if (edge.getKey() != SINK) {
+                Integer expressionId = expressionIds.computeIfAbsent(edge.getValue(), k -> expressionIds.size());
+                edges[count++] = ((long) blocks.get(edge.getKey()) << 32) | expressionId;
+            }
+        }
+        Arrays.sort(edges, 0, count);
+        List<Integer> signature = new ArrayList<Integer>(2 * count + 1);
+        signature.add(blocks.get(node));
+        for (int i = 0; i < count; i++) {
+            signature.add((int) (edges[i] >>> 32));
+            signature.add((int) edges[i]);
+        }
+        return signature;
+    }
+
+    private CompiledFDTMC toCompiledFDTMC() {
+        // Initial state first, then the remaining ones, the target, and the sink.
+        List<Integer> order = new ArrayList<Integer>();
+        order.add(initialNode);
+        for (int node: successors.keySet()) {
+            if (node != initialNode) {
+                order.add(node);
+            }
+        }
+        if (initialNode != TARGET) {
+            order.add(TARGET);
+        }
+        if (initialNode != SINK) {
+            order.add(SINK);
+        }
+
+        Map<Integer, Integer> ids = new HashMap<Integer, Integer>();
+        for (int i = 0; i < order.size(); i++) {
+            ids.put(order.get(i), i);
+        }
+        int numberOfStates = order.size();
+        String[] labels = new String[numberOfStates];
+        labels[0] = FDTMC.INITIAL_LABEL;
+        labels[ids.get(TARGET)] = FDTMC.SUCCESS_LABEL;
+        if (initialNode != SINK) {
+            labels[ids.get(SINK)] = FDTMC.ERROR_LABEL;
+        }
+
+        int[] rowStart = new int[numberOfStates + 1];
+        List<Integer> targets = new ArrayList<Integer>();
+        List<String> probabilities = new ArrayList<String>();
+        for (int i = 0; i < numberOfStates; i++) {
+            rowStart[i] = targets.size();
+            Map<Integer, String> outgoing = successors.get(order.get(i));
+            if (outgoing == null) {
+                continue;
+            }
+            List<String> toNonSink = new ArrayList<String>();
+            for (Map.Entry<Integer, String> edge: outgoing.entrySet()) {
+                if (edge.getKey() != SINK) {
+                    targets.add(ids.get(edge.getKey()));
+                    probabilities.add(edge.getValue());
+                    toNonSink.add(edge.getValue());
+                }
+            }
+            if (outgoing.containsKey(SINK)) {
+                targets.add(ids.get(SINK));
+                probabilities.add(complement(toNonSink));
+            }
+        }
+        rowStart[numberOfStates] = targets.size();
+
+        int[] stateIndices = new int[numberOfStates];
+        for (int i = 0; i < numberOfStates; i++) {
+            stateIndices[i] = i;
+        }
+        return new CompiledFDTMC(fdtmc.getVariableName(),
+                                 0,
+                                 stateIndices,
+                                 labels,
+                                 rowStart,
+                                 targets.stream().mapToInt(Integer::intValue).toArray(),
+                                 probabilities.toArray(new String[probabilities.size()]));
+    }
+
+    private static String sum(String p1, String p2) {
+        return p1 + "+" + p2;
+    }
+
+    private static String product(String p1, String p2) {
+        if (isOne(p1)) {
+            return p2;
+        } else if (isOne(p2)) {
+            return p1;
+        }
+        return parenthesize(p1) + "*" + parenthesize(p2);
+    }
+
+    private static String complement(List<String> probabilities) {
+        StringBuilder complement = new StringBuilder("1");
+        for (String probability: probabilities) {
+            complement.append("-").append(parenthesize(probability));
+        }
+        return complement.toString();
+    }
+
+    /**
+     * Encloses {@code probability} in parentheses unless it is a single
+     * number or identifier (or already a product, which binds tightly enough).
+     */
+    private static String parenthesize(String probability) {
+        int depth = 0;
+        for (int i = 0; i < probability.length(); i++) {
+            char c = probability.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && (c == '+' || c == '/' || Character.isWhitespace(c)
+                    || (c == '-' && !isExponentSign(probability, i)))) {
+                return "(" + probability + ")";
+            }
+        }
+        return probability;
+    }
+
+    /**
+     * @return whether the minus sign at position {@code i} belongs to a number
+     *      in scientific notation (e.g., 1.0E-4).
+     */
+    private static boolean isExponentSign(String probability, int i) {
+        if (i < 2 || (probability.charAt(i - 1) != 'E' && probability.charAt(i - 1) != 'e')) {
+            return false;
+        }
+        int j = i - 2;
+        while (j >= 0 && (Character.isDigit(probability.charAt(j)) || probability.charAt(j) == '.')) {
+            j--;
+        }
+        return j < i - 2 && (j < 0 || !Character.isJavaIdentifierPart(probability.charAt(j)));
+    }
+
+    private static boolean isZero(String probability) {
+        return isConstant(probability, 0);
+    }
+
+    private static boolean isOne(String probability) {
+        return isConstant(probability, 1);
+    }
+
+    private static boolean isConstant(String probability, double value) {
+        try {
+            return Double.parseDouble(probability.trim()) == value;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+}
@@ -1,7 +1,8 @@
 package fdtmc;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -72,7 +73,7 @@ public class TransitionManager {
      * @param statesOldToNew
      */
     public void inlineTransitions(FDTMC fdtmc, Map<State, State> statesOldToNew) {
-        Set<Transition> interfaceTransitions = getInterfaceTransitions();
+        Set<Transition> interfaceTransitions = getInterfaceTransitions(fdtmc);
         for (Map.Entry<State, List<Transition>> entry : fdtmc.getTransitions().entrySet()) {
             List<Transition> transitions = entry.getValue();
             if (transitions != null) {
@@ -85,8 +86,12 @@ public class TransitionManager {
         }
     }
     
-    private Set<Transition> getInterfaceTransitions() {
-        Set<Transition> transitions = new HashSet<Transition>();
+    /**
+     * Transitions are compared by identity, since different transitions
+     * may be equal (see {@link Transition#equals(Object)}).
+     */
+    private static Set<Transition> getInterfaceTransitions(FDTMC fdtmc) {
+        Set<Transition> transitions = Collections.newSetFromMap(new IdentityHashMap<Transition, Boolean>());
         fdtmc.getInterfaces().values().stream().flatMap(List<Interface>::stream)
                 .forEach(iface -> {
                     transitions.add(iface.getSuccessTransition());
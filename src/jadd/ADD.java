@@ -1,103 +1,131 @@
 package jadd;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.Spliterator;
-import java.util.Spliterators.AbstractSpliterator;
-import java.util.function.Consumer;
+import java.util.concurrent.locks.Lock;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.bridj.Pointer;
 
-import tool.UnknownFeatureException;
-import bigcudd.BigcuddLibrary;
-import bigcudd.BigcuddLibrary.Cudd_addApply_arg1_callback;
-import bigcudd.BigcuddLibrary.DdGen;
 import bigcudd.BigcuddLibrary.DdManager;
 import bigcudd.DdNode;
+import jadd.Backend.Operator;
 
 /**
  * ADD - constant, variable or function alike.
+ *
+ * Each ADD holds a reference to its node, which is released either
+ * explicitly, by {@link #close()} (or by closing the {@link ADDScope} in which
+ * it was created), or, as a fallback, some time after the ADD becomes
+ * unreachable. Released nodes are reclaimed by the backend's garbage collector.
+ * An ADD must not be used after it is closed.
+ *
+ * ADDs can be operated on from multiple threads. Evaluations are carried out
+ * concurrently, but, unless the backend is thread-safe, operations which
+ * create, reference or release nodes are serialized (see {@link JADD}).
+ *
  * @author thiago
  *
  */
-public class ADD {
+public class ADD implements AutoCloseable {
     private static double FLOATING_POINT_PRECISION = 1E-14;
+    private static final Cleaner CLEANER = Cleaner.create();
 
-    private Pointer<DdNode> function;
-    private Pointer<DdManager> dd;
+    private long function;
+    private Backend backend;
     private VariableStore variableStore;
-    
-    ADD(Pointer<DdManager> dd, Pointer<DdNode> function, VariableStore variableStore) {
-        this.dd = dd;
+    private JADD jadd;
+    private Cleaner.Cleanable cleanable;
+
+    /**
+     * Must be called while holding the manager's lock for updates.
+     *
+     * @param permanent whether the node is to be kept for the lifetime of
+     *          the manager (e.g., for variables), in which case closing this
+     *          ADD has no effect.
+     */
+    ADD(JADD jadd, long function, boolean permanent) {
+        this.jadd = jadd;
+        this.backend = jadd.getBackend();
         this.function = function;
-        this.variableStore = variableStore;
-        BigcuddLibrary.Cudd_Ref(this.function);
+        this.variableStore = jadd.getVariableStore();
+        backend.ref(function);
+        if (!permanent) {
+            this.cleanable = CLEANER.register(this, jadd.releaseLater(function));
+        }
     }
 
     /**
-     * Overriding finalize in order to free CUDD allocated memory.
+     * Releases the underlying node, so that it can be garbage-collected
+     * if no other ADD refers to it. Closing an ADD more than once
+     * has no further effect.
      */
     @Override
-    protected void finalize() throws Throwable {
-//        BigcuddLibrary.Cudd_Deref(function);
-        super.finalize();
+    public void close() {
+        release();
+        jadd.releasePending();
+    }
+
+    /**
+     * Marks the underlying node for release, which takes effect at the
+     * next call to {@link JADD#releasePending()}.
+     */
+    void release() {
+        if (cleanable != null) {
+            cleanable.clean();
+        }
     }
 
     public ADD plus(ADD other) {
-        return apply(other, PLUS);
+        return apply(other, Operator.PLUS);
     }
 
     public ADD minus(ADD other) {
-        return apply(other, MINUS);
+        return apply(other, Operator.MINUS);
     }
 
     public ADD times(ADD other) {
-        return apply(other, TIMES);
+        return apply(other, Operator.TIMES);
     }
 
     public ADD dividedBy(ADD other) {
-        return apply(other, DIVIDE);
+        return apply(other, Operator.DIVIDE);
     }
 
     public ADD and(ADD other) {
-        return apply(other, TIMES);
+        return apply(other, Operator.TIMES);
     }
 
     public ADD or(ADD other) {
-        return apply(other, LOGICAL_OR);
+        return apply(other, Operator.LOGICAL_OR);
     }
 
-    private ADD apply(ADD other, Cudd_addApply_arg1_callback operation) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addApply(dd,
-                                                              Pointer.getPointer(operation),
-                                                              this.function,
-                                                              other.function);
-        return new ADD(dd, result, variableStore);
+    private ADD apply(ADD other, Operator operator) {
+        return jadd.updating(() -> jadd.wrap(backend.apply(operator, this.function, other.function)));
     }
 
     /**
      * @return negated form (corresponding to unary minus).
      */
     public ADD negate() {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addNegate(dd, this.function),
-                       variableStore);
+        return jadd.updating(() -> jadd.wrap(backend.negate(this.function)));
     }
 
     /**
      * @return complemented form (corresponding to logical not).
      */
     public ADD complement() {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addCmpl(dd, this.function),
-                       variableStore);
+        return jadd.updating(() -> jadd.wrap(backend.complement(this.function)));
     }
 
     /**
@@ -105,23 +133,20 @@ public class ADD {
      * as the conditional.
      */
     public ADD ifThenElse(ADD ifTrue, ADD ifFalse) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addIte(dd,
-                                                            this.function,
-                                                            ifTrue.function,
-                                                            ifFalse.function);
-        return new ADD(dd, result, variableStore);
+        return jadd.updating(() -> jadd.wrap(backend.ite(this.function,
+                                                         ifTrue.function,
+                                                         ifFalse.function)));
     }
 
     /**
      * Overloading for constant fallbacks.
      */
     public ADD ifThenElse(ADD ifTrue, double ifFalse) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addIte(dd,
-                                                            this.function,
-                                                            ifTrue.function,
-                                                            BigcuddLibrary.Cudd_addConst(dd,
-                                                                                         ifFalse));
-        return new ADD(dd, result, variableStore);
+        // The constant must be referenced, lest it be garbage-collected
+        // during the operation.
+        try (ADD fallback = jadd.makeConstant(ifFalse)) {
+            return ifThenElse(ifTrue, fallback);
+        }
     }
 
     /**
@@ -135,43 +160,115 @@ public class ADD {
         return new VariableGetter(this).getVariables();
     }
 
+    /**
+     * @return a 0-1 vector indexed by variable, in which 1 marks the
+     *      variables this function depends on.
+     */
+    int[] getSupport() {
+        // CUDD marks nodes while computing the support.
+        return jadd.updating(() -> backend.support(function));
+    }
+
     public List<String> getVariableOrder() {
-        List<String> variables = new ArrayList<String>();
-        for (int pos = 0; pos < variableStore.getNumberOfVariables(); pos++) {
-            int varIndex = BigcuddLibrary.Cudd_ReadInvPerm(dd, pos);
-            String varName = variableStore.getName((short)varIndex);
-            variables.add(varName);
-        }
-        return variables;
+        return jadd.getVariableOrder();
     }
 
     public double eval(String[] variables) throws UnrecognizedVariableException {
-        int[] presenceVector = variableStore.toPresenceVector(variables);
-        Pointer<DdNode> terminal = BigcuddLibrary.Cudd_Eval(dd,
-                                                            function,
-                                                            Pointer.pointerToInts(presenceVector));
-        DdNode terminalNode = terminal.get();
-        return terminalNode.type().value();
+        Lock lock = jadd.sharedLock();
+        lock.lock();
+        try {
+            int[] presenceVector = variableStore.toPresenceVector(variables);
+            return backend.eval(function, presenceVector);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public double eval(List<String> variables) throws UnrecognizedVariableException {
         return eval(variables.toArray(new String[variables.size()]));
     }
 
+    public double eval(Configuration configuration) {
+        checkVariableStore(configuration);
+        Lock lock = jadd.sharedLock();
+        lock.lock();
+        try {
+            int[] presenceVector = configuration.toPresenceVector(variableStore.getNumberOfVariables());
+            return backend.eval(function, presenceVector);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evaluates this ADD for many configurations in a single pass, which
+     * spares the per-call overhead of {@link #eval(Configuration)}.
+     * @return the values for each configuration, in the same order.
+     */
+    public double[] evalAll(List<Configuration> configurations) {
+        Lock lock = jadd.sharedLock();
+        lock.lock();
+        try {
+            int words = variableStore.getPresenceBitsLength();
+            long[] bits = new long[configurations.size() * words];
+            int offset = 0;
+            for (Configuration configuration : configurations) {
+                checkVariableStore(configuration);
+                configuration.copyPresenceBits(bits, offset);
+                offset += words;
+            }
+            double[] values = new double[configurations.size()];
+            backend.eval(function, bits, words, values);
+            return values;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkVariableStore(Configuration configuration) {
+        if (configuration.getVariableStore() != variableStore) {
+            throw new IllegalArgumentException("Configuration from another manager: " + configuration);
+        }
+    }
+
+    /**
+     * Evaluates this ADD for configurations packed as presence bits.
+     * @param configurations {@code words} longs per configuration, as
+     *      yielded by {@link VariableStore#toPresenceBits(Collection, long[], int)}.
+     * @param values where the value for each configuration is written.
+     */
+    public void eval(long[] configurations, int words, double[] values) {
+        Lock lock = jadd.sharedLock();
+        lock.lock();
+        try {
+            backend.eval(function, configurations, words, values);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Checks if a configuration is valid (non-zero).
      * @param configuration
      * @return
-     * @throws UnknownFeatureException
      */
-    public boolean isValidConfiguration(Collection<String> configuration) throws UnknownFeatureException {
-        double validity;
-        try {
-            validity = eval(configuration.toArray(new String[configuration.size()]));
-        } catch (UnrecognizedVariableException e) {
-            throw new UnknownFeatureException(e.getVariableName());
-        }
-        return Double.doubleToRawLongBits(validity) != 0;
+    public boolean isValidConfiguration(Configuration configuration) {
+        return Double.doubleToRawLongBits(eval(configuration)) != 0;
+    }
+
+    /**
+     * Compiles this ADD into a test for valid (non-zero) configurations.
+     *
+     * The test works on a copy of the diagram, so it takes no locks and can
+     * be shared among threads, and it outlives both this ADD and any
+     * reordering of the manager's variables.
+     */
+    public Predicate<Configuration> toPredicate() {
+        DiagramCopy diagram = jadd.shared(() -> backend.copy(function));
+        return configuration -> {
+            checkVariableStore(configuration);
+            return Double.doubleToRawLongBits(diagram.eval(configuration)) != 0;
+        };
     }
 
     /**
@@ -182,8 +279,73 @@ public class ADD {
      * two different configurations: ["A", "B", "C"] and ["A", "C"].
      * @return
      */
-    public Stream<Collection<String>> getExpandedConfigurations() {
-        return StreamSupport.stream(new CubeSpliterator(), true);
+    public Stream<Configuration> getExpandedConfigurations() {
+        return getExpandedPresenceBits().map(variableStore::toConfiguration);
+    }
+
+    /**
+     * Returns a parallel stream of valid (non-zero) configurations for this ADD
+     * as presence bits (see {@link VariableStore#toPresenceBits(Collection, long[], int)}),
+     * expanding "don't care" variables lazily.
+     *
+     * The stream splits by cofactors of the diagram, so that the enumeration
+     * itself runs in parallel. It works on a copy of the diagram, so it is not
+     * affected by operations (e.g., reordering) carried out meanwhile.
+     */
+    public Stream<long[]> getExpandedPresenceBits() {
+        DiagramCopy diagram = jadd.shared(() -> backend.copy(function));
+        return StreamSupport.stream(new ConfigurationSpliterator(diagram), true);
+    }
+
+    /**
+     * Returns the distinct values this ADD can take, in ascending order.
+     * There are as many as there are terminals, so this takes no enumeration
+     * of configurations.
+     */
+    public double[] getTerminalValues() {
+        return jadd.shared(() -> backend.copy(function)).terminalValues();
+    }
+
+    /**
+     * Returns the number of assignments to all variables of the manager
+     * for which this ADD is non-zero.
+     */
+    public double getNonZeroConfigurationsCount() {
+        DiagramCopy diagram = jadd.shared(() -> backend.copy(function));
+        int root = diagram.root();
+        return diagram.countNonZeroAssignments()[root] * Math.pow(2, diagram.level[root]);
+    }
+
+    /**
+     * Returns a 0,1-ADD which is 1 exactly where the value of this ADD
+     * lies within [{@code lower}, {@code upper}].
+     */
+    public ADD inRange(double lower, double upper) {
+        return mapTerminals(value -> lower <= value && value <= upper ? 1 : 0);
+    }
+
+    /**
+     * Returns the ADD which results from replacing each terminal of this one
+     * by the result of {@code mapping}.
+     */
+    ADD mapTerminals(DoubleUnaryOperator mapping) {
+        DiagramCopy diagram = jadd.shared(() -> backend.copy(function));
+        return jadd.rebuild(diagram, variableStore::getName, mapping);
+    }
+
+    /**
+     * Stores this ADD in binary form, so that it can be evaluated without
+     * a manager or loaded back into one.
+     * @see StoredADD
+     * @see JADD#load(Path)
+     */
+    public void store(Path file) throws IOException {
+        DiagramCopy diagram = jadd.shared(() -> backend.copy(function));
+        String[] names = new String[diagram.numVars];
+        for (int var = 0; var < names.length; var++) {
+            names[var] = variableStore.getName(var);
+        }
+        StoredADD.write(diagram, names, file);
     }
 
     /**
@@ -191,7 +353,7 @@ public class ADD {
     * @return
     */
     public int getNodeCount() {
-        return BigcuddLibrary.Cudd_DagSize(function);
+        return jadd.updating(() -> backend.dagSize(function));
     }
 
     /**
@@ -199,7 +361,7 @@ public class ADD {
      * @return
      */
     public boolean isConstant() {
-        return 1 != BigcuddLibrary.Cudd_IsNonConstant(function);
+        return jadd.shared(() -> backend.isConstant(function));
     }
 
     static Collection<List<String>> expandDontCares(List<String> config) {
@@ -273,171 +435,89 @@ public class ADD {
             return false;
         }
         ADD other = (ADD) obj;
-        return this.function.equals(other.function)
-                || (BigcuddLibrary.Cudd_EqualSupNorm(dd,
-                                                     this.function,
-                                                     other.function,
-                                                     ADD.FLOATING_POINT_PRECISION,
-                                                     1) == 1);
+        return this.function == other.function
+                || jadd.shared(() -> backend.equalSupNorm(this.function,
+                                                          other.function,
+                                                          ADD.FLOATING_POINT_PRECISION));
     }
 
     public int getDeadNodesCount() {
-    	return BigcuddLibrary.Cudd_ReadDead(dd);
+    	return jadd.shared(backend::readDead);
+    }
+
+    public long getLiveNodesCount() {
+    	return jadd.getLiveNodeCount();
     }
 
     public int getTerminalsDifferentThanZeroCount() {
-    	return BigcuddLibrary.Cudd_CountLeaves(function) - 1;
+    	return jadd.updating(() -> backend.countLeaves(function)) - 1;
     }
 
     public double getPathsToNonZeroTerminalsCount() {
-    	return BigcuddLibrary.Cudd_CountPathsToNonZero(function);
+    	return jadd.updating(() -> backend.countPathsToNonZero(function));
     }
 
     public double getPathsToZeroTerminalCount() {
-    	return BigcuddLibrary.Cudd_CountPath(function) - getPathsToNonZeroTerminalsCount();
+    	return jadd.updating(() -> backend.countPath(function)) - getPathsToNonZeroTerminalsCount();
     }
 
     public int getReorderingsCount() {
-    	return BigcuddLibrary.Cudd_ReadReorderings(dd);
+    	return jadd.shared(backend::readReorderings);
     }
 
     public int getGarbageCollectionsCount() {
-    	return BigcuddLibrary.Cudd_ReadGarbageCollections(dd);
+    	return jadd.shared(backend::readGarbageCollections);
     }
 
     public long getAddSizeInBytes() {
-    	return BigcuddLibrary.Cudd_ReadMemoryInUse(dd);
+    	return jadd.shared(backend::readMemoryInUse);
+    }
+
+    public long getReorderingTime() {
+    	return jadd.getReorderingTime();
+    }
+
+    public double getCacheLookUpsCount() {
+    	return jadd.getCacheLookUps();
+    }
+
+    public double getCacheHitsCount() {
+    	return jadd.getCacheHits();
     }
 
     @Override
     public int hashCode() {
-        return this.function.hashCode();
+        return Long.hashCode(this.function);
     }
 
-    Pointer<DdNode> getUnderlyingNode() {
+    long getUnderlyingNode() {
         return this.function;
     }
-    
+
+    /**
+     * @throws UnsupportedOperationException unless the ADD is backed by CUDD.
+     */
     public Pointer<DdNode> getFunction() {
-    	return this.function;
+        getCuddBackend();
+    	return CuddBackend.toPointer(this.function);
     }
-    
+
+    /**
+     * @throws UnsupportedOperationException unless the ADD is backed by CUDD.
+     */
     public Pointer<DdManager> getDD() {
-    	return this.dd;
-    }
-    
-    public VariableStore getVariableStore() {
-    	return this.variableStore;
+    	return getCuddBackend().getManager();
     }
 
-    /**************************************************************
-     *** Operators definitions
-     *************************************************************/
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback TIMES = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addTimes(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback PLUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addPlus(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback DIVIDE = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addDivide(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback MINUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addMinus(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback LOGICAL_OR = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addOr(dd, node1, node2);
-        }
-    };
-
-    private class CubeSpliterator extends AbstractSpliterator<Collection<String>> {
-
-        private Pointer<Pointer<Integer>> cubePtr;
-        private Pointer<Double> valuePtr;
-        private Pointer<DdGen> generator;
-        private int numVars;
-        private Iterator<List<String>> expandedIterator;
-
-        protected CubeSpliterator() {
-            super((long) BigcuddLibrary.Cudd_CountPathsToNonZero(function),
-                  Spliterator.SIZED | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.ORDERED);
-
-            Pointer<Integer> dummy = Pointer.allocateInt();
-            // A pointer to a freshly allocated pointer to int.
-            // As Cudd_FirstCube and Cudd_NextCube allocate the returned cubes,
-            // allocating a whole int[] here makes no sense. Thus, we allocate
-            // only the position where the address to the generated cubes are
-            // to be stored.
-            cubePtr = Pointer.pointerToPointer(dummy);
-            // A pointer to a freshly allocated double.
-            valuePtr = Pointer.pointerToDouble(0);
-
-            // So let's start the iteration!
-            generator = BigcuddLibrary.Cudd_FirstCube(dd,
-                                                      function,
-                                                      cubePtr,
-                                                      valuePtr);
-            numVars = BigcuddLibrary.Cudd_ReadSize(dd);
-
-        }
-
-        @Override
-        public boolean tryAdvance(Consumer<? super Collection<String>> action) {
-            if (expandedIterator == null || !expandedIterator.hasNext()) {
-                final boolean isGeneratorEmpty = BigcuddLibrary.Cudd_IsGenEmpty(generator) == 0;
-            	if (isGeneratorEmpty) {
-                    Pointer<Integer> cube = cubePtr.getPointer(Integer.class);
-                    int[] presenceVector = cube.getInts(numVars);
-                    List<String> configuration = variableStore.fromPresenceVector(presenceVector);
-
-                    Collection<List<String>> expanded = expandDontCares(configuration);
-                    expandedIterator = expanded.iterator();
-
-                    BigcuddLibrary.Cudd_NextCube(generator,
-                            cubePtr,
-                            valuePtr);
-                } else {
-                    if (generator != null) {
-                        BigcuddLibrary.Cudd_GenFree(generator);
-                        generator = null;
-                    }
-                    return false;
-                }
-            }
-
-            action.accept(expandedIterator.next());
-            return true;
+    private CuddBackend getCuddBackend() {
+        if (!(backend instanceof CuddBackend)) {
+            throw new UnsupportedOperationException("Not a CUDD-backed ADD");
         }
+        return (CuddBackend) backend;
+    }
 
+    public VariableStore getVariableStore() {
+    	return this.variableStore;
     }
 
 }
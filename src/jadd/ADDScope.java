@@ -0,0 +1,76 @@
+package jadd;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Arena of ADDs created by a single thread during some phase of a
+ * computation, so that all intermediate results can be released at once.
+ *
+ * @see JADD#openScope()
+ */
+public final class ADDScope implements AutoCloseable {
+
+    private JADD jadd;
+    private ADDScope parent;
+    private Set<ADD> owned = Collections.newSetFromMap(new IdentityHashMap<ADD, Boolean>());
+    private boolean closed = false;
+
+    ADDScope(JADD jadd, ADDScope parent) {
+        this.jadd = jadd;
+        this.parent = parent;
+    }
+
+    ADDScope getParent() {
+        return parent;
+    }
+
+    void track(ADD add) {
+        owned.add(add);
+    }
+
+    /**
+     * Lets {@code add} outlive this scope. If this scope is nested,
+     * the enclosing one takes ownership of it.
+     *
+     * @return {@code add}, for convenience.
+     */
+    public ADD keep(ADD add) {
+        if (owned.remove(add) && parent != null) {
+            parent.track(add);
+        }
+        return add;
+    }
+
+    /**
+     * Lets {@code add} outlive this scope and all enclosing ones, e.g., to
+     * be cached. It is then up to the caller to close it.
+     *
+     * @return {@code add}, for convenience.
+     */
+    public ADD detach(ADD add) {
+        for (ADDScope scope = this; scope != null; scope = scope.parent) {
+            scope.owned.remove(add);
+        }
+        return add;
+    }
+
+    /**
+     * Releases every ADD created within this scope which was not kept.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        jadd.closeScope(this);
+        closed = true;
+        for (ADD add : owned) {
+            add.release();
+        }
+        owned.clear();
+        jadd.releasePending();
+    }
+
+}
@@ -0,0 +1,172 @@
+package jadd;
+
+/**
+ * Decision diagram package on top of which ADDs are implemented.
+ *
+ * Nodes are referred to by opaque handles. Results of operations are not
+ * referenced, so they must be referenced (see {@link #ref(long)}) before the
+ * next operation, lest they be garbage-collected.
+ *
+ * Unless the backend is thread-safe, the caller must serialize all calls
+ * but those documented as read-only.
+ */
+interface Backend {
+
+    /**
+     * Binary operations over ADDs.
+     */
+    enum Operator {
+        PLUS,
+        MINUS,
+        TIMES,
+        DIVIDE,
+        LOGICAL_OR
+    }
+
+    /**
+     * @return whether operations other than reordering and garbage
+     *      collection can be called concurrently.
+     */
+    boolean isThreadSafe();
+
+    long constant(double value);
+
+    /**
+     * @return the projection function of a new variable, whose index is
+     *      the number of previously created variables.
+     */
+    long newVariable();
+
+    long apply(Operator operator, long f, long g);
+
+    long ite(long f, long g, long h);
+
+    long negate(long f);
+
+    /**
+     * @return the complement of {@code f} a la C language (i.e., 1 where
+     *      {@code f} is 0 and 0 elsewhere).
+     */
+    long complement(long f);
+
+    void ref(long f);
+
+    /**
+     * Releases a reference, possibly making the node and its descendants dead.
+     */
+    void deref(long f);
+
+    /**
+     * Read-only.
+     */
+    double eval(long f, int[] presenceVector);
+
+    /**
+     * Evaluates {@code f} for many configurations at once. Read-only.
+     *
+     * @param configurations packed presence bits: the i-th configuration
+     *      takes the {@code words} longs starting at {@code i * words}, and
+     *      its j-th bit is set iff the variable of index j is present.
+     * @param values where the value for the i-th configuration is written.
+     */
+    void eval(long f, long[] configurations, int words, double[] values);
+
+    /**
+     * Read-only.
+     */
+    boolean isConstant(long f);
+
+    /**
+     * Read-only.
+     */
+    boolean equalSupNorm(long f, long g, double tolerance);
+
+    int dagSize(long f);
+
+    /**
+     * @return a 0-1 vector indexed by variable, in which 1 marks the
+     *      variables {@code f} depends on.
+     */
+    int[] support(long f);
+
+    int countLeaves(long f);
+
+    double countPathsToNonZero(long f);
+
+    double countPath(long f);
+
+    /**
+     * Read-only.
+     */
+    int readSize();
+
+    /**
+     * Read-only.
+     * @return the index of the variable at the given level.
+     */
+    int readInvPerm(int level);
+
+    int readDead();
+
+    long readNodeCount();
+
+    int readReorderings();
+
+    int readGarbageCollections();
+
+    long readMemoryInUse();
+
+    /**
+     * Read-only.
+     * @return the number of computed table lookups so far.
+     */
+    double readCacheLookUps();
+
+    /**
+     * Read-only.
+     * @return the number of computed table lookups which found a result.
+     */
+    double readCacheHits();
+
+    /**
+     * Read-only.
+     * @return the time (in milliseconds) spent reordering variables so far.
+     */
+    long readReorderingTime();
+
+    /**
+     * Reorders variables by the configured method (see {@link ManagerSettings}).
+     */
+    void reduceHeap();
+
+    /**
+     * Reorders variables so that the i-th level holds the variable
+     * whose index is {@code permutation[i]}.
+     */
+    void shuffleHeap(int[] permutation);
+
+    /**
+     * Read-only.
+     * @return a copy of the nodes of {@code f}, along with the current
+     *      variable order.
+     */
+    DiagramCopy copy(long f);
+
+    void dumpDot(long[] functions, String[] variableNames, String[] functionNames, String fileName);
+
+    /**
+     * @return whether it is worth calling {@link #collectGarbage()}, which
+     *      the caller must do when no other operation is in progress.
+     */
+    boolean wantsGarbageCollection();
+
+    void collectGarbage();
+
+    /**
+     * @return whether automatic reordering is due, in which case the caller
+     *      must call {@link #reduceHeap()} when no other operation is in
+     *      progress. Backends which reorder by themselves never ask for it.
+     */
+    boolean wantsReordering();
+
+}
@@ -0,0 +1,38 @@
+package jadd;
+
+/**
+ * Decision diagram packages on top of which ADDs can be implemented.
+ */
+public enum BackendType {
+    /**
+     * CUDD, by means of a native library.
+     */
+    CUDD,
+    /**
+     * Plain Java, which needs no native library and runs operations concurrently.
+     */
+    JAVA;
+
+    /**
+     * System property which sets the default backend (e.g., -Djadd.backend=JAVA).
+     */
+    public static final String PROPERTY = "jadd.backend";
+
+    /**
+     * @return the backend set by the {@link #PROPERTY} system property
+     *      or, if it is not set, CUDD.
+     */
+    public static BackendType getDefault() {
+        return valueOf(System.getProperty(PROPERTY, CUDD.name()).toUpperCase());
+    }
+
+    Backend create(ManagerSettings settings) {
+        switch (this) {
+        case JAVA:
+            return new JavaBackend(settings);
+        default:
+            return new CuddBackend(settings);
+        }
+    }
+
+}
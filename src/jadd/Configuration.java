@@ -0,0 +1,166 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable set of features, i.e., a product configuration.
+ *
+ * It is backed by a bitset over the indices of the variables in a
+ * {@link VariableStore}, so hashing, equality and set operations work on
+ * whole words instead of feature names. Configurations obtained from
+ * different variable stores are never equal.
+ */
+public final class Configuration {
+
+    private final VariableStore variableStore;
+    /** Presence bits, without trailing zero words. */
+    private final long[] bits;
+    private final int hash;
+
+    Configuration(VariableStore variableStore, long[] bits) {
+        int length = bits.length;
+        while (length > 0 && bits[length - 1] == 0) {
+            length--;
+        }
+        this.variableStore = variableStore;
+        this.bits = Arrays.copyOf(bits, length);
+        this.hash = Arrays.hashCode(this.bits);
+    }
+
+    public VariableStore getVariableStore() {
+        return variableStore;
+    }
+
+    /**
+     * @return whether {@code feature} is present. Unknown features never are.
+     */
+    public boolean contains(String feature) {
+        int index = variableStore.getIndex(feature);
+        return index >= 0 && contains(index);
+    }
+
+    boolean contains(int index) {
+        int word = index >>> 6;
+        return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return the number of present features.
+     */
+    public int size() {
+        int size = 0;
+        for (long word : bits) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    public boolean isSubsetOf(Configuration other) {
+        if (bits.length > other.bits.length) {
+            return false;
+        }
+        for (int i = 0; i < bits.length; i++) {
+            if ((bits[i] & ~other.bits[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the features of this configuration which are also present
+     *      in {@code mask}.
+     */
+    public Configuration project(Configuration mask) {
+        long[] projected = new long[Math.min(bits.length, mask.bits.length)];
+        for (int i = 0; i < projected.length; i++) {
+            projected[i] = bits[i] & mask.bits[i];
+        }
+        return new Configuration(variableStore, projected);
+    }
+
+    /**
+     * @return the features of this configuration which are among {@code features}.
+     */
+    public Configuration project(Collection<String> features) {
+        long[] mask = new long[bits.length];
+        for (String feature : features) {
+            int index = variableStore.getIndex(feature);
+            if (index >= 0 && (index >>> 6) < mask.length) {
+                mask[index >>> 6] |= 1L << index;
+            }
+        }
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] &= bits[i];
+        }
+        return new Configuration(variableStore, mask);
+    }
+
+    /**
+     * @return the names of the present features, ordered by variable index.
+     */
+    public List<String> getFeatures() {
+        List<String> features = new ArrayList<String>(size());
+        for (int word = 0; word < bits.length; word++) {
+            for (long rest = bits[word]; rest != 0; rest &= rest - 1) {
+                features.add(variableStore.getName((word << 6) + Long.numberOfTrailingZeros(rest)));
+            }
+        }
+        return features;
+    }
+
+    public String[] toArray() {
+        List<String> features = getFeatures();
+        return features.toArray(new String[features.size()]);
+    }
+
+    /**
+     * Copies the presence bits into {@code target}, which is expected to be
+     * zeroed and to have room for all of them from {@code offset} on.
+     */
+    void copyPresenceBits(long[] target, int offset) {
+        System.arraycopy(bits, 0, target, offset, bits.length);
+    }
+
+    /**
+     * @return a 0-1 presence vector (see {@link VariableStore#toPresenceVector(String[])}).
+     */
+    int[] toPresenceVector(int numVars) {
+        int[] presenceVector = new int[numVars];
+        for (int var = 0; var < numVars; var++) {
+            presenceVector[var] = contains(var) ? 1 : 0;
+        }
+        return presenceVector;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Configuration)) {
+            return false;
+        }
+        Configuration other = (Configuration) obj;
+        return hash == other.hash
+                && variableStore == other.variableStore
+                && Arrays.equals(bits, other.bits);
+    }
+
+    /**
+     * @return the features as a list, e.g., "[A, B]".
+     */
+    @Override
+    public String toString() {
+        return getFeatures().toString();
+    }
+
+}
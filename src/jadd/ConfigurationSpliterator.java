@@ -0,0 +1,147 @@
+package jadd;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates the assignments which lead an ADD to non-zero terminals,
+ * as presence bits (see {@link VariableStore#toPresenceBits(java.util.Collection, long[], int)}).
+ *
+ * Pending work is a stack of sub-diagrams, each one along with the
+ * variables decided on the way to it. Variables skipped by an edge
+ * ("don't cares") are expanded only when the traversal reaches them,
+ * and splitting hands over the shallowest pending sub-diagrams, i.e.,
+ * whole cofactors, to the new spliterator.
+ */
+final class ConfigurationSpliterator implements Spliterator<long[]> {
+
+    /** Counts up to this value are exact in double precision. */
+    private static final double MAX_EXACT_SIZE = 1L << 53;
+
+    private final DiagramCopy diagram;
+    private final double[] counts;
+    private final Deque<Task> pending;
+    private final boolean exact;
+    private long size;
+
+    /**
+     * Sub-diagram rooted at {@code node}, whose variables from
+     * {@code level} downwards are yet to be decided.
+     */
+    private static class Task {
+        int node;
+        int level;
+        long[] bits;
+
+        Task(int node, int level, long[] bits) {
+            this.node = node;
+            this.level = level;
+            this.bits = bits;
+        }
+    }
+
+    ConfigurationSpliterator(DiagramCopy diagram) {
+        this.diagram = diagram;
+        this.counts = diagram.countNonZeroAssignments();
+        this.pending = new ArrayDeque<Task>();
+
+        int root = diagram.root();
+        double total = counts[root] * Math.pow(2, diagram.level[root]);
+        this.exact = total <= MAX_EXACT_SIZE;
+        this.size = (long) Math.min(total, Long.MAX_VALUE);
+        if (total > 0) {
+            pending.push(new Task(root, 0, new long[(diagram.numVars + 63) >>> 6]));
+        }
+    }
+
+    private ConfigurationSpliterator(ConfigurationSpliterator parent, Deque<Task> pending, long size) {
+        this.diagram = parent.diagram;
+        this.counts = parent.counts;
+        this.exact = parent.exact;
+        this.pending = pending;
+        this.size = size;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super long[]> action) {
+        while (!pending.isEmpty()) {
+            Task task = pending.peek();
+            if (task.level == diagram.numVars) {
+                pending.pop();
+                size--;
+                action.accept(task.bits);
+                return true;
+            }
+            expand(task);
+        }
+        return false;
+    }
+
+    /**
+     * Decides the variable at the level of the task on top of the stack,
+     * replacing the task by its (non-empty) branches.
+     */
+    private void expand(Task task) {
+        int n = task.node;
+        int var = diagram.invPerm[task.level];
+        int highNode;
+        int lowNode;
+        if (diagram.level[n] > task.level) {
+            // Don't care: both branches lead to the same node.
+            highNode = n;
+            lowNode = n;
+        } else {
+            highNode = diagram.high[n];
+            lowNode = diagram.low[n];
+        }
+        pending.pop();
+        if (counts[lowNode] > 0) {
+            pending.push(new Task(lowNode, task.level + 1, task.bits));
+        }
+        if (counts[highNode] > 0) {
+            long[] bits = counts[lowNode] > 0 ? task.bits.clone() : task.bits;
+            bits[var >>> 6] |= 1L << var;
+            pending.push(new Task(highNode, task.level + 1, bits));
+        }
+    }
+
+    @Override
+    public Spliterator<long[]> trySplit() {
+        while (pending.size() == 1 && pending.peek().level < diagram.numVars) {
+            expand(pending.peek());
+        }
+        if (pending.size() < 2) {
+            return null;
+        }
+        Deque<Task> split = new ArrayDeque<Task>();
+        long splitSize = 0;
+        while (pending.size() > 1 && splitSize < size / 2) {
+            Task task = pending.pollLast();
+            split.push(task);
+            splitSize += sizeOf(task);
+        }
+        size -= splitSize;
+        return new ConfigurationSpliterator(this, split, splitSize);
+    }
+
+    private long sizeOf(Task task) {
+        return (long) (counts[task.node] * Math.pow(2, diagram.level[task.node] - task.level));
+    }
+
+    @Override
+    public long estimateSize() {
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        int characteristics = Spliterator.IMMUTABLE | Spliterator.NONNULL;
+        if (exact) {
+            characteristics |= Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+        return characteristics;
+    }
+
+}
@@ -0,0 +1,393 @@
+package jadd;
+
+import org.bridj.IntValuedEnum;
+import org.bridj.Pointer;
+import org.bridj.PointerIO;
+
+import bigcudd.BigcuddLibrary;
+import bigcudd.BigcuddLibrary.Cudd_ErrorType;
+import bigcudd.BigcuddLibrary.Cudd_ReorderingType;
+import bigcudd.BigcuddLibrary.Cudd_addApply_arg1_callback;
+import bigcudd.BigcuddLibrary.DdManager;
+import bigcudd.DdNode;
+
+/**
+ * Backend which binds to CUDD. Handles are the addresses of CUDD nodes.
+ */
+final class CuddBackend implements Backend {
+
+    private static final PointerIO<DdNode> DD_NODE_IO = PointerIO.getInstance(DdNode.class);
+
+    private Pointer<DdManager> dd;
+    private IntValuedEnum<Cudd_ReorderingType> reorderingMethod;
+
+    CuddBackend(ManagerSettings settings) {
+        int cacheSlots = settings.getCacheSlots() > 0 ? settings.getCacheSlots() : BigcuddLibrary.CUDD_CACHE_SLOTS;
+        dd = BigcuddLibrary.Cudd_Init(0,
+                                      0,
+                                      BigcuddLibrary.CUDD_UNIQUE_SLOTS,
+                                      cacheSlots,
+                                      settings.getMaxMemory());
+        reorderingMethod = settings.getReorderingMethod().toCudd();
+        if (settings.getMaxMemory() > 0) {
+            BigcuddLibrary.Cudd_SetMaxMemory(dd, settings.getMaxMemory());
+        }
+        if (settings.getMaxLiveNodes() > 0) {
+            BigcuddLibrary.Cudd_SetMaxLive(dd, settings.getMaxLiveNodes());
+        }
+        if (settings.getMaxCacheSlots() > 0) {
+            BigcuddLibrary.Cudd_SetMaxCacheHard(dd, settings.getMaxCacheSlots());
+        }
+        if (settings.getMaxGrowth() > 0) {
+            BigcuddLibrary.Cudd_SetMaxGrowth(dd, settings.getMaxGrowth());
+        }
+        if (settings.getFirstReorderingThreshold() > 0) {
+            BigcuddLibrary.Cudd_SetNextReordering(dd, settings.getFirstReorderingThreshold());
+        }
+        if (settings.isAutoReordering()) {
+            BigcuddLibrary.Cudd_AutodynEnable(dd, reorderingMethod);
+        }
+    }
+
+    Pointer<DdManager> getManager() {
+        return dd;
+    }
+
+    static Pointer<DdNode> toPointer(long handle) {
+        return Pointer.pointerToAddress(handle, DD_NODE_IO);
+    }
+
+    private static long toHandle(Pointer<DdNode> node) {
+        return node.getPeer();
+    }
+
+    /**
+     * CUDD returns NULL from operations which run out of memory or exceed
+     * the limits of the manager.
+     */
+    private long checked(Pointer<DdNode> result) {
+        if (result == null) {
+            IntValuedEnum<Cudd_ErrorType> error = BigcuddLibrary.Cudd_ReadErrorCode(dd);
+            BigcuddLibrary.Cudd_ClearErrorCode(dd);
+            throw new ResourceLimitException("CUDD could not complete an operation: " + error);
+        }
+        return toHandle(result);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public long constant(double value) {
+        return checked(BigcuddLibrary.Cudd_addConst(dd, value));
+    }
+
+    @Override
+    public long newVariable() {
+        return checked(BigcuddLibrary.Cudd_addNewVar(dd));
+    }
+
+    @Override
+    public long apply(Operator operator, long f, long g) {
+        return checked(BigcuddLibrary.Cudd_addApply(dd,
+                                                     Pointer.getPointer(callback(operator)),
+                                                     toPointer(f),
+                                                     toPointer(g)));
+    }
+
+    @Override
+    public long ite(long f, long g, long h) {
+        return checked(BigcuddLibrary.Cudd_addIte(dd, toPointer(f), toPointer(g), toPointer(h)));
+    }
+
+    @Override
+    public long negate(long f) {
+        return checked(BigcuddLibrary.Cudd_addNegate(dd, toPointer(f)));
+    }
+
+    @Override
+    public long complement(long f) {
+        return checked(BigcuddLibrary.Cudd_addCmpl(dd, toPointer(f)));
+    }
+
+    @Override
+    public void ref(long f) {
+        BigcuddLibrary.Cudd_Ref(toPointer(f));
+    }
+
+    @Override
+    public void deref(long f) {
+        BigcuddLibrary.Cudd_RecursiveDeref(dd, toPointer(f));
+    }
+
+    @Override
+    public double eval(long f, int[] presenceVector) {
+        Pointer<DdNode> terminal = BigcuddLibrary.Cudd_Eval(dd,
+                                                            toPointer(f),
+                                                            Pointer.pointerToInts(presenceVector));
+        DdNode terminalNode = terminal.get();
+        return terminalNode.type().value();
+    }
+
+    /**
+     * Walking CUDD nodes costs a native call per step, so the diagram is
+     * first copied into Java arrays, unless there is a single configuration.
+     */
+    @Override
+    public void eval(long f, long[] configurations, int words, double[] values) {
+        if (values.length == 1) {
+            int[] presenceVector = new int[readSize()];
+            for (int var = 0; var < presenceVector.length; var++) {
+                presenceVector[var] = (int) (configurations[var >>> 6] >>> var) & 1;
+            }
+            values[0] = eval(f, presenceVector);
+        } else if (values.length > 1) {
+            copy(f).eval(configurations, words, values);
+        }
+    }
+
+    @Override
+    public boolean isConstant(long f) {
+        return 1 != BigcuddLibrary.Cudd_IsNonConstant(toPointer(f));
+    }
+
+    @Override
+    public boolean equalSupNorm(long f, long g, double tolerance) {
+        return BigcuddLibrary.Cudd_EqualSupNorm(dd, toPointer(f), toPointer(g), tolerance, 1) == 1;
+    }
+
+    @Override
+    public int dagSize(long f) {
+        return BigcuddLibrary.Cudd_DagSize(toPointer(f));
+    }
+
+    @Override
+    public int[] support(long f) {
+        Pointer<Integer> support = BigcuddLibrary.Cudd_SupportIndex(dd, toPointer(f));
+        return support.getInts(readSize());
+    }
+
+    @Override
+    public int countLeaves(long f) {
+        return BigcuddLibrary.Cudd_CountLeaves(toPointer(f));
+    }
+
+    @Override
+    public double countPathsToNonZero(long f) {
+        return BigcuddLibrary.Cudd_CountPathsToNonZero(toPointer(f));
+    }
+
+    @Override
+    public double countPath(long f) {
+        return BigcuddLibrary.Cudd_CountPath(toPointer(f));
+    }
+
+    @Override
+    public int readSize() {
+        return BigcuddLibrary.Cudd_ReadSize(dd);
+    }
+
+    @Override
+    public int readInvPerm(int level) {
+        return BigcuddLibrary.Cudd_ReadInvPerm(dd, level);
+    }
+
+    @Override
+    public int readDead() {
+        return BigcuddLibrary.Cudd_ReadDead(dd);
+    }
+
+    @Override
+    public long readNodeCount() {
+        return BigcuddLibrary.Cudd_ReadNodeCount(dd);
+    }
+
+    @Override
+    public int readReorderings() {
+        return BigcuddLibrary.Cudd_ReadReorderings(dd);
+    }
+
+    @Override
+    public int readGarbageCollections() {
+        return BigcuddLibrary.Cudd_ReadGarbageCollections(dd);
+    }
+
+    @Override
+    public long readMemoryInUse() {
+        return BigcuddLibrary.Cudd_ReadMemoryInUse(dd);
+    }
+
+    @Override
+    public double readCacheLookUps() {
+        return BigcuddLibrary.Cudd_ReadCacheLookUps(dd);
+    }
+
+    @Override
+    public double readCacheHits() {
+        return BigcuddLibrary.Cudd_ReadCacheHits(dd);
+    }
+
+    @Override
+    public long readReorderingTime() {
+        return BigcuddLibrary.Cudd_ReadReorderingTime(dd);
+    }
+
+    @Override
+    public void reduceHeap() {
+        BigcuddLibrary.Cudd_ReduceHeap(dd, reorderingMethod, 1);
+    }
+
+    @Override
+    public void shuffleHeap(int[] permutation) {
+        BigcuddLibrary.Cudd_ShuffleHeap(dd, Pointer.pointerToInts(permutation));
+    }
+
+    /**
+     * Reads node fields through BridJ, which makes no changes to the manager
+     * (contrary to Cudd_DagSize and the like, which mark nodes).
+     */
+    @Override
+    public DiagramCopy copy(long f) {
+        DiagramCopy.NodeReader reader = new DiagramCopy.NodeReader() {
+            @Override
+            public boolean isTerminal(long node) {
+                return BigcuddLibrary.Cudd_IsNonConstant(toPointer(node)) == 0;
+            }
+
+            @Override
+            public int var(long node) {
+                return BigcuddLibrary.Cudd_NodeReadIndex(toPointer(node));
+            }
+
+            @Override
+            public long low(long node) {
+                return toHandle(toPointer(node).get().type().kids().E());
+            }
+
+            @Override
+            public long high(long node) {
+                return toHandle(toPointer(node).get().type().kids().T());
+            }
+
+            @Override
+            public double value(long node) {
+                return toPointer(node).get().type().value();
+            }
+        };
+        int[] invPerm = new int[readSize()];
+        for (int level = 0; level < invPerm.length; level++) {
+            invPerm[level] = readInvPerm(level);
+        }
+        return new DiagramCopy(reader, f, invPerm);
+    }
+
+    @Override
+    public void dumpDot(long[] functions, String[] variableNames, String[] functionNames, String fileName) {
+        Pointer<?> output = CUtils.fopen(fileName, CUtils.ACCESS_WRITE);
+
+        @SuppressWarnings("unchecked")
+        Pointer<DdNode>[] nodes = (Pointer<DdNode>[]) new Pointer[functions.length];
+        for (int i = 0; i < functions.length; i++) {
+            nodes[i] = toPointer(functions[i]);
+        }
+        BigcuddLibrary.Cudd_DumpDot(dd,
+                                    functions.length,
+                                    Pointer.pointerToPointers(nodes),
+                                    Pointer.pointerToCStrings(variableNames),
+                                    Pointer.pointerToCStrings(functionNames),
+                                    output);
+
+        CUtils.fclose(output);
+    }
+
+    /**
+     * CUDD collects garbage by itself, whenever it runs short of nodes.
+     */
+    @Override
+    public boolean wantsGarbageCollection() {
+        return false;
+    }
+
+    @Override
+    public void collectGarbage() {
+        // Nothing to do.
+    }
+
+    /**
+     * CUDD reorders by itself (in the middle of operations) if automatic
+     * reordering is enabled.
+     */
+    @Override
+    public boolean wantsReordering() {
+        return false;
+    }
+
+    /**************************************************************
+     *** Operators definitions
+     *************************************************************/
+
+    private static Cudd_addApply_arg1_callback callback(Operator operator) {
+        switch (operator) {
+        case PLUS:
+            return PLUS;
+        case MINUS:
+            return MINUS;
+        case TIMES:
+            return TIMES;
+        case DIVIDE:
+            return DIVIDE;
+        case LOGICAL_OR:
+            return LOGICAL_OR;
+        default:
+            throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+    }
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback TIMES = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addTimes(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback PLUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addPlus(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback DIVIDE = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addDivide(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback MINUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addMinus(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback LOGICAL_OR = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addOr(dd, node1, node2);
+        }
+    };
+
+}
@@ -0,0 +1,178 @@
+package jadd;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable copy of the nodes of an ADD, which can be traversed without
+ * holding the manager's lock (e.g., while it is being reordered).
+ *
+ * Nodes are numbered in post-order, so that children come before their
+ * parents and the root is the last node. The i-th node has children
+ * {@code low[i]} and {@code high[i]} or, if {@code var[i]} is negative,
+ * value {@code value[i]}.
+ */
+final class DiagramCopy {
+
+    /**
+     * Read access to the nodes of a backend.
+     */
+    interface NodeReader {
+        boolean isTerminal(long node);
+        int var(long node);
+        long low(long node);
+        long high(long node);
+        double value(long node);
+    }
+
+    final int[] var;
+    final int[] low;
+    final int[] high;
+    final double[] value;
+    /** Level of each node (the number of variables for terminals). */
+    final int[] level;
+    /** Variable at each level. */
+    final int[] invPerm;
+    final int numVars;
+    final int size;
+
+    DiagramCopy(NodeReader reader, long root, int[] invPerm) {
+        this.invPerm = invPerm;
+        this.numVars = invPerm.length;
+        int[] perm = new int[numVars];
+        for (int l = 0; l < numVars; l++) {
+            perm[invPerm[l]] = l;
+        }
+
+        Builder builder = new Builder(reader);
+        builder.copy(root);
+        size = builder.size;
+        var = Arrays.copyOf(builder.var, size);
+        low = Arrays.copyOf(builder.low, size);
+        high = Arrays.copyOf(builder.high, size);
+        value = Arrays.copyOf(builder.value, size);
+        level = new int[size];
+        for (int i = 0; i < size; i++) {
+            level[i] = var[i] < 0 ? numVars : perm[var[i]];
+        }
+    }
+
+    int root() {
+        return size - 1;
+    }
+
+    boolean isTerminal(int n) {
+        return var[n] < 0;
+    }
+
+    /**
+     * @see Backend#eval(long, long[], int, double[])
+     */
+    void eval(long[] configurations, int words, double[] values) {
+        int root = root();
+        for (int i = 0, base = 0; i < values.length; i++, base += words) {
+            int n = root;
+            int v;
+            while ((v = var[n]) >= 0) {
+                n = (configurations[base + (v >>> 6)] & (1L << v)) != 0 ? high[n] : low[n];
+            }
+            values[i] = value[n];
+        }
+    }
+
+    /**
+     * @see Backend#eval(long, int[])
+     */
+    double eval(Configuration configuration) {
+        int n = root();
+        int v;
+        while ((v = var[n]) >= 0) {
+            n = configuration.contains(v) ? high[n] : low[n];
+        }
+        return value[n];
+    }
+
+    /**
+     * @return for each node, the number of assignments to the variables
+     *      from its level downwards which lead to a non-zero terminal.
+     */
+    double[] countNonZeroAssignments() {
+        double[] counts = new double[size];
+        for (int n = 0; n < size; n++) {
+            if (isTerminal(n)) {
+                counts[n] = Double.doubleToRawLongBits(value[n]) != 0 ? 1 : 0;
+            } else {
+                counts[n] = counts[low[n]] * Math.pow(2, level[low[n]] - level[n] - 1)
+                        + counts[high[n]] * Math.pow(2, level[high[n]] - level[n] - 1);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return the distinct values of the terminals, in ascending order.
+     */
+    double[] terminalValues() {
+        double[] values = new double[size];
+        int terminals = 0;
+        for (int n = 0; n < size; n++) {
+            if (isTerminal(n)) {
+                values[terminals++] = value[n];
+            }
+        }
+        // Terminals are unique, so their values are distinct.
+        values = Arrays.copyOf(values, terminals);
+        Arrays.sort(values);
+        return values;
+    }
+
+    private static class Builder {
+
+        private NodeReader reader;
+        private Map<Long, Integer> copies = new HashMap<Long, Integer>();
+        private int[] var = new int[16];
+        private int[] low = new int[16];
+        private int[] high = new int[16];
+        private double[] value = new double[16];
+        private int size = 0;
+
+        Builder(NodeReader reader) {
+            this.reader = reader;
+        }
+
+        int copy(long node) {
+            Integer existing = copies.get(node);
+            if (existing != null) {
+                return existing;
+            }
+            int v = -1;
+            int lowCopy = 0;
+            int highCopy = 0;
+            double terminalValue = 0;
+            if (reader.isTerminal(node)) {
+                terminalValue = reader.value(node);
+            } else {
+                v = reader.var(node);
+                lowCopy = copy(reader.low(node));
+                highCopy = copy(reader.high(node));
+            }
+            if (size == var.length) {
+                int capacity = 2 * size;
+                var = Arrays.copyOf(var, capacity);
+                low = Arrays.copyOf(low, capacity);
+                high = Arrays.copyOf(high, capacity);
+                value = Arrays.copyOf(value, capacity);
+            }
+            int i = size++;
+            var[i] = v;
+            low[i] = lowCopy;
+            high[i] = highCopy;
+            value[i] = terminalValue;
+            copies.put(node, i);
+            return i;
+        }
+
+    }
+
+}
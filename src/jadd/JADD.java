@@ -1,59 +1,289 @@
 package jadd;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-
-import org.bridj.IntValuedEnum;
-import org.bridj.Pointer;
-
-import bigcudd.BigcuddLibrary;
-import bigcudd.BigcuddLibrary.Cudd_ReorderingType;
-import bigcudd.DdNode;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 /**
  * Interface to basic ADD operations.
  *
+ * A single manager can be shared by multiple threads. It is guarded by a
+ * read/write lock: operations which only read nodes (e.g., evaluation of
+ * ADDs) share the lock, so that they run concurrently, whereas reordering
+ * and garbage collection hold it exclusively. As CUDD is not thread-safe,
+ * operations which create, reference, release or mark CUDD nodes also hold
+ * the lock exclusively. The Java backend runs these concurrently.
+ *
  * @author thiago
  *
  */
 public class JADD {
 
-    private Pointer<BigcuddLibrary.DdManager> dd;
+    private Backend backend;
+    private BackendType backendType;
     private VariableStore variableStore = new VariableStore();
+    /**
+     * Nodes of unreachable ADDs, which are only dereferenced at safe points
+     * (i.e., not from the thread which found them to be unreachable).
+     */
+    private Queue<Long> pendingReleases = new ConcurrentLinkedQueue<Long>();
+    private ThreadLocal<ADDScope> currentScope = new ThreadLocal<ADDScope>();
+    private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
+    /**
+     * Creates a manager on top of the default backend.
+     * @see BackendType#getDefault()
+     */
     public JADD() {
-        dd = BigcuddLibrary.Cudd_Init(0,
-                                      0,
-                                      BigcuddLibrary.CUDD_UNIQUE_SLOTS,
-                                      BigcuddLibrary.CUDD_CACHE_SLOTS,
-                                      0);
-        IntValuedEnum<Cudd_ReorderingType> method = Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
-//        BigcuddLibrary.Cudd_AutodynEnable(dd, method);
+        this(BackendType.getDefault());
+    }
+
+    public JADD(BackendType backendType) {
+        this(backendType, new ManagerSettings());
+    }
+
+    /**
+     * Creates a manager whose reordering policy, cache sizes and limits
+     * are tuned by {@code settings}.
+     */
+    public JADD(BackendType backendType, ManagerSettings settings) {
+        this.backendType = backendType;
+        this.backend = backendType.create(settings);
+    }
+
+    public BackendType getBackendType() {
+        return backendType;
     }
 
     public ADD makeConstant(double constant) {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addConst(dd,  constant),
-                       variableStore);
+        return updating(() -> wrap(backend.constant(constant)));
     }
 
+    /**
+     * Variables are kept for the lifetime of this manager, so there is
+     * no need to close them.
+     */
     public ADD getVariable(String varName) {
-        if (variableStore.contains(varName)) {
-            return variableStore.get(varName);
+        ADD existing = shared(() -> variableStore.get(varName));
+        if (existing != null) {
+            return existing;
+        }
+        return exclusively(() -> {
+            if (variableStore.contains(varName)) {
+                return variableStore.get(varName);
+            } else {
+                long var = backend.newVariable();
+                ADD varADD = new ADD(this, var, true);
+                variableStore.put((short) (backend.readSize() - 1), varName, varADD);
+                return varADD;
+            }
+        });
+    }
+
+    /**
+     * Opens a scope which owns every ADD subsequently created by the current
+     * thread, until it is closed. Closing the scope releases all of these
+     * ADDs at once, except for those explicitly kept (see
+     * {@link ADDScope#keep(ADD)}). Scopes can be nested, but must be closed
+     * in the reverse order of opening.
+     */
+    public ADDScope openScope() {
+        ADDScope scope = new ADDScope(this, currentScope.get());
+        currentScope.set(scope);
+        return scope;
+    }
+
+    void closeScope(ADDScope scope) {
+        if (currentScope.get() != scope) {
+            throw new IllegalStateException("ADD scopes must be closed in the reverse order of opening");
+        }
+        if (scope.getParent() == null) {
+            currentScope.remove();
         } else {
-            Pointer<DdNode> var = BigcuddLibrary.Cudd_addNewVar(dd);
-            ADD varADD = new ADD(dd, var, variableStore);
-            variableStore.put(var.get().index(), varName, varADD);
-            return varADD;
+            currentScope.set(scope.getParent());
+        }
+    }
+
+    /**
+     * Wraps a freshly computed node as an ADD owned by the current scope, if any.
+     * Must be called while holding the lock for updates.
+     */
+    ADD wrap(long node) {
+        ADD add = new ADD(this, node, false);
+        // The operands of this node might have been released meanwhile,
+        // which is only safe to act upon now that the result is referenced.
+        releasePending();
+        ADDScope scope = currentScope.get();
+        if (scope != null) {
+            scope.track(add);
+        }
+        return add;
+    }
+
+    /**
+     * @return an action which schedules the release of {@code node}. It must
+     *      not refer to any ADD, lest the ADD never become unreachable.
+     */
+    Runnable releaseLater(long node) {
+        Queue<Long> pending = pendingReleases;
+        return () -> pending.add(node);
+    }
+
+    /**
+     * Dereferences all nodes whose ADDs were either closed or found to be
+     * unreachable, so that the backend can reclaim them at its next
+     * garbage collection.
+     */
+    void releasePending() {
+        if (pendingReleases.isEmpty()) {
+            return;
+        }
+        updating(() -> {
+            Long node;
+            while ((node = pendingReleases.poll()) != null) {
+                backend.deref(node);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return the number of nodes which are currently referenced.
+     */
+    public long getLiveNodeCount() {
+        return updating(backend::readNodeCount);
+    }
+
+    /**
+     * @return the number of computed table (cache) lookups so far.
+     */
+    public double getCacheLookUps() {
+        return shared(backend::readCacheLookUps);
+    }
+
+    /**
+     * @return the number of computed table (cache) lookups which found a result.
+     */
+    public double getCacheHits() {
+        return shared(backend::readCacheHits);
+    }
+
+    /**
+     * @return the time (in milliseconds) spent reordering variables so far.
+     */
+    public long getReorderingTime() {
+        return shared(backend::readReorderingTime);
+    }
+
+    /**
+     * Runs an operation which must not overlap with any other one.
+     */
+    <T> T exclusively(Supplier<T> operation) {
+        return holding(lock.writeLock(), operation);
+    }
+
+    /**
+     * Runs an operation which creates, references, releases or marks nodes.
+     * Unless the backend is thread-safe, it must not overlap with any other one.
+     */
+    <T> T updating(Supplier<T> operation) {
+        if (!backend.isThreadSafe()) {
+            return exclusively(operation);
+        }
+        T result = shared(operation);
+        // Garbage collection (and, thereafter, automatic reordering) is only
+        // safe when no operation is in progress, so it cannot be nested into
+        // other operations.
+        if (lock.getReadHoldCount() == 0
+                && !lock.isWriteLockedByCurrentThread()
+                && backend.wantsGarbageCollection()) {
+            exclusively(() -> {
+                if (backend.wantsGarbageCollection()) {
+                    backend.collectGarbage();
+                    if (backend.wantsReordering()) {
+                        backend.reduceHeap();
+                    }
+                }
+                return null;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Runs an operation which only reads nodes, so that it can overlap
+     * with other such operations.
+     */
+    <T> T shared(Supplier<T> operation) {
+        return holding(lock.readLock(), operation);
+    }
+
+    Lock sharedLock() {
+        return lock.readLock();
+    }
+
+    private static <T> T holding(Lock lock, Supplier<T> operation) {
+        lock.lock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Backend getBackend() {
+        return backend;
+    }
+
+    VariableStore getVariableStore() {
+        return variableStore;
+    }
+
+    /**
+     * @return the configuration in which exactly the given variables are present.
+     */
+    public Configuration toConfiguration(Collection<String> variables) throws UnrecognizedVariableException {
+        Lock sharedLock = lock.readLock();
+        sharedLock.lock();
+        try {
+            return variableStore.toConfiguration(variables);
+        } finally {
+            sharedLock.unlock();
         }
     }
 
+    /**
+     * @return the names of all variables, from the topmost level down.
+     */
+    public List<String> getVariableOrder() {
+        return shared(() -> {
+            List<String> variables = new ArrayList<String>();
+            for (int level = 0; level < variableStore.getNumberOfVariables(); level++) {
+                variables.add(variableStore.getName(backend.readInvPerm(level)));
+            }
+            return variables;
+        });
+    }
+
     /**
     * Performs an optimal reordering of the variables for the managed ADDs
-    * based on the sifting heuristic.
+    * based on the heuristic set for this manager (see {@link ManagerSettings}).
     */
     public void reorderVariables() {
-        IntValuedEnum<Cudd_ReorderingType> heuristic = Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
-        BigcuddLibrary.Cudd_ReduceHeap(dd, heuristic, 1);
+        exclusively(() -> {
+            backend.reduceHeap();
+            return null;
+        });
     }
 
     /**
@@ -63,30 +293,72 @@ public class JADD {
      * @throws UnrecognizedVariableException
      */
     public void setVariableOrder(String[] orderedVariables) throws UnrecognizedVariableException {
-        int[] permutationVector = variableStore.toPermutationVector(orderedVariables);
-        BigcuddLibrary.Cudd_ShuffleHeap(dd, Pointer.pointerToInts(permutationVector));
+        Lock exclusiveLock = lock.writeLock();
+        exclusiveLock.lock();
+        try {
+            int[] permutationVector = variableStore.toPermutationVector(orderedVariables);
+            backend.shuffleHeap(permutationVector);
+        } finally {
+            exclusiveLock.unlock();
+        }
     }
 
-    public void dumpDot(String[] functionNames, ADD[] functions, String fileName) {
-        Pointer<?> output = CUtils.fopen(fileName, CUtils.ACCESS_WRITE);
+    /**
+     * Stores {@code function} in binary form.
+     * @see ADD#store(Path)
+     */
+    public void store(ADD function, Path file) throws IOException {
+        if (function.getVariableStore() != variableStore) {
+            throw new IllegalArgumentException("ADD from another manager");
+        }
+        function.store(file);
+    }
 
-        @SuppressWarnings("unchecked")
-        Pointer<DdNode>[] nodes = (Pointer<DdNode>[]) new Pointer[functions.length];
+    /**
+     * Loads an ADD stored by {@link #store(ADD, Path)}, possibly by another
+     * manager. Variables are matched by name, and those of the storing
+     * manager which are yet unknown to this one are created.
+     */
+    public ADD load(Path file) throws IOException {
+        StoredADD stored = StoredADD.open(file);
+        List<String> names = stored.getVariableNames();
+        names.forEach(this::getVariable);
+        return rebuild(stored.toDiagramCopy(), names::get, DoubleUnaryOperator.identity());
+    }
+
+    /**
+     * Builds the function of a diagram copy in this manager, bottom-up,
+     * replacing each terminal by the result of {@code mapping}.
+     * @param names name of the variable of each index of the copy.
+     */
+    ADD rebuild(DiagramCopy diagram, IntFunction<String> names, DoubleUnaryOperator mapping) {
+        try (ADDScope scope = openScope()) {
+            ADD[] rebuilt = new ADD[diagram.size];
+            for (int n = 0; n < diagram.size; n++) {
+                if (diagram.isTerminal(n)) {
+                    rebuilt[n] = makeConstant(mapping.applyAsDouble(diagram.value[n]));
+                } else {
+                    ADD variable = getVariable(names.apply(diagram.var[n]));
+                    rebuilt[n] = variable.ifThenElse(rebuilt[diagram.high[n]], rebuilt[diagram.low[n]]);
+                }
+            }
+            return scope.keep(rebuilt[diagram.root()]);
+        }
+    }
+
+    public void dumpDot(String[] functionNames, ADD[] functions, String fileName) {
+        long[] nodes = new long[functions.length];
         int i = 0;
         for (ADD function : functions) {
             nodes[i] = function.getUnderlyingNode();
             i++;
         }
 
-        String[] orderedVariableNames = variableStore.getOrderedNames();
-        BigcuddLibrary.Cudd_DumpDot(dd,
-                                    functions.length,
-                                    Pointer.pointerToPointers(nodes),
-                                    Pointer.pointerToCStrings(orderedVariableNames),
-                                    Pointer.pointerToCStrings(functionNames),
-                                    output);
-
-        CUtils.fclose(output);
+        updating(() -> {
+            String[] orderedVariableNames = variableStore.getOrderedNames();
+            backend.dumpDot(nodes, orderedVariableNames, functionNames, fileName);
+            return null;
+        });
     }
 
     public void dumpDot(Map<String, ADD> functions, String fileName) {
@@ -0,0 +1,1095 @@
+package jadd;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Backend written in plain Java, which needs no native library.
+ *
+ * Nodes live in primitive arrays, split into pages so that growing the
+ * node table never moves existing nodes. Handles are node indices.
+ * Results of operations are memoized in a lossy computed table, and
+ * nodes which are not reachable from referenced ones are reclaimed by
+ * mark-and-sweep garbage collection.
+ *
+ * Operations (but reordering and garbage collection) can be called
+ * concurrently: insertions into the unique table are guarded by striped
+ * locks, and computed table entries are published safely.
+ *
+ * Terminal cases of operations mirror those of CUDD, so that both
+ * backends yield the same functions.
+ */
+final class JavaBackend implements Backend {
+    private static final Logger LOGGER = Logger.getLogger(JavaBackend.class.getName());
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final int NIL = -1;
+    /** Variable of terminal nodes. */
+    private static final int TERMINAL = -1;
+    /** Variable of free nodes. */
+    private static final int FREE = -2;
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int MIN_BUCKETS = 1 << 12;
+    private static final int DEFAULT_MIN_CACHE_SIZE = 1 << 14;
+    private static final int DEFAULT_MAX_CACHE_SIZE = 1 << 22;
+    /** Garbage collection is only worthwhile after this many allocations. */
+    private static final int MIN_ALLOCATIONS_BEFORE_GC = 1 << 16;
+    /** Sifting stops moving a variable once the diagram grows this much. */
+    private static final double DEFAULT_MAX_GROWTH = 1.2;
+    /** Same as CUDD's. */
+    private static final int DEFAULT_FIRST_REORDERING = 4004;
+    /**
+     * Memory taken per node: 4 ints and a reference count, plus about two
+     * buckets and two computed table entries (see {@link #readMemoryInUse()}).
+     */
+    private static final int BYTES_PER_NODE = 5 * Integer.BYTES + 2 * Integer.BYTES + 2 * (Integer.BYTES * 5 + 16);
+
+    // Operation codes for the computed table (binary operators use their ordinals).
+    private static final int OP_ITE = Operator.values().length;
+    private static final int OP_NEGATE = OP_ITE + 1;
+    private static final int OP_COMPLEMENT = OP_ITE + 2;
+
+    private volatile Page[] pages = new Page[0];
+    private int capacity = 0;
+    private int allocated = 0;
+    private int freeList = NIL;
+    private int allocationsSinceGC = 0;
+    private int liveAfterLastGC = 0;
+    private final Object allocationLock = new Object();
+
+    private int[] buckets;
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+
+    private volatile AtomicReferenceArray<CacheEntry> cache;
+    private final int minCacheSize;
+    private final int maxCacheSize;
+    private final LongAdder cacheLookUps = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    /** Maximum number of node slots (0 for no limit). */
+    private final int maxNodes;
+    private final ReorderingMethod reorderingMethod;
+    private final double maxGrowth;
+    private final boolean autoReordering;
+    private int nextReordering;
+    private long reorderingTime = 0;
+
+    /** Level of each variable. */
+    private volatile int[] perm = new int[0];
+    /** Variable at each level. */
+    private volatile int[] invPerm = new int[0];
+
+    private final int zero;
+    private final int one;
+
+    private int garbageCollections = 0;
+    private int reorderings = 0;
+
+    JavaBackend(ManagerSettings settings) {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        maxCacheSize = settings.getMaxCacheSlots() > 0 ? powerOfTwo(settings.getMaxCacheSlots()) : DEFAULT_MAX_CACHE_SIZE;
+        minCacheSize = Math.min(maxCacheSize,
+                                settings.getCacheSlots() > 0 ? powerOfTwo(settings.getCacheSlots()) : DEFAULT_MIN_CACHE_SIZE);
+        cache = new AtomicReferenceArray<CacheEntry>(minCacheSize);
+        long memoryLimit = settings.getMaxMemory() / BYTES_PER_NODE;
+        long nodeLimit = settings.getMaxLiveNodes();
+        if (memoryLimit > 0 && nodeLimit > 0) {
+            nodeLimit = Math.min(memoryLimit, nodeLimit);
+        } else {
+            nodeLimit = Math.max(memoryLimit, nodeLimit);
+        }
+        maxNodes = (int) Math.min(nodeLimit, Integer.MAX_VALUE);
+        reorderingMethod = settings.getReorderingMethod();
+        maxGrowth = settings.getMaxGrowth() > 0 ? settings.getMaxGrowth() : DEFAULT_MAX_GROWTH;
+        autoReordering = settings.isAutoReordering();
+        nextReordering = settings.getFirstReorderingThreshold() > 0 ? settings.getFirstReorderingThreshold() : DEFAULT_FIRST_REORDERING;
+        buckets = new int[MIN_BUCKETS];
+        Arrays.fill(buckets, NIL);
+        zero = terminal(0.0);
+        one = terminal(1.0);
+        // The ubiquitous constants are never collected.
+        ref(zero);
+        ref(one);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public long constant(double value) {
+        return terminal(value);
+    }
+
+    @Override
+    public synchronized long newVariable() {
+        int index = perm.length;
+        int[] newPerm = Arrays.copyOf(perm, index + 1);
+        int[] newInvPerm = Arrays.copyOf(invPerm, index + 1);
+        // New variables go to the bottom of the order.
+        newPerm[index] = index;
+        newInvPerm[index] = index;
+        invPerm = newInvPerm;
+        perm = newPerm;
+        return makeNode(index, zero, one);
+    }
+
+    @Override
+    public long apply(Operator operator, long f, long g) {
+        return apply(operator, (int) f, (int) g);
+    }
+
+    @Override
+    public long ite(long f, long g, long h) {
+        return ite((int) f, (int) g, (int) h);
+    }
+
+    @Override
+    public long negate(long f) {
+        return negate((int) f);
+    }
+
+    @Override
+    public long complement(long f) {
+        return complement((int) f);
+    }
+
+    @Override
+    public void ref(long f) {
+        int n = (int) f;
+        page(n).refs.incrementAndGet(n & PAGE_MASK);
+    }
+
+    /**
+     * Dead nodes are only found out at garbage collection.
+     */
+    @Override
+    public void deref(long f) {
+        int n = (int) f;
+        page(n).refs.decrementAndGet(n & PAGE_MASK);
+    }
+
+    @Override
+    public double eval(long f, int[] presenceVector) {
+        int n = (int) f;
+        int var;
+        while ((var = var(n)) != TERMINAL) {
+            n = presenceVector[var] == 1 ? high(n) : low(n);
+        }
+        return value(n);
+    }
+
+    @Override
+    public void eval(long f, long[] configurations, int words, double[] values) {
+        int root = (int) f;
+        for (int i = 0, base = 0; i < values.length; i++, base += words) {
+            int n = root;
+            int var;
+            while ((var = var(n)) != TERMINAL) {
+                n = (configurations[base + (var >>> 6)] & (1L << var)) != 0 ? high(n) : low(n);
+            }
+            values[i] = value(n);
+        }
+    }
+
+    @Override
+    public boolean isConstant(long f) {
+        return var((int) f) == TERMINAL;
+    }
+
+    @Override
+    public boolean equalSupNorm(long f, long g, double tolerance) {
+        return equalSupNorm((int) f, (int) g, tolerance, new HashSet<Long>());
+    }
+
+    private boolean equalSupNorm(int f, int g, double tolerance, Set<Long> visited) {
+        if (f == g) {
+            return true;
+        }
+        if (var(f) == TERMINAL && var(g) == TERMINAL) {
+            return Math.abs(value(f) - value(g)) <= tolerance;
+        }
+        if (!visited.add(((long) f << 32) | (g & 0xffffffffL))) {
+            return true;
+        }
+        int top = Math.min(level(f), level(g));
+        return equalSupNorm(cofactor(f, top, true), cofactor(g, top, true), tolerance, visited)
+                && equalSupNorm(cofactor(f, top, false), cofactor(g, top, false), tolerance, visited);
+    }
+
+    @Override
+    public int dagSize(long f) {
+        return reachable((int) f).cardinality();
+    }
+
+    @Override
+    public int[] support(long f) {
+        int[] support = new int[perm.length];
+        BitSet nodes = reachable((int) f);
+        for (int n = nodes.nextSetBit(0); n >= 0; n = nodes.nextSetBit(n + 1)) {
+            if (var(n) != TERMINAL) {
+                support[var(n)] = 1;
+            }
+        }
+        return support;
+    }
+
+    @Override
+    public int countLeaves(long f) {
+        int leaves = 0;
+        BitSet nodes = reachable((int) f);
+        for (int n = nodes.nextSetBit(0); n >= 0; n = nodes.nextSetBit(n + 1)) {
+            if (var(n) == TERMINAL) {
+                leaves++;
+            }
+        }
+        return leaves;
+    }
+
+    @Override
+    public double countPathsToNonZero(long f) {
+        return countPaths((int) f, true, new HashMap<Integer, Double>());
+    }
+
+    @Override
+    public double countPath(long f) {
+        return countPaths((int) f, false, new HashMap<Integer, Double>());
+    }
+
+    private double countPaths(int n, boolean nonZeroOnly, Map<Integer, Double> memo) {
+        if (var(n) == TERMINAL) {
+            return (nonZeroOnly && value(n) == 0.0) ? 0 : 1;
+        }
+        Double paths = memo.get(n);
+        if (paths == null) {
+            paths = countPaths(high(n), nonZeroOnly, memo) + countPaths(low(n), nonZeroOnly, memo);
+            memo.put(n, paths);
+        }
+        return paths;
+    }
+
+    @Override
+    public int readSize() {
+        return perm.length;
+    }
+
+    @Override
+    public int readInvPerm(int level) {
+        return invPerm[level];
+    }
+
+    @Override
+    public int readDead() {
+        synchronized (allocationLock) {
+            return usedNodes() - mark().cardinality();
+        }
+    }
+
+    @Override
+    public long readNodeCount() {
+        return mark().cardinality();
+    }
+
+    @Override
+    public int readReorderings() {
+        return reorderings;
+    }
+
+    @Override
+    public int readGarbageCollections() {
+        return garbageCollections;
+    }
+
+    @Override
+    public long readMemoryInUse() {
+        // 4 ints and a reference count per node, plus the tables.
+        return (long) capacity * 5 * Integer.BYTES
+                + (long) buckets.length * Integer.BYTES
+                + (long) cache.length() * (Integer.BYTES * 5 + 16);
+    }
+
+    @Override
+    public double readCacheLookUps() {
+        return cacheLookUps.sum();
+    }
+
+    @Override
+    public double readCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long readReorderingTime() {
+        return reorderingTime;
+    }
+
+    @Override
+    public DiagramCopy copy(long f) {
+        DiagramCopy.NodeReader reader = new DiagramCopy.NodeReader() {
+            @Override
+            public boolean isTerminal(long node) {
+                return var((int) node) == TERMINAL;
+            }
+
+            @Override
+            public int var(long node) {
+                return JavaBackend.this.var((int) node);
+            }
+
+            @Override
+            public long low(long node) {
+                return JavaBackend.this.low((int) node);
+            }
+
+            @Override
+            public long high(long node) {
+                return JavaBackend.this.high((int) node);
+            }
+
+            @Override
+            public double value(long node) {
+                return JavaBackend.this.value((int) node);
+            }
+        };
+        return new DiagramCopy(reader, f, invPerm.clone());
+    }
+
+    @Override
+    public void dumpDot(long[] functions, String[] variableNames, String[] functionNames, String fileName) {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8))) {
+            out.println("digraph \"DD\" {");
+            out.println("edge [dir = none];");
+            BitSet nodes = new BitSet();
+            for (int i = 0; i < functions.length; i++) {
+                int root = (int) functions[i];
+                out.println("\"" + functionNames[i] + "\" [shape = plaintext];");
+                out.println("\"" + functionNames[i] + "\" -> \"" + root + "\" [style = solid];");
+                nodes.or(reachable(root));
+            }
+            for (int n = nodes.nextSetBit(0); n >= 0; n = nodes.nextSetBit(n + 1)) {
+                if (var(n) == TERMINAL) {
+                    out.println("\"" + n + "\" [shape = box, label = \"" + value(n) + "\"];");
+                } else {
+                    out.println("\"" + n + "\" [label = \"" + variableNames[var(n)] + "\"];");
+                    out.println("\"" + n + "\" -> \"" + high(n) + "\";");
+                    out.println("\"" + n + "\" -> \"" + low(n) + "\" [style = dashed];");
+                }
+            }
+            out.println("}");
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, e.toString(), e);
+        }
+    }
+
+    /**************************************************************
+     *** Operations
+     *************************************************************/
+
+    private int apply(Operator operator, int f, int g) {
+        int result = terminalCase(operator, f, g);
+        if (result != NIL) {
+            return result;
+        }
+        if (isCommutative(operator) && f > g) {
+            int swap = f;
+            f = g;
+            g = swap;
+        }
+        int op = operator.ordinal();
+        result = lookup(op, f, g, 0);
+        if (result != NIL) {
+            return result;
+        }
+        int top = Math.min(level(f), level(g));
+        int high = apply(operator, cofactor(f, top, true), cofactor(g, top, true));
+        int low = apply(operator, cofactor(f, top, false), cofactor(g, top, false));
+        result = makeNode(invPerm[top], low, high);
+        insert(op, f, g, 0, result);
+        return result;
+    }
+
+    private static boolean isCommutative(Operator operator) {
+        return operator == Operator.PLUS
+                || operator == Operator.TIMES
+                || operator == Operator.LOGICAL_OR;
+    }
+
+    /**
+     * @return the result of the operation, if it can be computed without
+     *      recursion, or {@code NIL} otherwise.
+     */
+    private int terminalCase(Operator operator, int f, int g) {
+        boolean constants = var(f) == TERMINAL && var(g) == TERMINAL;
+        switch (operator) {
+        case PLUS:
+            if (f == zero) {
+                return g;
+            } else if (g == zero) {
+                return f;
+            } else if (constants) {
+                return terminal(value(f) + value(g));
+            }
+            return NIL;
+        case MINUS:
+            if (f == g) {
+                return zero;
+            } else if (f == zero) {
+                return negate(g);
+            } else if (g == zero) {
+                return f;
+            } else if (constants) {
+                return terminal(value(f) - value(g));
+            }
+            return NIL;
+        case TIMES:
+            if (f == zero || g == zero) {
+                return zero;
+            } else if (f == one) {
+                return g;
+            } else if (g == one) {
+                return f;
+            } else if (constants) {
+                return terminal(value(f) * value(g));
+            }
+            return NIL;
+        case DIVIDE:
+            if (f == zero) {
+                return zero;
+            } else if (g == one) {
+                return f;
+            } else if (constants) {
+                return terminal(value(f) / value(g));
+            }
+            return NIL;
+        case LOGICAL_OR:
+            if (f == one || g == one) {
+                return one;
+            } else if (var(f) == TERMINAL) {
+                return g;
+            } else if (var(g) == TERMINAL) {
+                return f;
+            } else if (f == g) {
+                return f;
+            }
+            return NIL;
+        default:
+            throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+    }
+
+    private int ite(int f, int g, int h) {
+        if (var(f) == TERMINAL) {
+            return f == zero ? h : g;
+        } else if (g == h) {
+            return g;
+        } else if (g == one && h == zero) {
+            return f;
+        }
+        int result = lookup(OP_ITE, f, g, h);
+        if (result != NIL) {
+            return result;
+        }
+        int top = Math.min(level(f), Math.min(level(g), level(h)));
+        int high = ite(cofactor(f, top, true), cofactor(g, top, true), cofactor(h, top, true));
+        int low = ite(cofactor(f, top, false), cofactor(g, top, false), cofactor(h, top, false));
+        result = makeNode(invPerm[top], low, high);
+        insert(OP_ITE, f, g, h, result);
+        return result;
+    }
+
+    private int negate(int f) {
+        if (var(f) == TERMINAL) {
+            return terminal(-value(f));
+        }
+        int result = lookup(OP_NEGATE, f, 0, 0);
+        if (result != NIL) {
+            return result;
+        }
+        result = makeNode(var(f), negate(low(f)), negate(high(f)));
+        insert(OP_NEGATE, f, 0, 0, result);
+        return result;
+    }
+
+    private int complement(int f) {
+        if (var(f) == TERMINAL) {
+            return f == zero ? one : zero;
+        }
+        int result = lookup(OP_COMPLEMENT, f, 0, 0);
+        if (result != NIL) {
+            return result;
+        }
+        result = makeNode(var(f), complement(low(f)), complement(high(f)));
+        insert(OP_COMPLEMENT, f, 0, 0, result);
+        return result;
+    }
+
+    /**
+     * @return the cofactor of {@code n} with respect to the variable at
+     *      {@code level}, which must not be below the top variable of {@code n}.
+     */
+    private int cofactor(int n, int level, boolean positive) {
+        if (level(n) != level) {
+            return n;
+        }
+        return positive ? high(n) : low(n);
+    }
+
+    private int level(int n) {
+        int var = var(n);
+        return var == TERMINAL ? Integer.MAX_VALUE : perm[var];
+    }
+
+    /**************************************************************
+     *** Unique table
+     *************************************************************/
+
+    private int terminal(double value) {
+        // Both zeros are the same constant.
+        long bits = Double.doubleToLongBits(value == 0.0 ? 0.0 : value);
+        return unique(TERMINAL, (int) bits, (int) (bits >>> 32));
+    }
+
+    private double value(int n) {
+        Page page = page(n);
+        int i = n & PAGE_MASK;
+        long bits = ((long) page.high[i] << 32) | (page.low[i] & 0xffffffffL);
+        return Double.longBitsToDouble(bits);
+    }
+
+    private int makeNode(int var, int low, int high) {
+        if (low == high) {
+            return low;
+        }
+        return unique(var, low, high);
+    }
+
+    private int unique(int var, int low, int high) {
+        int[] table = buckets;
+        int bucket = hash(var, low, high) & (table.length - 1);
+        synchronized (stripes[bucket & (LOCK_STRIPES - 1)]) {
+            for (int n = table[bucket]; n != NIL; n = next(n)) {
+                Page page = page(n);
+                int i = n & PAGE_MASK;
+                if (page.var[i] == var && page.low[i] == low && page.high[i] == high) {
+                    return n;
+                }
+            }
+            int n = allocate();
+            Page page = page(n);
+            int i = n & PAGE_MASK;
+            page.var[i] = var;
+            page.low[i] = low;
+            page.high[i] = high;
+            page.next[i] = table[bucket];
+            table[bucket] = n;
+            return n;
+        }
+    }
+
+    private static int hash(int var, int low, int high) {
+        int h = var * 0x9E3779B1;
+        h = (h ^ low) * 0x85EBCA6B;
+        h = (h ^ high) * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    private int allocate() {
+        synchronized (allocationLock) {
+            if (freeList != NIL) {
+                allocationsSinceGC++;
+                int n = freeList;
+                freeList = next(n);
+                return n;
+            }
+            if (maxNodes > 0 && allocated >= maxNodes) {
+                throw new ResourceLimitException("Node limit reached: " + maxNodes);
+            }
+            allocationsSinceGC++;
+            if (allocated == capacity) {
+                Page[] grown = Arrays.copyOf(pages, pages.length + 1);
+                grown[pages.length] = new Page();
+                pages = grown;
+                capacity += PAGE_SIZE;
+            }
+            return allocated++;
+        }
+    }
+
+    /**
+     * @return number of nodes which are not in the free list.
+     */
+    private int usedNodes() {
+        int free = 0;
+        for (int n = freeList; n != NIL; n = next(n)) {
+            free++;
+        }
+        return allocated - free;
+    }
+
+    private void removeFromTable(int n) {
+        int bucket = hash(var(n), low(n), high(n)) & (buckets.length - 1);
+        int previous = NIL;
+        for (int m = buckets[bucket]; m != NIL; m = next(m)) {
+            if (m == n) {
+                if (previous == NIL) {
+                    buckets[bucket] = next(n);
+                } else {
+                    setNext(previous, next(n));
+                }
+                return;
+            }
+            previous = m;
+        }
+    }
+
+    private void addToTable(int n) {
+        int bucket = hash(var(n), low(n), high(n)) & (buckets.length - 1);
+        setNext(n, buckets[bucket]);
+        buckets[bucket] = n;
+    }
+
+    private Page page(int n) {
+        return pages[n >>> PAGE_BITS];
+    }
+
+    private int var(int n) {
+        return page(n).var[n & PAGE_MASK];
+    }
+
+    private int low(int n) {
+        return page(n).low[n & PAGE_MASK];
+    }
+
+    private int high(int n) {
+        return page(n).high[n & PAGE_MASK];
+    }
+
+    private int next(int n) {
+        return page(n).next[n & PAGE_MASK];
+    }
+
+    private void setNext(int n, int next) {
+        page(n).next[n & PAGE_MASK] = next;
+    }
+
+    private int refs(int n) {
+        return page(n).refs.get(n & PAGE_MASK);
+    }
+
+    /**************************************************************
+     *** Computed table
+     *************************************************************/
+
+    private int lookup(int op, int f, int g, int h) {
+        AtomicReferenceArray<CacheEntry> entries = cache;
+        CacheEntry entry = entries.getAcquire(cacheIndex(op, f, g, h, entries.length()));
+        cacheLookUps.increment();
+        if (entry != null && entry.op == op && entry.f == f && entry.g == g && entry.h == h) {
+            cacheHits.increment();
+            return entry.result;
+        }
+        return NIL;
+    }
+
+    /**
+     * Entries are overwritten on collision. Releasing the entry makes the
+     * result node visible to any thread which finds it.
+     */
+    private void insert(int op, int f, int g, int h, int result) {
+        AtomicReferenceArray<CacheEntry> entries = cache;
+        entries.setRelease(cacheIndex(op, f, g, h, entries.length()),
+                           new CacheEntry(op, f, g, h, result));
+    }
+
+    private static int powerOfTwo(int size) {
+        int power = Integer.highestOneBit(size);
+        return power == size || power == 1 << 30 ? power : power << 1;
+    }
+
+    private static int cacheIndex(int op, int f, int g, int h, int size) {
+        int hash = hash(f, g, h) ^ (op * 0x27D4EB2F);
+        return hash & (size - 1);
+    }
+
+    /**************************************************************
+     *** Garbage collection
+     *************************************************************/
+
+    /**
+     * Collection is due once the allocations since the last one outnumber
+     * the nodes which survived it or, under a node limit, once they take
+     * half of the room left.
+     */
+    @Override
+    public boolean wantsGarbageCollection() {
+        synchronized (allocationLock) {
+            return allocationsSinceGC > Math.max(MIN_ALLOCATIONS_BEFORE_GC, liveAfterLastGC)
+                    || (maxNodes > 0 && allocationsSinceGC > (maxNodes - liveAfterLastGC) / 2);
+        }
+    }
+
+    /**
+     * Frees every node which is not reachable from a referenced one.
+     * There must be no operation in progress.
+     */
+    @Override
+    public void collectGarbage() {
+        BitSet live = mark();
+        int liveCount = live.cardinality();
+        int[] table = new int[tableSize(liveCount)];
+        Arrays.fill(table, NIL);
+        buckets = table;
+        freeList = NIL;
+        for (int n = allocated - 1; n >= 0; n--) {
+            if (live.get(n)) {
+                addToTable(n);
+            } else {
+                page(n).var[n & PAGE_MASK] = FREE;
+                setNext(n, freeList);
+                freeList = n;
+            }
+        }
+        int cacheSize = Math.max(minCacheSize, Math.min(maxCacheSize, Integer.highestOneBit(liveCount) * 2));
+        cache = new AtomicReferenceArray<CacheEntry>(cacheSize);
+        liveAfterLastGC = liveCount;
+        allocationsSinceGC = 0;
+        garbageCollections++;
+        LOGGER.fine(() -> "Garbage collection: " + liveCount + " live nodes out of " + allocated);
+    }
+
+    private static int tableSize(int nodes) {
+        return Math.max(MIN_BUCKETS, Integer.highestOneBit(Math.max(nodes, 1)) * 2);
+    }
+
+    /**
+     * @return the set of nodes reachable from referenced ones.
+     */
+    private BitSet mark() {
+        BitSet live = new BitSet(allocated);
+        Deque<Integer> pending = new ArrayDeque<Integer>();
+        int limit = allocated;
+        for (int n = 0; n < limit; n++) {
+            if (var(n) != FREE && refs(n) > 0 && !live.get(n)) {
+                live.set(n);
+                pending.push(n);
+                while (!pending.isEmpty()) {
+                    int m = pending.pop();
+                    if (var(m) != TERMINAL) {
+                        for (int child : new int[] {low(m), high(m)}) {
+                            if (!live.get(child)) {
+                                live.set(child);
+                                pending.push(child);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return live;
+    }
+
+    private BitSet reachable(int root) {
+        BitSet nodes = new BitSet();
+        Deque<Integer> pending = new ArrayDeque<Integer>();
+        nodes.set(root);
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            int n = pending.pop();
+            if (var(n) != TERMINAL) {
+                for (int child : new int[] {low(n), high(n)}) {
+                    if (!nodes.get(child)) {
+                        nodes.set(child);
+                        pending.push(child);
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**************************************************************
+     *** Reordering
+     *************************************************************/
+
+    /**
+     * Reference counts (including references from parent nodes) and nodes
+     * labeled by each variable, which are only kept up to date while
+     * reordering.
+     */
+    private int[] referenceCounts;
+    private NodeList[] nodesByVariable;
+    private NodeList freedWhileReordering;
+    private int liveNodes;
+
+    @Override
+    public void reduceHeap() {
+        if (perm.length < 2) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        beginReordering();
+        int before;
+        do {
+            before = liveNodes;
+            Integer[] variables = new Integer[perm.length];
+            for (int i = 0; i < variables.length; i++) {
+                variables[i] = i;
+            }
+            // Larger levels are the most promising to sift.
+            Arrays.sort(variables, (a, b) -> Integer.compare(nodesByVariable[b].size, nodesByVariable[a].size));
+            for (int var : variables) {
+                sift(var);
+            }
+        } while (reorderingMethod.isConverging() && liveNodes < before);
+        // As in CUDD, the next automatic reordering waits for the diagrams to double.
+        nextReordering = Math.max(nextReordering, 2 * liveNodes);
+        endReordering();
+        reorderingTime += System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Only checked after garbage collection, which makes the count of
+     * live nodes exact.
+     */
+    @Override
+    public boolean wantsReordering() {
+        return autoReordering && perm.length > 1 && liveAfterLastGC >= nextReordering;
+    }
+
+    @Override
+    public void shuffleHeap(int[] permutation) {
+        beginReordering();
+        for (int level = 0; level < permutation.length; level++) {
+            for (int current = perm[permutation[level]]; current > level; current--) {
+                swap(current - 1);
+            }
+        }
+        endReordering();
+    }
+
+    /**
+     * Moves a variable all the way down, then all the way up, and finally
+     * back to the level where the diagram was the smallest.
+     */
+    private void sift(int var) {
+        int bottom = perm.length - 1;
+        int best = liveNodes;
+        int bestLevel = perm[var];
+        while (perm[var] < bottom && liveNodes <= best * maxGrowth) {
+            swap(perm[var]);
+            if (liveNodes < best) {
+                best = liveNodes;
+                bestLevel = perm[var];
+            }
+        }
+        while (perm[var] > 0 && liveNodes <= best * maxGrowth) {
+            swap(perm[var] - 1);
+            if (liveNodes < best) {
+                best = liveNodes;
+                bestLevel = perm[var];
+            }
+        }
+        while (perm[var] < bestLevel) {
+            swap(perm[var]);
+        }
+        while (perm[var] > bestLevel) {
+            swap(perm[var] - 1);
+        }
+    }
+
+    private void beginReordering() {
+        collectGarbage();
+        referenceCounts = new int[capacity];
+        nodesByVariable = new NodeList[perm.length];
+        for (int i = 0; i < nodesByVariable.length; i++) {
+            nodesByVariable[i] = new NodeList();
+        }
+        freedWhileReordering = new NodeList();
+        liveNodes = 0;
+        for (int n = 0; n < allocated; n++) {
+            if (var(n) == FREE) {
+                continue;
+            }
+            referenceCounts[n] += refs(n);
+            if (var(n) != TERMINAL) {
+                referenceCounts[low(n)]++;
+                referenceCounts[high(n)]++;
+                nodesByVariable[var(n)].add(n);
+                liveNodes++;
+            }
+        }
+    }
+
+    private void endReordering() {
+        for (int i = 0; i < freedWhileReordering.size; i++) {
+            int n = freedWhileReordering.nodes[i];
+            setNext(n, freeList);
+            freeList = n;
+        }
+        referenceCounts = null;
+        nodesByVariable = null;
+        freedWhileReordering = null;
+        cache = new AtomicReferenceArray<CacheEntry>(cache.length());
+        reorderings++;
+    }
+
+    /**
+     * Swaps the variables at {@code level} and {@code level + 1} in place,
+     * i.e., keeping the functions denoted by every live node.
+     */
+    private void swap(int level) {
+        int x = invPerm[level];
+        int y = invPerm[level + 1];
+        NodeList xNodes = nodesByVariable[x];
+        NodeList newXNodes = new NodeList();
+        nodesByVariable[x] = newXNodes;
+        for (int i = 0; i < xNodes.size; i++) {
+            int n = xNodes.nodes[i];
+            if (var(n) != x) {
+                continue;
+            }
+            int f1 = high(n);
+            int f0 = low(n);
+            if (var(f1) != y && var(f0) != y) {
+                // It does not depend on y, so it merely moves down.
+                newXNodes.add(n);
+                continue;
+            }
+            int f11 = var(f1) == y ? high(f1) : f1;
+            int f10 = var(f1) == y ? low(f1) : f1;
+            int f01 = var(f0) == y ? high(f0) : f0;
+            int f00 = var(f0) == y ? low(f0) : f0;
+            int newHigh = referenceNode(x, f01, f11, newXNodes);
+            int newLow = referenceNode(x, f00, f10, newXNodes);
+            removeFromTable(n);
+            Page page = page(n);
+            page.var[n & PAGE_MASK] = y;
+            page.low[n & PAGE_MASK] = newLow;
+            page.high[n & PAGE_MASK] = newHigh;
+            addToTable(n);
+            nodesByVariable[y].add(n);
+            dereferenceNode(f1);
+            dereferenceNode(f0);
+        }
+        int[] newPerm = perm.clone();
+        int[] newInvPerm = invPerm.clone();
+        newPerm[x] = level + 1;
+        newPerm[y] = level;
+        newInvPerm[level] = y;
+        newInvPerm[level + 1] = x;
+        invPerm = newInvPerm;
+        perm = newPerm;
+    }
+
+    /**
+     * Finds or creates a node while reordering, accounting for the new reference.
+     */
+    private int referenceNode(int var, int low, int high, NodeList varNodes) {
+        if (low == high) {
+            referenceCounts[low]++;
+            return low;
+        }
+        int bucket = hash(var, low, high) & (buckets.length - 1);
+        for (int n = buckets[bucket]; n != NIL; n = next(n)) {
+            if (var(n) == var && low(n) == low && high(n) == high) {
+                referenceCounts[n]++;
+                return n;
+            }
+        }
+        // Nodes freed during reordering are not reused, lest they be
+        // mistaken for their former selves in the lists of nodes by variable.
+        int n = allocate();
+        if (n >= referenceCounts.length) {
+            referenceCounts = Arrays.copyOf(referenceCounts, capacity);
+        }
+        Page page = page(n);
+        page.var[n & PAGE_MASK] = var;
+        page.low[n & PAGE_MASK] = low;
+        page.high[n & PAGE_MASK] = high;
+        addToTable(n);
+        referenceCounts[n] = 1;
+        referenceCounts[low]++;
+        referenceCounts[high]++;
+        varNodes.add(n);
+        liveNodes++;
+        return n;
+    }
+
+    private void dereferenceNode(int n) {
+        referenceCounts[n]--;
+        if (referenceCounts[n] == 0 && var(n) != TERMINAL) {
+            int low = low(n);
+            int high = high(n);
+            removeFromTable(n);
+            page(n).var[n & PAGE_MASK] = FREE;
+            freedWhileReordering.add(n);
+            liveNodes--;
+            dereferenceNode(low);
+            dereferenceNode(high);
+        }
+    }
+
+    /**************************************************************
+     *** Auxiliary classes
+     *************************************************************/
+
+    private static final class Page {
+        final int[] var = new int[PAGE_SIZE];
+        final int[] low = new int[PAGE_SIZE];
+        final int[] high = new int[PAGE_SIZE];
+        final int[] next = new int[PAGE_SIZE];
+        final AtomicIntegerArray refs = new AtomicIntegerArray(PAGE_SIZE);
+    }
+
+    private static final class CacheEntry {
+        final int op;
+        final int f;
+        final int g;
+        final int h;
+        final int result;
+
+        CacheEntry(int op, int f, int g, int h, int result) {
+            this.op = op;
+            this.f = f;
+            this.g = g;
+            this.h = h;
+            this.result = result;
+        }
+    }
+
+    private static final class NodeList {
+        int[] nodes = new int[16];
+        int size = 0;
+
+        void add(int n) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = n;
+        }
+    }
+
+}
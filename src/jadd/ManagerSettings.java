@@ -0,0 +1,141 @@
+package jadd;
+
+/**
+ * Tuning knobs of an ADD manager: variable reordering policy, computed
+ * table (cache) sizing and resource limits. Zero stands for the default
+ * of the backend wherever a size or limit is expected.
+ *
+ * Setters return the settings themselves, so that they can be chained.
+ *
+ * @see JADD#JADD(BackendType, ManagerSettings)
+ */
+public final class ManagerSettings {
+
+    private ReorderingMethod reorderingMethod = ReorderingMethod.SYMM_SIFT;
+    private boolean autoReordering = false;
+    private int firstReorderingThreshold = 0;
+    private double maxGrowth = 0;
+    private int cacheSlots = 0;
+    private int maxCacheSlots = 0;
+    private long maxMemory = 0;
+    private int maxLiveNodes = 0;
+
+    public ReorderingMethod getReorderingMethod() {
+        return reorderingMethod;
+    }
+
+    /**
+     * Heuristic for both explicit (see {@link JADD#reorderVariables()}) and
+     * automatic reorderings. Defaults to symmetric sifting.
+     */
+    public ManagerSettings setReorderingMethod(ReorderingMethod reorderingMethod) {
+        this.reorderingMethod = reorderingMethod;
+        return this;
+    }
+
+    public boolean isAutoReordering() {
+        return autoReordering;
+    }
+
+    /**
+     * Whether variables are reordered whenever the number of nodes reaches
+     * a threshold, which doubles after each reordering. CUDD reorders in the
+     * middle of operations, whereas the Java backend waits until no
+     * operation is in progress.
+     */
+    public ManagerSettings setAutoReordering(boolean autoReordering) {
+        this.autoReordering = autoReordering;
+        return this;
+    }
+
+    public int getFirstReorderingThreshold() {
+        return firstReorderingThreshold;
+    }
+
+    /**
+     * Number of nodes which triggers the first automatic reordering.
+     */
+    public ManagerSettings setFirstReorderingThreshold(int firstReorderingThreshold) {
+        this.firstReorderingThreshold = checkNonNegative(firstReorderingThreshold);
+        return this;
+    }
+
+    public double getMaxGrowth() {
+        return maxGrowth;
+    }
+
+    /**
+     * How much the diagrams may grow (e.g., 1.2 for 20%) while sifting
+     * moves a variable before giving up on that direction.
+     */
+    public ManagerSettings setMaxGrowth(double maxGrowth) {
+        if (maxGrowth != 0 && maxGrowth < 1) {
+            throw new IllegalArgumentException("Maximum growth must be at least 1: " + maxGrowth);
+        }
+        this.maxGrowth = maxGrowth;
+        return this;
+    }
+
+    public int getCacheSlots() {
+        return cacheSlots;
+    }
+
+    /**
+     * Initial number of computed table entries.
+     */
+    public ManagerSettings setCacheSlots(int cacheSlots) {
+        this.cacheSlots = checkNonNegative(cacheSlots);
+        return this;
+    }
+
+    public int getMaxCacheSlots() {
+        return maxCacheSlots;
+    }
+
+    /**
+     * Number of computed table entries beyond which the table does not grow.
+     */
+    public ManagerSettings setMaxCacheSlots(int maxCacheSlots) {
+        this.maxCacheSlots = checkNonNegative(maxCacheSlots);
+        return this;
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Memory (in bytes) the manager may take. Operations which would exceed
+     * it fail with {@link ResourceLimitException}.
+     */
+    public ManagerSettings setMaxMemory(long maxMemory) {
+        if (maxMemory < 0) {
+            throw new IllegalArgumentException("Negative limit: " + maxMemory);
+        }
+        this.maxMemory = maxMemory;
+        return this;
+    }
+
+    public int getMaxLiveNodes() {
+        return maxLiveNodes;
+    }
+
+    /**
+     * Number of nodes the manager may hold. Operations which would exceed
+     * it fail with {@link ResourceLimitException}. CUDD counts live nodes
+     * only, whereas the Java backend also counts dead nodes which are yet
+     * to be collected.
+     */
+    public ManagerSettings setMaxLiveNodes(int maxLiveNodes) {
+        this.maxLiveNodes = checkNonNegative(maxLiveNodes);
+        return this;
+    }
+
+    private static int checkNonNegative(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative setting: " + value);
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,42 @@
+package jadd;
+
+import org.bridj.IntValuedEnum;
+
+import bigcudd.BigcuddLibrary.Cudd_ReorderingType;
+
+/**
+ * Variable reordering heuristics.
+ *
+ * The Java backend implements sifting only. It carries out a single
+ * sifting pass for any method but the converging ones, for which it
+ * repeats sifting while the diagrams keep shrinking.
+ */
+public enum ReorderingMethod {
+    SIFT(Cudd_ReorderingType.CUDD_REORDER_SIFT, false),
+    SIFT_CONVERGE(Cudd_ReorderingType.CUDD_REORDER_SIFT_CONVERGE, true),
+    SYMM_SIFT(Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT, false),
+    SYMM_SIFT_CONVERGE(Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT_CONV, true),
+    GROUP_SIFT(Cudd_ReorderingType.CUDD_REORDER_GROUP_SIFT, false),
+    WINDOW3(Cudd_ReorderingType.CUDD_REORDER_WINDOW3, false),
+    LAZY_SIFT(Cudd_ReorderingType.CUDD_REORDER_LAZY_SIFT, false);
+
+    private final Cudd_ReorderingType cuddType;
+    private final boolean converging;
+
+    private ReorderingMethod(Cudd_ReorderingType cuddType, boolean converging) {
+        this.cuddType = cuddType;
+        this.converging = converging;
+    }
+
+    IntValuedEnum<Cudd_ReorderingType> toCudd() {
+        return cuddType;
+    }
+
+    /**
+     * @return whether reordering is repeated until it brings no improvement.
+     */
+    boolean isConverging() {
+        return converging;
+    }
+
+}
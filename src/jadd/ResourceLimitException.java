@@ -0,0 +1,15 @@
+package jadd;
+
+/**
+ * Exception thrown whenever an ADD operation cannot be completed within
+ * the memory or node limits of its manager (see {@link ManagerSettings}).
+ */
+public class ResourceLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 5254164418712655470L;
+
+    public ResourceLimitException(String message) {
+        super(message);
+    }
+
+}
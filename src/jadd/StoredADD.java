@@ -0,0 +1,225 @@
+package jadd;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ADD stored in a binary file, in the spirit of DDDMP (node table, variable
+ * names and terminal values), which can be memory-mapped and evaluated
+ * without a manager or loaded back into one (see {@link JADD#load(Path)}).
+ *
+ * The file is laid out as follows (big-endian):
+ * <ul>
+ * <li>header: magic number, format version, number of variables and
+ *      number of nodes (4 ints);</li>
+ * <li>node table: 12 bytes per node, in post-order (so the root is the
+ *      last one). Each node is its variable index (int) followed by either
+ *      the positions of its else and then children (2 ints, both lower
+ *      than its own) or, if the index is negative, its terminal value
+ *      (double);</li>
+ * <li>variable order: the variable index at each level (1 int per variable);</li>
+ * <li>variable names, by index: length in bytes (int) and UTF-8 bytes.</li>
+ * </ul>
+ * The node table makes lookups a matter of following offsets, so a stored
+ * ADD takes no memory other than the mapped file and the names.
+ */
+public final class StoredADD {
+
+    private static final int MAGIC = 0x4A414444; // "JADD"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int NODE_BYTES = Integer.BYTES + Double.BYTES;
+    private static final int TERMINAL = -1;
+
+    private final ByteBuffer nodes;
+    private final int nodeCount;
+    private final int[] invPerm;
+    private final String[] names;
+    private final Map<String, Integer> indices;
+
+    private StoredADD(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a stored ADD");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported stored ADD version: " + version);
+        }
+        int numVars = buffer.getInt();
+        nodeCount = buffer.getInt();
+        if (numVars < 0 || nodeCount <= 0
+                || (long) nodeCount * NODE_BYTES > buffer.remaining()) {
+            throw new IOException("Corrupt stored ADD header");
+        }
+        nodes = buffer.slice();
+        nodes.limit(nodeCount * NODE_BYTES);
+
+        buffer.position(HEADER_BYTES + nodeCount * NODE_BYTES);
+        invPerm = new int[numVars];
+        for (int level = 0; level < numVars; level++) {
+            invPerm[level] = buffer.getInt();
+        }
+        names = new String[numVars];
+        indices = new HashMap<String, Integer>();
+        for (int var = 0; var < numVars; var++) {
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            names[var] = new String(name, StandardCharsets.UTF_8);
+            indices.put(names[var], var);
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            int var = var(n);
+            if (var != TERMINAL
+                    && (var < 0 || var >= numVars
+                        || low(n) < 0 || low(n) >= n
+                        || high(n) < 0 || high(n) >= n)) {
+                throw new IOException("Corrupt stored ADD node: " + n);
+            }
+        }
+    }
+
+    /**
+     * Maps a stored ADD into memory. The file must not change while the
+     * returned object is in use.
+     */
+    public static StoredADD open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new StoredADD(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated stored ADD: " + file, e);
+        }
+    }
+
+    /**
+     * Writes a copy of a diagram, along with the names of all variables
+     * of its manager (by index).
+     */
+    static void write(DiagramCopy diagram, String[] names, Path file) throws IOException {
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(diagram.numVars);
+            out.writeInt(diagram.size);
+            for (int n = 0; n < diagram.size; n++) {
+                if (diagram.isTerminal(n)) {
+                    out.writeInt(TERMINAL);
+                    out.writeDouble(diagram.value[n]);
+                } else {
+                    out.writeInt(diagram.var[n]);
+                    out.writeInt(diagram.low[n]);
+                    out.writeInt(diagram.high[n]);
+                }
+            }
+            for (int level = 0; level < diagram.numVars; level++) {
+                out.writeInt(diagram.invPerm[level]);
+            }
+            for (int var = 0; var < diagram.numVars; var++) {
+                byte[] name = names[var].getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+        }
+    }
+
+    /**
+     * @return the names of the variables, by index.
+     */
+    public List<String> getVariableNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public double eval(String[] variables) throws UnrecognizedVariableException {
+        return eval(Arrays.asList(variables));
+    }
+
+    /**
+     * @param variables Names of the present variables.
+     */
+    public double eval(Collection<String> variables) throws UnrecognizedVariableException {
+        boolean[] present = new boolean[names.length];
+        for (String variable : variables) {
+            Integer index = indices.get(variable);
+            if (index == null) {
+                throw new UnrecognizedVariableException(variable);
+            }
+            present[index] = true;
+        }
+        int n = nodeCount - 1;
+        int var;
+        while ((var = var(n)) != TERMINAL) {
+            n = present[var] ? high(n) : low(n);
+        }
+        return value(n);
+    }
+
+    private int var(int n) {
+        return nodes.getInt(n * NODE_BYTES);
+    }
+
+    private int low(int n) {
+        return nodes.getInt(n * NODE_BYTES + Integer.BYTES);
+    }
+
+    private int high(int n) {
+        return nodes.getInt(n * NODE_BYTES + 2 * Integer.BYTES);
+    }
+
+    private double value(int n) {
+        return nodes.getDouble(n * NODE_BYTES + Integer.BYTES);
+    }
+
+    /**
+     * @return a copy of the stored diagram, whose variable indices are
+     *      those of {@link #getVariableNames()}.
+     */
+    DiagramCopy toDiagramCopy() {
+        DiagramCopy.NodeReader reader = new DiagramCopy.NodeReader() {
+            @Override
+            public boolean isTerminal(long node) {
+                return StoredADD.this.var((int) node) == TERMINAL;
+            }
+
+            @Override
+            public int var(long node) {
+                return StoredADD.this.var((int) node);
+            }
+
+            @Override
+            public long low(long node) {
+                return StoredADD.this.low((int) node);
+            }
+
+            @Override
+            public long high(long node) {
+                return StoredADD.this.high((int) node);
+            }
+
+            @Override
+            public double value(long node) {
+                return StoredADD.this.value((int) node);
+            }
+        };
+        return new DiagramCopy(reader, nodeCount - 1, invPerm.clone());
+    }
+
+}
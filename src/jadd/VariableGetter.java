@@ -3,14 +3,9 @@ package jadd;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.bridj.Pointer;
-
-import bigcudd.BigcuddLibrary;
-
 public class VariableGetter {
 	public ADD add;
 	public Set<String> variables;
-	public Pointer<Integer> variablesPtr;
 	public int numVars;
 	public int[] variablesPresence;
 	
@@ -21,9 +16,8 @@ public class VariableGetter {
 	public Set<String> getVariables() {
         variables = new HashSet<String>();
 
-        variablesPtr = BigcuddLibrary.Cudd_SupportIndex(add.getDD(), this.add.getFunction());
-        numVars = BigcuddLibrary.Cudd_ReadSize(add.getDD());
-        variablesPresence = variablesPtr.getInts(numVars);
+        variablesPresence = add.getSupport();
+        numVars = variablesPresence.length;
         fillVariables();
         
         return variables;
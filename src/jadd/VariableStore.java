@@ -13,6 +13,11 @@ public class VariableStore {
     private Map<String, ADD> variables;
     private SortedMap<Short, String> variableNames;
     private Map<String, Short> variableIndices;
+    /**
+     * Names by index, replaced on every insertion, so that it can be read
+     * while variables are being created.
+     */
+    private volatile String[] namesByIndex = new String[0];
 
     public VariableStore() {
         variables = new HashMap<String, ADD>();
@@ -36,10 +41,37 @@ public class VariableStore {
         return variableNames.get(varIndex);
     }
 
+    String getName(int varIndex) {
+        return namesByIndex[varIndex];
+    }
+
+    /**
+     * @return the index of the variable or -1 if it is unknown.
+     */
+    public int getIndex(String varName) {
+        Short index = variableIndices.get(varName);
+        return index == null ? -1 : index;
+    }
+
     public void put(short varIndex, String varName, ADD varADD) {
         variables.put(varName, varADD);
         variableNames.put(varIndex, varName);
         variableIndices.put(varName, varIndex);
+        namesByIndex = getOrderedNames();
+    }
+
+    /**
+     * @param variables Names of the variables to be included.
+     * @return the configuration in which exactly these variables are present.
+     */
+    public Configuration toConfiguration(Collection<String> variables) throws UnrecognizedVariableException {
+        long[] bits = new long[getPresenceBitsLength()];
+        toPresenceBits(variables, bits, 0);
+        return new Configuration(this, bits);
+    }
+
+    Configuration toConfiguration(long[] presenceBits) {
+        return new Configuration(this, presenceBits);
     }
 
     public String[] getOrderedNames() {
@@ -69,6 +101,32 @@ public class VariableStore {
         return presenceVector;
     }
 
+    /**
+     * @return the number of longs needed to hold the presence bits of
+     *      a configuration (see {@link #toPresenceBits(Collection, long[], int)}).
+     */
+    public int getPresenceBitsLength() {
+        return (variableIndices.size() + 63) >>> 6;
+    }
+
+    /**
+     * Packs a configuration as presence bits, in which bit {@code i % 64}
+     * of {@code bits[offset + i / 64]} is set iff the variable of index i
+     * is present.
+     * @param variables Names of the variables to be included.
+     * @param bits Array to be filled in (it is expected to be zeroed).
+     * @param offset Position of the first long of this configuration.
+     */
+    public void toPresenceBits(Collection<String> variables, long[] bits, int offset) throws UnrecognizedVariableException {
+        for (String var: variables) {
+            Short index = variableIndices.get(var);
+            if (index == null) {
+                throw new UnrecognizedVariableException(var);
+            }
+            bits[offset + (index >>> 6)] |= 1L << index;
+        }
+    }
+
     /**
      * Returns a list of variable names from a corresponding presence vector.
      *
@@ -0,0 +1,41 @@
+package paramwrapper;
+
+/**
+ * Operations needed for evaluating polynomials and rational functions
+ * over some type of values (e.g., Double, ADD).
+ *
+ * @param <T> Type of the values.
+ * @see RationalFunction#evaluate(java.util.Map, Arithmetic)
+ */
+public interface Arithmetic<T> {
+
+    public T constant(double value);
+    public T add(T a, T b);
+    public T subtract(T a, T b);
+    public T multiply(T a, T b);
+    public T divide(T a, T b);
+
+    /**
+     * Exponentiation by squaring, which takes O(log(exponent)) multiplications.
+     *
+     * @param exponent Positive exponent.
+     */
+    public default T pow(T base, int exponent) {
+        if (exponent < 1) {
+            throw new IllegalArgumentException("Non-positive exponent: " + exponent);
+        }
+        T result = null;
+        T square = base;
+        while (true) {
+            if ((exponent & 1) != 0) {
+                result = (result == null) ? square : multiply(result, square);
+            }
+            exponent >>>= 1;
+            if (exponent == 0) {
+                return result;
+            }
+            square = multiply(square, square);
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package paramwrapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * Arbitrary-precision rational number, always kept in lowest terms
+ * and with a positive denominator.
+ *
+ * Exactness matters here: parametric model checking must yield the same
+ * coefficients (e.g., 9801/10000) that PARAM does, which floating-point
+ * arithmetic cannot guarantee.
+ */
+public final class BigRational implements Comparable<BigRational> {
+
+    public static final BigRational ZERO = new BigRational(BigInteger.ZERO, BigInteger.ONE);
+    public static final BigRational ONE = new BigRational(BigInteger.ONE, BigInteger.ONE);
+
+    private final BigInteger numerator;
+    private final BigInteger denominator;
+
+    private BigRational(BigInteger numerator, BigInteger denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    public static BigRational valueOf(BigInteger numerator, BigInteger denominator) {
+        if (denominator.signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (denominator.signum() < 0) {
+            numerator = numerator.negate();
+            denominator = denominator.negate();
+        }
+        BigInteger gcd = numerator.gcd(denominator);
+        if (!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+            numerator = numerator.divide(gcd);
+            denominator = denominator.divide(gcd);
+        }
+        if (numerator.signum() == 0) {
+            return ZERO;
+        }
+        return new BigRational(numerator, denominator);
+    }
+
+    public static BigRational valueOf(long value) {
+        return valueOf(BigInteger.valueOf(value), BigInteger.ONE);
+    }
+
+    /**
+     * Converts a floating-point number by means of its shortest decimal
+     * representation (e.g., 0.1 becomes 1/10), not its exact binary value.
+     *
+     * @throws NumberFormatException if {@code value} is infinite or NaN.
+     */
+    public static BigRational valueOf(double value) {
+        return parseDecimal(Double.toString(value));
+    }
+
+    /**
+     * Parses a decimal literal (e.g., "0.999", "1.0E-4") into its exact
+     * rational value.
+     *
+     * @throws NumberFormatException if {@code literal} is not a valid decimal.
+     */
+    public static BigRational parseDecimal(String literal) {
+        BigDecimal decimal = new BigDecimal(literal);
+        if (decimal.scale() > 0) {
+            return valueOf(decimal.unscaledValue(), BigInteger.TEN.pow(decimal.scale()));
+        }
+        return valueOf(decimal.toBigIntegerExact(), BigInteger.ONE);
+    }
+
+    public BigInteger getNumerator() {
+        return numerator;
+    }
+
+    public BigInteger getDenominator() {
+        return denominator;
+    }
+
+    public BigRational add(BigRational other) {
+        if (this.isZero()) {
+            return other;
+        } else if (other.isZero()) {
+            return this;
+        }
+        return valueOf(numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
+                       denominator.multiply(other.denominator));
+    }
+
+    public BigRational subtract(BigRational other) {
+        return add(other.negate());
+    }
+
+    public BigRational multiply(BigRational other) {
+        if (this.isZero() || other.isZero()) {
+            return ZERO;
+        } else if (this.isOne()) {
+            return other;
+        } else if (other.isOne()) {
+            return this;
+        }
+        return valueOf(numerator.multiply(other.numerator),
+                       denominator.multiply(other.denominator));
+    }
+
+    public BigRational divide(BigRational other) {
+        return multiply(other.reciprocal());
+    }
+
+    public BigRational negate() {
+        return new BigRational(numerator.negate(), denominator);
+    }
+
+    public BigRational reciprocal() {
+        return valueOf(denominator, numerator);
+    }
+
+    public BigRational pow(int exponent) {
+        return new BigRational(numerator.pow(exponent), denominator.pow(exponent));
+    }
+
+    public boolean isZero() {
+        return numerator.signum() == 0;
+    }
+
+    public boolean isOne() {
+        return numerator.equals(BigInteger.ONE) && denominator.equals(BigInteger.ONE);
+    }
+
+    public boolean isInteger() {
+        return denominator.equals(BigInteger.ONE);
+    }
+
+    public int signum() {
+        return numerator.signum();
+    }
+
+    public double doubleValue() {
+        if (isInteger()) {
+            return numerator.doubleValue();
+        }
+        return new BigDecimal(numerator).divide(new BigDecimal(denominator),
+                                                MathContext.DECIMAL64)
+                .doubleValue();
+    }
+
+    @Override
+    public int compareTo(BigRational other) {
+        return numerator.multiply(other.denominator)
+                .compareTo(other.numerator.multiply(denominator));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj != null && obj instanceof BigRational) {
+            BigRational other = (BigRational) obj;
+            return numerator.equals(other.numerator)
+                    && denominator.equals(other.denominator);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31*numerator.hashCode() + denominator.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        if (isInteger()) {
+            return numerator.toString();
+        }
+        return numerator + "/" + denominator;
+    }
+
+}
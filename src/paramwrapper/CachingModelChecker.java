@@ -0,0 +1,175 @@
+package paramwrapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+import fdtmc.Transition;
+
+/**
+ * Decorator which persists the reliability expressions yielded by another
+ * {@link ParametricModelChecker}, so that unchanged models need not be
+ * model-checked again in subsequent runs.
+ *
+ * Expressions are keyed by a digest of the FDTMC's canonical form, i.e.,
+ * its states, labels and transitions (with their probabilities), regardless
+ * of the order in which transitions were created.
+ *
+ * @author thiago
+ */
+public class CachingModelChecker implements ParametricModelChecker, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(CachingModelChecker.class.getName());
+
+    private static final String CANONICAL_FORM_VERSION = "fdtmc-1";
+
+    private ParametricModelChecker modelChecker;
+    private ExpressionCache cache;
+
+    private AtomicInteger hits = new AtomicInteger();
+    private AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * @param modelChecker Model checker to which cache misses are delegated.
+     * @param cacheDirectory Directory where cached expressions are stored.
+     * @param maxEntries Maximum number of cached expressions.
+     * @param maxBytes Maximum total size (in bytes) of cached expressions.
+     * @throws IOException if the cache cannot be opened (e.g., if it is in use
+     *      by another process).
+     */
+    public CachingModelChecker(ParametricModelChecker modelChecker, Path cacheDirectory, int maxEntries, long maxBytes) throws IOException {
+        this.modelChecker = modelChecker;
+        this.cache = new ExpressionCache(cacheDirectory, maxEntries, maxBytes);
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        byte[] key = digest(fdtmc);
+        String cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        String reliability = modelChecker.getReliability(fdtmc);
+        // An empty expression signals failure, which we do not want to remember.
+        if (!reliability.isEmpty()) {
+            store(key, reliability);
+        }
+        return reliability;
+    }
+
+    /**
+     * Expressions are still cached as text, so hits must be parsed, but
+     * misses are served by the underlying model checker's functions.
+     */
+    @Override
+    public RationalFunction getReliabilityFunction(FDTMC fdtmc) {
+        byte[] key = digest(fdtmc);
+        String cached = lookup(key);
+        if (cached != null) {
+            return RationalFunction.parseFormula(cached);
+        }
+        RationalFunction reliability = modelChecker.getReliabilityFunction(fdtmc);
+        if (reliability != null) {
+            store(key, reliability.toString());
+        }
+        return reliability;
+    }
+
+    /**
+     * @return the cached expression or {@code null} if there is none.
+     */
+    private String lookup(byte[] key) {
+        try {
+            String cached = cache.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read from the expression cache: " + e, e);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void store(byte[] key, String reliability) {
+        try {
+            cache.put(key, reliability);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write to the expression cache: " + e, e);
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        cache.close();
+    }
+
+    static byte[] digest(FDTMC fdtmc) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return sha256.digest(toCanonicalForm(fdtmc).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serializes the parts of an FDTMC which can influence its reliability.
+     * States are listed by index, and each state's transitions are sorted
+     * by target and probability.
+     */
+    static String toCanonicalForm(FDTMC fdtmc) {
+        StringBuilder builder = new StringBuilder(CANONICAL_FORM_VERSION).append('\n');
+        builder.append("initial ").append(fdtmc.getInitialState().getIndex()).append('\n');
+
+        Map<Integer, State> statesByIndex = new TreeMap<Integer, State>();
+        for (State state: fdtmc.getStates()) {
+            statesByIndex.put(state.getIndex(), state);
+        }
+        Map<State, List<Transition>> transitions = fdtmc.getTransitions();
+        for (State state: statesByIndex.values()) {
+            builder.append("state ").append(state.getIndex());
+            if (state.getLabel() != null) {
+                builder.append(' ').append(state.getLabel());
+            }
+            builder.append('\n');
+
+            List<Transition> outgoing = transitions.get(state);
+            if (outgoing == null) {
+                continue;
+            }
+            List<Transition> sorted = new ArrayList<Transition>(outgoing);
+            sorted.sort(Comparator.comparingInt((Transition t) -> t.getTarget().getIndex())
+                                  .thenComparing(Transition::getProbability));
+            for (Transition transition: sorted) {
+                builder.append("  -> ").append(transition.getTarget().getIndex())
+                       .append(' ').append(transition.getProbability().trim())
+                       .append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+}
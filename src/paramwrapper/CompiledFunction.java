@@ -0,0 +1,55 @@
+package paramwrapper;
+
+/**
+ * Rational function compiled for fast, repeated floating-point evaluation
+ * (see {@link RationalFunction#compile(java.util.List)}).
+ *
+ * Variables are bound to slots, i.e., positions in an array of values,
+ * so evaluation takes no lookups by name nor allocations. Instances are
+ * immutable, so a single compiled function can be evaluated for many
+ * configurations by many threads at once.
+ */
+public final class CompiledFunction {
+    private final CompiledPolynomial numerator;
+    /** {@code null} for polynomials. */
+    private final CompiledPolynomial denominator;
+
+    CompiledFunction(CompiledPolynomial numerator, CompiledPolynomial denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    /**
+     * @param values Value of each slot.
+     */
+    public double evaluate(double[] values) {
+        double value = numerator.evaluate(values);
+        if (denominator == null) {
+            return value;
+        }
+        return value / denominator.evaluate(values);
+    }
+
+    /**
+     * Evaluates the function for a block of cases (e.g., configurations) at
+     * once. Results are the same as those of {@link #evaluate(double[])} for
+     * each row.
+     *
+     * @param columns Values of each slot, one column per slot and one row
+     *      per case. Columns of unused slots may be {@code null}.
+     * @param count Number of rows to evaluate.
+     * @param results Column in which to store the results.
+     */
+    public void evaluate(double[][] columns, int count, double[] results) {
+        double[] scratch = new double[count];
+        numerator.evaluate(columns, count, results, scratch);
+        if (denominator != null) {
+            double[] divisors = new double[count];
+            denominator.evaluate(columns, count, divisors, scratch);
+            for (int r = 0; r < count; r++) {
+                results[r] /= divisors[r];
+            }
+        }
+    }
+
+}
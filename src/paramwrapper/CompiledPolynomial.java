@@ -0,0 +1,89 @@
+package paramwrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.ToIntFunction;
+
+/**
+ * Polynomial laid out in flat arrays for floating-point evaluation: each
+ * term is a coefficient followed by (slot, exponent) pairs, where a slot
+ * is the position of a variable's value in the array of values.
+ *
+ * Instances are immutable, so they can be evaluated by many threads at once.
+ */
+final class CompiledPolynomial {
+    private final double[] coefficients;
+    private final int[] termStart;
+    private final int[] factors;
+
+    /**
+     * @param slots Slot of each variable.
+     */
+    CompiledPolynomial(Map<Monomial, BigRational> terms, ToIntFunction<String> slots) {
+        List<Integer> flatFactors = new ArrayList<Integer>();
+        this.coefficients = new double[terms.size()];
+        this.termStart = new int[terms.size() + 1];
+        int t = 0;
+        for (Entry<Monomial, BigRational> term: terms.entrySet()) {
+            coefficients[t] = term.getValue().doubleValue();
+            termStart[t++] = flatFactors.size();
+            Monomial monomial = term.getKey();
+            for (int i = 0; i < monomial.getNumberOfVariables(); i++) {
+                flatFactors.add(slots.applyAsInt(monomial.getVariable(i)));
+                flatFactors.add(monomial.getExponent(i));
+            }
+        }
+        termStart[t] = flatFactors.size();
+        this.factors = flatFactors.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    double evaluate(double[] values) {
+        double sum = 0;
+        for (int t = 0; t < coefficients.length; t++) {
+            double product = coefficients[t];
+            for (int f = termStart[t]; f < termStart[t+1]; f += 2) {
+                double value = values[factors[f]];
+                int exponent = factors[f+1];
+                product *= (exponent == 1) ? value : Math.pow(value, exponent);
+            }
+            sum += product;
+        }
+        return sum;
+    }
+
+    /**
+     * Column-wise counterpart of {@link #evaluate(double[])}, which performs
+     * the same operations in the same order for each row, but term by term
+     * over whole columns, in loops the JIT can vectorize.
+     *
+     * @param columns Values of each slot, one row per case.
+     * @param sums Column in which to store the results.
+     * @param products Scratch column.
+     */
+    void evaluate(double[][] columns, int count, double[] sums, double[] products) {
+        Arrays.fill(sums, 0, count, 0.0);
+        for (int t = 0; t < coefficients.length; t++) {
+            Arrays.fill(products, 0, count, coefficients[t]);
+            for (int f = termStart[t]; f < termStart[t+1]; f += 2) {
+                double[] column = columns[factors[f]];
+                int exponent = factors[f+1];
+                if (exponent == 1) {
+                    for (int r = 0; r < count; r++) {
+                        products[r] *= column[r];
+                    }
+                } else {
+                    for (int r = 0; r < count; r++) {
+                        products[r] *= Math.pow(column[r], exponent);
+                    }
+                }
+            }
+            for (int r = 0; r < count; r++) {
+                sums[r] += products[r];
+            }
+        }
+    }
+
+}
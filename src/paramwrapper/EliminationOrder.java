@@ -0,0 +1,25 @@
+package paramwrapper;
+
+/**
+ * Heuristics for choosing the order in which states are eliminated
+ * within each strongly connected component of an FDTMC.
+ *
+ * States outside cycles are always eliminated in reverse topological
+ * order (i.e., by back-substitution), regardless of the heuristic.
+ */
+public enum EliminationOrder {
+    /**
+     * Eliminates first the state with the fewest predecessors and successors.
+     */
+    MIN_DEGREE,
+    /**
+     * Eliminates first the state whose elimination creates the fewest new transitions.
+     */
+    MIN_FILL,
+    /**
+     * Eliminates first the states discovered last by a depth-first search
+     * from the initial state (i.e., reverse topological order, disregarding
+     * the edges which close cycles).
+     */
+    REVERSE_TOPOLOGICAL
+}
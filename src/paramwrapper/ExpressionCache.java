@@ -0,0 +1,388 @@
+package paramwrapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Disk-backed, content-addressed store of reliability expressions.
+ *
+ * Each expression is kept in its own file, named after the (hex-encoded)
+ * digest of the model which yielded it. A memory-mapped index maps digests
+ * to entries' sizes and last access times, so that lookups do not need to
+ * touch the file system on misses and the least recently used entries
+ * can be evicted whenever the size bounds are exceeded.
+ *
+ * The index is an open-addressing hash table with linear probing. Its layout
+ * is a fixed-size header followed by {@code capacity} slots:
+ * <pre>
+ *   header := magic:int version:int capacity:int live:int used:int pad:int clock:long bytes:long
+ *   slot   := digest:byte[32] lastAccess:long size:int state:int
+ * </pre>
+ */
+class ExpressionCache implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ExpressionCache.class.getName());
+
+    static final int DIGEST_LENGTH = 32;
+
+    private static final String INDEX_FILE = "index";
+    private static final String ENTRIES_DIRECTORY = "entries";
+
+    private static final int MAGIC = 0x52654178;
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 40;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int LIVE_OFFSET = 12;
+    private static final int USED_OFFSET = 16;
+    private static final int CLOCK_OFFSET = 24;
+    private static final int BYTES_OFFSET = 32;
+
+    private static final int SLOT_SIZE = DIGEST_LENGTH + 16;
+    private static final int TICK_OFFSET = DIGEST_LENGTH;
+    private static final int SIZE_OFFSET = DIGEST_LENGTH + 8;
+    private static final int STATE_OFFSET = DIGEST_LENGTH + 12;
+
+    /**
+     * Keeps the index within what a single memory mapping can hold.
+     */
+    static final int MAX_ENTRIES = 1 << 23;
+
+    private static final int EMPTY = 0;
+    private static final int LIVE = 1;
+    private static final int DELETED = 2;
+
+    /**
+     * Eviction frees up this fraction of the bounds at once, so that
+     * the cost of scanning the index is amortized over many insertions.
+     */
+    private static final double EVICTION_TARGET = 0.9;
+
+    private final Path entriesDirectory;
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final FileChannel indexChannel;
+    private final FileLock indexLock;
+    private MappedByteBuffer index;
+    private int capacity;
+
+    /**
+     * Opens (or creates) the cache stored in {@code directory}.
+     *
+     * @throws IOException if the cache cannot be opened or if it is
+     *      already in use by another process.
+     */
+    public ExpressionCache(Path directory, int maxEntries, long maxBytes) throws IOException {
+        if (maxEntries <= 0 || maxEntries > MAX_ENTRIES || maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive and hold at most "
+                    + MAX_ENTRIES + " entries");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.entriesDirectory = directory.resolve(ENTRIES_DIRECTORY);
+        Files.createDirectories(entriesDirectory);
+
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = indexChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Already locked from within this very JVM.
+            lock = null;
+        }
+        indexLock = lock;
+        if (indexLock == null) {
+            indexChannel.close();
+            throw new IOException("Expression cache at " + directory + " is in use by another process");
+        }
+        openIndex();
+    }
+
+    /**
+     * @return the cached expression for {@code digest}, or {@code null}
+     *      if there is none.
+     */
+    public synchronized String get(byte[] digest) throws IOException {
+        int slot = findSlot(digest);
+        if (slot < 0) {
+            return null;
+        }
+        byte[] contents;
+        try {
+            contents = Files.readAllBytes(entryPath(digest));
+        } catch (NoSuchFileException e) {
+            LOGGER.warning("Missing cache entry " + toHex(digest) + "; discarding it.");
+            removeSlot(slot);
+            return null;
+        }
+        setLong(slot, TICK_OFFSET, nextTick());
+        return new String(contents, StandardCharsets.UTF_8);
+    }
+
+    public synchronized void put(byte[] digest, String expression) throws IOException {
+        byte[] contents = expression.getBytes(StandardCharsets.UTF_8);
+        Path entry = entryPath(digest);
+        Files.createDirectories(entry.getParent());
+        Path temporary = Files.createTempFile(entry.getParent(), null, ".tmp");
+        try {
+            Files.write(temporary, contents);
+            Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        int slot = findSlot(digest);
+        if (slot >= 0) {
+            index.putLong(BYTES_OFFSET, index.getLong(BYTES_OFFSET) - getInt(slot, SIZE_OFFSET));
+        } else {
+            if (index.getInt(USED_OFFSET) + 1 > capacity * 3 / 4) {
+                rehash();
+            }
+            slot = insertSlot(digest);
+        }
+        setInt(slot, SIZE_OFFSET, contents.length);
+        setLong(slot, TICK_OFFSET, nextTick());
+        index.putLong(BYTES_OFFSET, index.getLong(BYTES_OFFSET) + contents.length);
+
+        if (size() > maxEntries || getTotalBytes() > maxBytes) {
+            evict(slot);
+        }
+    }
+
+    public synchronized int size() {
+        return index.getInt(LIVE_OFFSET);
+    }
+
+    public synchronized long getTotalBytes() {
+        return index.getLong(BYTES_OFFSET);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (indexChannel.isOpen()) {
+            index.force();
+            indexLock.release();
+            indexChannel.close();
+        }
+    }
+
+    private void openIndex() throws IOException {
+        int wantedCapacity = Math.max(16, Integer.highestOneBit(maxEntries) * 4);
+        boolean reuseIndex = false;
+        List<Entry> existing = new ArrayList<Entry>();
+        long clock = 0;
+        if (indexChannel.size() >= HEADER_SIZE) {
+            MappedByteBuffer previous = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+            int previousCapacity = previous.getInt(CAPACITY_OFFSET);
+            if (previous.getInt(MAGIC_OFFSET) == MAGIC
+                    && previous.getInt(VERSION_OFFSET) == VERSION
+                    && indexChannel.size() == HEADER_SIZE + (long) previousCapacity * SLOT_SIZE) {
+                index = previous;
+                capacity = previousCapacity;
+                // If bounds changed since the last run, we keep what we have, but re-index it.
+                reuseIndex = (previousCapacity == wantedCapacity);
+                if (!reuseIndex) {
+                    existing = liveEntries();
+                    clock = previous.getLong(CLOCK_OFFSET);
+                }
+            } else {
+                LOGGER.warning("Unrecognized expression cache index; starting afresh.");
+            }
+        }
+        if (!reuseIndex) {
+            createIndex(wantedCapacity, existing, clock);
+        }
+        if (size() > maxEntries || getTotalBytes() > maxBytes) {
+            evict(-1);
+        }
+    }
+
+    private void createIndex(int newCapacity, List<Entry> entries, long clock) throws IOException {
+        long length = HEADER_SIZE + (long) newCapacity * SLOT_SIZE;
+        indexChannel.truncate(0);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        capacity = newCapacity;
+        // Freshly mapped file regions are zero-filled, i.e., all slots are EMPTY.
+        index.putInt(MAGIC_OFFSET, MAGIC);
+        index.putInt(VERSION_OFFSET, VERSION);
+        index.putInt(CAPACITY_OFFSET, capacity);
+        index.putInt(LIVE_OFFSET, 0);
+        index.putInt(USED_OFFSET, 0);
+        index.putLong(CLOCK_OFFSET, clock);
+        index.putLong(BYTES_OFFSET, 0);
+        for (Entry entry: entries) {
+            int slot = insertSlot(entry.digest);
+            setLong(slot, TICK_OFFSET, entry.tick);
+            setInt(slot, SIZE_OFFSET, entry.size);
+            index.putLong(BYTES_OFFSET, index.getLong(BYTES_OFFSET) + entry.size);
+        }
+    }
+
+    /**
+     * Rebuilds the index in place, getting rid of deleted slots.
+     */
+    private void rehash() throws IOException {
+        createIndex(capacity, liveEntries(), index.getLong(CLOCK_OFFSET));
+    }
+
+    /**
+     * Evicts least recently used entries until the cache is comfortably
+     * within its bounds. The entry in {@code keptSlot} is spared, unless
+     * it alone exceeds the bounds.
+     */
+    private void evict(int keptSlot) throws IOException {
+        List<Entry> entries = liveEntries();
+        entries.sort((e1, e2) -> Long.compare(e1.tick, e2.tick));
+        long targetEntries = (long) (maxEntries * EVICTION_TARGET);
+        long targetBytes = (long) (maxBytes * EVICTION_TARGET);
+        byte[] kept = (keptSlot >= 0) ? getDigest(keptSlot) : null;
+        for (Entry entry: entries) {
+            if (size() <= targetEntries && getTotalBytes() <= targetBytes) {
+                break;
+            }
+            if (kept != null && Arrays.equals(kept, entry.digest) && entry.size <= maxBytes) {
+                continue;
+            }
+            Files.deleteIfExists(entryPath(entry.digest));
+            removeSlot(findSlot(entry.digest));
+        }
+    }
+
+    private List<Entry> liveEntries() {
+        List<Entry> entries = new ArrayList<Entry>();
+        for (int slot = 0; slot < capacity; slot++) {
+            if (getInt(slot, STATE_OFFSET) == LIVE) {
+                entries.add(new Entry(getDigest(slot),
+                                      getLong(slot, TICK_OFFSET),
+                                      getInt(slot, SIZE_OFFSET)));
+            }
+        }
+        return entries;
+    }
+
+    private int findSlot(byte[] digest) {
+        int slot = homeSlot(digest);
+        for (int probes = 0; probes < capacity; probes++) {
+            int state = getInt(slot, STATE_OFFSET);
+            if (state == EMPTY) {
+                return -1;
+            } else if (state == LIVE && Arrays.equals(digest, getDigest(slot))) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    private int insertSlot(byte[] digest) {
+        int slot = homeSlot(digest);
+        while (getInt(slot, STATE_OFFSET) == LIVE) {
+            slot = (slot + 1) & (capacity - 1);
+        }
+        if (getInt(slot, STATE_OFFSET) == EMPTY) {
+            index.putInt(USED_OFFSET, index.getInt(USED_OFFSET) + 1);
+        }
+        ByteBuffer view = slotView(slot);
+        view.put(digest);
+        setInt(slot, STATE_OFFSET, LIVE);
+        index.putInt(LIVE_OFFSET, index.getInt(LIVE_OFFSET) + 1);
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        setInt(slot, STATE_OFFSET, DELETED);
+        index.putInt(LIVE_OFFSET, index.getInt(LIVE_OFFSET) - 1);
+        index.putLong(BYTES_OFFSET, index.getLong(BYTES_OFFSET) - getInt(slot, SIZE_OFFSET));
+    }
+
+    private int homeSlot(byte[] digest) {
+        int hash = ((digest[0] & 0xFF) << 24) | ((digest[1] & 0xFF) << 16)
+                | ((digest[2] & 0xFF) << 8) | (digest[3] & 0xFF);
+        return hash & (capacity - 1);
+    }
+
+    private long nextTick() {
+        long tick = index.getLong(CLOCK_OFFSET) + 1;
+        index.putLong(CLOCK_OFFSET, tick);
+        return tick;
+    }
+
+    private ByteBuffer slotView(int slot) {
+        ByteBuffer view = index.duplicate();
+        view.position(slotOffset(slot));
+        return view;
+    }
+
+    private byte[] getDigest(int slot) {
+        byte[] digest = new byte[DIGEST_LENGTH];
+        slotView(slot).get(digest);
+        return digest;
+    }
+
+    private int getInt(int slot, int offset) {
+        return index.getInt(slotOffset(slot) + offset);
+    }
+
+    private void setInt(int slot, int offset, int value) {
+        index.putInt(slotOffset(slot) + offset, value);
+    }
+
+    private long getLong(int slot, int offset) {
+        return index.getLong(slotOffset(slot) + offset);
+    }
+
+    private void setLong(int slot, int offset, long value) {
+        index.putLong(slotOffset(slot) + offset, value);
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private Path entryPath(byte[] digest) {
+        String name = toHex(digest);
+        return entriesDirectory.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    static String toHex(byte[] digest) {
+        StringBuilder builder = new StringBuilder(2 * digest.length);
+        for (byte b: digest) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16))
+                   .append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static class Entry {
+        final byte[] digest;
+        final long tick;
+        final int size;
+
+        Entry(byte[] digest, long tick, int size) {
+            this.digest = digest;
+            this.tick = tick;
+            this.size = size;
+        }
+    }
+
+}
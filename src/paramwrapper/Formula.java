@@ -1,7 +1,6 @@
 package paramwrapper;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 
 public class Formula {
@@ -14,11 +13,12 @@ public class Formula {
 	}
 	
 	public String getCurrentFormula(String modelString, String property, ParamModel model) throws IOException {
-		modelFile = File.createTempFile("model", "param");
-		writeFile(modelString, modelFile);
-		propertyFile = File.createTempFile("property", "prop");
-		writeFile(property, propertyFile);
-		resultsFile = File.createTempFile("result", null);
+		ScratchArea scratchArea = paramWrapper.getScratchArea();
+		ScratchArea.Slot slot = scratchArea.getSlot();
+		ScratchArea.write(modelString, slot.getModelFile());
+		modelFile = slot.getModelFile().toFile();
+		propertyFile = scratchArea.getPropertyFile(property).toFile();
+		resultsFile = slot.getResultsFile().toFile();
 
 		String formula;
 		if (paramWrapper.getPrism() && !modelString.contains("const")) {
@@ -37,13 +37,5 @@ public class Formula {
 		}
 		return formula;
 	}
-		
-	private void writeFile(String modelString, File file) throws IOException {
-		FileWriter fileWriter = new FileWriter(file);
-		fileWriter.write(modelString);
-		fileWriter.flush();
-		fileWriter.close();
-	}
-	
-	
+
 }
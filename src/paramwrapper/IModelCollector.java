@@ -1,11 +1,17 @@
 package paramwrapper;
 
 import java.io.PrintStream;
+import java.util.List;
 
 public interface IModelCollector {
 
     public void collectModel(int variables, int states);
     public void collectModelCheckingTime(long elapsedTimeNanos);
+    /**
+     * Collects the order in which states were eliminated by an in-process
+     * model checker (see {@link StateEliminationModelChecker}).
+     */
+    public void collectEliminationOrder(EliminationOrder heuristic, List<Integer> order);
     public void printStats(PrintStream out);
 
 }
@@ -0,0 +1,194 @@
+package paramwrapper;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fdtmc.FDTMC;
+
+/**
+ * Decorator which runs model checking requests in a fixed pool of
+ * long-lived worker threads.
+ *
+ * Requests wait in a bounded queue (submitters block while it is full),
+ * and each one may be given a timeout, after which its worker is interrupted
+ * and the request fails (i.e., yields an empty expression or a {@code null}
+ * function, just like any other model checking failure).
+ *
+ * Callers should prefer {@link #getReliabilityAsync(FDTMC)}, so that they
+ * do not hold on to a thread while the request is served. Synchronous calls
+ * from a {@link ForkJoinPool} (e.g., from a parallel stream) are made as
+ * managed blocks, which allows the pool to compensate for the waiting thread.
+ *
+ * @author thiago
+ */
+public class ModelCheckerPool implements ParametricModelChecker, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ModelCheckerPool.class.getName());
+
+    private ParametricModelChecker modelChecker;
+    private long timeoutMillis;
+
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService watchdog;
+
+    /**
+     * @param modelChecker Model checker to be invoked by the workers. It must be thread-safe.
+     * @param numberOfWorkers Number of worker threads.
+     * @param queueCapacity Maximum number of requests waiting for a worker.
+     * @param timeoutMillis Maximum time (in milliseconds) for serving a request,
+     *          counting from its submission. Zero means no timeout.
+     */
+    public ModelCheckerPool(ParametricModelChecker modelChecker, int numberOfWorkers, int queueCapacity, long timeoutMillis) {
+        if (numberOfWorkers <= 0 || queueCapacity <= 0 || timeoutMillis < 0) {
+            throw new IllegalArgumentException("Invalid model checker pool settings");
+        }
+        this.modelChecker = modelChecker;
+        this.timeoutMillis = timeoutMillis;
+
+        this.workers = new ThreadPoolExecutor(numberOfWorkers,
+                                              numberOfWorkers,
+                                              0L, TimeUnit.MILLISECONDS,
+                                              new ArrayBlockingQueue<Runnable>(queueCapacity),
+                                              new DaemonThreadFactory("model-checker-worker-"),
+                                              ModelCheckerPool::waitForRoom);
+        this.workers.prestartAllCoreThreads();
+
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("model-checker-watchdog-"));
+        timer.setRemoveOnCancelPolicy(true);
+        this.watchdog = timer;
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        String reliability = await(getReliabilityAsync(fdtmc));
+        return (reliability != null) ? reliability : "";
+    }
+
+    @Override
+    public CompletableFuture<String> getReliabilityAsync(FDTMC fdtmc) {
+        return submit(() -> modelChecker.getReliability(fdtmc), "");
+    }
+
+    @Override
+    public RationalFunction getReliabilityFunction(FDTMC fdtmc) {
+        return await(getReliabilityFunctionAsync(fdtmc));
+    }
+
+    @Override
+    public CompletableFuture<RationalFunction> getReliabilityFunctionAsync(FDTMC fdtmc) {
+        return submit(() -> modelChecker.getReliabilityFunction(fdtmc), null);
+    }
+
+    /**
+     * Waits for a result, signaling interruption with a {@code null} one.
+     */
+    private static <T> T await(CompletableFuture<T> reliability) {
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    try {
+                        reliability.get();
+                    } catch (ExecutionException e) {
+                        // Reported below.
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return reliability.isDone();
+                }
+            });
+        } catch (InterruptedException e) {
+            reliability.cancel(true);
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, e.toString(), e);
+            return null;
+        }
+        return reliability.join();
+    }
+
+    /**
+     * @param failure Result of a request which times out.
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> modelCheck, T failure) {
+        CompletableFuture<T> reliability = new CompletableFuture<T>();
+        Future<?> request = workers.submit(() -> {
+            if (reliability.isDone()) {
+                return;
+            }
+            try {
+                reliability.complete(modelCheck.get());
+            } catch (RuntimeException e) {
+                reliability.completeExceptionally(e);
+            }
+        });
+        if (timeoutMillis > 0) {
+            ScheduledFuture<?> expiration = watchdog.schedule(() -> {
+                if (reliability.complete(failure)) {
+                    LOGGER.severe("Model checking timed out after " + timeoutMillis + " ms");
+                    request.cancel(true);
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            reliability.whenComplete((result, error) -> expiration.cancel(false));
+        }
+        return reliability;
+    }
+
+    /**
+     * Stops all workers, interrupting the ones which are still serving requests.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Rejection policy which blocks the submitter until there is room
+     * in the queue, instead of failing the request.
+     */
+    private static void waitForRoom(Runnable request, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Model checker pool has been closed");
+        }
+        try {
+            executor.getQueue().put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
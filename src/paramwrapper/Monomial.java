@@ -0,0 +1,239 @@
+package paramwrapper;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Power product of variables (e.g., r0^2*rFail), without a coefficient.
+ *
+ * Variables are kept sorted by name, so that equal monomials always have
+ * equal representations. Monomials are also hash-consed: there is a single
+ * instance for each distinct monomial, so they can be compared by identity.
+ * Distinct monomials are relatively few (even for huge polynomials), so the
+ * instances are never released.
+ */
+public final class Monomial implements Comparable<Monomial> {
+
+    private static final ConcurrentMap<Monomial, Monomial> UNIQUE_TABLE = new ConcurrentHashMap<Monomial, Monomial>();
+
+    public static final Monomial ONE = make(new String[0], new int[0]);
+
+    private final String[] variables;
+    private final int[] exponents;
+    private final int hash;
+
+    private Monomial(String[] variables, int[] exponents) {
+        this.variables = variables;
+        this.exponents = exponents;
+        this.hash = 31*Arrays.hashCode(variables) + Arrays.hashCode(exponents);
+    }
+
+    /**
+     * @return the unique instance of the monomial with the given (sorted) variables.
+     */
+    private static Monomial make(String[] variables, int[] exponents) {
+        Monomial candidate = new Monomial(variables, exponents);
+        Monomial unique = UNIQUE_TABLE.putIfAbsent(candidate, candidate);
+        return (unique != null) ? unique : candidate;
+    }
+
+    public static Monomial of(String variable) {
+        return make(new String[]{variable.intern()}, new int[]{1});
+    }
+
+    public int getNumberOfVariables() {
+        return variables.length;
+    }
+
+    /**
+     * @param i Position of the variable, from 0 until {@link #getNumberOfVariables()}.
+     */
+    public String getVariable(int i) {
+        return variables[i];
+    }
+
+    public int getExponent(int i) {
+        return exponents[i];
+    }
+
+    public int getDegree() {
+        int degree = 0;
+        for (int exponent: exponents) {
+            degree += exponent;
+        }
+        return degree;
+    }
+
+    public boolean isOne() {
+        return variables.length == 0;
+    }
+
+    public Set<String> getVariables() {
+        return new TreeSet<String>(Arrays.asList(variables));
+    }
+
+    public Monomial multiply(Monomial other) {
+        if (this.isOne()) {
+            return other;
+        } else if (other.isOne()) {
+            return this;
+        }
+        String[] vars = new String[variables.length + other.variables.length];
+        int[] exps = new int[vars.length];
+        int i = 0, j = 0, k = 0;
+        while (i < variables.length || j < other.variables.length) {
+            int cmp;
+            if (i == variables.length) {
+                cmp = 1;
+            } else if (j == other.variables.length) {
+                cmp = -1;
+            } else {
+                cmp = variables[i].compareTo(other.variables[j]);
+            }
+            if (cmp < 0) {
+                vars[k] = variables[i];
+                exps[k++] = exponents[i++];
+            } else if (cmp > 0) {
+                vars[k] = other.variables[j];
+                exps[k++] = other.exponents[j++];
+            } else {
+                vars[k] = variables[i];
+                exps[k++] = exponents[i++] + other.exponents[j++];
+            }
+        }
+        return make(Arrays.copyOf(vars, k), Arrays.copyOf(exps, k));
+    }
+
+    /**
+     * @return true if this monomial is a multiple of {@code other}.
+     */
+    public boolean isDivisibleBy(Monomial other) {
+        int i = 0;
+        for (int j = 0; j < other.variables.length; j++) {
+            while (i < variables.length && variables[i].compareTo(other.variables[j]) < 0) {
+                i++;
+            }
+            if (i == variables.length
+                    || !variables[i].equals(other.variables[j])
+                    || exponents[i] < other.exponents[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Divides this monomial by {@code other}, which must divide it.
+     * @see #isDivisibleBy(Monomial)
+     */
+    public Monomial divide(Monomial other) {
+        String[] vars = new String[variables.length];
+        int[] exps = new int[variables.length];
+        int j = 0, k = 0;
+        for (int i = 0; i < variables.length; i++) {
+            int exponent = exponents[i];
+            if (j < other.variables.length && variables[i].equals(other.variables[j])) {
+                exponent -= other.exponents[j++];
+            }
+            if (exponent > 0) {
+                vars[k] = variables[i];
+                exps[k++] = exponent;
+            }
+        }
+        return make(Arrays.copyOf(vars, k), Arrays.copyOf(exps, k));
+    }
+
+    /**
+     * @return the greatest common divisor of this monomial and {@code other},
+     *      i.e., the product of their common variables, each one raised to
+     *      the lesser exponent.
+     */
+    public Monomial gcd(Monomial other) {
+        if (this == other) {
+            return this;
+        }
+        String[] vars = new String[Math.min(variables.length, other.variables.length)];
+        int[] exps = new int[vars.length];
+        int i = 0, j = 0, k = 0;
+        while (i < variables.length && j < other.variables.length) {
+            int cmp = variables[i].compareTo(other.variables[j]);
+            if (cmp < 0) {
+                i++;
+            } else if (cmp > 0) {
+                j++;
+            } else {
+                vars[k] = variables[i];
+                exps[k++] = Math.min(exponents[i++], other.exponents[j++]);
+            }
+        }
+        if (k == 0) {
+            return ONE;
+        }
+        return make(Arrays.copyOf(vars, k), Arrays.copyOf(exps, k));
+    }
+
+    /**
+     * Lexicographic monomial order (variables compared by name). This is an
+     * admissible monomial order, hence suitable for polynomial division.
+     */
+    @Override
+    public int compareTo(Monomial other) {
+        int n = Math.min(variables.length, other.variables.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = variables[i].compareTo(other.variables[i]);
+            if (cmp != 0) {
+                // The monomial which has the lexicographically smaller variable is greater.
+                return -cmp;
+            }
+            if (exponents[i] != other.exponents[i]) {
+                return Integer.compare(exponents[i], other.exponents[i]);
+            }
+        }
+        return Integer.compare(variables.length, other.variables.length);
+    }
+
+    /**
+     * Structural equality, which is only needed for looking up the unique
+     * table. Everywhere else, equal monomials are the same instance.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj != null && obj instanceof Monomial) {
+            Monomial other = (Monomial) obj;
+            return hash == other.hash
+                    && Arrays.equals(variables, other.variables)
+                    && Arrays.equals(exponents, other.exponents);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Formats this monomial as a product of variables, e.g., "r0^2*rFail".
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < variables.length; i++) {
+            if (i > 0) {
+                builder.append('*');
+            }
+            builder.append(variables[i]);
+            if (exponents[i] > 1) {
+                builder.append('^').append(exponents[i]);
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -1,6 +1,7 @@
 package paramwrapper;
 
 import java.io.PrintStream;
+import java.util.List;
 
 public class NoopModelCollector implements IModelCollector {
 
@@ -14,6 +15,11 @@ public class NoopModelCollector implements IModelCollector {
         // NO-OP
     }
 
+    @Override
+    public void collectEliminationOrder(EliminationOrder heuristic, List<Integer> order) {
+        // NO-OP
+    }
+
     @Override
     public void printStats(PrintStream out) {
         // NO-OP
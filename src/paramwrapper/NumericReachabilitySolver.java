@@ -0,0 +1,268 @@
+package paramwrapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import fdtmc.CompiledFDTMC;
+import fdtmc.FDTMC;
+
+/**
+ * Computes the probability of eventually reaching a "success" state in an
+ * FDTMC whose transition probabilities are all constants (i.e., which has
+ * no parameters).
+ *
+ * The transition matrix is taken from the CSR layout of the
+ * {@link CompiledFDTMC}, and the reachability equations are solved exactly
+ * (up to rounding) by state elimination over doubles, as done symbolically by
+ * {@link StateEliminationModelChecker}. The states which cannot reach success
+ * at all are merged into a failure sink beforehand, so that every row stays
+ * stochastic and the self-loops can be factored out without cancellation.
+ *
+ * @author thiago
+ */
+class NumericReachabilitySolver {
+    // Pseudo-states for the merged success states and for the states which
+    // cannot reach success, respectively.
+    private static final int TARGET = -1;
+    private static final int FAILURE = -2;
+    /**
+     * Rows whose probabilities sum up to less than 1 by more than this have
+     * the missing probability routed to {@link #FAILURE}. Smaller deficits
+     * are rounding errors in otherwise stochastic rows.
+     */
+    private static final double STOCHASTIC_TOLERANCE = 1e-12;
+
+    private final int numberOfStates;
+    private final int initialState;
+    private final boolean[] isTarget;
+    // CSR layout: the transitions of state s are in positions rowStart[s] until rowStart[s+1].
+    private final int[] rowStart;
+    private final int[] targets;
+    private final double[] probabilities;
+
+    private NumericReachabilitySolver(CompiledFDTMC fdtmc) {
+        numberOfStates = fdtmc.getNumberOfStates();
+        initialState = fdtmc.getInitialState();
+        isTarget = new boolean[numberOfStates];
+        rowStart = new int[numberOfStates + 1];
+        for (int state = 0; state < numberOfStates; state++) {
+            isTarget[state] = fdtmc.hasLabel(state, FDTMC.SUCCESS_LABEL);
+            rowStart[state] = fdtmc.getTransitionsStart(state);
+        }
+        rowStart[numberOfStates] = fdtmc.getNumberOfTransitions();
+
+        // Each distinct probability expression is parsed only once.
+        double[] distinctProbabilities = new double[fdtmc.getNumberOfProbabilities()];
+        for (int i = 0; i < distinctProbabilities.length; i++) {
+            distinctProbabilities[i] = toDouble(fdtmc.getProbabilityExpression(i));
+        }
+        targets = new int[fdtmc.getNumberOfTransitions()];
+        probabilities = new double[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = fdtmc.getTarget(i);
+            probabilities[i] = distinctProbabilities[fdtmc.getProbabilityId(i)];
+        }
+    }
+
+    /**
+     * @return the probability of eventually reaching a "success" state.
+     * @throws IllegalArgumentException if any transition probability is not a constant.
+     */
+    public static double solve(FDTMC fdtmc) {
+        return solve(fdtmc.compile());
+    }
+
+    /**
+     * @see #solve(FDTMC)
+     */
+    public static double solve(CompiledFDTMC fdtmc) {
+        return new NumericReachabilitySolver(fdtmc).solve();
+    }
+
+    /**
+     * Formats a probability as a plain decimal (i.e., with no exponent),
+     * which is understood by every expression parser downstream, and with
+     * no trailing zeros (e.g., 1 instead of 1.0).
+     */
+    public static String format(double probability) {
+        return BigDecimal.valueOf(probability).stripTrailingZeros().toPlainString();
+    }
+
+    private double solve() {
+        if (isTarget[initialState]) {
+            return 1;
+        }
+        boolean[] relevant = statesReachingTarget();
+        if (!relevant[initialState]) {
+            return 0;
+        }
+        List<Integer> eliminationOrder = postorderFromInitialState(relevant);
+        Map<Integer, Map<Integer, Double>> successors = new HashMap<Integer, Map<Integer, Double>>();
+        Map<Integer, Set<Integer>> predecessors = new HashMap<Integer, Set<Integer>>();
+        for (int state : eliminationOrder) {
+            successors.put(state, new HashMap<Integer, Double>());
+            predecessors.put(state, new HashSet<Integer>());
+        }
+        for (int state : eliminationOrder) {
+            Map<Integer, Double> outgoing = successors.get(state);
+            double total = 0;
+            for (int i = rowStart[state]; i < rowStart[state + 1]; i++) {
+                total += probabilities[i];
+                if (probabilities[i] == 0) {
+                    continue;
+                }
+                int target = isTarget[targets[i]] ? TARGET : (relevant[targets[i]] ? targets[i] : FAILURE);
+                outgoing.merge(target, probabilities[i], Double::sum);
+                if (target >= 0) {
+                    predecessors.get(target).add(state);
+                }
+            }
+            if (total < 1 - STOCHASTIC_TOLERANCE) {
+                outgoing.merge(FAILURE, 1 - total, Double::sum);
+            }
+        }
+
+        // Successors are eliminated before their predecessors (except for
+        // cycles), so that acyclic parts amount to back substitution.
+        for (int state : eliminationOrder) {
+            if (state != initialState) {
+                eliminate(state, successors, predecessors);
+            }
+        }
+        Map<Integer, Double> outgoing = successors.get(initialState);
+        return outgoing.getOrDefault(TARGET, 0.0) / exitProbability(initialState, outgoing);
+    }
+
+    /**
+     * Removes a state, redirecting each path through it to its successors.
+     */
+    private static void eliminate(int state,
+                                  Map<Integer, Map<Integer, Double>> successors,
+                                  Map<Integer, Set<Integer>> predecessors) {
+        Map<Integer, Double> outgoing = successors.remove(state);
+        Set<Integer> incoming = predecessors.remove(state);
+        outgoing.remove(state);
+        incoming.remove(state);
+        double exit = exitProbability(state, outgoing);
+        for (int predecessor : incoming) {
+            Map<Integer, Double> predecessorOutgoing = successors.get(predecessor);
+            double factor = predecessorOutgoing.remove(state) / exit;
+            for (Map.Entry<Integer, Double> transition : outgoing.entrySet()) {
+                predecessorOutgoing.merge(transition.getKey(), factor * transition.getValue(), Double::sum);
+                if (transition.getKey() >= 0) {
+                    predecessors.get(transition.getKey()).add(predecessor);
+                }
+            }
+        }
+        for (int successor : outgoing.keySet()) {
+            if (successor >= 0) {
+                predecessors.get(successor).remove(state);
+            }
+        }
+    }
+
+    /**
+     * Probability of leaving a state, i.e., 1 minus its self-loop. Since
+     * rows are kept stochastic (with the explicit failure sink), this is the
+     * sum of the other transitions, which does not cancel out when the
+     * self-loop is close to 1.
+     */
+    private static double exitProbability(int state, Map<Integer, Double> outgoing) {
+        double exit = 0;
+        for (Map.Entry<Integer, Double> transition : outgoing.entrySet()) {
+            if (transition.getKey() != state) {
+                exit += transition.getValue();
+            }
+        }
+        return exit;
+    }
+
+    /**
+     * Depth-first postorder of the non-target states which are reachable
+     * from the initial state and can reach a target.
+     */
+    private List<Integer> postorderFromInitialState(boolean[] relevant) {
+        List<Integer> postorder = new ArrayList<Integer>();
+        boolean[] visited = new boolean[numberOfStates];
+        int[] pendingStates = new int[numberOfStates];
+        int[] nextTransition = new int[numberOfStates];
+        int top = 0;
+        visited[initialState] = true;
+        pendingStates[top] = initialState;
+        nextTransition[top++] = rowStart[initialState];
+        while (top > 0) {
+            int state = pendingStates[top - 1];
+            int i = nextTransition[top - 1];
+            if (i == rowStart[state + 1]) {
+                postorder.add(state);
+                top--;
+                continue;
+            }
+            nextTransition[top - 1]++;
+            int target = targets[i];
+            if (probabilities[i] != 0 && relevant[target] && !isTarget[target] && !visited[target]) {
+                visited[target] = true;
+                pendingStates[top] = target;
+                nextTransition[top++] = rowStart[target];
+            }
+        }
+        return postorder;
+    }
+
+    /**
+     * Backwards reachability from the targets over non-zero transitions.
+     */
+    private boolean[] statesReachingTarget() {
+        int[] predecessorsCount = new int[numberOfStates + 1];
+        for (int state = 0; state < numberOfStates; state++) {
+            for (int i = rowStart[state]; i < rowStart[state + 1]; i++) {
+                if (probabilities[i] != 0) {
+                    predecessorsCount[targets[i] + 1]++;
+                }
+            }
+        }
+        for (int state = 0; state < numberOfStates; state++) {
+            predecessorsCount[state + 1] += predecessorsCount[state];
+        }
+        int[] predecessorsStart = Arrays.copyOf(predecessorsCount, numberOfStates + 1);
+        int[] predecessors = new int[predecessorsCount[numberOfStates]];
+        for (int state = 0; state < numberOfStates; state++) {
+            for (int i = rowStart[state]; i < rowStart[state + 1]; i++) {
+                if (probabilities[i] != 0) {
+                    predecessors[predecessorsCount[targets[i]]++] = state;
+                }
+            }
+        }
+
+        boolean[] relevant = new boolean[numberOfStates];
+        int[] pending = new int[numberOfStates];
+        int top = 0;
+        for (int state = 0; state < numberOfStates; state++) {
+            if (isTarget[state]) {
+                relevant[state] = true;
+                pending[top++] = state;
+            }
+        }
+        while (top > 0) {
+            int state = pending[--top];
+            for (int i = predecessorsStart[state]; i < predecessorsStart[state + 1]; i++) {
+                if (!relevant[predecessors[i]]) {
+                    relevant[predecessors[i]] = true;
+                    pending[top++] = predecessors[i];
+                }
+            }
+        }
+        return relevant;
+    }
+
+    private static double toDouble(String probability) {
+        return ProbabilityParser.evaluate(probability);
+    }
+
+}
@@ -1,21 +1,17 @@
 package paramwrapper;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
+import fdtmc.CompiledFDTMC;
 import fdtmc.FDTMC;
-import fdtmc.State;
-import fdtmc.Transition;
 
 
 
@@ -26,25 +22,35 @@ class ParamModel {
 	// TODO Inferir estado inicial a partir da topologia da FDTMC.
 	private int initialState = 0;
 
+	private CompiledFDTMC fdtmc;
 	private Set<String> parameters;
 	private Map<String, Set<Integer>> labels;
-	private Map<Integer, Command> commands;
+	/**
+	 * State ids in the compiled FDTMC, sorted by state index
+	 * (i.e., in the order their commands are to be written).
+	 */
+	private int[] commandsOrder;
 
 	private int stateRangeStart;
 	private int stateRangeEnd;
 
 	public ParamModel(FDTMC fdtmc) {
+		this(fdtmc.compile());
+	}
+
+	public ParamModel(CompiledFDTMC fdtmc) {
+		this.fdtmc = fdtmc;
 		if (fdtmc.getVariableName() != null) {
 			stateVariable = fdtmc.getVariableName();
 		}
-		initialState = fdtmc.getInitialState().getIndex();
-		commands = getCommands(fdtmc);
+		initialState = fdtmc.getStateIndex(fdtmc.getInitialState());
+		commandsOrder = getCommandsOrder(fdtmc);
 		labels = getLabels(fdtmc);
-		stateRangeStart = Collections.min(commands.keySet());
+		stateRangeStart = fdtmc.getStateIndex(commandsOrder[0]);
 		// PARAM não deixa declarar um intervalo com apenas um número.
 		stateRangeEnd = Math.max(stateRangeStart + 1,
-								 Collections.max(commands.keySet()));
-		parameters = getParameters(commands.values());
+								 fdtmc.getStateIndex(commandsOrder[commandsOrder.length - 1]));
+		parameters = getParameters(fdtmc);
 	}
 
     public int getParametersNumber() {
@@ -59,51 +65,49 @@ class ParamModel {
 	    return stateRangeEnd+1;
 	}
 
-	private Map<String, Set<Integer>> getLabels(FDTMC fdtmc) {
+	private Map<String, Set<Integer>> getLabels(CompiledFDTMC fdtmc) {
 		Map<String, Set<Integer>> labeledStates = new TreeMap<String, Set<Integer>>();
-		Collection<State> states = fdtmc.getStates();
-		for (State s : states) {
-			String label = s.getLabel();
+		for (int s = 0; s < fdtmc.getNumberOfStates(); s++) {
+			String label = fdtmc.getLabel(s);
 			if (label != null && !label.isEmpty()) {
 				if (!labeledStates.containsKey(label)) {
 					labeledStates.put(label, new TreeSet<Integer>());
 				}
-				labeledStates.get(label).add(s.getIndex());
+				labeledStates.get(label).add(fdtmc.getStateIndex(s));
 			}
 		}
 		return labeledStates;
 	}
 
-	private Map<Integer, Command> getCommands(FDTMC fdtmc) {
-		Map<Integer, Command> tmpCommands = new TreeMap<Integer, Command>();
-		for (Entry<State, List<Transition>> entry : fdtmc.getTransitions().entrySet()) {
-		    int initState = entry.getKey().getIndex();
-			Command command = new Command(initState);
-			if (entry.getValue() != null) {
-			    for (Transition transition : entry.getValue()) {
-			        command.addUpdate(transition.getProbability(),
-			                          transition.getTarget().getIndex());
-			    }
-			} else {
-			    // Workaround: manually adding self-loops in case no
-			    // transition was specified for a given state.
-			    command.addUpdate("1", initState);
-			}
-			tmpCommands.put(initState, command);
+	private int[] getCommandsOrder(CompiledFDTMC fdtmc) {
+		int numberOfStates = fdtmc.getNumberOfStates();
+		boolean sorted = true;
+		for (int s = 1; s < numberOfStates && sorted; s++) {
+			sorted = fdtmc.getStateIndex(s - 1) < fdtmc.getStateIndex(s);
 		}
-		return tmpCommands;
+		if (sorted) {
+			return IntStream.range(0, numberOfStates).toArray();
+		}
+		return IntStream.range(0, numberOfStates)
+				.boxed()
+				.sorted(Comparator.comparingInt(fdtmc::getStateIndex))
+				.mapToInt(Integer::intValue)
+				.toArray();
 	}
 
-	private Set<String> getParameters(Collection<Command> commands) {
+	/**
+	 * Each distinct probability expression is scanned only once.
+	 * Identifiers are matched anywhere in the expression, except for
+	 * exponent markers in numbers (e.g., 1.0E-4).
+	 */
+	private Set<String> getParameters(CompiledFDTMC fdtmc) {
 		Set<String> tmpParameters = new HashSet<String>();
 
-		Pattern validIdentifier = Pattern.compile("(^|\\d+-)([A-Za-z_][A-Za-z0-9_]*)");
-		for (Command command : commands) {
-			for (String probability : command.getUpdatesProbabilities()) {
-				Matcher m = validIdentifier.matcher(probability);
-				while (m.find()) {
-					tmpParameters.add(m.group(2));
-				}
+		Pattern validIdentifier = Pattern.compile("(?<![A-Za-z0-9_.])([A-Za-z_][A-Za-z0-9_]*)");
+		for (int p = 0; p < fdtmc.getNumberOfProbabilities(); p++) {
+			Matcher m = validIdentifier.matcher(fdtmc.getProbabilityExpression(p));
+			while (m.find()) {
+				tmpParameters.add(m.group(1));
 			}
 		}
 		return tmpParameters;
@@ -111,73 +115,59 @@ class ParamModel {
 
 	@Override
 	public String toString() {
-		String params = "";
+		StringBuilder module = new StringBuilder(64 * (fdtmc.getNumberOfStates() + fdtmc.getNumberOfTransitions()));
+		module.append("dtmc\n\n");
 		for (String parameter : parameters) {
-			params += "param double "+parameter+";\n";
+			module.append("param double ").append(parameter).append(";\n");
 		}
-		String module = buildModule(params);
-		for (Command command : commands.values()) {
-			module += "	"+command.makeString(stateVariable) + "\n";
+		module.append("\n")
+			.append("module ").append(moduleName).append("\n")
+			.append("\t").append(stateVariable)
+			.append(" : [").append(stateRangeStart).append("..").append(stateRangeEnd)
+			.append("] init ").append(initialState).append(";\n");
+		for (int state : commandsOrder) {
+			module.append("\t");
+			appendCommand(module, state);
+			module.append("\n");
 		}
-		module += "endmodule\n\n";
+		module.append("endmodule\n\n");
 		for (Map.Entry<String, Set<Integer>> entry : labels.entrySet()) {
-			String label = entry.getKey();
-			module += "label \""+label+"\" = ";
-
-			Set<Integer> states = entry.getValue();
-			int count = 1;
-			for (Integer state : states) {
-				module += stateVariable+"="+state;
-				if (count < states.size()) {
-					module += " | ";
+			module.append("label \"").append(entry.getKey()).append("\" = ");
+			boolean needsOr = false;
+			for (Integer state : entry.getValue()) {
+				if (needsOr) {
+					module.append(" | ");
+				} else {
+					needsOr = true;
 				}
-				count++;
+				module.append(stateVariable).append("=").append(state);
 			}
-			module += ";\n";
+			module.append(";\n");
 		}
-		return module;
+		return module.toString();
 	}
-	
-	private String buildModule(String params) {
-		String dtmc = "dtmc\n\n";
-		String moduleArgs = "module " + this.moduleName + "\n" + "	";
-		String stateArgs = this.stateVariable+ " : ["+stateRangeStart+".."+stateRangeEnd+"] init "+initialState+";";
-		String module = dtmc + params + "\n" + moduleArgs + stateArgs + "\n";
-		return module;
-	}
-}
 
-class Command {
-	private int initialState;
-	private List<String> updatesProbabilities;
-	private List<Integer> updatesActions;
-
-	public Command(int initialState) {
-		this.initialState = initialState;
-        this.updatesProbabilities = new LinkedList<String>();
-        this.updatesActions = new LinkedList<Integer>();
-	}
-
-	public void addUpdate(String probability, int update) {
-		updatesProbabilities.add(probability);
-		updatesActions.add(update);
-	}
-
-	public Collection<String> getUpdatesProbabilities() {
-		return updatesProbabilities;
+	private void appendCommand(StringBuilder module, int state) {
+		int index = fdtmc.getStateIndex(state);
+		module.append("[] ").append(stateVariable).append("=").append(index).append(" -> ");
+		int start = fdtmc.getTransitionsStart(state);
+		int end = fdtmc.getTransitionsEnd(state);
+		if (start == end) {
+			// Workaround: manually adding self-loops in case no
+			// transition was specified for a given state.
+			appendUpdate(module, "1", index);
+		}
+		for (int t = start; t < end; t++) {
+			if (t > start) {
+				module.append(" + ");
+			}
+			appendUpdate(module, fdtmc.getProbability(t), fdtmc.getStateIndex(fdtmc.getTarget(t)));
+		}
+		module.append(";");
 	}
 
-	public String makeString(String stateVariable) {
-		String command = "[] "+stateVariable+"="+initialState+" -> ";
-		boolean needsPlus = false;
-		for (int i = 0; i < updatesProbabilities.size(); i++) {
-		    if (needsPlus) {
-		        command += " + ";
-		    } else {
-		        needsPlus = true;
-		    }
-			command += "("+updatesProbabilities.get(i)+") : ("+stateVariable+"'="+updatesActions.get(i)+")";
-		}
-		return command+";";
+	private void appendUpdate(StringBuilder module, String probability, int target) {
+		module.append("(").append(probability).append(") : (")
+			.append(stateVariable).append("'=").append(target).append(")");
 	}
-}
\ No newline at end of file
+}
@@ -3,16 +3,19 @@
  */
 package paramwrapper;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import fdtmc.CompiledFDTMC;
 import fdtmc.FDTMC;
 
 /**
@@ -21,12 +24,13 @@ import fdtmc.FDTMC;
  * @author Thiago
  *
  */
-public class ParamWrapper implements ParametricModelChecker {
+public class ParamWrapper implements ParametricModelChecker, Closeable {
     private static final Logger LOGGER = Logger.getLogger(ParamWrapper.class.getName());
 
 	private String paramPath;
 	private IModelCollector modelCollector;
 	private boolean usePrism = false;
+	private ScratchArea scratchArea;
 
     public ParamWrapper(String paramPath) {
         this(paramPath, new NoopModelCollector());
@@ -46,8 +50,32 @@ public class ParamWrapper implements ParametricModelChecker {
 
 	@Override
 	public String getReliability(FDTMC fdtmc) {
-	    ParamModel model = new ParamModel(fdtmc);
+	    return modelCheck(fdtmc).replaceAll("\\s+", "");
+	}
+
+	/**
+	 * Parses the formula yielded by the external tool. The parser copes with
+	 * any whitespace, so there is no need to normalize the formula first.
+	 */
+	@Override
+	public RationalFunction getReliabilityFunction(FDTMC fdtmc) {
+	    return RationalFunction.parseFormula(modelCheck(fdtmc));
+	}
+
+	/**
+	 * @return the formula as yielded by the model checker (trimmed),
+	 *      or an empty string in case of failure.
+	 */
+	private String modelCheck(FDTMC fdtmc) {
+	    CompiledFDTMC compiled = fdtmc.compile().minimize();
+	    ParamModel model = new ParamModel(compiled);
         modelCollector.collectModel(model.getParametersNumber(), model.getStatesNumber());
+        if (model.getParametersNumber() == 0) {
+            String reliability = solveNumerically(compiled);
+            if (reliability != null) {
+                return reliability;
+            }
+        }
 		String modelString = model.toString();
 
 		if (usePrism) {
@@ -58,13 +86,32 @@ public class ParamWrapper implements ParametricModelChecker {
 		return evaluate(modelString, reliabilityProperty, model);
 	}
 
+	/**
+	 * Fast path for models with no parameters, which need not be handed
+	 * to an external tool.
+	 *
+	 * @return the reliability value or {@code null} if the model turns out
+	 *      to have non-constant probabilities after all.
+	 */
+	private String solveNumerically(CompiledFDTMC fdtmc) {
+	    long startTime = System.nanoTime();
+	    try {
+	        double reliability = NumericReachabilitySolver.solve(fdtmc);
+	        modelCollector.collectModelCheckingTime(getElapsedTime(startTime));
+	        return NumericReachabilitySolver.format(reliability);
+	    } catch (IllegalArgumentException e) {
+	        LOGGER.fine("Falling back to parametric model checking: " + e.getMessage());
+	        return null;
+	    }
+	}
+
 	private String evaluate(String modelString, String property, ParamModel model) {
 		try {
 		    LOGGER.finer(modelString);
 		    long startTime = System.nanoTime();
 			String formula = getCurrentFormula(modelString, property, model);
             modelCollector.collectModelCheckingTime(getElapsedTime(startTime));
-			return formula.trim().replaceAll("\\s+", "");
+			return formula.trim();
 		} catch (IOException e) {
 			LOGGER.log(Level.SEVERE, e.toString(), e);
 		}
@@ -113,20 +160,77 @@ public class ParamWrapper implements ParametricModelChecker {
 
 	private String invokeAndGetResult(String commandLine, String resultsPath) throws IOException {
 	    LOGGER.fine(commandLine);
-		Process program = Runtime.getRuntime().exec(commandLine);
-		int exitCode = 0;
-		try {
-			exitCode = program.waitFor();
-		} catch (InterruptedException e) {
-			LOGGER.severe("Exit code: " + exitCode);
-			LOGGER.log(Level.SEVERE, e.toString(), e);
-		}
-		List<String> lines = Files.readAllLines(Paths.get(resultsPath), Charset.forName("UTF-8"));
-		lines.removeIf(String::isEmpty);
-		// Formula
-		return lines.get(lines.size()-1);
+	    Path resultsFile = Paths.get(resultsPath);
+	    try {
+	        Process program = new ProcessBuilder(commandLine.trim().split("\\s+"))
+	                .redirectErrorStream(true)
+	                .start();
+	        // The output must be consumed as it is produced, lest the model checker
+	        // block on a full pipe.
+	        String lastOutputLine = lastNonEmptyLine(new BufferedReader(new InputStreamReader(program.getInputStream(),
+	                                                                                          StandardCharsets.UTF_8)));
+	        int exitCode;
+	        try {
+	            exitCode = program.waitFor();
+	        } catch (InterruptedException e) {
+	            // Do not leave the model checker running if we are no longer interested in its result.
+	            program.destroyForcibly();
+	            Thread.currentThread().interrupt();
+	            InterruptedIOException interruption = new InterruptedIOException("Interrupted while running: " + commandLine);
+	            interruption.initCause(e);
+	            throw interruption;
+	        }
+	        String formula = null;
+	        if (Files.exists(resultsFile)) {
+	            try (BufferedReader results = Files.newBufferedReader(resultsFile, StandardCharsets.UTF_8)) {
+	                formula = lastNonEmptyLine(results);
+	            }
+	        }
+	        if (formula == null) {
+	            throw new IOException("No result from model checker (exit code " + exitCode + "): " + lastOutputLine);
+	        }
+	        return formula;
+	    } finally {
+	        // Results are never reused, so a stale file must not be mistaken for a fresh one.
+	        Files.deleteIfExists(resultsFile);
+	    }
 	}
-	
+
+	/**
+	 * Reads {@code reader} to the end, one line at a time.
+	 * @return the last non-empty line, or {@code null} if there is none.
+	 */
+	private static String lastNonEmptyLine(BufferedReader reader) throws IOException {
+	    String lastLine = null;
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+	        LOGGER.finer(line);
+	        if (!line.isEmpty()) {
+	            lastLine = line;
+	        }
+	    }
+	    return lastLine;
+	}
+
+	synchronized ScratchArea getScratchArea() throws IOException {
+	    if (scratchArea == null) {
+	        scratchArea = new ScratchArea("reana-");
+	    }
+	    return scratchArea;
+	}
+
+	/**
+	 * Deletes all files exchanged with the model checker. This would happen
+	 * anyway at JVM shutdown, but long-running clients can free them earlier.
+	 */
+	@Override
+	public synchronized void close() {
+	    if (scratchArea != null) {
+	        scratchArea.close();
+	        scratchArea = null;
+	    }
+	}
+
 	public boolean getPrism() {
 		return this.usePrism;
 	}
@@ -3,6 +3,8 @@
  */
 package paramwrapper;
 
+import java.util.concurrent.CompletableFuture;
+
 import fdtmc.FDTMC;
 
 /**
@@ -21,4 +23,45 @@ public interface ParametricModelChecker {
 	 * @return Formula parameterized on the transition probabilities.
 	 */
 	public String getReliability(FDTMC fdtmc);
+
+	/**
+	 * Evaluates the (parametric) reliability of an FDTMC without blocking
+	 * the calling thread.
+	 *
+	 * By default, the evaluation runs in the common fork-join pool.
+	 *
+	 * @param fdtmc FDTMC to be evaluated.
+	 * @return Future formula parameterized on the transition probabilities.
+	 */
+	public default CompletableFuture<String> getReliabilityAsync(FDTMC fdtmc) {
+	    return CompletableFuture.supplyAsync(() -> getReliability(fdtmc));
+	}
+
+	/**
+	 * Same as {@link #getReliability(FDTMC)}, but yields the reliability as
+	 * a rational function, which can be evaluated without any parsing.
+	 *
+	 * By default, the textual formula is parsed, which is what we have to do
+	 * anyway for external tools. In-process model checkers should override
+	 * this method and format the function only when asked for text.
+	 *
+	 * @param fdtmc FDTMC to be evaluated.
+	 * @return Function of the transition probabilities or {@code null}
+	 *      if model checking fails.
+	 */
+	public default RationalFunction getReliabilityFunction(FDTMC fdtmc) {
+	    return RationalFunction.parseFormula(getReliability(fdtmc));
+	}
+
+	/**
+	 * Same as {@link #getReliabilityAsync(FDTMC)}, but yields the reliability
+	 * as a rational function.
+	 *
+	 * @param fdtmc FDTMC to be evaluated.
+	 * @return Future function of the transition probabilities (or {@code null}
+	 *      if model checking fails).
+	 */
+	public default CompletableFuture<RationalFunction> getReliabilityFunctionAsync(FDTMC fdtmc) {
+	    return CompletableFuture.supplyAsync(() -> getReliabilityFunction(fdtmc));
+	}
 }
@@ -0,0 +1,383 @@
+package paramwrapper;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Multivariate polynomial with exact rational coefficients.
+ *
+ * Instances are immutable. Terms are indexed by monomial in descending
+ * (lexicographic) order, so that the first entry is always the leading term.
+ */
+public final class Polynomial {
+
+    public static final Polynomial ZERO = new Polynomial(new TreeMap<Monomial, BigRational>(Collections.reverseOrder()));
+    public static final Polynomial ONE = constant(BigRational.ONE);
+
+    private final TreeMap<Monomial, BigRational> terms;
+    /**
+     * Lazily built flat representation for floating-point evaluation.
+     */
+    private volatile DoubleEvaluator doubleEvaluator;
+
+    private Polynomial(TreeMap<Monomial, BigRational> terms) {
+        this.terms = terms;
+    }
+
+    public static Polynomial constant(BigRational value) {
+        return term(value, Monomial.ONE);
+    }
+
+    public static Polynomial variable(String name) {
+        return term(BigRational.ONE, Monomial.of(name));
+    }
+
+    private static Polynomial term(BigRational coefficient, Monomial monomial) {
+        TreeMap<Monomial, BigRational> terms = emptyTerms();
+        if (!coefficient.isZero()) {
+            terms.put(monomial, coefficient);
+        }
+        return new Polynomial(terms);
+    }
+
+    private static TreeMap<Monomial, BigRational> emptyTerms() {
+        return new TreeMap<Monomial, BigRational>(Collections.reverseOrder());
+    }
+
+    public boolean isZero() {
+        return terms.isEmpty();
+    }
+
+    public boolean isConstant() {
+        return terms.isEmpty() || (terms.size() == 1 && terms.firstKey().isOne());
+    }
+
+    /**
+     * @return the value of this polynomial if it is a constant one.
+     */
+    public BigRational getConstantValue() {
+        if (terms.isEmpty()) {
+            return BigRational.ZERO;
+        }
+        return terms.get(Monomial.ONE);
+    }
+
+    public Monomial getLeadingMonomial() {
+        return terms.firstKey();
+    }
+
+    public BigRational getLeadingCoefficient() {
+        return terms.firstEntry().getValue();
+    }
+
+    public Set<String> getVariables() {
+        Set<String> variables = new TreeSet<String>();
+        for (Monomial monomial: terms.keySet()) {
+            variables.addAll(monomial.getVariables());
+        }
+        return variables;
+    }
+
+    public int getNumberOfTerms() {
+        return terms.size();
+    }
+
+    /**
+     * @return the greatest monomial which divides every term of this polynomial.
+     */
+    public Monomial getMonomialContent() {
+        Monomial content = null;
+        for (Monomial monomial: terms.keySet()) {
+            content = (content == null) ? monomial : content.gcd(monomial);
+            if (content.isOne()) {
+                break;
+            }
+        }
+        return (content == null) ? Monomial.ONE : content;
+    }
+
+    /**
+     * Divides every term by {@code monomial}, which must divide all of them.
+     * @see #getMonomialContent()
+     */
+    public Polynomial divide(Monomial monomial) {
+        if (monomial.isOne()) {
+            return this;
+        }
+        TreeMap<Monomial, BigRational> quotient = emptyTerms();
+        for (Map.Entry<Monomial, BigRational> term: terms.entrySet()) {
+            quotient.put(term.getKey().divide(monomial), term.getValue());
+        }
+        return new Polynomial(quotient);
+    }
+
+    /**
+     * Evaluates this polynomial in floating-point arithmetic.
+     *
+     * @param interpretation Values of (at least) all variables in this polynomial.
+     * @throws IllegalArgumentException if some variable has no value.
+     */
+    public double evaluate(Map<String, Double> interpretation) {
+        DoubleEvaluator evaluator = doubleEvaluator;
+        if (evaluator == null) {
+            evaluator = new DoubleEvaluator(this);
+            doubleEvaluator = evaluator;
+        }
+        return evaluator.evaluate(interpretation);
+    }
+
+    /**
+     * Evaluates this polynomial over an arbitrary type of values.
+     *
+     * @param interpretation Values of (at least) all variables in this polynomial.
+     * @throws IllegalArgumentException if some variable has no value.
+     */
+    public <T> T evaluate(Map<String, T> interpretation, Arithmetic<T> arithmetic) {
+        T sum = null;
+        for (Map.Entry<Monomial, BigRational> term: terms.entrySet()) {
+            Monomial monomial = term.getKey();
+            BigRational coefficient = term.getValue();
+            T value = null;
+            for (int i = 0; i < monomial.getNumberOfVariables(); i++) {
+                T factor = valueOf(monomial.getVariable(i), interpretation);
+                if (monomial.getExponent(i) > 1) {
+                    factor = arithmetic.pow(factor, monomial.getExponent(i));
+                }
+                value = (value == null) ? factor : arithmetic.multiply(value, factor);
+            }
+            if (value == null) {
+                value = arithmetic.constant(coefficient.doubleValue());
+            } else if (!coefficient.isOne()) {
+                value = arithmetic.multiply(arithmetic.constant(coefficient.doubleValue()), value);
+            }
+            sum = (sum == null) ? value : arithmetic.add(sum, value);
+        }
+        return (sum == null) ? arithmetic.constant(0) : sum;
+    }
+
+    private static <T> T valueOf(String variable, Map<String, T> interpretation) {
+        T value = interpretation.get(variable);
+        if (value == null) {
+            throw new IllegalArgumentException("No interpretation for variable <" + variable + ">");
+        }
+        return value;
+    }
+
+    public Polynomial add(Polynomial other) {
+        if (this.isZero()) {
+            return other;
+        } else if (other.isZero()) {
+            return this;
+        }
+        TreeMap<Monomial, BigRational> sum = new TreeMap<Monomial, BigRational>(terms);
+        for (Map.Entry<Monomial, BigRational> term: other.terms.entrySet()) {
+            addTerm(sum, term.getKey(), term.getValue());
+        }
+        return new Polynomial(sum);
+    }
+
+    public Polynomial subtract(Polynomial other) {
+        return add(other.negate());
+    }
+
+    public Polynomial negate() {
+        return scale(BigRational.ONE.negate());
+    }
+
+    public Polynomial scale(BigRational factor) {
+        if (factor.isZero()) {
+            return ZERO;
+        } else if (factor.isOne()) {
+            return this;
+        }
+        TreeMap<Monomial, BigRational> scaled = emptyTerms();
+        for (Map.Entry<Monomial, BigRational> term: terms.entrySet()) {
+            scaled.put(term.getKey(), term.getValue().multiply(factor));
+        }
+        return new Polynomial(scaled);
+    }
+
+    public Polynomial multiply(Polynomial other) {
+        if (this.isZero() || other.isZero()) {
+            return ZERO;
+        } else if (this.isConstant()) {
+            return other.scale(this.getConstantValue());
+        } else if (other.isConstant()) {
+            return this.scale(other.getConstantValue());
+        }
+        TreeMap<Monomial, BigRational> product = emptyTerms();
+        for (Map.Entry<Monomial, BigRational> term: terms.entrySet()) {
+            for (Map.Entry<Monomial, BigRational> otherTerm: other.terms.entrySet()) {
+                addTerm(product,
+                        term.getKey().multiply(otherTerm.getKey()),
+                        term.getValue().multiply(otherTerm.getValue()));
+            }
+        }
+        return new Polynomial(product);
+    }
+
+    /**
+     * Exponentiation by squaring.
+     */
+    public Polynomial pow(int exponent) {
+        Polynomial result = ONE;
+        Polynomial square = this;
+        for (int e = exponent; e > 0; e >>>= 1) {
+            if ((e & 1) != 0) {
+                result = result.multiply(square);
+            }
+            if (e > 1) {
+                square = square.multiply(square);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Divides this polynomial by {@code divisor}, provided the division
+     * is exact.
+     *
+     * @return the quotient or {@code null} if {@code divisor} does not
+     *      divide this polynomial.
+     */
+    public Polynomial divideExactly(Polynomial divisor) {
+        if (divisor.isZero()) {
+            throw new ArithmeticException("Division by zero polynomial");
+        }
+        if (divisor.isConstant()) {
+            return scale(divisor.getConstantValue().reciprocal());
+        }
+        Monomial divisorLeading = divisor.getLeadingMonomial();
+        BigRational divisorCoefficient = divisor.getLeadingCoefficient();
+
+        TreeMap<Monomial, BigRational> quotient = emptyTerms();
+        Polynomial remainder = this;
+        while (!remainder.isZero()) {
+            Monomial leading = remainder.getLeadingMonomial();
+            if (!leading.isDivisibleBy(divisorLeading)) {
+                return null;
+            }
+            Polynomial quotientTerm = term(remainder.getLeadingCoefficient().divide(divisorCoefficient),
+                                           leading.divide(divisorLeading));
+            addTerm(quotient, quotientTerm.getLeadingMonomial(), quotientTerm.getLeadingCoefficient());
+            remainder = remainder.subtract(quotientTerm.multiply(divisor));
+        }
+        return new Polynomial(quotient);
+    }
+
+    /**
+     * @return the least common multiple of all coefficients' denominators.
+     */
+    public BigInteger getCoefficientsDenominatorsLcm() {
+        BigInteger lcm = BigInteger.ONE;
+        for (BigRational coefficient: terms.values()) {
+            BigInteger denominator = coefficient.getDenominator();
+            lcm = lcm.multiply(denominator).divide(lcm.gcd(denominator));
+        }
+        return lcm;
+    }
+
+    private static void addTerm(TreeMap<Monomial, BigRational> terms, Monomial monomial, BigRational coefficient) {
+        BigRational sum = coefficient;
+        BigRational existing = terms.get(monomial);
+        if (existing != null) {
+            sum = existing.add(coefficient);
+        }
+        if (sum.isZero()) {
+            terms.remove(monomial);
+        } else {
+            terms.put(monomial, sum);
+        }
+    }
+
+    /**
+     * Compiles this polynomial, binding its variables to the given slots.
+     *
+     * @throws IllegalArgumentException if some variable has no slot.
+     */
+    CompiledPolynomial compile(Map<String, Integer> slots) {
+        return new CompiledPolynomial(terms, variable -> {
+            Integer slot = slots.get(variable);
+            if (slot == null) {
+                throw new IllegalArgumentException("No slot for variable <" + variable + ">");
+            }
+            return slot;
+        });
+    }
+
+    /**
+     * Compiled polynomial whose slots are numbered after its own variables.
+     */
+    private static final class DoubleEvaluator {
+        private final String[] variables;
+        private final CompiledPolynomial compiled;
+
+        DoubleEvaluator(Polynomial polynomial) {
+            Set<String> names = polynomial.getVariables();
+            Map<String, Integer> slots = new HashMap<String, Integer>();
+            for (String variable: names) {
+                slots.put(variable, slots.size());
+            }
+            this.variables = names.toArray(new String[names.size()]);
+            this.compiled = polynomial.compile(slots);
+        }
+
+        double evaluate(Map<String, Double> interpretation) {
+            double[] values = new double[variables.length];
+            for (int v = 0; v < variables.length; v++) {
+                values[v] = valueOf(variables[v], interpretation);
+            }
+            return compiled.evaluate(values);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj != null && obj instanceof Polynomial) {
+            Polynomial other = (Polynomial) obj;
+            return terms.equals(other.terms);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return terms.hashCode();
+    }
+
+    /**
+     * Formats this polynomial in PARAM's output style, i.e., higher-degree terms
+     * first and with explicit coefficients (e.g., "-1*r0*rFail+1*r0").
+     * Rational coefficients are written as divisions (e.g., "1/2*r0").
+     */
+    @Override
+    public String toString() {
+        if (isZero()) {
+            return "0";
+        }
+        List<Map.Entry<Monomial, BigRational>> sortedTerms = new ArrayList<Map.Entry<Monomial, BigRational>>(terms.entrySet());
+        // Stable sort, so terms of equal degree remain in lexicographic order.
+        sortedTerms.sort((t1, t2) -> Integer.compare(t2.getKey().getDegree(), t1.getKey().getDegree()));
+
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Monomial, BigRational> term: sortedTerms) {
+            BigRational coefficient = term.getValue();
+            if (builder.length() > 0 && coefficient.signum() > 0) {
+                builder.append('+');
+            }
+            builder.append(coefficient);
+            if (!term.getKey().isOne()) {
+                builder.append('*').append(term.getKey());
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,300 @@
+package paramwrapper;
+
+/**
+ * Recursive-descent parser for transition probability expressions
+ * (e.g., "0.999", "1 - rFail", "r0*(1 - r1)^2").
+ *
+ * Grammar:
+ * <pre>
+ *   expr   := term (('+' | '-') term)*
+ *   term   := unary (('*' | '/') unary)*
+ *   unary  := '-' unary | power
+ *   power  := atom ('^' integer)?
+ *   atom   := number | identifier | '(' expr ')'
+ * </pre>
+ *
+ * Expressions can be either parsed exactly, as rational functions, or
+ * evaluated in floating-point arithmetic, if they have no variables.
+ *
+ * @param <T> Type of the values the expressions are evaluated to.
+ */
+class ProbabilityParser<T> {
+
+    private final String input;
+    private final Algebra<T> algebra;
+    private int position;
+
+    private ProbabilityParser(String input, Algebra<T> algebra) {
+        this.input = input;
+        this.algebra = algebra;
+        this.position = 0;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code expression} is malformed.
+     */
+    public static RationalFunction parse(String expression) {
+        return new ProbabilityParser<RationalFunction>(expression, RATIONAL_FUNCTIONS).parse();
+    }
+
+    /**
+     * Evaluates a constant expression in floating-point arithmetic, which is
+     * much cheaper than parsing it exactly (e.g., for long products).
+     *
+     * @throws IllegalArgumentException if {@code expression} is malformed
+     *      or has any variables.
+     */
+    public static double evaluate(String expression) {
+        return new ProbabilityParser<Double>(expression, CONSTANTS).parse();
+    }
+
+    private T parse() {
+        T result = parseExpression();
+        skipWhitespace();
+        if (!atEnd()) {
+            throw error("Unexpected character");
+        }
+        return result;
+    }
+
+    private T parseExpression() {
+        T result = parseTerm();
+        while (true) {
+            if (consume('+')) {
+                result = algebra.add(result, parseTerm());
+            } else if (consume('-')) {
+                result = algebra.subtract(result, parseTerm());
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private T parseTerm() {
+        T result = parseUnary();
+        while (true) {
+            if (consume('*')) {
+                result = algebra.multiply(result, parseUnary());
+            } else if (consume('/')) {
+                result = algebra.divide(result, parseUnary());
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private T parseUnary() {
+        if (consume('-')) {
+            return algebra.negate(parseUnary());
+        }
+        return parsePower();
+    }
+
+    private T parsePower() {
+        T base = parseAtom();
+        if (consume('^')) {
+            skipWhitespace();
+            int start = position;
+            while (!atEnd() && Character.isDigit(input.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error("Expected non-negative integer exponent");
+            }
+            return algebra.pow(base, Integer.parseInt(input.substring(start, position)));
+        }
+        return base;
+    }
+
+    private T parseAtom() {
+        skipWhitespace();
+        if (atEnd()) {
+            throw error("Unexpected end of expression");
+        }
+        char c = input.charAt(position);
+        if (c == '(') {
+            position++;
+            T result = parseExpression();
+            if (!consume(')')) {
+                throw error("Expected ')'");
+            }
+            return result;
+        } else if (Character.isDigit(c) || c == '.') {
+            return parseNumber();
+        } else if (Character.isLetter(c) || c == '_') {
+            int start = position;
+            while (!atEnd() && isIdentifierPart(input.charAt(position))) {
+                position++;
+            }
+            String variable = input.substring(start, position);
+            try {
+                return algebra.variable(variable);
+            } catch (IllegalArgumentException e) {
+                throw error(e.getMessage());
+            }
+        }
+        throw error("Unexpected character");
+    }
+
+    private T parseNumber() {
+        int start = position;
+        while (!atEnd() && (Character.isDigit(input.charAt(position)) || input.charAt(position) == '.')) {
+            position++;
+        }
+        // Scientific notation, as yielded by Float.toString (e.g., "1.0E-4").
+        if (!atEnd() && (input.charAt(position) == 'E' || input.charAt(position) == 'e')) {
+            int mark = position;
+            position++;
+            if (!atEnd() && (input.charAt(position) == '-' || input.charAt(position) == '+')) {
+                position++;
+            }
+            if (!atEnd() && Character.isDigit(input.charAt(position))) {
+                while (!atEnd() && Character.isDigit(input.charAt(position))) {
+                    position++;
+                }
+            } else {
+                position = mark;
+            }
+        }
+        try {
+            return algebra.constant(input.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("Malformed number");
+        }
+    }
+
+    private boolean consume(char expected) {
+        skipWhitespace();
+        if (!atEnd() && input.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (!atEnd() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private boolean atEnd() {
+        return position >= input.length();
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of \"" + input + "\"");
+    }
+
+    /**
+     * Operations over the values of parsed expressions.
+     */
+    private interface Algebra<T> {
+        /**
+         * @throws NumberFormatException if {@code numeral} is malformed.
+         */
+        T constant(String numeral);
+        /**
+         * @throws IllegalArgumentException if values cannot have variables.
+         */
+        T variable(String name);
+        T add(T a, T b);
+        T subtract(T a, T b);
+        T multiply(T a, T b);
+        T divide(T a, T b);
+        T negate(T a);
+        T pow(T a, int exponent);
+    }
+
+    private static final Algebra<RationalFunction> RATIONAL_FUNCTIONS = new RationalFunctions();
+    private static final Algebra<Double> CONSTANTS = new Constants();
+
+    private static class RationalFunctions implements Algebra<RationalFunction> {
+        @Override
+        public RationalFunction constant(String numeral) {
+            return RationalFunction.constant(BigRational.parseDecimal(numeral));
+        }
+
+        @Override
+        public RationalFunction variable(String name) {
+            return RationalFunction.variable(name);
+        }
+
+        @Override
+        public RationalFunction add(RationalFunction a, RationalFunction b) {
+            return a.add(b);
+        }
+
+        @Override
+        public RationalFunction subtract(RationalFunction a, RationalFunction b) {
+            return a.subtract(b);
+        }
+
+        @Override
+        public RationalFunction multiply(RationalFunction a, RationalFunction b) {
+            return a.multiply(b);
+        }
+
+        @Override
+        public RationalFunction divide(RationalFunction a, RationalFunction b) {
+            return a.divide(b);
+        }
+
+        @Override
+        public RationalFunction negate(RationalFunction a) {
+            return a.negate();
+        }
+
+        @Override
+        public RationalFunction pow(RationalFunction a, int exponent) {
+            return a.pow(exponent);
+        }
+    }
+
+    private static class Constants implements Algebra<Double> {
+        @Override
+        public Double constant(String numeral) {
+            return Double.parseDouble(numeral);
+        }
+
+        @Override
+        public Double variable(String name) {
+            throw new IllegalArgumentException("Not a constant probability: variable <" + name + ">");
+        }
+
+        @Override
+        public Double add(Double a, Double b) {
+            return a + b;
+        }
+
+        @Override
+        public Double subtract(Double a, Double b) {
+            return a - b;
+        }
+
+        @Override
+        public Double multiply(Double a, Double b) {
+            return a * b;
+        }
+
+        @Override
+        public Double divide(Double a, Double b) {
+            return a / b;
+        }
+
+        @Override
+        public Double negate(Double a) {
+            return -a;
+        }
+
+        @Override
+        public Double pow(Double a, int exponent) {
+            return Math.pow(a, exponent);
+        }
+    }
+
+}
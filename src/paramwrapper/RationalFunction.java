@@ -0,0 +1,329 @@
+package paramwrapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Quotient of two polynomials, which is the kind of expression yielded by
+ * parametric reachability analysis.
+ *
+ * This is how reliability expressions travel between analysis phases:
+ * they are only formatted as text (see {@link #toString()}) for external
+ * tools, caches and reports, and only parsed back (see {@link #parse(String)})
+ * when they come from those.
+ *
+ * Instances are immutable and kept in a normal form: the denominator is
+ * either the constant 1 or a monic polynomial which neither divides nor
+ * is divided by the numerator, and which shares no monomial factor with it.
+ * We do not compute full polynomial GCDs, so other common factors may survive.
+ */
+public final class RationalFunction {
+    private static final Logger LOGGER = Logger.getLogger(RationalFunction.class.getName());
+
+    public static final RationalFunction ZERO = new RationalFunction(Polynomial.ZERO, Polynomial.ONE);
+    public static final RationalFunction ONE = new RationalFunction(Polynomial.ONE, Polynomial.ONE);
+
+    private final Polynomial numerator;
+    private final Polynomial denominator;
+
+    private RationalFunction(Polynomial numerator, Polynomial denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    public static RationalFunction valueOf(Polynomial polynomial) {
+        return new RationalFunction(polynomial, Polynomial.ONE);
+    }
+
+    public static RationalFunction constant(BigRational value) {
+        return valueOf(Polynomial.constant(value));
+    }
+
+    public static RationalFunction variable(String name) {
+        return valueOf(Polynomial.variable(name));
+    }
+
+    /**
+     * Parses the textual form of a rational function (e.g., as yielded by
+     * {@link #toString()} or by PARAM).
+     *
+     * @throws IllegalArgumentException if {@code expression} is malformed.
+     */
+    public static RationalFunction parse(String expression) {
+        return ProbabilityParser.parse(expression);
+    }
+
+    /**
+     * Parses a formula yielded by a model checker, in which an empty
+     * formula signals failure.
+     *
+     * @return the parsed function or {@code null} if the formula is empty
+     *      or malformed.
+     */
+    static RationalFunction parseFormula(String formula) {
+        if (formula == null || formula.isEmpty()) {
+            return null;
+        }
+        try {
+            return parse(formula);
+        } catch (IllegalArgumentException e) {
+            LOGGER.severe("Malformed reliability formula: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Builds the normal form of {@code numerator}/{@code denominator}.
+     */
+    public static RationalFunction quotient(Polynomial numerator, Polynomial denominator) {
+        if (denominator.isZero()) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (numerator.isZero()) {
+            return ZERO;
+        }
+        if (denominator.isConstant()) {
+            return valueOf(numerator.scale(denominator.getConstantValue().reciprocal()));
+        }
+        Monomial commonFactor = numerator.getMonomialContent().gcd(denominator.getMonomialContent());
+        if (!commonFactor.isOne()) {
+            numerator = numerator.divide(commonFactor);
+            denominator = denominator.divide(commonFactor);
+            if (denominator.isConstant()) {
+                return valueOf(numerator.scale(denominator.getConstantValue().reciprocal()));
+            }
+        }
+        Polynomial exactQuotient = numerator.divideExactly(denominator);
+        if (exactQuotient != null) {
+            return valueOf(exactQuotient);
+        }
+        if (!numerator.isConstant()) {
+            Polynomial reciprocalQuotient = denominator.divideExactly(numerator);
+            if (reciprocalQuotient != null) {
+                numerator = Polynomial.ONE;
+                denominator = reciprocalQuotient;
+                if (denominator.isConstant()) {
+                    return constant(denominator.getConstantValue().reciprocal());
+                }
+            }
+        }
+        BigRational leadingCoefficient = denominator.getLeadingCoefficient().reciprocal();
+        return new RationalFunction(numerator.scale(leadingCoefficient),
+                                    denominator.scale(leadingCoefficient));
+    }
+
+    public Polynomial getNumerator() {
+        return numerator;
+    }
+
+    public Polynomial getDenominator() {
+        return denominator;
+    }
+
+    public boolean isZero() {
+        return numerator.isZero();
+    }
+
+    public boolean isPolynomial() {
+        return denominator.equals(Polynomial.ONE);
+    }
+
+    public boolean isConstant() {
+        return isPolynomial() && numerator.isConstant();
+    }
+
+    /**
+     * @return the total number of terms in the numerator and in the denominator,
+     *      which is a measure of the size of this function.
+     */
+    public int getNumberOfTerms() {
+        return numerator.getNumberOfTerms() + (isPolynomial() ? 0 : denominator.getNumberOfTerms());
+    }
+
+    public Set<String> getVariables() {
+        Set<String> variables = new TreeSet<String>(numerator.getVariables());
+        variables.addAll(denominator.getVariables());
+        return variables;
+    }
+
+    public RationalFunction add(RationalFunction other) {
+        if (this.isZero()) {
+            return other;
+        } else if (other.isZero()) {
+            return this;
+        } else if (this.isPolynomial() && other.isPolynomial()) {
+            return valueOf(numerator.add(other.numerator));
+        } else if (denominator.equals(other.denominator)) {
+            return quotient(numerator.add(other.numerator), denominator);
+        } else if (other.isPolynomial()) {
+            return quotient(numerator.add(other.numerator.multiply(denominator)), denominator);
+        } else if (this.isPolynomial()) {
+            return quotient(numerator.multiply(other.denominator).add(other.numerator), other.denominator);
+        }
+        return quotient(numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
+                        denominator.multiply(other.denominator));
+    }
+
+    public RationalFunction subtract(RationalFunction other) {
+        return add(other.negate());
+    }
+
+    public RationalFunction negate() {
+        return new RationalFunction(numerator.negate(), denominator);
+    }
+
+    public RationalFunction multiply(RationalFunction other) {
+        if (this.isZero() || other.isZero()) {
+            return ZERO;
+        } else if (this.isPolynomial() && other.isPolynomial()) {
+            return valueOf(numerator.multiply(other.numerator));
+        }
+        // Cross-cancellation before multiplying keeps intermediate results small.
+        Polynomial thisNumerator = numerator;
+        Polynomial otherDenominator = other.denominator;
+        Polynomial otherNumerator = other.numerator;
+        Polynomial thisDenominator = denominator;
+        if (!otherDenominator.isConstant()) {
+            Polynomial cancelled = thisNumerator.divideExactly(otherDenominator);
+            if (cancelled != null) {
+                thisNumerator = cancelled;
+                otherDenominator = Polynomial.ONE;
+            }
+        }
+        if (!thisDenominator.isConstant()) {
+            Polynomial cancelled = otherNumerator.divideExactly(thisDenominator);
+            if (cancelled != null) {
+                otherNumerator = cancelled;
+                thisDenominator = Polynomial.ONE;
+            }
+        }
+        return quotient(thisNumerator.multiply(otherNumerator),
+                        thisDenominator.multiply(otherDenominator));
+    }
+
+    public RationalFunction divide(RationalFunction other) {
+        return multiply(other.reciprocal());
+    }
+
+    public RationalFunction reciprocal() {
+        return quotient(denominator, numerator);
+    }
+
+    /**
+     * Exponentiation by squaring.
+     */
+    public RationalFunction pow(int exponent) {
+        RationalFunction result = ONE;
+        RationalFunction square = this;
+        for (int e = exponent; e > 0; e >>>= 1) {
+            if ((e & 1) != 0) {
+                result = result.multiply(square);
+            }
+            if (e > 1) {
+                square = square.multiply(square);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates this function in floating-point arithmetic.
+     *
+     * @param interpretation Values of (at least) all variables in this function.
+     * @throws IllegalArgumentException if some variable has no value.
+     */
+    public double evaluate(Map<String, Double> interpretation) {
+        if (isConstant()) {
+            return numerator.getConstantValue().doubleValue();
+        }
+        double value = numerator.evaluate(interpretation);
+        if (isPolynomial()) {
+            return value;
+        }
+        return value / denominator.evaluate(interpretation);
+    }
+
+    /**
+     * Compiles this function for repeated floating-point evaluation, with
+     * the i-th variable in {@code slots} bound to the i-th position of the
+     * array of values. Functions compiled with the same slots can share
+     * an array of values.
+     *
+     * @throws IllegalArgumentException if some variable has no slot.
+     */
+    public CompiledFunction compile(List<String> slots) {
+        Map<String, Integer> slotNumbers = new HashMap<String, Integer>();
+        for (int i = 0; i < slots.size(); i++) {
+            slotNumbers.put(slots.get(i), i);
+        }
+        return new CompiledFunction(numerator.compile(slotNumbers),
+                                    isPolynomial() ? null : denominator.compile(slotNumbers));
+    }
+
+    /**
+     * Evaluates this function over an arbitrary type of values (e.g., ADDs).
+     *
+     * @param interpretation Values of (at least) all variables in this function.
+     * @throws IllegalArgumentException if some variable has no value.
+     */
+    public <T> T evaluate(Map<String, T> interpretation, Arithmetic<T> arithmetic) {
+        T value = numerator.evaluate(interpretation, arithmetic);
+        if (isPolynomial()) {
+            return value;
+        }
+        return arithmetic.divide(value, denominator.evaluate(interpretation, arithmetic));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj != null && obj instanceof RationalFunction) {
+            RationalFunction other = (RationalFunction) obj;
+            return numerator.equals(other.numerator)
+                    && denominator.equals(other.denominator);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31*numerator.hashCode() + denominator.hashCode();
+    }
+
+    /**
+     * Formats this function the way PARAM does: polynomials with integer
+     * coefficients are written as such (e.g., "-1*r0*rFail+1*r0"), while
+     * anything else is written as a parenthesized quotient of integer-coefficient
+     * polynomials (e.g., "(-1*r0+1)/(2)"). The only exception are constants
+     * with a finite decimal expansion, which are written as decimals (e.g.,
+     * "0.9801"), just like the results of numeric model checking.
+     */
+    @Override
+    public String toString() {
+        if (isConstant()) {
+            BigRational value = numerator.getConstantValue();
+            try {
+                return new BigDecimal(value.getNumerator())
+                        .divide(new BigDecimal(value.getDenominator()))
+                        .stripTrailingZeros()
+                        .toPlainString();
+            } catch (ArithmeticException e) {
+                // Non-terminating decimal expansion, so we stick to PARAM's format.
+            }
+        }
+        BigInteger scale = numerator.getCoefficientsDenominatorsLcm()
+                .multiply(denominator.getCoefficientsDenominatorsLcm());
+        Polynomial integerNumerator = numerator.scale(BigRational.valueOf(scale, BigInteger.ONE));
+        Polynomial integerDenominator = denominator.scale(BigRational.valueOf(scale, BigInteger.ONE));
+        if (integerDenominator.equals(Polynomial.ONE)) {
+            return integerNumerator.toString();
+        }
+        return "(" + integerNumerator + ")/(" + integerDenominator + ")";
+    }
+
+}
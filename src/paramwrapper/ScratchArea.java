@@ -0,0 +1,132 @@
+package paramwrapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Private directory for the files exchanged with an external model checker.
+ *
+ * The directory is created in memory-backed storage (/dev/shm) whenever
+ * available. Each thread gets its own set of file names, which are reused
+ * across invocations, so that the number of files does not grow with the
+ * number of analyzed models. Property files are written only once per
+ * distinct property.
+ *
+ * The whole directory is deleted on {@link #close()} or, failing that,
+ * when the JVM shuts down.
+ */
+class ScratchArea implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ScratchArea.class.getName());
+
+    private static final Path SHARED_MEMORY = Paths.get("/dev/shm");
+
+    private final Path directory;
+    private final Thread cleanupHook;
+
+    private final Map<String, Path> propertyFiles = new ConcurrentHashMap<String, Path>();
+    private final AtomicInteger slotsCounter = new AtomicInteger();
+    private final ThreadLocal<Slot> slots = ThreadLocal.withInitial(this::newSlot);
+
+    public ScratchArea(String prefix) throws IOException {
+        Path base = Files.isDirectory(SHARED_MEMORY) && Files.isWritable(SHARED_MEMORY) ? SHARED_MEMORY
+                                                                                       : Paths.get(System.getProperty("java.io.tmpdir"));
+        this.directory = Files.createTempDirectory(base, prefix);
+        this.cleanupHook = new Thread(this::deleteDirectory);
+        Runtime.getRuntime().addShutdownHook(cleanupHook);
+        LOGGER.fine("Model checker scratch area: " + directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return a file containing {@code property}.
+     */
+    public Path getPropertyFile(String property) throws IOException {
+        Path propertyFile = propertyFiles.get(property);
+        if (propertyFile == null) {
+            synchronized (propertyFiles) {
+                propertyFile = propertyFiles.get(property);
+                if (propertyFile == null) {
+                    propertyFile = directory.resolve("property-" + propertyFiles.size() + ".prop");
+                    write(property, propertyFile);
+                    propertyFiles.put(property, propertyFile);
+                }
+            }
+        }
+        return propertyFile;
+    }
+
+    /**
+     * @return the files reserved for the calling thread.
+     */
+    public Slot getSlot() {
+        return slots.get();
+    }
+
+    static void write(String contents, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(contents);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(cleanupHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down, so the hook will take care of it.
+            return;
+        }
+        deleteDirectory();
+    }
+
+    private Slot newSlot() {
+        int id = slotsCounter.getAndIncrement();
+        return new Slot(directory.resolve("model-" + id + ".param"),
+                        directory.resolve("result-" + id));
+    }
+
+    private void deleteDirectory() {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not clean up " + directory, e);
+        }
+    }
+
+    /**
+     * Model and results file names reserved for a single thread.
+     */
+    static class Slot {
+        private final Path modelFile;
+        private final Path resultsFile;
+
+        Slot(Path modelFile, Path resultsFile) {
+            this.modelFile = modelFile;
+            this.resultsFile = resultsFile;
+        }
+
+        public Path getModelFile() {
+            return modelFile;
+        }
+
+        public Path getResultsFile() {
+            return resultsFile;
+        }
+    }
+
+}
@@ -0,0 +1,408 @@
+package paramwrapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fdtmc.CompiledFDTMC;
+import fdtmc.FDTMC;
+
+/**
+ * In-process parametric model checker, which computes the probability
+ * of eventually reaching a "success" state by means of state elimination
+ * over rational functions [Daws, 2004; Hahn et al., 2011].
+ *
+ * This is the same algorithm implemented by PARAM, so the resulting
+ * expressions are equivalent to the ones we would get by invoking it,
+ * but without the need to serialize the model and spawn a process.
+ *
+ * The model is decomposed into strongly connected components, which are
+ * eliminated bottom-up (i.e., successors first). This amounts to plain
+ * back-substitution for the states outside cycles, and the order within
+ * each cyclic component is chosen by an {@link EliminationOrder} heuristic.
+ * The order actually used is reported to the model collector.
+ *
+ * @author thiago
+ */
+public class StateEliminationModelChecker implements ParametricModelChecker {
+    private static final Logger LOGGER = Logger.getLogger(StateEliminationModelChecker.class.getName());
+
+    private IModelCollector modelCollector;
+    private EliminationOrder eliminationOrder;
+
+    public StateEliminationModelChecker() {
+        this(new NoopModelCollector());
+    }
+
+    public StateEliminationModelChecker(IModelCollector modelCollector) {
+        this(modelCollector, EliminationOrder.MIN_FILL);
+    }
+
+    public StateEliminationModelChecker(IModelCollector modelCollector, EliminationOrder eliminationOrder) {
+        this.modelCollector = modelCollector;
+        this.eliminationOrder = eliminationOrder;
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        RationalFunction reliability = getReliabilityFunction(fdtmc);
+        return (reliability != null) ? reliability.toString() : "";
+    }
+
+    @Override
+    public RationalFunction getReliabilityFunction(FDTMC fdtmc) {
+        try {
+            long startTime = System.nanoTime();
+            CompiledFDTMC compiled = fdtmc.compile().minimize();
+            RationalFunction reliability;
+            // Floating-point arithmetic is much cheaper than the exact one,
+            // so we only resort to the latter if there are any parameters.
+            Double numericReliability = solveNumerically(compiled);
+            if (numericReliability != null) {
+                modelCollector.collectModel(0, compiled.getNumberOfStates());
+                reliability = RationalFunction.constant(BigRational.valueOf(numericReliability));
+            } else {
+                ReachabilityGraph graph = new ReachabilityGraph(compiled);
+                modelCollector.collectModel(graph.getParameters().size(), compiled.getNumberOfStates());
+                reliability = graph.solve(eliminationOrder);
+                LOGGER.fine("Elimination order (" + eliminationOrder + "): " + graph.getEliminated());
+                modelCollector.collectEliminationOrder(eliminationOrder, graph.getEliminated());
+            }
+            modelCollector.collectModelCheckingTime(System.nanoTime() - startTime);
+            return reliability;
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            LOGGER.log(Level.SEVERE, e.toString(), e);
+        } catch (CancellationException e) {
+            LOGGER.warning("Model checking interrupted");
+        }
+        return null;
+    }
+
+    /**
+     * @return the reliability or {@code null} if the model has non-constant probabilities.
+     */
+    private static Double solveNumerically(CompiledFDTMC fdtmc) {
+        try {
+            return NumericReachabilitySolver.solve(fdtmc);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Mutable transition graph over which states are eliminated.
+     *
+     * States are identified by their ids in the compiled FDTMC, and all
+     * "success" states are merged into a single absorbing target (with id -1).
+     */
+    private static class ReachabilityGraph {
+        private static final int TARGET = -1;
+
+        private final int initialState;
+        private final Set<Integer> successStates = new HashSet<Integer>();
+        private final Map<Integer, Map<Integer, RationalFunction>> successors = new LinkedHashMap<Integer, Map<Integer, RationalFunction>>();
+        private final Map<Integer, Set<Integer>> predecessors = new HashMap<Integer, Set<Integer>>();
+        private final Set<String> parameters = new TreeSet<String>();
+        private final List<Integer> eliminated = new ArrayList<Integer>();
+
+        public ReachabilityGraph(CompiledFDTMC fdtmc) {
+            this.initialState = fdtmc.getInitialState();
+            for (int state = 0; state < fdtmc.getNumberOfStates(); state++) {
+                if (fdtmc.hasLabel(state, FDTMC.SUCCESS_LABEL)) {
+                    successStates.add(state);
+                }
+            }
+            predecessors.put(TARGET, new HashSet<Integer>());
+
+            // Probability expressions are often repeated, so we parse each of them only once.
+            RationalFunction[] parsedProbabilities = new RationalFunction[fdtmc.getNumberOfProbabilities()];
+            for (int i = 0; i < parsedProbabilities.length; i++) {
+                parsedProbabilities[i] = ProbabilityParser.parse(fdtmc.getProbabilityExpression(i));
+                parameters.addAll(parsedProbabilities[i].getVariables());
+            }
+            for (int source = 0; source < fdtmc.getNumberOfStates(); source++) {
+                if (successStates.contains(source)) {
+                    continue;
+                }
+                addState(source);
+                for (int t = fdtmc.getTransitionsStart(source); t < fdtmc.getTransitionsEnd(source); t++) {
+                    addEdge(source, toNodeId(fdtmc.getTarget(t)), parsedProbabilities[fdtmc.getProbabilityId(t)]);
+                }
+            }
+        }
+
+        public Set<String> getParameters() {
+            return parameters;
+        }
+
+        /**
+         * @return the states eliminated by {@link #solve(EliminationOrder)}, in order.
+         */
+        public List<Integer> getEliminated() {
+            return eliminated;
+        }
+
+        public RationalFunction solve(EliminationOrder heuristic) {
+            if (successStates.contains(initialState)) {
+                return RationalFunction.ONE;
+            }
+            pruneIrrelevantStates();
+            if (!successors.containsKey(initialState)) {
+                return RationalFunction.ZERO;
+            }
+            Map<Integer, Integer> discoveryIndices = new HashMap<Integer, Integer>();
+            for (List<Integer> component: stronglyConnectedComponents(discoveryIndices)) {
+                Set<Integer> remaining = new HashSet<Integer>(component);
+                remaining.remove(initialState);
+                while (!remaining.isEmpty()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new CancellationException();
+                    }
+                    int state = chooseNext(remaining, heuristic, discoveryIndices);
+                    remaining.remove(state);
+                    eliminate(state);
+                    eliminated.add(state);
+                }
+            }
+            Map<Integer, RationalFunction> initialSuccessors = successors.get(initialState);
+            RationalFunction reachTarget = initialSuccessors.getOrDefault(TARGET, RationalFunction.ZERO);
+            RationalFunction selfLoop = initialSuccessors.get(initialState);
+            if (selfLoop != null) {
+                reachTarget = reachTarget.divide(RationalFunction.ONE.subtract(selfLoop));
+            }
+            return reachTarget;
+        }
+
+        private int toNodeId(int state) {
+            return successStates.contains(state) ? TARGET : state;
+        }
+
+        private void addState(int state) {
+            successors.putIfAbsent(state, new LinkedHashMap<Integer, RationalFunction>());
+            predecessors.putIfAbsent(state, new HashSet<Integer>());
+        }
+
+        private void addEdge(int source, int target, RationalFunction probability) {
+            if (probability.isZero()) {
+                return;
+            }
+            addState(source);
+            if (target != TARGET) {
+                addState(target);
+            }
+            successors.get(source).merge(target, probability, RationalFunction::add);
+            predecessors.get(target).add(source);
+        }
+
+        /**
+         * Tarjan's algorithm (iterative, so that long chains do not overflow the stack).
+         *
+         * @param discoveryIndices output parameter for the order in which the
+         *          depth-first search discovers each state.
+         * @return the strongly connected components of the graph, successors first
+         *          (i.e., in reverse topological order).
+         */
+        private List<List<Integer>> stronglyConnectedComponents(Map<Integer, Integer> discoveryIndices) {
+            List<List<Integer>> components = new ArrayList<List<Integer>>();
+            Map<Integer, Integer> lowLinks = new HashMap<Integer, Integer>();
+            Deque<Integer> componentStack = new ArrayDeque<Integer>();
+            Set<Integer> onStack = new HashSet<Integer>();
+            Deque<Integer> callStack = new ArrayDeque<Integer>();
+            Deque<Iterator<Integer>> pendingSuccessors = new ArrayDeque<Iterator<Integer>>();
+
+            discover(initialState, discoveryIndices, lowLinks, componentStack, onStack);
+            callStack.push(initialState);
+            pendingSuccessors.push(successors.get(initialState).keySet().iterator());
+            while (!callStack.isEmpty()) {
+                int state = callStack.peek();
+                Iterator<Integer> stateSuccessors = pendingSuccessors.peek();
+                if (stateSuccessors.hasNext()) {
+                    int successor = stateSuccessors.next();
+                    if (successor == TARGET) {
+                        continue;
+                    }
+                    if (!discoveryIndices.containsKey(successor)) {
+                        discover(successor, discoveryIndices, lowLinks, componentStack, onStack);
+                        callStack.push(successor);
+                        pendingSuccessors.push(successors.get(successor).keySet().iterator());
+                    } else if (onStack.contains(successor)) {
+                        lowLinks.put(state, Math.min(lowLinks.get(state), discoveryIndices.get(successor)));
+                    }
+                    continue;
+                }
+                callStack.pop();
+                pendingSuccessors.pop();
+                if (!callStack.isEmpty()) {
+                    int caller = callStack.peek();
+                    lowLinks.put(caller, Math.min(lowLinks.get(caller), lowLinks.get(state)));
+                }
+                if (lowLinks.get(state).equals(discoveryIndices.get(state))) {
+                    List<Integer> component = new ArrayList<Integer>();
+                    int member;
+                    do {
+                        member = componentStack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    } while (member != state);
+                    components.add(component);
+                }
+            }
+            return components;
+        }
+
+        private static void discover(int state,
+                                     Map<Integer, Integer> discoveryIndices,
+                                     Map<Integer, Integer> lowLinks,
+                                     Deque<Integer> componentStack,
+                                     Set<Integer> onStack) {
+            int index = discoveryIndices.size();
+            discoveryIndices.put(state, index);
+            lowLinks.put(state, index);
+            componentStack.push(state);
+            onStack.add(state);
+        }
+
+        /**
+         * Chooses the next state to be eliminated among the {@code candidates}.
+         * Ties are broken by the lowest state id, so that results are reproducible.
+         */
+        private int chooseNext(Set<Integer> candidates, EliminationOrder heuristic, Map<Integer, Integer> discoveryIndices) {
+            if (candidates.size() == 1) {
+                return candidates.iterator().next();
+            }
+            int best = -1;
+            long bestScore = Long.MAX_VALUE;
+            for (int state: candidates) {
+                long score;
+                switch (heuristic) {
+                case MIN_DEGREE:
+                    score = degree(state);
+                    break;
+                case MIN_FILL:
+                    score = fill(state);
+                    break;
+                case REVERSE_TOPOLOGICAL:
+                default:
+                    score = -discoveryIndices.get(state);
+                    break;
+                }
+                if (score < bestScore || (score == bestScore && state < best)) {
+                    best = state;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        private long degree(int state) {
+            Map<Integer, RationalFunction> outgoing = successors.get(state);
+            Set<Integer> incoming = predecessors.get(state);
+            int selfLoops = outgoing.containsKey(state) ? 1 : 0;
+            return (outgoing.size() - selfLoops) + (incoming.size() - selfLoops);
+        }
+
+        /**
+         * @return the number of transitions which eliminating {@code state} would create.
+         */
+        private long fill(int state) {
+            Map<Integer, RationalFunction> outgoing = successors.get(state);
+            long fill = 0;
+            for (int predecessor: predecessors.get(state)) {
+                if (predecessor == state) {
+                    continue;
+                }
+                Map<Integer, RationalFunction> predecessorSuccessors = successors.get(predecessor);
+                for (int successor: outgoing.keySet()) {
+                    if (successor != state && !predecessorSuccessors.containsKey(successor)) {
+                        fill++;
+                    }
+                }
+            }
+            return fill;
+        }
+
+        /**
+         * Removes states which either cannot be reached from the initial state
+         * or cannot reach the target. Neither contributes to the reachability
+         * probability, so there is no point in eliminating them.
+         */
+        private void pruneIrrelevantStates() {
+            Set<Integer> reachesTarget = new HashSet<Integer>();
+            Deque<Integer> pending = new ArrayDeque<Integer>();
+            pending.push(TARGET);
+            while (!pending.isEmpty()) {
+                for (Integer predecessor: predecessors.get(pending.pop())) {
+                    if (reachesTarget.add(predecessor)) {
+                        pending.push(predecessor);
+                    }
+                }
+            }
+            Set<Integer> reachable = new HashSet<Integer>();
+            if (reachesTarget.contains(initialState)) {
+                reachable.add(initialState);
+                pending.push(initialState);
+            }
+            while (!pending.isEmpty()) {
+                for (Integer successor: successors.get(pending.pop()).keySet()) {
+                    if (successor != TARGET && reachesTarget.contains(successor) && reachable.add(successor)) {
+                        pending.push(successor);
+                    }
+                }
+            }
+            successors.keySet().retainAll(reachable);
+            predecessors.keySet().retainAll(reachable);
+            for (Map<Integer, RationalFunction> edges: successors.values()) {
+                edges.keySet().removeIf(target -> target != TARGET && !reachable.contains(target));
+            }
+            Set<Integer> targetPredecessors = new HashSet<Integer>();
+            for (Map.Entry<Integer, Map<Integer, RationalFunction>> entry: successors.entrySet()) {
+                if (entry.getValue().containsKey(TARGET)) {
+                    targetPredecessors.add(entry.getKey());
+                }
+            }
+            predecessors.put(TARGET, targetPredecessors);
+            for (Set<Integer> statePredecessors: predecessors.values()) {
+                statePredecessors.retainAll(reachable);
+            }
+        }
+
+        /**
+         * Removes {@code state} from the graph, redirecting each path
+         * i -> state -> j to a direct transition i -> j whose probability
+         * accounts for any self-loop in {@code state}.
+         */
+        private void eliminate(int state) {
+            Map<Integer, RationalFunction> outgoing = successors.remove(state);
+            Set<Integer> incoming = predecessors.remove(state);
+            RationalFunction selfLoop = outgoing.remove(state);
+            incoming.remove(state);
+
+            RationalFunction loopFactor = RationalFunction.ONE;
+            if (selfLoop != null) {
+                loopFactor = RationalFunction.ONE.subtract(selfLoop).reciprocal();
+            }
+            for (Integer successor: outgoing.keySet()) {
+                predecessors.get(successor).remove(state);
+            }
+            for (Integer predecessor: incoming) {
+                RationalFunction toState = successors.get(predecessor).remove(state);
+                RationalFunction factor = toState.multiply(loopFactor);
+                for (Map.Entry<Integer, RationalFunction> edge: outgoing.entrySet()) {
+                    addEdge(predecessor, edge.getKey(), factor.multiply(edge.getValue()));
+                }
+            }
+        }
+    }
+
+}
@@ -4,19 +4,26 @@
 package tool;
 
 import jadd.ADD;
+import jadd.BackendType;
+import jadd.Configuration;
 import jadd.JADD;
+import jadd.UnrecognizedVariableException;
 
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 import paramwrapper.IModelCollector;
-import paramwrapper.ParamWrapper;
 import paramwrapper.ParametricModelChecker;
 import tool.analyzers.IPruningStrategy;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
 import tool.analyzers.strategies.FamilyBasedAnalyzer;
 import tool.analyzers.strategies.FamilyProductBasedAnalyzer;
 import tool.analyzers.strategies.FeatureFamilyBasedAnalyzer;
@@ -37,10 +44,13 @@ import expressionsolver.ExpressionSolver;
  * @author thiago
  */
 public class Analyzer {
+    private static final Logger LOGGER = Logger.getLogger(Analyzer.class.getName());
 
     private ADD featureModel;
     private ParametricModelChecker modelChecker;
     private ExpressionSolver expressionSolver;
+    /** Shared by all strategies. */
+    private PresenceConditionCache presenceConditionCache;
     private JADD jadd;
 
     private ConcurrencyStrategy concurrencyStrategy = ConcurrencyStrategy.PARALLEL;
@@ -63,9 +73,27 @@ public class Analyzer {
      * @throws IOException if there is a problem reading the file.
      */
     public Analyzer(String featureModel, String paramPath, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
-        this(new JADD(), featureModel, paramPath, timeCollector, formulaCollector, modelCollector);
+        this(new JADD(), featureModel, ModelCheckerFactory.createModelChecker(ModelCheckingStrategy.PARAM, paramPath, modelCollector), timeCollector, formulaCollector);
     }
 
+    /**
+     * Creates an Analyzer which delegates parametric model checking
+     * to the given {@code modelChecker}.
+     *
+     * @see ModelCheckerFactory
+     */
+    public Analyzer(String featureModel, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(new JADD(), featureModel, modelChecker, timeCollector, formulaCollector);
+    }
+
+    /**
+     * Creates an Analyzer whose ADDs are implemented on top of the given backend.
+     */
+    public Analyzer(String featureModel, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector, BackendType addBackend) {
+        this(new JADD(addBackend), featureModel, modelChecker, timeCollector, formulaCollector);
+    }
+
+
     /**
      * Package-private constructor for testability.
      * It allows injection of ADD processor an feature model expression.
@@ -73,55 +101,105 @@ public class Analyzer {
      * @param featureModel
      */
     Analyzer(JADD jadd, String featureModel, String paramPath) {
-        this(jadd, featureModel, paramPath, null, null, null);
+        this(jadd, featureModel, ModelCheckerFactory.createModelChecker(ModelCheckingStrategy.PARAM, paramPath, null), null, null);
+    }
+
+    /**
+     * Package-private constructor for testability.
+     * It allows injection of ADD processor and parametric model checker.
+     */
+    Analyzer(JADD jadd, String featureModel, ParametricModelChecker modelChecker) {
+        this(jadd, featureModel, modelChecker, null, null);
     }
 
 
     /**
-     * This is where true initialization happens.
+     * Variables are reordered by sifting once the feature model is encoded.
      * @param jadd
      * @param featureModel
      */
-    private Analyzer(JADD jadd, String featureModel, String paramPath, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
+    private Analyzer(JADD jadd, String featureModel, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(jadd, featureModel, modelChecker, timeCollector, formulaCollector, null);
+    }
+
+    /**
+     * This is where true initialization happens.
+     *
+     * Creates an Analyzer on top of the given ADD manager, whose variables
+     * are created in the given order (from the topmost level down) before
+     * the feature model is encoded, instead of being reordered by sifting
+     * afterwards.
+     *
+     * @param jadd A fresh manager (e.g., tuned by {@link jadd.ManagerSettings}).
+     * @param variableOrder Static order (see {@link VariableOrdering}) or
+     *          {@code null} for sifting. Variables missing from it are
+     *          placed below those in it, and names which are not features
+     *          of the feature model are ignored.
+     */
+    public Analyzer(JADD jadd, String featureModel, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector, List<String> variableOrder) {
         this.jadd = jadd;
         this.expressionSolver = new ExpressionSolver(jadd);
+        this.presenceConditionCache = new PresenceConditionCache(expressionSolver);
+        if (variableOrder != null) {
+            createVariables(variableOrder, featureModel);
+        }
         this.featureModel = expressionSolver.encodeFormula(featureModel);
-        // The feature model contains all used variables, so we expect to
-        // be able to generate an optimal ordering right after parsing it.
-        jadd.reorderVariables();
+        if (variableOrder == null) {
+            // The feature model contains all used variables, so we expect to
+            // be able to generate an optimal ordering right after parsing it.
+            jadd.reorderVariables();
+        }
 
-        initializeCollectors(paramPath, timeCollector, formulaCollector, modelCollector);
+        this.modelChecker = modelChecker;
+        initializeCollectors(timeCollector, formulaCollector);
 
         initializeAnalyzers();
     }
 
-	private void initializeCollectors(String paramPath, ITimeCollector timeCollector,
-			IFormulaCollector formulaCollector, IModelCollector modelCollector) {
+    /**
+     * Creates the features in the given order, since variables take levels
+     * in order of creation. Unknown names are skipped, lest they become
+     * unconstrained variables which multiply the valid configurations.
+     */
+    private void createVariables(List<String> variableOrder, String featureModel) {
+        List<String> featureNames = expressionSolver.getFormulaVariables(featureModel);
+        Set<String> features = new HashSet<String>(featureNames != null ? featureNames : variableOrder);
+        for (String variable : variableOrder) {
+            if (features.contains(variable)) {
+                jadd.getVariable(variable);
+            } else {
+                LOGGER.warning("Ignoring <" + variable + "> in the variable order, since it is not a feature");
+            }
+        }
+    }
+
+	private void initializeCollectors(ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
 		this.timeCollector = (timeCollector != null) ? timeCollector : new NoopTimeCollector();
         this.formulaCollector = (formulaCollector != null) ? formulaCollector : new NoopFormulaCollector();
-        this.modelChecker = (modelCollector != null) ? new ParamWrapper(paramPath, modelCollector) : new ParamWrapper(paramPath);
 	}
 
 	private void initializeAnalyzers() {
 		this.featureFamilyBasedAnalyzerImpl = new FeatureFamilyBasedAnalyzer(this.jadd,
+                                                                             this.presenceConditionCache,
                                                                              this.featureModel,
                                                                              this.modelChecker,
                                                                              this.timeCollector,
                                                                              this.formulaCollector);
-        this.featureProductBasedAnalyzerImpl = new FeatureProductBasedAnalyzer(this.jadd,
+        this.featureProductBasedAnalyzerImpl = new FeatureProductBasedAnalyzer(this.presenceConditionCache,
                                                                                this.modelChecker,
                                                                                this.timeCollector,
                                                                                this.formulaCollector);
-        this.productBasedAnalyzerImpl = new ProductBasedAnalyzer(this.jadd,
+        this.productBasedAnalyzerImpl = new ProductBasedAnalyzer(this.presenceConditionCache,
                                                                  this.modelChecker,
                                                                  this.timeCollector,
                                                                  this.formulaCollector);
         this.familyBasedAnalyzerImpl = new FamilyBasedAnalyzer(this.jadd,
+                                                               this.presenceConditionCache,
                                                                this.featureModel,
                                                                this.modelChecker,
                                                                this.timeCollector,
                                                                this.formulaCollector);
-        this.familyProductBasedAnalyzerImpl = new FamilyProductBasedAnalyzer(this.jadd,
+        this.familyProductBasedAnalyzerImpl = new FamilyProductBasedAnalyzer(this.presenceConditionCache,
                                                                              this.modelChecker,
                                                                              this.timeCollector,
                                                                              this.formulaCollector);
@@ -132,17 +210,29 @@ public class Analyzer {
      * Returns the set of all valid configurations according to the feature model.
      * @return
      */
-    public Stream<Collection<String>> getValidConfigurations() {
+    public Stream<Configuration> getValidConfigurations() {
         return featureModel.getExpandedConfigurations();
     }
 
+    /**
+     * Converts a set of feature names into a configuration.
+     * @throws UnknownFeatureException if any feature is not in the feature model.
+     */
+    public Configuration toConfiguration(Collection<String> features) throws UnknownFeatureException {
+        try {
+            return jadd.toConfiguration(features);
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
     /**
      * Returns true if and only if {@code configuration} is valid according
      * to the feature model.
      * @param configuration
      * @return
      */
-    public boolean isValidConfiguration(Collection<String> configuration) {
+    public boolean isValidConfiguration(Configuration configuration) {
         return featureModel.isValidConfiguration(configuration);
     }
 
@@ -199,7 +289,7 @@ public class Analyzer {
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateFeatureProductBasedReliability(RDGNode node, Stream<Collection<String>> configurations) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateFeatureProductBasedReliability(RDGNode node, Stream<Configuration> configurations) throws CyclicRdgException, UnknownFeatureException {
         return featureProductBasedAnalyzerImpl.evaluateReliability(node, configurations, this.concurrencyStrategy);
     }
 
@@ -212,7 +302,7 @@ public class Analyzer {
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateProductBasedReliability(RDGNode node, Stream<Collection<String>> configurations) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateProductBasedReliability(RDGNode node, Stream<Configuration> configurations) throws CyclicRdgException, UnknownFeatureException {
         return productBasedAnalyzerImpl.evaluateReliability(node, configurations, this.concurrencyStrategy);
     }
 
@@ -225,7 +315,7 @@ public class Analyzer {
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateFamilyBasedReliability(RDGNode node, Stream<Collection<String>> configurations) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateFamilyBasedReliability(RDGNode node, Stream<Configuration> configurations) throws CyclicRdgException, UnknownFeatureException {
         return familyBasedAnalyzerImpl.evaluateReliability(node, this.concurrencyStrategy);
     }
 
@@ -238,7 +328,7 @@ public class Analyzer {
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateFamilyProductBasedReliability(RDGNode node, Stream<Collection<String>> configurations) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateFamilyProductBasedReliability(RDGNode node, Stream<Configuration> configurations) throws CyclicRdgException, UnknownFeatureException {
         return familyProductBasedAnalyzerImpl.evaluateReliability(node, configurations, this.concurrencyStrategy);
     }
 
@@ -250,6 +340,13 @@ public class Analyzer {
      *          {@link #evaluateFeatureFamilyBasedReliability(RDGNode)} method.
      * @param outputFile Path to the .dot file to be generated.
      */
+    /**
+     * @return the current order of the ADD variables, from the topmost level down.
+     */
+    public List<String> getVariableOrder() {
+        return jadd.getVariableOrder();
+    }
+
     public void generateDotFile(ADD familyReliability, String outputFile) {
         featureFamilyBasedAnalyzerImpl.generateDotFile(familyReliability, outputFile);
     }
@@ -0,0 +1,40 @@
+package tool;
+
+import paramwrapper.EliminationOrder;
+import paramwrapper.IModelCollector;
+import paramwrapper.NoopModelCollector;
+import paramwrapper.ParamWrapper;
+import paramwrapper.ParametricModelChecker;
+import paramwrapper.StateEliminationModelChecker;
+
+public class ModelCheckerFactory {
+
+    private ModelCheckerFactory() {
+        // NO-OP
+    }
+
+    public static ParametricModelChecker createModelChecker(ModelCheckingStrategy strategySelection,
+                                                            String paramPath,
+                                                            IModelCollector modelCollector) {
+        return createModelChecker(strategySelection, paramPath, modelCollector, EliminationOrder.MIN_FILL);
+    }
+
+    /**
+     * @param eliminationOrder Heuristic for the built-in state elimination
+     *          (ignored by external model checkers, which have their own).
+     */
+    public static ParametricModelChecker createModelChecker(ModelCheckingStrategy strategySelection,
+                                                            String paramPath,
+                                                            IModelCollector modelCollector,
+                                                            EliminationOrder eliminationOrder) {
+        IModelCollector collector = (modelCollector != null) ? modelCollector : new NoopModelCollector();
+        switch (strategySelection) {
+        case PARAM:
+            return new ParamWrapper(paramPath, collector);
+        case STATE_ELIMINATION:
+        default:
+            return new StateEliminationModelChecker(collector, eliminationOrder);
+        }
+    }
+
+}
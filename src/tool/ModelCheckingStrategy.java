@@ -0,0 +1,12 @@
+package tool;
+
+public enum ModelCheckingStrategy {
+    /**
+     * In-process state elimination (no external tool needed).
+     */
+    STATE_ELIMINATION,
+    /**
+     * External parametric model checker (PARAM or Prism) found at the param path.
+     */
+    PARAM
+}
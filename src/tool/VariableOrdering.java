@@ -0,0 +1,213 @@
+package tool;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Static variable orders, i.e., those computed before any ADD is built.
+ *
+ * Orders are lists of variable names, from the topmost level down.
+ */
+public class VariableOrdering {
+
+    /**
+     * Upper bound for FORCE iterations, which usually reach a fixed point
+     * much earlier.
+     */
+    private static final int MAX_FORCE_ITERATIONS = 50;
+    private static final Set<String> CONSTANTS = new HashSet<String>(Arrays.asList("true", "True", "false", "False"));
+
+    private VariableOrdering() {
+        // NO-OP
+    }
+
+    /**
+     * @return the order to be imposed before encoding {@code featureModel},
+     *      or {@code null} if the strategy leaves it to dynamic reordering.
+     */
+    public static List<String> createVariableOrder(VariableOrderingStrategy strategy, String featureModel) {
+        switch (strategy) {
+        case FORCE:
+            return force(featureModel);
+        case SIFT:
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Computes an order by the FORCE heuristic (Aloul, Markov and Sakallah),
+     * which places variables sharing clauses close to each other.
+     *
+     * Each clause pulls its variables towards its center of gravity (the mean
+     * of their positions). Variables are then sorted by the mean of the
+     * centers of their clauses, and the order of least total clause span
+     * is kept.
+     *
+     * @param featureModel Conjunction of clauses, as in the feature model files.
+     */
+    public static List<String> force(String featureModel) {
+        List<Set<String>> clauses = parseClauses(featureModel);
+        Map<String, Integer> indices = new LinkedHashMap<String, Integer>();
+        for (Set<String> clause : clauses) {
+            for (String variable : clause) {
+                indices.putIfAbsent(variable, indices.size());
+            }
+        }
+        List<String> names = new ArrayList<String>(indices.keySet());
+        int[][] edges = new int[clauses.size()][];
+        for (int e = 0; e < edges.length; e++) {
+            edges[e] = clauses.get(e).stream().mapToInt(indices::get).toArray();
+        }
+
+        int numVars = names.size();
+        double[] position = new double[numVars];
+        for (int v = 0; v < numVars; v++) {
+            position[v] = v;
+        }
+        Integer[] order = new Integer[numVars];
+        Integer[] best = new Integer[numVars];
+        for (int v = 0; v < numVars; v++) {
+            best[v] = v;
+        }
+        Integer[] previous = best.clone();
+        long bestSpan = span(edges, position);
+        for (int iteration = 0; iteration < MAX_FORCE_ITERATIONS; iteration++) {
+            double[] sum = new double[numVars];
+            int[] degree = new int[numVars];
+            for (int[] edge : edges) {
+                double center = 0;
+                for (int v : edge) {
+                    center += position[v];
+                }
+                center /= edge.length;
+                for (int v : edge) {
+                    sum[v] += center;
+                    degree[v]++;
+                }
+            }
+            double[] target = new double[numVars];
+            for (int v = 0; v < numVars; v++) {
+                target[v] = degree[v] > 0 ? sum[v] / degree[v] : position[v];
+                order[v] = v;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(target[a], target[b]));
+            for (int level = 0; level < numVars; level++) {
+                position[order[level]] = level;
+            }
+            long currentSpan = span(edges, position);
+            if (currentSpan < bestSpan) {
+                bestSpan = currentSpan;
+                best = order.clone();
+            } else if (Arrays.equals(order, previous)) {
+                break;
+            }
+            previous = order.clone();
+        }
+        return Arrays.stream(best).map(names::get).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the sum, over all clauses, of the distance between their
+     *      topmost and bottommost variables.
+     */
+    private static long span(int[][] edges, double[] position) {
+        long total = 0;
+        for (int[] edge : edges) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int v : edge) {
+                min = Math.min(min, position[v]);
+                max = Math.max(max, position[v]);
+            }
+            total += (long) (max - min);
+        }
+        return total;
+    }
+
+    /**
+     * Splits a formula into its top-level conjuncts and collects the variables
+     * of each one. Conjuncts which are trivially true (i.e., which have
+     * an unnegated "True" literal) impose no constraint, so they are left out.
+     */
+    static List<Set<String>> parseClauses(String formula) {
+        List<Set<String>> clauses = new ArrayList<Set<String>>();
+        Set<String> clause = new LinkedHashSet<String>();
+        boolean tautology = false;
+        int depth = 0;
+        int i = 0;
+        while (i < formula.length()) {
+            char c = formula.charAt(i);
+            if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < formula.length() && Character.isJavaIdentifierPart(formula.charAt(i))) {
+                    i++;
+                }
+                String identifier = formula.substring(start, i);
+                if (!CONSTANTS.contains(identifier)) {
+                    clause.add(identifier);
+                } else if (identifier.equalsIgnoreCase("true") && !isNegated(formula, start)) {
+                    tautology = true;
+                }
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && formula.startsWith("&&", i)) {
+                addClause(clauses, clause, tautology);
+                clause = new LinkedHashSet<String>();
+                tautology = false;
+                i++;
+            }
+            i++;
+        }
+        addClause(clauses, clause, tautology);
+        return clauses;
+    }
+
+    private static boolean isNegated(String formula, int position) {
+        int i = position - 1;
+        while (i >= 0 && Character.isWhitespace(formula.charAt(i))) {
+            i--;
+        }
+        return i >= 0 && formula.charAt(i) == '!';
+    }
+
+    private static void addClause(List<Set<String>> clauses, Set<String> clause, boolean tautology) {
+        if (!clause.isEmpty() && !tautology) {
+            clauses.add(clause);
+        }
+    }
+
+    /**
+     * Reads an order saved by {@link #write(List, Path)}. Blank lines and
+     * lines starting with '#' are ignored.
+     */
+    public static List<String> read(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes an order, one variable name per line.
+     */
+    public static void write(List<String> order, Path file) throws IOException {
+        Files.write(file, order, StandardCharsets.UTF_8);
+    }
+
+}
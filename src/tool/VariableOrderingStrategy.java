@@ -0,0 +1,14 @@
+package tool;
+
+public enum VariableOrderingStrategy {
+    /**
+     * Variables are created as they are found in the feature model,
+     * which is then reordered by sifting.
+     */
+    SIFT,
+    /**
+     * Variables are created in an order computed beforehand from the
+     * clauses of the feature model, and no sifting takes place.
+     */
+    FORCE
+}
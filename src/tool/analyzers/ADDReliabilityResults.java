@@ -1,9 +1,17 @@
 package tool.analyzers;
 
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import tool.UnknownFeatureException;
 import jadd.ADD;
+import jadd.Configuration;
+import jadd.JADD;
 import jadd.UnrecognizedVariableException;
 
 public class ADDReliabilityResults implements IReliabilityAnalysisResults {
@@ -14,6 +22,22 @@ public class ADDReliabilityResults implements IReliabilityAnalysisResults {
         this.results = results;
     }
 
+    /**
+     * Loads results stored by {@link #store(Path)}.
+     */
+    public static ADDReliabilityResults load(JADD jadd, Path file) throws IOException {
+        return new ADDReliabilityResults(jadd.load(file));
+    }
+
+    /**
+     * Stores the family-wide reliability function in binary form, so that
+     * it can be queried later without running the analysis again.
+     * @see jadd.StoredADD
+     */
+    public void store(Path file) throws IOException {
+        results.store(file);
+    }
+
     @Override
     public Double getResult(String[] configuration) throws UnknownFeatureException {
         try {
@@ -23,27 +47,149 @@ public class ADDReliabilityResults implements IReliabilityAnalysisResults {
         }
     }
 
+    @Override
+    public Double getResult(Configuration configuration) {
+        return results.eval(configuration);
+    }
+
+    @Override
+    public Double[] getResults(List<Configuration> configurations) {
+        double[] values = results.evalAll(configurations);
+        Double[] boxed = new Double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+
+    /**
+     * @return the lowest reliability of a valid (i.e., non-zero) configuration,
+     *      or NaN if there is none.
+     */
+    public double getMinimumReliability() {
+        for (double value : results.getTerminalValues()) {
+            if (value > 0) {
+                return value;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * @return the highest reliability of a valid configuration,
+     *      or NaN if there is none.
+     */
+    public double getMaximumReliability() {
+        double[] values = results.getTerminalValues();
+        double maximum = values.length > 0 ? values[values.length - 1] : 0;
+        return maximum > 0 ? maximum : Double.NaN;
+    }
+
+    /**
+     * @return a 0,1-ADD of the configurations whose reliability is the
+     *      lowest one, which is the constant 0 if there is no valid
+     *      configuration. It is up to the caller to close it.
+     */
+    public ADD getLeastReliableConfigurations() {
+        double minimum = getMinimumReliability();
+        if (Double.isNaN(minimum)) {
+            return makeZero();
+        }
+        return results.inRange(minimum, minimum);
+    }
+
+    /**
+     * @return a 0,1-ADD of the configurations whose reliability is the
+     *      highest one, which is the constant 0 if there is no valid
+     *      configuration. It is up to the caller to close it.
+     */
+    public ADD getMostReliableConfigurations() {
+        double maximum = getMaximumReliability();
+        if (Double.isNaN(maximum)) {
+            return makeZero();
+        }
+        return results.inRange(maximum, maximum);
+    }
+
+    /**
+     * @return a 0,1-ADD of the valid configurations whose reliability is
+     *      below {@code threshold}. It is up to the caller to close it.
+     */
+    public ADD getConfigurationsBelow(double threshold) {
+        return results.inRange(Double.MIN_VALUE, Math.nextDown(threshold));
+    }
+
+    /**
+     * @return the number of valid configurations whose reliability is
+     *      below {@code threshold}.
+     */
+    public double countConfigurationsBelow(double threshold) {
+        try (ADD below = getConfigurationsBelow(threshold)) {
+            return below.getNonZeroConfigurationsCount();
+        }
+    }
+
+    /**
+     * Finds the {@code k} most reliable configurations (or fewer, if there
+     * are not so many valid ones). Only configurations which reach the
+     * highest terminals are enumerated.
+     *
+     * @return the configurations mapped to their reliabilities, in
+     *      descending order of reliability.
+     */
+    public Map<Configuration, Double> getMostReliable(int k) {
+        Map<Configuration, Double> top = new LinkedHashMap<Configuration, Double>();
+        double[] values = results.getTerminalValues();
+        for (int i = values.length - 1; i >= 0 && top.size() < k && values[i] > 0; i--) {
+            double value = values[i];
+            try (ADD reaching = results.inRange(value, value)) {
+                reaching.getExpandedConfigurations()
+                        .limit(k - top.size())
+                        .collect(Collectors.toList())
+                        .forEach(configuration -> top.put(configuration, value));
+            }
+        }
+        return top;
+    }
+
+    /**
+     * @return the constant 0 in the manager of the results, i.e., the
+     *      0,1-ADD of an empty range.
+     */
+    private ADD makeZero() {
+        return results.inRange(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+    }
+
     @Override
     public void printStats(PrintStream output) {
         int numVariables = results.getVariables().size();
         int numNodes = results.getNodeCount();
         int numDeadNodes = results.getDeadNodesCount();
+        long numLiveNodes = results.getLiveNodesCount();
         int numTerminalsNonZero = results.getTerminalsDifferentThanZeroCount();
         double numPathsToNonZeroTerminals = results.getPathsToNonZeroTerminalsCount();
         double numPathsToZeroTerminal = results.getPathsToZeroTerminalCount();
         int numReorderings = results.getReorderingsCount();
         int numGarbageCollections = results.getGarbageCollectionsCount();
         long numBytesADD = results.getAddSizeInBytes();
+        long reorderingTime = results.getReorderingTime();
+        double numCacheLookUps = results.getCacheLookUpsCount();
+        double numCacheHits = results.getCacheHitsCount();
 
         output.println("# variables: " + numVariables);
         output.println("# internal nodes: " + numNodes);
         output.println("# dead nodes: " + numDeadNodes);
+        output.println("# live nodes (all ADDs): " + numLiveNodes);
         output.println("# terminals different than zero: " + numTerminalsNonZero);
         output.println("# paths to non-zero terminals: " + numPathsToNonZeroTerminals);
         output.println("# paths to zero terminal: " + numPathsToZeroTerminal);
         output.println("# reorderings: " + numReorderings);
+        output.println("Reordering time (ms): " + reorderingTime);
         output.println("# garbage collections: " + numGarbageCollections);
         output.println("ADD's size in # of bytes: " + numBytesADD);
+        output.println("# cache lookups: " + numCacheLookUps);
+        output.println("# cache hits: " + numCacheHits);
+        output.println("Cache hit ratio: " + (numCacheLookUps > 0 ? numCacheHits / numCacheLookUps : 0));
 
         output.println("Order of variables: " + results.getVariableOrder());
     }
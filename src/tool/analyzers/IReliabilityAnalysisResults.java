@@ -1,6 +1,9 @@
 package tool.analyzers;
 
+import jadd.Configuration;
+
 import java.io.PrintStream;
+import java.util.List;
 
 import tool.UnknownFeatureException;
 
@@ -9,7 +12,8 @@ public interface IReliabilityAnalysisResults {
 
     /**
      * Gets the specific result for the given configuration or zero if the
-     * configuration has no associated result or is invalid.
+     * configuration has no associated result or is invalid. The result is
+     * {@code null} if the analysis of this (valid) configuration failed.
      *
      * @param configuration
      * @return
@@ -18,6 +22,27 @@ public interface IReliabilityAnalysisResults {
      */
     public Double getResult(String[] configuration) throws UnknownFeatureException;
 
+    /**
+     * @see #getResult(String[])
+     */
+    public Double getResult(Configuration configuration);
+
+    /**
+     * Gets the results for many configurations at once.
+     *
+     * @see #getResult(Configuration)
+     * @return the results in the same order as the configurations, with
+     *      {@code null} for the configurations whose analysis failed.
+     */
+    public default Double[] getResults(List<Configuration> configurations) {
+        Double[] results = new Double[configurations.size()];
+        int i = 0;
+        for (Configuration configuration : configurations) {
+            results[i++] = getResult(configuration);
+        }
+        return results;
+    }
+
     public void printStats(PrintStream output);
 
 }
@@ -1,75 +1,57 @@
 package tool.analyzers;
 
+import jadd.Configuration;
+import jadd.UnrecognizedVariableException;
+
 import java.io.PrintStream;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import tool.UnknownFeatureException;
 
 public class MapBasedReliabilityResults implements IReliabilityAnalysisResults {
 
-    private Map<Set<String>, Double> results;
-    private Set<String> features;
-
-    public MapBasedReliabilityResults() {
-        this.results = new HashMap<Set<String>, Double>();
-        this.features = new HashSet<String>();
-    }
+    private Map<Configuration, Double> results;
 
-    public MapBasedReliabilityResults(Map<Collection<String>, Double> backup) {
-        this.results = backup.entrySet().stream()
-                .collect(Collectors.toMap(e -> new HashSet<String>(e.getKey()),
-                                          e -> e.getValue()));
-        this.features = backup.keySet().stream()
-                .map(Collection::stream)
-                .flatMap(Function.identity())
-                .collect(Collectors.toSet());
+    public MapBasedReliabilityResults(Map<Configuration, Double> results) {
+        this.results = new HashMap<Configuration, Double>(results);
     }
 
     @Override
     public Double getResult(String[] configuration) throws UnknownFeatureException {
-        Set<String> configurationAsSet = new HashSet<String>(Arrays.asList(configuration));
-        if (results.containsKey(configurationAsSet)) {
-            return results.get(configurationAsSet);
-        } else if (hasUnknownFeature(configurationAsSet)) {
-            throw new UnknownFeatureException(configuration.toString());
+        if (results.isEmpty()) {
+            return 0.0;
+        }
+        Configuration anyConfiguration = results.keySet().iterator().next();
+        try {
+            return getResult(anyConfiguration.getVariableStore().toConfiguration(Arrays.asList(configuration)));
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
         }
-        return 0.0;
     }
 
-    public synchronized void putResult(List<String> configuration, Double value) {
-        Set<String> configurationAsSet = new HashSet<String>(configuration);
-        results.put(configurationAsSet, value);
-        features.addAll(configurationAsSet);
-
+    @Override
+    public Double getResult(Configuration configuration) {
+        if (results.containsKey(configuration)) {
+            return results.get(configuration);
+        }
+        return 0.0;
     }
 
     /**
      * Prints the size of the reliability mapping, but not taking
-     * into account the inner structures used by java.util.HashMap
-     * and java.util.HashSet.
+     * into account the inner structures used by java.util.HashMap.
      */
     @Override
     public void printStats(PrintStream output) {
         long size = 0;
-        for (Set<String> result: results.keySet()) {
-            for (String feature: result) {
-                size += feature.length();
-            }
+        for (Configuration configuration: results.keySet()) {
+            // Presence bits, rounded up to whole words.
+            size += 8 * ((configuration.getVariableStore().getPresenceBitsLength()));
             size += 8;  // reliability's size (double)
         }
         output.println("Result's size in bytes: " + size);
     }
 
-    private boolean hasUnknownFeature(Set<String> configuration) {
-        return features.containsAll(configuration);
-    }
-
 }
@@ -1,6 +1,7 @@
 package tool.analyzers.buildingblocks;
 
 import jadd.ADD;
+import paramwrapper.RationalFunction;
 import expressionsolver.Expression;
 import expressionsolver.ExpressionSolver;
 
@@ -15,11 +16,18 @@ public class FamilyBasedHelper {
         this.expressionSolver = expressionSolver;
     }
 
-    public Expression<ADD> lift(String expression) {
-        return expressionSolver.parseExpressionForFunctions(expression);
+    /**
+     * @return the lifted expression or {@code null} if model checking
+     *      failed to yield a function.
+     */
+    public Expression<ADD> lift(RationalFunction expression) {
+        if (expression == null) {
+            return null;
+        }
+        return expressionSolver.liftFunction(expression);
     }
 
-    public Component<Expression<ADD>> lift(Component<String> expression) {
+    public Component<Expression<ADD>> lift(Component<RationalFunction> expression) {
         return expression.fmap(this::lift);
     }
 
@@ -0,0 +1,146 @@
+package tool.analyzers.buildingblocks;
+
+import jadd.ADD;
+import jadd.ADDScope;
+import jadd.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Thread-safe cache of encoded presence conditions, so that each distinct
+ * condition is parsed and encoded only once, no matter how many components,
+ * configurations or analysis strategies refer to it.
+ *
+ * Conditions are keyed by their text without the whitespace which does not
+ * separate tokens, e.g., "A && B" and "A&&B" share an entry, but "A B C"
+ * and "A BC" do not.
+ */
+public class PresenceConditionCache {
+
+    /**
+     * Presence condition encoded both as a 0,1-ADD (for family-based
+     * strategies) and as a lock-free test over configurations (for
+     * product-based ones).
+     */
+    public static final class CompiledPresenceCondition {
+        private final ADD encoding;
+        private final Predicate<Configuration> predicate;
+
+        private CompiledPresenceCondition(ADD encoding) {
+            this.encoding = encoding;
+            this.predicate = encoding.toPredicate();
+        }
+
+        /**
+         * @return the encoded condition, which belongs to the cache and
+         *      must not be closed.
+         */
+        public ADD getEncoding() {
+            return encoding;
+        }
+
+        public boolean isPresent(Configuration configuration) {
+            return predicate.test(configuration);
+        }
+    }
+
+    private ExpressionSolver expressionSolver;
+    private Map<String, CompiledPresenceCondition> compiled = new ConcurrentHashMap<String, CompiledPresenceCondition>();
+
+    public PresenceConditionCache(ExpressionSolver expressionSolver) {
+        this.expressionSolver = expressionSolver;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the condition cannot be parsed.
+     */
+    public CompiledPresenceCondition get(String presenceCondition) {
+        return compiled.computeIfAbsent(normalize(presenceCondition), key -> compile(presenceCondition));
+    }
+
+    /**
+     * @see #get(String)
+     */
+    public ADD encode(String presenceCondition) {
+        return get(presenceCondition).getEncoding();
+    }
+
+    /**
+     * @see #get(String)
+     */
+    public boolean isPresent(String presenceCondition, Configuration configuration) {
+        return get(presenceCondition).isPresent(configuration);
+    }
+
+    /**
+     * @return the number of distinct conditions compiled so far.
+     */
+    public int size() {
+        return compiled.size();
+    }
+
+    /**
+     * Releases all encoded conditions.
+     */
+    public void clear() {
+        compiled.values().removeIf(condition -> {
+            condition.getEncoding().close();
+            return true;
+        });
+    }
+
+    private CompiledPresenceCondition compile(String presenceCondition) {
+        // The encoding outlives whatever scope the caller is in.
+        try (ADDScope scope = expressionSolver.getJADD().openScope()) {
+            ADD encoding = expressionSolver.encodeFormula(presenceCondition);
+            if (encoding == null) {
+                throw new IllegalArgumentException("Invalid presence condition: " + presenceCondition);
+            }
+            return new CompiledPresenceCondition(scope.detach(encoding));
+        }
+    }
+
+    /**
+     * Drops whitespace, except for a single space between characters which
+     * would otherwise be read as a single token (e.g., the identifiers in
+     * "B C" or the ampersands in "& &"), so that conditions with equal keys
+     * are always parsed alike.
+     */
+    private static String normalize(String presenceCondition) {
+        StringBuilder normalized = new StringBuilder(presenceCondition.length());
+        boolean separated = false;
+        for (int i = 0; i < presenceCondition.length(); i++) {
+            char c = presenceCondition.charAt(i);
+            if (Character.isWhitespace(c)) {
+                separated = normalized.length() > 0;
+                continue;
+            }
+            if (separated && wouldJoin(normalized.charAt(normalized.length() - 1), c)) {
+                normalized.append(' ');
+            }
+            separated = false;
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    private static boolean wouldJoin(char previous, char next) {
+        if (isTokenPart(previous) && isTokenPart(next)) {
+            return true;
+        }
+        if (previous == next && (next == '&' || next == '|')) {
+            return true;
+        }
+        // Exponent of a number in scientific notation (e.g., "1E-4").
+        return (previous == 'E' || previous == 'e') && (next == '-' || next == '+');
+    }
+
+    private static boolean isTokenPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+
+}
@@ -1,23 +1,88 @@
 package tool.analyzers.buildingblocks;
 
-import java.util.Collection;
+import jadd.Configuration;
+
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class ProductIterationHelper {
 
-    public static <T> Map<Collection<String>, Double> evaluate(Function<Collection<String>, Double> eval,
-                                                               Stream<Collection<String>> configurations,
+    /**
+     * Number of configurations evaluated at once by
+     * {@link #evaluateInBlocks(BiConsumer, Stream, ConcurrencyStrategy)}.
+     */
+    public static final int BLOCK_SIZE = 1024;
+
+    public static <T> Map<Configuration, Double> evaluate(Function<Configuration, Double> eval,
+                                                               Stream<Configuration> configurations,
                                                                ConcurrencyStrategy concurrencyStrategy) {
-        Stream<Collection<String>> configs = concurrencyStrategy == ConcurrencyStrategy.PARALLEL ?
+        Stream<Configuration> configs = concurrencyStrategy == ConcurrencyStrategy.PARALLEL ?
                                                         configurations.parallel()
                                                         : configurations.sequential();
 
-        Map<Collection<String>, Double> results = configs
-                .collect(Collectors.toMap(Function.identity(),
-                                          eval));
+        // Collectors.toMap does not accept the null values of failed evaluations.
+        Map<Configuration, Double> results = configs
+                .collect(HashMap::new,
+                         (map, configuration) -> map.put(configuration, eval.apply(configuration)),
+                         Map::putAll);
+        return results;
+    }
+
+    /**
+     * Evaluator of a block of configurations at once.
+     */
+    @FunctionalInterface
+    public interface BlockEvaluator {
+        /**
+         * @param block Configurations to be evaluated.
+         * @param values Where to store the result for each configuration
+         *      of the block, in the respective position.
+         * @param failed Where to flag (in the respective position) each
+         *      configuration for which there is no result. Any value,
+         *      including NaN, is a result otherwise.
+         */
+        public void evaluate(List<Configuration> block, double[] values, boolean[] failed);
+    }
+
+    /**
+     * Block-wise alternative for {@link #evaluate(Function, Stream, ConcurrencyStrategy)},
+     * for evaluators which work column-wise over many configurations at once.
+     * Blocks (of up to {@link #BLOCK_SIZE} configurations) are evaluated in
+     * parallel according to the concurrency strategy.
+     *
+     * @return the results, in which failed ones are {@code null}, just as
+     *      with {@link #evaluate(Function, Stream, ConcurrencyStrategy)}.
+     */
+    public static Map<Configuration, Double> evaluateInBlocks(BlockEvaluator eval,
+                                                              Stream<Configuration> configurations,
+                                                              ConcurrencyStrategy concurrencyStrategy) {
+        List<Configuration> allConfigurations = configurations.collect(Collectors.toList());
+        double[] values = new double[allConfigurations.size()];
+        boolean[] failed = new boolean[values.length];
+        int blocks = (values.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        IntStream blockIndices = concurrencyStrategy == ConcurrencyStrategy.PARALLEL ?
+                                                        IntStream.range(0, blocks).parallel()
+                                                        : IntStream.range(0, blocks);
+        blockIndices.forEach(block -> {
+            int from = block * BLOCK_SIZE;
+            int to = Math.min(from + BLOCK_SIZE, values.length);
+            double[] blockValues = new double[to - from];
+            boolean[] blockFailed = new boolean[to - from];
+            eval.evaluate(allConfigurations.subList(from, to), blockValues, blockFailed);
+            System.arraycopy(blockValues, 0, values, from, blockValues.length);
+            System.arraycopy(blockFailed, 0, failed, from, blockFailed.length);
+        });
+
+        Map<Configuration, Double> results = new HashMap<Configuration, Double>(2 * values.length);
+        for (int i = 0; i < values.length; i++) {
+            results.put(allConfigurations.get(i), failed[i] ? null : values[i]);
+        }
         return results;
     }
 
@@ -1,6 +1,7 @@
 package tool.analyzers.strategies;
 
 import jadd.ADD;
+import jadd.ADDScope;
 import jadd.JADD;
 
 import java.util.List;
@@ -9,6 +10,7 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import paramwrapper.ParametricModelChecker;
+import paramwrapper.RationalFunction;
 import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.UnknownFeatureException;
@@ -16,6 +18,7 @@ import tool.analyzers.ADDReliabilityResults;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.FamilyBasedHelper;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
 import tool.analyzers.buildingblocks.PresenceConditions;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
@@ -31,6 +34,7 @@ public class FamilyBasedAnalyzer {
 
     private ADD featureModel;
     private ExpressionSolver expressionSolver;
+    private PresenceConditionCache presenceConditionCache;
     ParametricModelChecker modelChecker;
 
     private FamilyBasedFirstPhase firstPhase;
@@ -40,11 +44,13 @@ public class FamilyBasedAnalyzer {
     private IFormulaCollector formulaCollector;
 
     public FamilyBasedAnalyzer(JADD jadd,
+                               PresenceConditionCache presenceConditionCache,
                                ADD featureModel,
                                ParametricModelChecker modelChecker,
                                ITimeCollector timeCollector,
                                IFormulaCollector formulaCollector) {
         this.expressionSolver = new ExpressionSolver(jadd);
+        this.presenceConditionCache = presenceConditionCache;
         this.featureModel = featureModel;
         this.modelChecker = modelChecker;
 
@@ -69,7 +75,7 @@ public class FamilyBasedAnalyzer {
 
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
         // Lambda_v + alpha_v
-        String expression = firstPhase.getReliabilityExpression(dependencies);
+        RationalFunction expression = firstPhase.getReliabilityExpression(dependencies);
         formulaCollector.collectFormula(node, expression);
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
@@ -86,13 +92,16 @@ public class FamilyBasedAnalyzer {
                                           e -> e.getKey(),
                                           (a, b) -> a));
 
-        Map<String, ADD> values = eqClassToPC.entrySet().stream()
-                .collect(Collectors.toMap(e -> e.getKey(),
-                                          e -> expressionSolver.encodeFormula(e.getValue())));
+        ADD result;
+        try (ADDScope scope = expressionSolver.getJADD().openScope()) {
+            Map<String, ADD> values = eqClassToPC.entrySet().stream()
+                    .collect(Collectors.toMap(e -> e.getKey(),
+                                              e -> presenceConditionCache.encode(e.getValue())));
 
-        // Sigma'_v
-        ADD reliability = liftedExpression.solve(values);
-        ADD result = featureModel.times(reliability);
+            // Sigma'_v
+            ADD reliability = liftedExpression.solve(values);
+            result = scope.keep(featureModel.times(reliability));
+        }
 
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
         LOGGER.info("Formula evaluation ok...");
@@ -6,6 +6,7 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import paramwrapper.ParametricModelChecker;
+import paramwrapper.RationalFunction;
 import tool.Analyzer;
 import tool.RDGNode;
 import tool.analyzers.buildingblocks.Component;
@@ -45,7 +46,7 @@ public class FamilyBasedFirstPhase {
      * @param node
      * @return
      */
-    public String getReliabilityExpression(List<RDGNode> dependencies) {
+    public RationalFunction getReliabilityExpression(List<RDGNode> dependencies) {
         List<Component<FDTMC>> components = RDGNode.toComponentList(dependencies);
         List<String> presenceConditions = components.stream()
                 .map(Component::getPresenceCondition)
@@ -55,7 +56,7 @@ public class FamilyBasedFirstPhase {
         FDTMC derived150Model = Component.deriveFromMany(components,
                                                          derive150Model,
                                                          c -> pcEquivalence.get(c.getPresenceCondition()));
-        String expression = modelChecker.getReliability(derived150Model);
+        RationalFunction expression = modelChecker.getReliabilityFunction(derived150Model);
         LOGGER.info("Parametric model-checking ok...");
         return expression;
     }
@@ -1,28 +1,30 @@
 package tool.analyzers.strategies;
 
-import jadd.JADD;
+import jadd.Configuration;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import paramwrapper.CompiledFunction;
 import paramwrapper.ParametricModelChecker;
+import paramwrapper.RationalFunction;
 import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.MapBasedReliabilityResults;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
+import tool.analyzers.buildingblocks.PresenceConditionCache.CompiledPresenceCondition;
 import tool.analyzers.buildingblocks.PresenceConditions;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
-import expressionsolver.Expression;
-import expressionsolver.ExpressionSolver;
 
 /**
  * Orchestrator of family-product-based analyses.
@@ -30,18 +32,18 @@ import expressionsolver.ExpressionSolver;
 public class FamilyProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(FamilyProductBasedAnalyzer.class.getName());
 
-    private ExpressionSolver expressionSolver;
+    private PresenceConditionCache presenceConditionCache;
 
     private FamilyBasedFirstPhase firstPhase;
 
     private ITimeCollector timeCollector;
     private IFormulaCollector formulaCollector;
 
-    public FamilyProductBasedAnalyzer(JADD jadd,
+    public FamilyProductBasedAnalyzer(PresenceConditionCache presenceConditionCache,
                                ParametricModelChecker modelChecker,
                                ITimeCollector timeCollector,
                                IFormulaCollector formulaCollector) {
-        this.expressionSolver = new ExpressionSolver(jadd);
+        this.presenceConditionCache = presenceConditionCache;
 
         this.firstPhase = new FamilyBasedFirstPhase(modelChecker);
 
@@ -56,7 +58,7 @@ public class FamilyProductBasedAnalyzer {
      * @return
      * @throws CyclicRdgException
      */
-    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Collection<String>> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException {
+    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Configuration> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException {
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
             LOGGER.info("Solving the family-wide expression for each product in parallel.");
         }
@@ -64,7 +66,7 @@ public class FamilyProductBasedAnalyzer {
 
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
         // Lambda_v + alpha_v
-        String expression = firstPhase.getReliabilityExpression(dependencies);
+        RationalFunction expression = firstPhase.getReliabilityExpression(dependencies);
         formulaCollector.collectFormula(node, expression);
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
@@ -74,47 +76,57 @@ public class FamilyProductBasedAnalyzer {
                 .map(RDGNode::getPresenceCondition)
                 .collect(Collectors.toList());
         Map<String, String> pcEquivalence = PresenceConditions.toEquivalenceClasses(presenceConditions);
-        Map<String, String> eqClassToPC = pcEquivalence.entrySet().stream()
-                .collect(Collectors.toMap(e -> e.getValue(),
-                                          e -> e.getKey(),
-                                          (a, b) -> a));
-
-        Map<Collection<String>, Double> results;
-        if (concurrencyStrategy == ConcurrencyStrategy.SEQUENTIAL) {
-            Expression<Double> parsedExpression = expressionSolver.parseExpression(expression);
-            results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(parsedExpression,
-                                                                                      configuration,
-                                                                                      eqClassToPC),
-                                                      configurations,
-                                                      concurrencyStrategy);
-        } else {
-            results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(expression,
-                                                                                      configuration,
-                                                                                      eqClassToPC),
-                                                      configurations,
-                                                      concurrencyStrategy);
-        }
+        // The expression's variables are the equivalence classes, each of
+        // which goes to its own slot.
+        List<Map.Entry<String, String>> classes = new ArrayList<Map.Entry<String, String>>(pcEquivalence.entrySet());
+        List<String> slots = classes.stream()
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+        List<CompiledPresenceCondition> compiledPresenceConditions = classes.stream()
+                .map(e -> presenceConditionCache.get(e.getKey()))
+                .collect(Collectors.toList());
+        CompiledFunction compiledExpression = (expression == null) ? null : expression.compile(slots);
+
+        // The compiled function is immutable, so it can be shared among threads.
+        Map<Configuration, Double> results = ProductIterationHelper.evaluateInBlocks((block, values, failed) -> evaluateBlock(compiledExpression,
+                                                                                                                           block,
+                                                                                                                           values,
+                                                                                                                           failed,
+                                                                                                                           compiledPresenceConditions),
+                                                                                           configurations,
+                                                                                           concurrencyStrategy);
 
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
         LOGGER.info("Formulae evaluation ok...");
         return new MapBasedReliabilityResults(results);
     }
 
-    private Double evaluateSingle(Expression<Double> expression, Collection<String> configuration, Map<String, String> eqClassToPC) {
-        Function<Map.Entry<String, String>, Boolean> isPresent = e -> PresenceConditions.isPresent(e.getValue(),
-                                                                                                   configuration,
-                                                                                                   expressionSolver);
-        Map<String, Double> values = eqClassToPC.entrySet().stream()
-            .collect(Collectors.toMap(e -> e.getKey(),
-                                      isPresent.andThen(present -> present ? 1.0 : 0.0)));
-
-        return expression.solve(values);
-
-    }
-
-    private Double evaluateSingle(String expression, Collection<String> configuration, Map<String, String> eqClassToPC) {
-        Expression<Double> parsedExpression = expressionSolver.parseExpression(expression);
-        return evaluateSingle(parsedExpression, configuration, eqClassToPC);
+    /**
+     * Evaluates the expression for a whole block of configurations, with
+     * one column of presence values (1 or 0) per equivalence class.
+     *
+     * @param reliabilities Where to store the reliability of each
+     *      configuration.
+     * @param failed Where to flag every configuration if model checking failed.
+     */
+    private static void evaluateBlock(CompiledFunction expression,
+                                      List<Configuration> block,
+                                      double[] reliabilities,
+                                      boolean[] failed,
+                                      List<CompiledPresenceCondition> presenceConditions) {
+        if (expression == null) {
+            Arrays.fill(failed, true);
+            return;
+        }
+        int count = block.size();
+        double[][] values = new double[presenceConditions.size()][count];
+        for (int i = 0; i < values.length; i++) {
+            CompiledPresenceCondition presenceCondition = presenceConditions.get(i);
+            for (int r = 0; r < count; r++) {
+                values[i][r] = presenceCondition.isPresent(block.get(r)) ? 1.0 : 0.0;
+            }
+        }
+        expression.evaluate(values, count, reliabilities);
     }
 
 }
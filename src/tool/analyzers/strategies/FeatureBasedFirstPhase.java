@@ -1,12 +1,14 @@
 package tool.analyzers.strategies;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import paramwrapper.ParametricModelChecker;
+import paramwrapper.RationalFunction;
 import tool.Analyzer;
 import tool.RDGNode;
 import tool.analyzers.buildingblocks.Component;
@@ -41,16 +43,29 @@ public class FeatureBasedFirstPhase {
      * @param node
      * @return
      */
-    public List<Component<String>> getReliabilityExpressions(List<RDGNode> nodes, ConcurrencyStrategy concurrencyStrategy) {
+    public List<Component<RationalFunction>> getReliabilityExpressions(List<RDGNode> nodes, ConcurrencyStrategy concurrencyStrategy) {
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
             LOGGER.info("Performing model checking in parallel for each FDTMC.");
         }
         // Expressions can be calculated concurrently...
-        Stream<RDGNode> expressionStream = (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) ? nodes.parallelStream()
-                                                                                                 : nodes.stream();
-        Map<String, String> expressionsByNode = expressionStream
-            .collect(Collectors.toMap(RDGNode::getId,
-                                      this::getReliabilityExpression));
+        // (A failed model checking yields a null expression, which Collectors.toMap
+        // would not accept.)
+        Map<String, RationalFunction> expressionsByNode = new HashMap<String, RationalFunction>();
+        if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
+            // Requests are issued all at once and only then awaited, so that no
+            // thread is held up while the model checker is busy.
+            Map<String, CompletableFuture<RationalFunction>> futureExpressions = nodes.stream()
+                    .collect(Collectors.toMap(RDGNode::getId,
+                                              node -> modelChecker.getReliabilityFunctionAsync(node.getFDTMC())));
+            for (RDGNode node: nodes) {
+                expressionsByNode.put(node.getId(),
+                                      collectReliabilityExpression(node, futureExpressions.get(node.getId()).join()));
+            }
+        } else {
+            for (RDGNode node: nodes) {
+                expressionsByNode.put(node.getId(), getReliabilityExpression(node));
+            }
+        }
 
         // ... but then we need to recover ordering information
         // so that we can format the response accordingly.
@@ -66,12 +81,16 @@ public class FeatureBasedFirstPhase {
      * @param node
      * @return an algebraic expression on the variables present in the node's model.
      */
-    private String getReliabilityExpression(RDGNode node) {
+    private RationalFunction getReliabilityExpression(RDGNode node) {
         FDTMC model = node.getFDTMC();
-        String reliabilityExpression = modelChecker.getReliability(model);
+        RationalFunction reliabilityExpression = modelChecker.getReliabilityFunction(model);
+        return collectReliabilityExpression(node, reliabilityExpression);
+    }
 
+    private RationalFunction collectReliabilityExpression(RDGNode node, RationalFunction reliabilityExpression) {
         formulaCollector.collectFormula(node, reliabilityExpression);
-        LOGGER.fine("Reliability expression for "+ node.getId() + " -> " + reliabilityExpression);
+        // Formatting may be expensive, so it is only done if needed.
+        LOGGER.fine(() -> "Reliability expression for "+ node.getId() + " -> " + reliabilityExpression);
         return reliabilityExpression;
     }
 
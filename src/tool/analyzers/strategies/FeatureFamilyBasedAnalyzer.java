@@ -1,12 +1,14 @@
 package tool.analyzers.strategies;
 
 import jadd.ADD;
+import jadd.ADDScope;
 import jadd.JADD;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 import paramwrapper.ParametricModelChecker;
+import paramwrapper.RationalFunction;
 import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.analyzers.ADDReliabilityResults;
@@ -18,6 +20,7 @@ import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
 import tool.analyzers.buildingblocks.FamilyBasedHelper;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
@@ -32,6 +35,7 @@ public class FeatureFamilyBasedAnalyzer {
     private ADD featureModel;
     private JADD jadd;
     private ExpressionSolver expressionSolver;
+    private PresenceConditionCache presenceConditionCache;
     private IPruningStrategy pruningStrategy;
 
     private FeatureBasedFirstPhase firstPhase;
@@ -46,11 +50,13 @@ public class FeatureFamilyBasedAnalyzer {
     private ITimeCollector timeCollector;
 
     public FeatureFamilyBasedAnalyzer(JADD jadd,
+                                      PresenceConditionCache presenceConditionCache,
                                       ADD featureModel,
                                       ParametricModelChecker modelChecker,
                                       ITimeCollector timeCollector,
                                       IFormulaCollector formulaCollector) {
         this.expressionSolver = new ExpressionSolver(jadd);
+        this.presenceConditionCache = presenceConditionCache;
         this.jadd = jadd;
         this.featureModel = featureModel;
 
@@ -89,7 +95,7 @@ public class FeatureFamilyBasedAnalyzer {
 
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
         // Alpha_v
-        List<Component<String>> expressions = firstPhase.getReliabilityExpressions(dependencies, concurrencyStrategy);
+        List<Component<RationalFunction>> expressions = firstPhase.getReliabilityExpressions(dependencies, concurrencyStrategy);
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
         timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
@@ -97,9 +103,14 @@ public class FeatureFamilyBasedAnalyzer {
         List<Component<Expression<ADD>>> liftedExpressions = expressions.stream()
                 .map(helper::lift)
                 .collect(Collectors.toList());
-        // Sigma_v
-        ADD reliability = solveFromMany(liftedExpressions);
-        ADD result = featureModel.times(reliability);
+        ADD result;
+        // Only the final result is kept, so that all derived intermediate
+        // functions (and encoded presence conditions) can be reclaimed.
+        try (ADDScope scope = jadd.openScope()) {
+            // Sigma_v
+            ADD reliability = solveFromMany(liftedExpressions);
+            result = scope.keep(featureModel.times(reliability));
+        }
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
 
         if (dotOutput != null) {
@@ -138,7 +149,7 @@ public class FeatureFamilyBasedAnalyzer {
     private ADD solveFromMany(List<Component<Expression<ADD>>> dependencies) {
         return Component.deriveFromMany(dependencies,
                                         solve,
-                                        c -> expressionSolver.encodeFormula(c.getPresenceCondition()));
+                                        c -> presenceConditionCache.encode(c.getPresenceCondition()));
     }
 
 }
@@ -1,14 +1,16 @@
 package tool.analyzers.strategies;
 
-import jadd.JADD;
+import jadd.Configuration;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import paramwrapper.CompiledFunction;
 import paramwrapper.ParametricModelChecker;
+import paramwrapper.RationalFunction;
 import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.UnknownFeatureException;
@@ -16,14 +18,12 @@ import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.MapBasedReliabilityResults;
 import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
-import tool.analyzers.buildingblocks.DerivationFunction;
-import tool.analyzers.buildingblocks.IfOperator;
-import tool.analyzers.buildingblocks.PresenceConditions;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
+import tool.analyzers.buildingblocks.PresenceConditionCache.CompiledPresenceCondition;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
-import expressionsolver.ExpressionSolver;
 
 /**
  * Orchestrator of feature-product-based analyses.
@@ -31,31 +31,21 @@ import expressionsolver.ExpressionSolver;
 public class FeatureProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(FeatureProductBasedAnalyzer.class.getName());
 
-    private ExpressionSolver expressionSolver;
+    private PresenceConditionCache presenceConditionCache;
     private FeatureBasedFirstPhase firstPhase;
 
-    /**
-     * Sigma
-     */
-    private DerivationFunction<Boolean, String, Double> solve;
-
     private ITimeCollector timeCollector;
 
-    public FeatureProductBasedAnalyzer(JADD jadd,
+    public FeatureProductBasedAnalyzer(PresenceConditionCache presenceConditionCache,
                                        ParametricModelChecker modelChecker,
                                        ITimeCollector timeCollector,
                                        IFormulaCollector formulaCollector) {
-        this.expressionSolver = new ExpressionSolver(jadd);
+        this.presenceConditionCache = presenceConditionCache;
 
         this.timeCollector = timeCollector;
 
         this.firstPhase = new FeatureBasedFirstPhase(modelChecker,
                                                      formulaCollector);
-
-
-        solve = DerivationFunction.abstractDerivation(new IfOperator<Double>(),
-                                                      expressionSolver::solveExpression,
-                                                      1.0);
     }
 
     /**
@@ -67,35 +57,89 @@ public class FeatureProductBasedAnalyzer {
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Collection<String>> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Configuration> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
         List<RDGNode> dependencies = node.getDependenciesTransitiveClosure();
 
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
         // Alpha_v
-        List<Component<String>> expressions = firstPhase.getReliabilityExpressions(dependencies, concurrencyStrategy);
+        List<Component<RationalFunction>> expressions = firstPhase.getReliabilityExpressions(dependencies, concurrencyStrategy);
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
         timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+        // Each expression's variables are the ids of the components it
+        // depends on, which come before it. So, the value of the i-th
+        // component goes to the i-th slot.
+        List<String> slots = expressions.stream()
+                .map(Component::getId)
+                .collect(Collectors.toList());
+        List<CompiledFunction> compiledExpressions = expressions.stream()
+                .map(c -> compile(c.getAsset(), slots))
+                .collect(Collectors.toList());
+        List<CompiledPresenceCondition> presenceConditions = expressions.stream()
+                .map(c -> presenceConditionCache.get(c.getPresenceCondition()))
+                .collect(Collectors.toList());
 
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
-            LOGGER.info("Evaluating all expressions for each product in parallel.");
+            LOGGER.info("Evaluating all expressions for each block of products in parallel.");
         }
-        Map<Collection<String>, Double> results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(node,
-                                                                                                                  configuration,
-                                                                                                                  expressions),
-                                                                                  configurations,
-                                                                                  concurrencyStrategy);
+        Map<Configuration, Double> results = ProductIterationHelper.evaluateInBlocks((block, values, failed) -> evaluateBlock(block,
+                                                                                                                           values,
+                                                                                                                           failed,
+                                                                                                                           compiledExpressions,
+                                                                                                                           presenceConditions),
+                                                                                           configurations,
+                                                                                           concurrencyStrategy);
 
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
         return new MapBasedReliabilityResults(results);
     }
 
-    private Double evaluateSingle(RDGNode node, Collection<String> configuration, List<Component<String>> expressions) {
-        return Component.deriveFromMany(expressions,
-                                        solve,
-                                        c -> PresenceConditions.isPresent(c.getPresenceCondition(),
-                                                                          configuration,
-                                                                          expressionSolver));
+    /**
+     * @return the compiled expression or {@code null} if model checking
+     *      failed to yield it.
+     */
+    private static CompiledFunction compile(RationalFunction expression, List<String> slots) {
+        if (expression == null) {
+            return null;
+        }
+        return expression.compile(slots);
+    }
+
+    /**
+     * Sigma: absent components are worth 1, and present ones are worth
+     * their expressions.
+     *
+     * Each component's expression is evaluated for the whole block at once,
+     * yielding a column with the component's value in each configuration.
+     *
+     * @param reliabilities Where to store the value of the last (root)
+     *      component in each configuration.
+     * @param failed Where to flag the configurations in which some present
+     *      component has no expression.
+     */
+    private static void evaluateBlock(List<Configuration> block,
+                                      double[] reliabilities,
+                                      boolean[] failed,
+                                      List<CompiledFunction> expressions,
+                                      List<CompiledPresenceCondition> presenceConditions) {
+        int count = block.size();
+        double[][] values = new double[expressions.size()][];
+        for (int i = 0; i < values.length; i++) {
+            CompiledFunction expression = expressions.get(i);
+            CompiledPresenceCondition presenceCondition = presenceConditions.get(i);
+            values[i] = new double[count];
+            if (expression != null) {
+                expression.evaluate(values, count, values[i]);
+            }
+            for (int r = 0; r < count; r++) {
+                if (!presenceCondition.isPresent(block.get(r))) {
+                    values[i][r] = 1.0;
+                } else if (expression == null) {
+                    failed[r] = true;
+                }
+            }
+        }
+        System.arraycopy(values[values.length - 1], 0, reliabilities, 0, count);
     }
 
 }
@@ -1,14 +1,15 @@
 package tool.analyzers.strategies;
 
-import jadd.JADD;
+import jadd.Configuration;
 
-import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 import paramwrapper.ParametricModelChecker;
+import paramwrapper.RationalFunction;
 import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.UnknownFeatureException;
@@ -18,13 +19,13 @@ import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
 import tool.analyzers.buildingblocks.IfOperator;
-import tool.analyzers.buildingblocks.PresenceConditions;
+import tool.analyzers.buildingblocks.PresenceConditionCache;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
-import expressionsolver.ExpressionSolver;
 import fdtmc.FDTMC;
+import fdtmc.InlinedFDTMC;
 import fdtmc.State;
 
 /**
@@ -33,30 +34,33 @@ import fdtmc.State;
 public class ProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(ProductBasedAnalyzer.class.getName());
 
-    private ExpressionSolver expressionSolver;
+    private PresenceConditionCache presenceConditionCache;
     ParametricModelChecker modelChecker;
     /**
      * LAMBDA
+     *
+     * Products are derived as lazily inlined views, which share the models
+     * of the components and are only materialized for model checking.
      */
-    private DerivationFunction<Boolean, FDTMC, FDTMC> derive;
+    private DerivationFunction<Boolean, FDTMC, InlinedFDTMC> derive;
 
 
     private ITimeCollector timeCollector;
     private IFormulaCollector formulaCollector;
 
-    public ProductBasedAnalyzer(JADD jadd,
+    public ProductBasedAnalyzer(PresenceConditionCache presenceConditionCache,
                                 ParametricModelChecker modelChecker,
                                 ITimeCollector timeCollector,
                                 IFormulaCollector formulaCollector) {
-        this.expressionSolver = new ExpressionSolver(jadd);
+        this.presenceConditionCache = presenceConditionCache;
         this.modelChecker = modelChecker;
 
         this.timeCollector = timeCollector;
         this.formulaCollector = formulaCollector;
 
-        derive = DerivationFunction.abstractDerivation(new IfOperator<FDTMC>(),
-                                                       FDTMC::inline,
-                                                       trivialFdtmc());
+        derive = DerivationFunction.abstractDerivation(new IfOperator<InlinedFDTMC>(),
+                                                       FDTMC::inlineLazily,
+                                                       InlinedFDTMC.of(trivialFdtmc()));
     }
 
     /**
@@ -67,7 +71,7 @@ public class ProductBasedAnalyzer {
      * @return
      * @throws CyclicRdgException
      */
-    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Collection<String>> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Configuration> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
             LOGGER.info("Running the whole analysis of each product in parallel.");
         }
@@ -75,7 +79,7 @@ public class ProductBasedAnalyzer {
 
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
-        Map<Collection<String>, Double> results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(node,
+        Map<Configuration, Double> results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(node,
                                                                                                                   configuration,
                                                                                                                   dependencies),
                                                                                   configurations,
@@ -85,23 +89,31 @@ public class ProductBasedAnalyzer {
         return new MapBasedReliabilityResults(results);
     }
 
-    private Double evaluateSingle(RDGNode node, Collection<String> configuration, List<RDGNode> dependencies) throws UnknownFeatureException {
+    private Double evaluateSingle(RDGNode node, Configuration configuration, List<RDGNode> dependencies) throws UnknownFeatureException {
         List<Component<FDTMC>> models = RDGNode.toComponentList(dependencies);
         // Lambda folding
-        FDTMC rootModel = deriveFromMany(models, configuration);
+        FDTMC rootModel = deriveFromMany(models, configuration).materialize();
         // Alpha
-        String reliabilityExpression = modelChecker.getReliability(rootModel);
+        RationalFunction reliabilityExpression = modelChecker.getReliabilityFunction(rootModel);
         formulaCollector.collectFormula(node, reliabilityExpression);
         // Sigma
-        return expressionSolver.solveExpression(reliabilityExpression);
+        if (reliabilityExpression == null) {
+            return null;
+        }
+        if (!reliabilityExpression.getVariables().isEmpty()) {
+            // The derived model should have no parameters left.
+            LOGGER.warning("Reliability of product " + configuration + " still depends on "
+                    + reliabilityExpression.getVariables() + ". Reporting it as failed.");
+            return null;
+        }
+        return reliabilityExpression.evaluate(Collections.<String, Double>emptyMap());
     }
 
-    private FDTMC deriveFromMany(List<Component<FDTMC>> dependencies, Collection<String> configuration) {
+    private InlinedFDTMC deriveFromMany(List<Component<FDTMC>> dependencies, Configuration configuration) {
         return Component.deriveFromMany(dependencies,
                                         derive,
-                                        c -> PresenceConditions.isPresent(c.getPresenceCondition(),
-                                                                          configuration,
-                                                                          expressionSolver));
+                                        c -> presenceConditionCache.isPresent(c.getPresenceCondition(),
+                                                                              configuration));
     }
 
     private FDTMC trivialFdtmc() {
@@ -2,6 +2,7 @@ package tool.stats;
 
 import java.io.PrintStream;
 
+import paramwrapper.RationalFunction;
 import tool.RDGNode;
 
 /**
@@ -11,7 +12,11 @@ import tool.RDGNode;
  */
 public interface IFormulaCollector {
 
-    public void collectFormula(RDGNode node, String formula);
+    /**
+     * @param formula Reliability function of the node's model
+     *          ({@code null} if model checking failed).
+     */
+    public void collectFormula(RDGNode node, RationalFunction formula);
 
     public void printStats(PrintStream out);
 
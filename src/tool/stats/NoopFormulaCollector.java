@@ -2,12 +2,13 @@ package tool.stats;
 
 import java.io.PrintStream;
 
+import paramwrapper.RationalFunction;
 import tool.RDGNode;
 
 public class NoopFormulaCollector implements IFormulaCollector {
 
     @Override
-    public void collectFormula(RDGNode node, String formula) {
+    public void collectFormula(RDGNode node, RationalFunction formula) {
         // No-op
     }
 
@@ -13,7 +13,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,6 +28,8 @@ import java.util.stream.Stream;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import jadd.Configuration;
+import jadd.JADD;
 
 import modeling.DiagramAPI;
 import modeling.IModelerAPI;
@@ -39,7 +40,10 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import paramwrapper.CachingModelChecker;
 import paramwrapper.IModelCollector;
+import paramwrapper.ModelCheckerPool;
+import paramwrapper.ParametricModelChecker;
 import parsing.SplGeneratorModels.SplGeneratorModelingAPI;
 import parsing.exceptions.InvalidNodeClassException;
 import parsing.exceptions.InvalidNodeType;
@@ -48,9 +52,12 @@ import parsing.exceptions.InvalidTagException;
 import parsing.exceptions.UnsupportedFragmentTypeException;
 import tool.Analyzer;
 import tool.CyclicRdgException;
+import tool.ModelCheckerFactory;
 import tool.PruningStrategyFactory;
 import tool.RDGNode;
 import tool.UnknownFeatureException;
+import tool.VariableOrdering;
+import tool.analyzers.ADDReliabilityResults;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
@@ -72,6 +79,8 @@ public class CommandLineInterface {
     private static ITimeCollector timeCollector;
     private static IFormulaCollector formulaCollector;
     private static IModelCollector modelCollector;
+    private static CachingModelChecker modelCache;
+    private static ModelCheckerPool modelCheckerPool;
 
     private CommandLineInterface() {
         // NO-OP
@@ -93,31 +102,53 @@ public class CommandLineInterface {
         RDGNode rdgRoot = buildRDG(options);
         memoryCollector.takeSnapshot("after model parsing");
 
-        Analyzer analyzer = makeAnalyzer(options);
-        Stream<Collection<String>> targetConfigurations = getTargetConfigurations(options, analyzer);
-
-        memoryCollector.takeSnapshot("before evaluation");
-        long analysisStartTime = System.currentTimeMillis();
-        Stream<Collection<String>> validConfigs = targetConfigurations.filter(analyzer::isValidConfiguration);
-        IReliabilityAnalysisResults familyReliability = evaluateReliability(analyzer,
-                                                                            rdgRoot,
-                                                                            validConfigs,
-                                                                            options);
-        long totalAnalysisTime = System.currentTimeMillis() - analysisStartTime;
-        memoryCollector.takeSnapshot("after evaluation");
-
-        if (!options.hasSuppressReport()) {
-            Map<Boolean, List<Collection<String>>> splitConfigs = getTargetConfigurations(options, analyzer)
-                    .collect(Collectors.partitioningBy(analyzer::isValidConfiguration));
-            printAnalysisResults(splitConfigs, familyReliability);
-        }
+        // The model cache must be closed so that its index is flushed and unlocked.
+        try {
+            Analyzer analyzer = makeAnalyzer(options);
+            Stream<Configuration> targetConfigurations = getTargetConfigurations(options, analyzer);
+
+            memoryCollector.takeSnapshot("before evaluation");
+            long analysisStartTime = System.currentTimeMillis();
+            Stream<Configuration> validConfigs = targetConfigurations.filter(analyzer::isValidConfiguration);
+            IReliabilityAnalysisResults familyReliability = evaluateReliability(analyzer,
+                                                                                rdgRoot,
+                                                                                validConfigs,
+                                                                                options);
+            long totalAnalysisTime = System.currentTimeMillis() - analysisStartTime;
+            memoryCollector.takeSnapshot("after evaluation");
+
+            if (!options.hasSuppressReport()) {
+                Map<Boolean, List<Configuration>> splitConfigs = getTargetConfigurations(options, analyzer)
+                        .collect(Collectors.partitioningBy(analyzer::isValidConfiguration));
+                printAnalysisResults(OUTPUT, splitConfigs, familyReliability);
+            }
+
+            if (options.getSavedVariableOrderPath() != null) {
+                saveVariableOrder(analyzer, options.getSavedVariableOrderPath());
+            }
+
+            if (options.getStoredResultsPath() != null) {
+                storeResults(familyReliability, options.getStoredResultsPath());
+            }
 
-        if (options.hasStatsEnabled()) {
-            printStats(OUTPUT, familyReliability, rdgRoot);
+            if (options.getReliabilityThreshold() != null || options.getTopConfigurations() != null) {
+                printQueries(familyReliability, options);
+            }
+
+            if (options.hasStatsEnabled()) {
+                printStats(OUTPUT, familyReliability, rdgRoot);
+            }
+            long totalRunningTime = System.currentTimeMillis() - startTime;
+            OUTPUT.println("Total analysis time: " +  totalAnalysisTime + " ms");
+            OUTPUT.println("Total running time: " +  totalRunningTime + " ms");
+        } finally {
+            if (modelCheckerPool != null) {
+                modelCheckerPool.close();
+            }
+            if (modelCache != null) {
+                modelCache.close();
+            }
         }
-        long totalRunningTime = System.currentTimeMillis() - startTime;
-        OUTPUT.println("Total analysis time: " +  totalAnalysisTime + " ms");
-        OUTPUT.println("Total running time: " +  totalRunningTime + " ms");
     }
 
     /**
@@ -126,7 +157,7 @@ public class CommandLineInterface {
      * @param options
      * @return
      */
-    private static IReliabilityAnalysisResults evaluateReliability(Analyzer analyzer, RDGNode rdgRoot, Stream<Collection<String>> validConfigs, Options options) {
+    private static IReliabilityAnalysisResults evaluateReliability(Analyzer analyzer, RDGNode rdgRoot, Stream<Configuration> validConfigs, Options options) {
         IReliabilityAnalysisResults results = null;
         switch (options.getAnalysisStrategy()) {
         case FEATURE_PRODUCT:
@@ -173,9 +204,9 @@ public class CommandLineInterface {
         return results;
     }
 
-    private static IReliabilityAnalysisResults evaluateReliability(BiFunction<RDGNode, Stream<Collection<String>>, IReliabilityAnalysisResults> analyzer,
+    private static IReliabilityAnalysisResults evaluateReliability(BiFunction<RDGNode, Stream<Configuration>, IReliabilityAnalysisResults> analyzer,
                                                                    RDGNode rdgRoot,
-                                                                   Stream<Collection<String>> validConfigs) {
+                                                                   Stream<Configuration> validConfigs) {
         IReliabilityAnalysisResults results = null;
         try {
             results = analyzer.apply(rdgRoot, validConfigs);
@@ -198,16 +229,63 @@ public class CommandLineInterface {
         File featureModelFile = new File(options.getFeatureModelFilePath());
         String featureModel = readFeatureModel(featureModelFile);
 
-        String paramPath = options.getParamPath();
-        Analyzer analyzer = new Analyzer(featureModel,
-                                         paramPath,
+        ParametricModelChecker modelChecker = ModelCheckerFactory.createModelChecker(options.getModelCheckingStrategy(),
+                                                                                     options.getParamPath(),
+                                                                                     modelCollector,
+                                                                                     options.getEliminationOrder());
+        if (options.getModelCachePath() != null) {
+            try {
+                modelCache = new CachingModelChecker(modelChecker,
+                                                     Paths.get(options.getModelCachePath()),
+                                                     options.getModelCacheMaxEntries(),
+                                                     options.getModelCacheMaxMegabytes() * 1024 * 1024);
+                modelChecker = modelCache;
+            } catch (IOException e) {
+                LOGGER.warning("Could not open the model cache. Proceeding without it.");
+                LOGGER.log(Level.WARNING, e.toString(), e);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Invalid model cache bounds (" + e.getMessage() + "). Proceeding without the model cache.");
+            }
+        }
+        modelCheckerPool = new ModelCheckerPool(modelChecker,
+                                                options.getModelCheckerWorkers(),
+                                                options.getModelCheckerQueueSize(),
+                                                options.getModelCheckerTimeout() * 1000);
+        Analyzer analyzer = new Analyzer(new JADD(options.getAddBackend(), options.getAddSettings()),
+                                         featureModel,
+                                         modelCheckerPool,
                                          timeCollector,
                                          formulaCollector,
-                                         modelCollector);
+                                         makeVariableOrder(options, featureModel));
         analyzer.setConcurrencyStrategy(options.getConcurrencyStrategy());
         return analyzer;
     }
 
+    /**
+     * @return the static variable order, either loaded from a file or
+     *      computed from the feature model, or {@code null} for sifting.
+     */
+    private static List<String> makeVariableOrder(Options options, String featureModel) {
+        if (options.getLoadedVariableOrderPath() != null) {
+            try {
+                return VariableOrdering.read(Paths.get(options.getLoadedVariableOrderPath()));
+            } catch (IOException e) {
+                LOGGER.warning("Could not load the variable order. Proceeding with --variable-ordering.");
+                LOGGER.log(Level.WARNING, e.toString(), e);
+            }
+        }
+        return VariableOrdering.createVariableOrder(options.getVariableOrderingStrategy(), featureModel);
+    }
+
+    private static void saveVariableOrder(Analyzer analyzer, String fileName) {
+        try {
+            VariableOrdering.write(analyzer.getVariableOrder(), Paths.get(fileName));
+            OUTPUT.println("Variable order saved at " + fileName);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not save the variable order at " + fileName, e);
+        }
+    }
+
     /**
      * @param options
      */
@@ -219,11 +297,11 @@ public class CommandLineInterface {
         modelCollector = statsCollectorFactory.createModelCollector();
     }
 
-    private static Stream<Collection<String>> getTargetConfigurations(Options options, Analyzer analyzer) {
+    private static Stream<Configuration> getTargetConfigurations(Options options, Analyzer analyzer) {
         if (options.hasPrintAllConfigurations()) {
             return analyzer.getValidConfigurations();
         } else {
-            Set<Collection<String>> configurations = new HashSet<Collection<String>>();
+            Set<Configuration> configurations = new HashSet<Configuration>();
 
             List<String> rawConfigurations = new LinkedList<String>();
             if (options.getConfiguration() != null) {
@@ -240,45 +318,92 @@ public class CommandLineInterface {
 
             for (String rawConfiguration: rawConfigurations) {
                 String[] variables = rawConfiguration.split(",");
-                configurations.add(Arrays.asList(variables));
+                configurations.add(analyzer.toConfiguration(Arrays.asList(variables)));
             }
 
             return configurations.stream();
         }
     }
 
-    private static void printAnalysisResults(Map<Boolean, List<Collection<String>>> splitConfigs, IReliabilityAnalysisResults familyReliability) {
-        OUTPUT.println("Configurations:");
-        OUTPUT.println("=========================================");
+    /**
+     * Prints the reliability of each configuration, in which products whose
+     * analysis failed are reported as FAILED and invalid ones as INVALID.
+     */
+    static void printAnalysisResults(PrintStream output, Map<Boolean, List<Configuration>> splitConfigs, IReliabilityAnalysisResults familyReliability) {
+        output.println("Configurations:");
+        output.println("=========================================");
 
-        List<Collection<String>> validConfigs = splitConfigs.get(true);
+        List<Configuration> validConfigs = splitConfigs.get(true);
         // Ordered report
         validConfigs.sort((c1, c2) -> c1.toString().compareTo(c2.toString()));
-        for (Collection<String> validConfig: validConfigs) {
-            try {
-                String[] configurationAsArray = validConfig.toArray(new String[validConfig.size()]);
-                printSingleConfiguration(validConfig.toString(),
-                                         familyReliability.getResult(configurationAsArray));
-            } catch (UnknownFeatureException e) {
-                LOGGER.severe("Unrecognized feature: " + e.getFeatureName());
-                LOGGER.log(Level.SEVERE, e.toString(), e);
+        try {
+            Double[] reliabilities = familyReliability.getResults(validConfigs);
+            int i = 0;
+            for (Configuration validConfig: validConfigs) {
+                printSingleConfiguration(output, validConfig.toString(), reliabilities[i++]);
             }
+        } catch (UnknownFeatureException e) {
+            LOGGER.severe("Unrecognized feature: " + e.getFeatureName());
+            LOGGER.log(Level.SEVERE, e.toString(), e);
         }
 
-        for (Collection<String> invalidConfig: splitConfigs.get(false)) {
-            printSingleConfiguration(invalidConfig.toString(), 0);
+        for (Configuration invalidConfig: splitConfigs.get(false)) {
+            printSingleConfiguration(output, invalidConfig.toString(), 0.0);
         }
 
+        output.println("=========================================");
+        output.println(">>>> Total valid configurations: " + splitConfigs.get(true).size());
+    }
+
+    private static void storeResults(IReliabilityAnalysisResults familyReliability, String fileName) {
+        if (!(familyReliability instanceof ADDReliabilityResults)) {
+            LOGGER.warning("Results can only be stored for the FEATURE_FAMILY and FAMILY strategies.");
+            return;
+        }
+        try {
+            ((ADDReliabilityResults) familyReliability).store(Paths.get(fileName));
+            OUTPUT.println("Family-wide reliability function stored at " + fileName);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not store results at " + fileName, e);
+        }
+    }
+
+    /**
+     * Answers queries over the reliabilities of all valid configurations,
+     * which is only possible without enumerating them if results are
+     * decision diagrams.
+     */
+    private static void printQueries(IReliabilityAnalysisResults familyReliability, Options options) {
+        if (!(familyReliability instanceof ADDReliabilityResults)) {
+            LOGGER.warning("Reliability queries are only available for the FEATURE_FAMILY and FAMILY strategies.");
+            return;
+        }
+        ADDReliabilityResults results = (ADDReliabilityResults) familyReliability;
+        OUTPUT.println("Queries:");
+        OUTPUT.println("=========================================");
+        OUTPUT.println("Minimum reliability: " + results.getMinimumReliability());
+        OUTPUT.println("Maximum reliability: " + results.getMaximumReliability());
+        if (options.getReliabilityThreshold() != null) {
+            double threshold = options.getReliabilityThreshold();
+            OUTPUT.println("# valid configurations below " + threshold + ": "
+                    + String.format("%.0f", results.countConfigurationsBelow(threshold)));
+        }
+        if (options.getTopConfigurations() != null) {
+            OUTPUT.println("Most reliable configurations:");
+            results.getMostReliable(options.getTopConfigurations())
+                    .forEach((configuration, reliability) -> printSingleConfiguration(OUTPUT, configuration.toString(), reliability));
+        }
         OUTPUT.println("=========================================");
-        OUTPUT.println(">>>> Total valid configurations: " + splitConfigs.get(true).size());
     }
 
-    private static void printSingleConfiguration(String configuration, double reliability) {
+    private static void printSingleConfiguration(PrintStream output, String configuration, Double reliability) {
         String message = configuration + " --> ";
-        if (Double.doubleToRawLongBits(reliability) != 0) {
-            OUTPUT.println(message + reliability);
+        if (reliability == null) {
+            output.println(message + "FAILED");
+        } else if (Double.doubleToRawLongBits(reliability) != 0) {
+            output.println(message + reliability);
         } else {
-            OUTPUT.println(message + "INVALID");
+            output.println(message + "INVALID");
         }
     }
 
@@ -289,6 +414,10 @@ public class CommandLineInterface {
         timeCollector.printStats(out);
         formulaCollector.printStats(out);
         modelCollector.printStats(out);
+        if (modelCache != null) {
+            out.println("Model cache hits: " + modelCache.getHits());
+            out.println("Model cache misses: " + modelCache.getMisses());
+        }
         memoryCollector.printStats(out);
         printEvaluationReuse(rdgRoot);
         familyReliability.printStats(out);
@@ -2,10 +2,16 @@ package ui;
 
 import java.io.IOException;
 
+import jadd.BackendType;
+import jadd.ManagerSettings;
+import jadd.ReorderingMethod;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
+import paramwrapper.EliminationOrder;
+import tool.ModelCheckingStrategy;
 import tool.PruningStrategy;
+import tool.VariableOrderingStrategy;
 import tool.analyzers.AnalysisStrategy;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 
@@ -19,13 +25,29 @@ class Options {
     private String featureModelFilePath;
     private String umlModelsFilePath;
     private String paramPath;
+    private ModelCheckingStrategy modelCheckingStrategy;
+    private EliminationOrder eliminationOrder;
+    private int modelCheckerWorkers;
+    private int modelCheckerQueueSize;
+    private long modelCheckerTimeout;
+    private String modelCachePath;
+    private int modelCacheMaxEntries;
+    private long modelCacheMaxMegabytes;
     private String configuration;
     private String configurationsFilePath;
     private boolean printAllConfigurations;
     private boolean suppressReport;
     private boolean statsEnabled;
+    private Double reliabilityThreshold;
+    private Integer topConfigurations;
+    private String storedResultsPath;
     private ConcurrencyStrategy concurrencyStrategy;
+    private BackendType addBackend;
+    private ManagerSettings addSettings;
     private PruningStrategy pruningStrategy;
+    private VariableOrderingStrategy variableOrderingStrategy;
+    private String loadedVariableOrderPath;
+    private String savedVariableOrderPath;
     private AnalysisStrategy analysisStrategy;
 
     static Options parseOptions(String[] args) throws IOException {
@@ -46,6 +68,60 @@ class Options {
                 .withRequiredArg()
                 .defaultsTo("/opt/param-2-3-64")
                 .describedAs("Directory");
+        OptionSpec<ModelCheckingStrategy> modelCheckingStrategyOption = optionParser
+                .accepts("model-checker",
+                         "The parametric model checker to be used. Can be one of: "
+                                 + "STATE_ELIMINATION (built-in state elimination); "
+                                 + "PARAM (external tool found at --param-path)")
+                .withRequiredArg()
+                .ofType(ModelCheckingStrategy.class)
+                .defaultsTo(ModelCheckingStrategy.STATE_ELIMINATION)
+                .describedAs("STATE_ELIMINATION | PARAM");
+        OptionSpec<EliminationOrder> eliminationOrderOption = optionParser
+                .accepts("elimination-order",
+                         "The heuristic for ordering state eliminations within cycles (STATE_ELIMINATION only). Can be one of: "
+                                 + "MIN_FILL (fewest new transitions); "
+                                 + "MIN_DEGREE (fewest neighbors); "
+                                 + "REVERSE_TOPOLOGICAL (last discovered first)")
+                .withRequiredArg()
+                .ofType(EliminationOrder.class)
+                .defaultsTo(EliminationOrder.MIN_FILL)
+                .describedAs("MIN_FILL | MIN_DEGREE | REVERSE_TOPOLOGICAL");
+        OptionSpec<Integer> modelCheckerWorkersOption = optionParser
+                .accepts("model-checker-workers",
+                         "Number of model checker workers which serve requests concurrently")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(Runtime.getRuntime().availableProcessors());
+        OptionSpec<Integer> modelCheckerQueueSizeOption = optionParser
+                .accepts("model-checker-queue-size",
+                         "Maximum number of model checking requests waiting for a worker")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(1024);
+        OptionSpec<Long> modelCheckerTimeoutOption = optionParser
+                .accepts("model-checker-timeout",
+                         "Maximum time (in seconds) for model checking a single FDTMC (0 for no limit)")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(0L);
+        OptionSpec<String> modelCacheOption = optionParser
+                .accepts("model-cache",
+                         "Directory where reliability expressions are cached across runs (no caching if absent)")
+                .withRequiredArg()
+                .describedAs("Directory");
+        OptionSpec<Integer> modelCacheMaxEntriesOption = optionParser
+                .accepts("model-cache-max-entries",
+                         "Maximum number of cached reliability expressions")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(100000);
+        OptionSpec<Long> modelCacheMaxMegabytesOption = optionParser
+                .accepts("model-cache-max-size",
+                         "Maximum total size (in megabytes) of cached reliability expressions")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(256L);
 
         OptionSpec<String> configurationsFileOption = optionParser
                 .accepts("configurations-file")
@@ -64,6 +140,23 @@ class Options {
         OptionSpec<Void> statsEnabledOption = optionParser
                 .accepts("stats",
                          "Print profiling stats");
+        OptionSpec<Double> reliabilityThresholdOption = optionParser
+                .accepts("reliability-threshold",
+                         "Print how many valid configurations have a reliability below this value (FEATURE_FAMILY and FAMILY only)")
+                .withRequiredArg()
+                .ofType(Double.class)
+                .describedAs("Reliability");
+        OptionSpec<Integer> topConfigurationsOption = optionParser
+                .accepts("top-configurations",
+                         "Print this many of the most reliable configurations (FEATURE_FAMILY and FAMILY only)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .describedAs("Number");
+        OptionSpec<String> storedResultsOption = optionParser
+                .accepts("store-results",
+                         "Store the family-wide reliability function in binary form (FEATURE_FAMILY and FAMILY only)")
+                .withRequiredArg()
+                .describedAs("File");
 
         OptionSpec<ConcurrencyStrategy> concurrencyStrategyOption = optionParser
                 .accepts("concurrency-strategy",
@@ -72,6 +165,62 @@ class Options {
                         .ofType(ConcurrencyStrategy.class)
                         .defaultsTo(ConcurrencyStrategy.PARALLEL)
                         .describedAs("PARALLEL | SEQUENTIAL");
+        OptionSpec<BackendType> addBackendOption = optionParser
+                .accepts("add-backend",
+                         "The decision diagram package used for ADDs. Can be one of: "
+                                 + "CUDD (native library); "
+                                 + "JAVA (pure Java, concurrent).")
+                .withRequiredArg()
+                .ofType(BackendType.class)
+                .defaultsTo(BackendType.CUDD)
+                .describedAs("CUDD | JAVA");
+        OptionSpec<ReorderingMethod> reorderingMethodOption = optionParser
+                .accepts("reordering-method",
+                         "Heuristic for reordering ADD variables (the JAVA backend always sifts)")
+                .withRequiredArg()
+                .ofType(ReorderingMethod.class)
+                .defaultsTo(ReorderingMethod.SYMM_SIFT)
+                .describedAs("SIFT | SIFT_CONVERGE | SYMM_SIFT | SYMM_SIFT_CONVERGE | GROUP_SIFT | WINDOW3 | LAZY_SIFT");
+        OptionSpec<Void> autoReorderingOption = optionParser
+                .accepts("auto-reordering",
+                         "Reorder ADD variables whenever the number of nodes doubles");
+        OptionSpec<Integer> firstReorderingOption = optionParser
+                .accepts("first-reordering-threshold",
+                         "Number of nodes which triggers the first automatic reordering (0 for the backend default)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0)
+                .describedAs("Nodes");
+        OptionSpec<Double> maxGrowthOption = optionParser
+                .accepts("reordering-max-growth",
+                         "How much diagrams may grow while sifting a variable, e.g., 1.2 (0 for the backend default)")
+                .withRequiredArg()
+                .ofType(Double.class)
+                .defaultsTo(0.0);
+        OptionSpec<Integer> cacheSlotsOption = optionParser
+                .accepts("add-cache-slots",
+                         "Initial number of ADD computed table entries (0 for the backend default)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0);
+        OptionSpec<Integer> maxCacheSlotsOption = optionParser
+                .accepts("add-max-cache-slots",
+                         "Maximum number of ADD computed table entries (0 for the backend default)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0);
+        OptionSpec<Long> maxMemoryOption = optionParser
+                .accepts("add-max-memory",
+                         "Maximum memory (in megabytes) taken by ADDs (0 for no limit)")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(0L);
+        OptionSpec<Integer> maxLiveNodesOption = optionParser
+                .accepts("add-max-live-nodes",
+                         "Maximum number of ADD nodes (0 for no limit)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0);
         OptionSpec<PruningStrategy> pruningStrategyOption = optionParser
                 .accepts("pruning-strategy",
                          "The strategy that should be used for pruning invalid configurations. Can be one of: FM (whole feature model); NONE (no pruning)")
@@ -79,6 +228,25 @@ class Options {
                 .ofType(PruningStrategy.class)
                 .defaultsTo(PruningStrategy.FM)
                 .describedAs("FM | NONE");
+        OptionSpec<VariableOrderingStrategy> variableOrderingOption = optionParser
+                .accepts("variable-ordering",
+                         "How ADD variables are ordered. Can be one of: "
+                                 + "SIFT (sifting after encoding the feature model); "
+                                 + "FORCE (static order computed from the feature model clauses)")
+                .withRequiredArg()
+                .ofType(VariableOrderingStrategy.class)
+                .defaultsTo(VariableOrderingStrategy.SIFT)
+                .describedAs("SIFT | FORCE");
+        OptionSpec<String> loadVariableOrderOption = optionParser
+                .accepts("load-variable-order",
+                         "Use the static variable order in this file (one variable per line) instead of --variable-ordering")
+                .withRequiredArg()
+                .describedAs("File");
+        OptionSpec<String> saveVariableOrderOption = optionParser
+                .accepts("save-variable-order",
+                         "Save the final variable order to this file, so that it can be loaded in later runs")
+                .withRequiredArg()
+                .describedAs("File");
 
         OptionSpec<AnalysisStrategy> analysisStrategyOption = optionParser
                 .accepts("analysis-strategy",
@@ -107,13 +275,37 @@ class Options {
         result.featureModelFilePath = options.valueOf(featureModelOption);
         result.umlModelsFilePath = options.valueOf(umlModelsOption);
         result.paramPath = options.valueOf(paramPathOption);
+        result.modelCheckingStrategy = options.valueOf(modelCheckingStrategyOption);
+        result.eliminationOrder = options.valueOf(eliminationOrderOption);
+        result.modelCheckerWorkers = options.valueOf(modelCheckerWorkersOption);
+        result.modelCheckerQueueSize = options.valueOf(modelCheckerQueueSizeOption);
+        result.modelCheckerTimeout = options.valueOf(modelCheckerTimeoutOption);
+        result.modelCachePath = options.valueOf(modelCacheOption);
+        result.modelCacheMaxEntries = options.valueOf(modelCacheMaxEntriesOption);
+        result.modelCacheMaxMegabytes = options.valueOf(modelCacheMaxMegabytesOption);
         result.configuration = options.valueOf(configurationOption);
         result.configurationsFilePath = options.valueOf(configurationsFileOption);
         result.printAllConfigurations = options.has(allConfigurationsOption);
         result.suppressReport = options.has(suppressReportOption);
         result.statsEnabled = options.has(statsEnabledOption);
+        result.reliabilityThreshold = options.valueOf(reliabilityThresholdOption);
+        result.topConfigurations = options.valueOf(topConfigurationsOption);
+        result.storedResultsPath = options.valueOf(storedResultsOption);
         result.concurrencyStrategy = options.valueOf(concurrencyStrategyOption);
+        result.addBackend = options.valueOf(addBackendOption);
         result.pruningStrategy = options.valueOf(pruningStrategyOption);
+        result.addSettings = new ManagerSettings()
+                .setReorderingMethod(options.valueOf(reorderingMethodOption))
+                .setAutoReordering(options.has(autoReorderingOption))
+                .setFirstReorderingThreshold(options.valueOf(firstReorderingOption))
+                .setMaxGrowth(options.valueOf(maxGrowthOption))
+                .setCacheSlots(options.valueOf(cacheSlotsOption))
+                .setMaxCacheSlots(options.valueOf(maxCacheSlotsOption))
+                .setMaxMemory(options.valueOf(maxMemoryOption) * 1024 * 1024)
+                .setMaxLiveNodes(options.valueOf(maxLiveNodesOption));
+        result.variableOrderingStrategy = options.valueOf(variableOrderingOption);
+        result.loadedVariableOrderPath = options.valueOf(loadVariableOrderOption);
+        result.savedVariableOrderPath = options.valueOf(saveVariableOrderOption);
         result.analysisStrategy = options.valueOf(analysisStrategyOption);
 
         return result;
@@ -131,10 +323,68 @@ class Options {
         return paramPath;
     }
 
+    public ModelCheckingStrategy getModelCheckingStrategy() {
+        return modelCheckingStrategy;
+    }
+
+    public EliminationOrder getEliminationOrder() {
+        return eliminationOrder;
+    }
+
+    public int getModelCheckerWorkers() {
+        return modelCheckerWorkers;
+    }
+
+    public int getModelCheckerQueueSize() {
+        return modelCheckerQueueSize;
+    }
+
+    /**
+     * @return the model checking timeout, in seconds (0 for no limit).
+     */
+    public long getModelCheckerTimeout() {
+        return modelCheckerTimeout;
+    }
+
+    public String getModelCachePath() {
+        return modelCachePath;
+    }
+
+    public int getModelCacheMaxEntries() {
+        return modelCacheMaxEntries;
+    }
+
+    public long getModelCacheMaxMegabytes() {
+        return modelCacheMaxMegabytes;
+    }
+
     public boolean hasStatsEnabled() {
         return statsEnabled;
     }
 
+    /**
+     * @return the threshold to be queried or {@code null} if none was given.
+     */
+    public Double getReliabilityThreshold() {
+        return reliabilityThreshold;
+    }
+
+    /**
+     * @return the number of most reliable configurations to be printed
+     *      or {@code null} if none was asked for.
+     */
+    public Integer getTopConfigurations() {
+        return topConfigurations;
+    }
+
+    /**
+     * @return the file in which to store the results or {@code null}
+     *      if they are not to be stored.
+     */
+    public String getStoredResultsPath() {
+        return storedResultsPath;
+    }
+
     public boolean hasPrintAllConfigurations() {
         return printAllConfigurations;
     }
@@ -155,10 +405,39 @@ class Options {
         return concurrencyStrategy;
     }
 
+    public BackendType getAddBackend() {
+        return addBackend;
+    }
+
+    /**
+     * @return the reordering policy, cache sizes and limits of the ADD manager.
+     */
+    public ManagerSettings getAddSettings() {
+        return addSettings;
+    }
+
     public PruningStrategy getPruningStrategy() {
         return pruningStrategy;
     }
 
+    public VariableOrderingStrategy getVariableOrderingStrategy() {
+        return variableOrderingStrategy;
+    }
+
+    /**
+     * @return the file with a variable order to be loaded or {@code null} if none was given.
+     */
+    public String getLoadedVariableOrderPath() {
+        return loadedVariableOrderPath;
+    }
+
+    /**
+     * @return the file in which to save the variable order or {@code null} if it is not to be saved.
+     */
+    public String getSavedVariableOrderPath() {
+        return savedVariableOrderPath;
+    }
+
     public AnalysisStrategy getAnalysisStrategy() {
         return analysisStrategy;
     }
@@ -6,15 +6,22 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import paramwrapper.RationalFunction;
 import tool.RDGNode;
 import tool.stats.IFormulaCollector;
 
 public class FormulaCollector implements IFormulaCollector {
 
-    private Map<RDGNode, String> formulae = new HashMap<RDGNode, String>();
+    /**
+     * Formulae are only formatted if they are small enough to be printed,
+     * so sizes are measured in terms (of numerators and denominators).
+     */
+    private static final int MAX_PRINTED_TERMS = 20;
+
+    private Map<RDGNode, RationalFunction> formulae = new HashMap<RDGNode, RationalFunction>();
 
     @Override
-    public synchronized void collectFormula(RDGNode node, String formula) {
+    public synchronized void collectFormula(RDGNode node, RationalFunction formula) {
         formulae.put(node, formula);
     }
 
@@ -26,19 +33,19 @@ public class FormulaCollector implements IFormulaCollector {
         long sizesSum = 0;
         List<Integer> allFormulaeSizes = new LinkedList<Integer>();
 
-        out.println("Formulae stats:");
-        for (Map.Entry<RDGNode, String> entry: formulae.entrySet()) {
+        out.println("Formulae stats (sizes in terms):");
+        for (Map.Entry<RDGNode, RationalFunction> entry: formulae.entrySet()) {
             RDGNode node = entry.getKey();
             int numChildren = node.getDependencies().size();
             int height = node.getHeight();
-            String formula = entry.getValue();
-            int formulaSize = formula.length();
-            String formattedFormula = formulaSize < 1000 ?
+            RationalFunction formula = entry.getValue();
+            int formulaSize = (formula != null) ? formula.getNumberOfTerms() : 0;
+            String formattedFormula = formulaSize <= MAX_PRINTED_TERMS ?
                     "| " + formula
                     : "";
             out.println("    " + node + ": "
                         + numChildren + " children | height " + height + " | "
-                        + formulaSize + " bytes " + formattedFormula);
+                        + formulaSize + " terms " + formattedFormula);
 
             count++;
             minSize = Math.min(minSize, formulaSize);
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
+import paramwrapper.EliminationOrder;
 import paramwrapper.IModelCollector;
 
 public class ModelCollector implements IModelCollector {
@@ -15,6 +16,7 @@ public class ModelCollector implements IModelCollector {
 
     private List<Model> models = Collections.synchronizedList(new LinkedList<Model>());
     private List<Double> times = Collections.synchronizedList(new LinkedList<Double>());
+    private List<String> eliminationOrders = Collections.synchronizedList(new LinkedList<String>());
 
     @Override
     public void collectModel(int variables, int states) {
@@ -29,6 +31,11 @@ public class ModelCollector implements IModelCollector {
         times.add(elapsedTimeNanos/1E+6);
     }
 
+    @Override
+    public void collectEliminationOrder(EliminationOrder heuristic, List<Integer> order) {
+        eliminationOrders.add(heuristic + " " + order);
+    }
+
     @Override
     public void printStats(PrintStream out) {
         int maxVars = 0;
@@ -65,6 +72,14 @@ public class ModelCollector implements IModelCollector {
         synchronized (times) {
             out.println("All model checking times (ms): " + times);
         }
+        synchronized (eliminationOrders) {
+            if (!eliminationOrders.isEmpty()) {
+                out.println("Elimination orders:");
+                for (String order: eliminationOrders) {
+                    out.println("    " + order);
+                }
+            }
+        }
     }
 
 }
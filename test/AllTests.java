@@ -1,26 +1,72 @@
 
+import jadd.ADDBatchEvaluationTest;
 import jadd.ADDConfigurationsTest;
+import jadd.ADDScopeTest;
+import jadd.ConfigurationEnumerationTest;
+import jadd.ConfigurationTest;
+import jadd.JADDConcurrencyTest;
+import jadd.JavaBackendTest;
+import jadd.ManagerSettingsTest;
+import jadd.StoredADDTest;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import paramwrapper.CachingModelCheckerTest;
 import paramwrapper.FDTMCToParamTest;
+import paramwrapper.ModelCheckerPoolTest;
+import paramwrapper.NumericReachabilitySolverTest;
+import paramwrapper.ParamWrapperTest;
+import paramwrapper.RationalFunctionTest;
 import paramwrapper.ReliabilityFormulaTest;
+import paramwrapper.StateEliminationModelCheckerTest;
 import tool.AnalyzerTest;
 import tool.RDGNodeTest;
+import tool.VariableOrderingTest;
+import tool.analyzers.ADDReliabilityResultsTest;
+import tool.analyzers.buildingblocks.PresenceConditionCacheTest;
+import tool.analyzers.buildingblocks.ProductIterationHelperTest;
 import expressionsolver.ExpressionSolverTest;
+import expressionsolver.FormulaParserTest;
+import fdtmc.CompiledFDTMCTest;
 import fdtmc.FDTMCTest;
+import fdtmc.InlinedFDTMCTest;
+import fdtmc.MinimizationTest;
+import ui.CommandLineInterfaceTest;
 
 @RunWith(Suite.class)
 @SuiteClasses({
     FDTMCTest.class,
+    CompiledFDTMCTest.class,
+    InlinedFDTMCTest.class,
+    MinimizationTest.class,
     FDTMCToParamTest.class,
+    RationalFunctionTest.class,
     ReliabilityFormulaTest.class,
+    StateEliminationModelCheckerTest.class,
+    NumericReachabilitySolverTest.class,
+    CachingModelCheckerTest.class,
+    ModelCheckerPoolTest.class,
+    ParamWrapperTest.class,
     ExpressionSolverTest.class,
+    FormulaParserTest.class,
     AnalyzerTest.class,
     RDGNodeTest.class,
-    ADDConfigurationsTest.class
+    VariableOrderingTest.class,
+    ADDReliabilityResultsTest.class,
+    PresenceConditionCacheTest.class,
+    ProductIterationHelperTest.class,
+    CommandLineInterfaceTest.class,
+    ADDConfigurationsTest.class,
+    ADDBatchEvaluationTest.class,
+    ADDScopeTest.class,
+    ConfigurationEnumerationTest.class,
+    ConfigurationTest.class,
+    JADDConcurrencyTest.class,
+    JavaBackendTest.class,
+    ManagerSettingsTest.class,
+    StoredADDTest.class
 })
 public class AllTests {
 
@@ -13,6 +13,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import expressionsolver.ExpressionSolver;
+import paramwrapper.RationalFunction;
 
 public class ExpressionSolverTest {
     private JADD jadd;
@@ -55,6 +56,45 @@ public class ExpressionSolverTest {
                      "out.dot");
     }
 
+    @Test
+    public void testLiftedFunction() {
+        ADD presenceCondition = solver.encodeFormula("sqlite && !memory");
+
+        HashMap<String, ADD> interpretations = new HashMap<String, ADD>();
+        interpretations.put("rSqlite",
+                            presenceCondition.ifThenElse(jadd.makeConstant(0.5),
+                                                         1));
+        interpretations.put("rMemory",
+                            jadd.makeConstant(0.2));
+
+        RationalFunction function = RationalFunction.parse("0.99*rSqlite - 0.5*rMemory");
+        ADD result = solver.liftFunction(function).solve(interpretations);
+
+        assertEquals("Lifting a function must be equivalent to parsing it",
+                solver.solveExpressionAsFunction("0.99*rSqlite - 0.5*rMemory", interpretations),
+                result);
+    }
+
+    @Test
+    public void testLiftedFunctionWithSharedSubterms() {
+        HashMap<String, ADD> interpretations = new HashMap<String, ADD>();
+        interpretations.put("a", solver.encodeFormula("A").ifThenElse(jadd.makeConstant(0.9), 1));
+        interpretations.put("b", solver.encodeFormula("A && B").ifThenElse(jadd.makeConstant(0.8), 1));
+        interpretations.put("c", jadd.makeConstant(0.7));
+
+        RationalFunction function = RationalFunction.parse("(a^5*b + a^5*c + 2*a^4*b*c)/(1 + a^2*b^3)");
+        ADD result = solver.liftFunction(function).solve(interpretations);
+
+        assertEquals("Lifting must not change the result of evaluating term by term",
+                function.evaluate(interpretations, new ADDArithmetic(jadd)),
+                result);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLiftedFunctionWithoutInterpretation() {
+        solver.liftFunction(RationalFunction.parse("1 - r")).solve(new HashMap<String, ADD>());
+    }
+
     @Test
     public void testSum() {
         ADD result = solver.solveExpressionAsFunction("0.42 + 0.53");
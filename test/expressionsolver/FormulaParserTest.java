@@ -0,0 +1,228 @@
+package expressionsolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import paramwrapper.RationalFunction;
+
+public class FormulaParserTest {
+
+    @Test
+    public void testPrecedenceAndAssociativity() {
+        assertEquals(7.0, evaluate("1 + 2 * 3"), 0);
+        assertEquals(-1.0, evaluate("1 - 4 / 2 / 1"), 0);
+        assertEquals(-4.0, evaluate("-2^2"), 0);
+        assertEquals(512.0, evaluate("2^3^2"), 0);
+        assertEquals(0.5, evaluate("2^-1"), 0);
+        assertEquals(9.0, evaluate("(1 + 2)^2"), 0);
+        assertEquals(1E-4, evaluate("1.0E-4"), 0);
+        assertEquals(0.25, evaluate(".5*.5"), 0);
+    }
+
+    @Test
+    public void testLogicalOperators() {
+        assertEquals(1.0, evaluate("1 || 1 && 0"), 0);
+        assertEquals(0.0, evaluate("(1 || 1) && 0"), 0);
+        assertEquals(1.0, evaluate("!0 && !!2"), 0);
+        assertEquals(1.0, evaluate("1 + 1 && 0 + 1"), 0);
+    }
+
+    @Test
+    public void testVariables() {
+        Formula formula = FormulaParser.parse("(r_1 - r2)*r_1 + Gi_3");
+        assertEquals(Arrays.asList("r_1", "r2", "Gi_3"), formula.getVariables());
+
+        Map<String, Double> values = new HashMap<String, Double>();
+        values.put("r_1", 0.5);
+        values.put("r2", 0.25);
+        values.put("Gi_3", 1.0);
+        assertEquals(1.125, formula.evaluate(DoubleAlgebra.INSTANCE, values::get), 0);
+    }
+
+    @Test
+    public void testEqualSubformulasAreShared() {
+        Formula formula = FormulaParser.parse("(a*b + 1) / (a * b + 1) - (a*b + 1)");
+        // a, b, 1, a*b, a*b + 1, the quotient and the difference.
+        assertEquals(7, formula.size());
+    }
+
+    @Test
+    public void testCommutedSubformulasAreShared() {
+        Formula formula = FormulaParser.parse("a*b + b*a + (c || d) * (d || c)");
+        // a, b, a*b, the doubled product, c, d, c || d, its square and the sum.
+        assertEquals(9, formula.size());
+    }
+
+    @Test
+    public void testRationalFunctionsShareSubterms() {
+        RationalFunction function = RationalFunction.parse("a^8*b + a^8*c + a^4*b*c");
+        Formula formula = Formula.of(function);
+        // a, a^2, a^4, a^8 and b, c, a^8*b, a^8*c, a^4*b, a^4*b*c, plus two sums.
+        assertEquals(12, formula.size());
+
+        Map<String, Double> values = new HashMap<String, Double>();
+        values.put("a", 0.9);
+        values.put("b", 0.8);
+        values.put("c", 0.7);
+        assertEquals(function.evaluate(values), formula.evaluate(DoubleAlgebra.INSTANCE, values::get), 1E-15);
+    }
+
+    @Test
+    public void testReadsAnyCharSequence() {
+        CharBuffer buffer = CharBuffer.wrap("xx0.5 * (1 - 0.5)xx".toCharArray(), 2, 15);
+        assertEquals(0.25, FormulaParser.parse(buffer).evaluate(DoubleAlgebra.INSTANCE, v -> null), 0);
+    }
+
+    @Test
+    public void testLongFormulas() {
+        StringBuilder cnf = new StringBuilder("True");
+        for (int i = 0; i < 100000; i++) {
+            cnf.append(" && (!f").append(i).append(" || f").append(i + 1).append(")");
+        }
+        Formula formula = FormulaParser.parse(cnf);
+        assertEquals(100002, formula.getVariables().size());
+        assertEquals(1.0, formula.evaluate(DoubleAlgebra.INSTANCE, v -> 1.0), 0);
+    }
+
+    @Test
+    public void testMalformedFormulas() {
+        ExpressionSolver solver = new ExpressionSolver(null);
+        for (String malformed : new String[] {"", "1 +", "(1", "1)", "a & b", "a |", "1..2", "a b", "#"}) {
+            assertNull(malformed, solver.parseExpression(malformed));
+        }
+    }
+
+    @Test
+    public void testIntermediatesAreReleasedAfterLastUse() {
+        // x^1 yields its base as is, which must outlive the power.
+        Formula formula = FormulaParser.parse("(x*y + 1)^1 * (x*y + 1) - (x*y)^2 + (x && !y)");
+        Map<String, Value> values = new HashMap<String, Value>();
+        values.put("x", new Value(0.5));
+        values.put("y", new Value(0.25));
+        TrackingAlgebra algebra = new TrackingAlgebra();
+
+        Value result = formula.evaluate(algebra, values::get);
+        assertEquals(1.125 * 1.125 - 0.125 * 0.125 + 0, result.value, 1E-15);
+        assertFalse(result.released);
+        assertFalse(values.get("x").released);
+        assertFalse(values.get("y").released);
+        // Everything else: 1, 2, x*y, x*y + 1, the product, (x*y)^2, the
+        // difference, !y, x && !y. The power aliases x*y + 1.
+        assertEquals(9, algebra.released);
+    }
+
+    @Test
+    public void testErrorsShowTheFormula() {
+        try {
+            FormulaParser.parse("a && (b ||| c)");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unexpected character at position 10 of \"a && (b ||| c)\"", e.getMessage());
+        }
+        StringBuilder longFormula = new StringBuilder("a");
+        for (int i = 0; i < 100; i++) {
+            longFormula.append(" && a").append(i);
+        }
+        longFormula.append(" #");
+        try {
+            FormulaParser.parse(longFormula);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("&& a99 #\""));
+            assertTrue(e.getMessage(), e.getMessage().length() < 200);
+        }
+    }
+
+    private static double evaluate(String formula) {
+        return FormulaParser.parse(formula).evaluate(DoubleAlgebra.INSTANCE, v -> null);
+    }
+
+    private static class Value {
+        final double value;
+        boolean released = false;
+
+        Value(double value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Floating-point semantics which checks that no released value is used.
+     */
+    private static class TrackingAlgebra implements Formula.Algebra<Value> {
+        int released = 0;
+
+        private static double valueOf(Value operand) {
+            assertFalse("Released value was used", operand.released);
+            return operand.value;
+        }
+
+        @Override
+        public Value constant(double value) {
+            return new Value(value);
+        }
+
+        @Override
+        public Value add(Value a, Value b) {
+            return new Value(valueOf(a) + valueOf(b));
+        }
+
+        @Override
+        public Value subtract(Value a, Value b) {
+            return new Value(valueOf(a) - valueOf(b));
+        }
+
+        @Override
+        public Value multiply(Value a, Value b) {
+            return new Value(valueOf(a) * valueOf(b));
+        }
+
+        @Override
+        public Value divide(Value a, Value b) {
+            return new Value(valueOf(a) / valueOf(b));
+        }
+
+        @Override
+        public Value power(Value base, Value exponent) {
+            return (valueOf(exponent) == 1) ? base : new Value(Math.pow(valueOf(base), valueOf(exponent)));
+        }
+
+        @Override
+        public Value negate(Value a) {
+            return new Value(-valueOf(a));
+        }
+
+        @Override
+        public Value and(Value a, Value b) {
+            return new Value(DoubleAlgebra.INSTANCE.and(valueOf(a), valueOf(b)));
+        }
+
+        @Override
+        public Value or(Value a, Value b) {
+            return new Value(DoubleAlgebra.INSTANCE.or(valueOf(a), valueOf(b)));
+        }
+
+        @Override
+        public Value not(Value a) {
+            return new Value(DoubleAlgebra.INSTANCE.not(valueOf(a)));
+        }
+
+        @Override
+        public void release(Value value) {
+            assertFalse("Value released twice", value.released);
+            value.released = true;
+            released++;
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package fdtmc;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompiledFDTMCTest {
+
+	@Test
+	public void testCompiledLayout() {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State init = fdtmc.createInitialState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, success, "ok", "r");
+		fdtmc.createTransition(init, error, "fail", "1-r");
+		fdtmc.createTransition(success, success, "loop", "1");
+		fdtmc.createTransition(error, error, "loop", "1");
+
+		CompiledFDTMC compiled = fdtmc.compile();
+		Assert.assertEquals("s", compiled.getVariableName());
+		Assert.assertEquals(3, compiled.getNumberOfStates());
+		Assert.assertEquals(4, compiled.getNumberOfTransitions());
+		Assert.assertEquals(0, compiled.getInitialState());
+		Assert.assertTrue(compiled.hasLabel(1, FDTMC.SUCCESS_LABEL));
+		Assert.assertEquals(error.getIndex(), compiled.getStateIndex(2));
+
+		Assert.assertEquals(0, compiled.getTransitionsStart(0));
+		Assert.assertEquals(2, compiled.getTransitionsEnd(0));
+		Assert.assertEquals(1, compiled.getTarget(0));
+		Assert.assertEquals("r", compiled.getProbability(0));
+		Assert.assertEquals(2, compiled.getTarget(1));
+		Assert.assertEquals("1-r", compiled.getProbability(1));
+		Assert.assertEquals(4, compiled.getTransitionsEnd(2));
+	}
+
+	@Test
+	public void testProbabilitiesAreInterned() {
+		FDTMC fdtmc = new FDTMC();
+		State init = fdtmc.createInitialState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, success, "ok", "0.5");
+		fdtmc.createTransition(init, error, "fail", "0.5");
+		fdtmc.createTransition(success, success, "loop", "1");
+		fdtmc.createTransition(error, error, "loop", "1");
+
+		CompiledFDTMC compiled = fdtmc.compile();
+		Assert.assertEquals(2, compiled.getNumberOfProbabilities());
+		Assert.assertEquals(compiled.getProbabilityId(0), compiled.getProbabilityId(1));
+		Assert.assertEquals(compiled.getProbabilityId(2), compiled.getProbabilityId(3));
+	}
+
+	@Test
+	public void testStatesWithoutTransitions() {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.createInitialState();
+		fdtmc.createSuccessState();
+
+		CompiledFDTMC compiled = fdtmc.compile();
+		Assert.assertEquals(2, compiled.getNumberOfStates());
+		Assert.assertEquals(0, compiled.getNumberOfTransitions());
+		Assert.assertEquals(compiled.getTransitionsStart(1), compiled.getTransitionsEnd(1));
+	}
+
+}
@@ -0,0 +1,102 @@
+package fdtmc;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InlinedFDTMCTest {
+
+	/**
+	 * init --(G)--> success, with an interface to G.
+	 */
+	private FDTMC withInterface(String id) {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State init = fdtmc.createInitialState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createInterface(id, init, success, error);
+		fdtmc.createTransition(success, success, "", "1");
+		fdtmc.createTransition(error, error, "", "1");
+		return fdtmc;
+	}
+
+	private FDTMC fragment(String reliability) {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("g");
+		State init = fdtmc.createInitialState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, success, "", reliability);
+		fdtmc.createTransition(init, error, "", "1-" + reliability);
+		return fdtmc;
+	}
+
+	@Test
+	public void testInterfaceTransitionsAreReplaced() {
+		FDTMC root = withInterface("G");
+		InlinedFDTMC view = root.inlineLazily(Collections.singletonMap("G", InlinedFDTMC.of(fragment("0.9"))));
+		Assert.assertEquals(6, view.getNumberOfStates());
+
+		FDTMC inlined = view.materialize();
+		Assert.assertEquals(6, inlined.getStates().size());
+		Assert.assertTrue(inlined.getInterfaces().isEmpty());
+		for (List<Transition> transitions: inlined.getTransitions().values()) {
+			if (transitions != null) {
+				for (Transition transition: transitions) {
+					Assert.assertNotEquals("G", transition.getProbability());
+					Assert.assertNotEquals("1 - G", transition.getProbability());
+				}
+			}
+		}
+		Assert.assertEquals(FDTMC.SUCCESS_LABEL, inlined.getSuccessState().getLabel());
+		Assert.assertEquals(1, inlined.getSuccessState().getIndex());
+		Assert.assertNull(getState(inlined, 4).getLabel());
+	}
+
+	@Test
+	public void testLazyAndEagerInliningAgree() {
+		FDTMC root = withInterface("G");
+		FDTMC middle = withInterface("H");
+		FDTMC leaf = fragment("0.9");
+
+		FDTMC eager = root.inline(Collections.singletonMap("G", middle.inline(Collections.singletonMap("H", leaf))));
+		InlinedFDTMC middleView = middle.inlineLazily(Collections.singletonMap("H", InlinedFDTMC.of(leaf)));
+		FDTMC lazy = root.inlineLazily(Collections.singletonMap("G", middleView)).materialize();
+
+		Assert.assertEquals(eager.getStates().size(), lazy.getStates().size());
+		Assert.assertEquals(eager.toString(), lazy.toString());
+	}
+
+	@Test
+	public void testFragmentsAreSharedAmongOccurrences() {
+		FDTMC root = withInterface("G");
+		root.createInterface("G", root.getSuccessState(), root.getSuccessState(), root.getErrorState());
+		InlinedFDTMC leaf = InlinedFDTMC.of(fragment("0.9"));
+		InlinedFDTMC view = root.inlineLazily(Collections.singletonMap("G", leaf));
+		Assert.assertEquals(3 + 2 * leaf.getNumberOfStates(), view.getNumberOfStates());
+		Assert.assertEquals(view.getNumberOfStates(), view.materialize().getStates().size());
+	}
+
+	@Test
+	public void testUnresolvedInterfacesAreKept() {
+		FDTMC root = withInterface("G");
+		Map<String, InlinedFDTMC> noFragments = Collections.emptyMap();
+		FDTMC inlined = root.inlineLazily(noFragments).materialize();
+		Assert.assertEquals(1, inlined.getInterfaces().get("G").size());
+		Assert.assertEquals(root.toString(), inlined.toString());
+	}
+
+	private State getState(FDTMC fdtmc, int index) {
+		for (State state: fdtmc.getStates()) {
+			if (state.getIndex() == index) {
+				return state;
+			}
+		}
+		return null;
+	}
+
+}
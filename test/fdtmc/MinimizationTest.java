@@ -0,0 +1,117 @@
+package fdtmc;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MinimizationTest {
+
+	FDTMC fdtmc;
+
+	@Before
+	public void setUp() {
+		fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+	}
+
+	/**
+	 * A sequence of messages, each of which may fail, becomes a single
+	 * transition to success (and its complement to the error state).
+	 */
+	@Test
+	public void testChainIsCollapsed() {
+		State init = fdtmc.createInitialState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, s1, "", "r0");
+		fdtmc.createTransition(init, error, "", "1-r0");
+		fdtmc.createTransition(s1, s2, "", "r1");
+		fdtmc.createTransition(s1, error, "", "1-r1");
+		fdtmc.createTransition(s2, success, "", "1.0E-4");
+		fdtmc.createTransition(s2, error, "", "1 - 1.0E-4");
+		fdtmc.createTransition(success, success, "", "1");
+		fdtmc.createTransition(error, error, "", "1");
+
+		CompiledFDTMC minimized = fdtmc.compile().minimize();
+		Assert.assertEquals(3, minimized.getNumberOfStates());
+		Assert.assertEquals(0, minimized.getInitialState());
+		Assert.assertEquals(2, minimized.getNumberOfTransitions());
+		Assert.assertTrue(minimized.hasLabel(minimized.getTarget(0), FDTMC.SUCCESS_LABEL));
+		Assert.assertEquals("r0*r1*1.0E-4", minimized.getProbability(0));
+		Assert.assertTrue(minimized.hasLabel(minimized.getTarget(1), FDTMC.ERROR_LABEL));
+		Assert.assertEquals("1-r0*r1*1.0E-4", minimized.getProbability(1));
+	}
+
+	@Test
+	public void testDeterministicStatesAreBypassed() {
+		State init = fdtmc.createInitialState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		fdtmc.createTransition(init, s1, "", "r");
+		fdtmc.createTransition(init, s2, "", "1 - r");
+		fdtmc.createTransition(s1, s2, "", "1.0");
+		fdtmc.createTransition(s2, s2, "", "q");
+		fdtmc.createTransition(s2, success, "", "1 - q");
+
+		CompiledFDTMC minimized = fdtmc.compile().minimize();
+		// s1 is bypassed, but s2 has a self-loop, so it must stay.
+		Assert.assertEquals(4, minimized.getNumberOfStates());
+		Assert.assertEquals(1, minimized.getTransitionsEnd(0) - minimized.getTransitionsStart(0));
+		Assert.assertEquals("1 - r+r", minimized.getProbability(0));
+	}
+
+	@Test
+	public void testBisimilarStatesAreLumped() {
+		State init = fdtmc.createInitialState();
+		State a = fdtmc.createState();
+		State b = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, a, "", "p");
+		fdtmc.createTransition(init, b, "", "1-p");
+		fdtmc.createTransition(a, a, "", "0.5");
+		fdtmc.createTransition(a, success, "", "0.25");
+		fdtmc.createTransition(a, error, "", "0.25");
+		fdtmc.createTransition(b, b, "", "0.5");
+		fdtmc.createTransition(b, success, "", "0.25");
+		fdtmc.createTransition(b, error, "", "1 - 0.75");
+
+		CompiledFDTMC minimized = fdtmc.compile().minimize();
+		// init, {a, b}, success, and error.
+		Assert.assertEquals(4, minimized.getNumberOfStates());
+		Assert.assertEquals("p+1-p", minimized.getProbability(0));
+	}
+
+	@Test
+	public void testStatesWhichCannotSucceedAreMerged() {
+		State init = fdtmc.createInitialState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		fdtmc.createTransition(init, s1, "", "r");
+		fdtmc.createTransition(init, success, "", "1-r");
+		fdtmc.createTransition(s1, s2, "", "1");
+		fdtmc.createTransition(s2, s1, "", "1");
+
+		CompiledFDTMC minimized = fdtmc.compile().minimize();
+		Assert.assertEquals(3, minimized.getNumberOfStates());
+		Assert.assertEquals("1-r", minimized.getProbability(0));
+		Assert.assertTrue(minimized.hasLabel(minimized.getTarget(0), FDTMC.SUCCESS_LABEL));
+		Assert.assertEquals("1-(1-r)", minimized.getProbability(1));
+	}
+
+	@Test
+	public void testInitialStateWhichCannotSucceed() {
+		State init = fdtmc.createInitialState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, error, "", "1");
+
+		CompiledFDTMC minimized = fdtmc.compile().minimize();
+		Assert.assertEquals(0, minimized.getNumberOfTransitions());
+		Assert.assertFalse(minimized.hasLabel(minimized.getInitialState(), FDTMC.SUCCESS_LABEL));
+	}
+
+}
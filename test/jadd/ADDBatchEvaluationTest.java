@@ -0,0 +1,107 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ADDBatchEvaluationTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Arrays.asList(new Object[][] {{BackendType.CUDD}, {BackendType.JAVA}});
+    }
+
+    @Parameter
+    public BackendType backendType;
+
+    private JADD jadd;
+    private ADD function;
+    private List<String> variables;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD(backendType);
+        // More than 64 variables, so that configurations span several words.
+        variables = new ArrayList<String>();
+        for (int i = 0; i < 70; i++) {
+            variables.add("V" + i);
+            jadd.getVariable("V" + i);
+        }
+        function = jadd.makeConstant(0.25);
+        for (int i = 0; i < variables.size(); i += 3) {
+            ADD term = jadd.getVariable(variables.get(i))
+                    .times(jadd.getVariable(variables.get(variables.size() - 1 - i)))
+                    .times(jadd.makeConstant(1.0 / (i + 2)));
+            function = function.plus(term);
+        }
+    }
+
+    @Test
+    public void testBatchEvaluationMatchesSingleEvaluation() throws UnrecognizedVariableException {
+        // Many configurations (diagram is copied) as well as a few (it is not).
+        for (int count : new int[] {1000, 3}) {
+            List<List<String>> configurations = randomConfigurations(new Random(count), count);
+            List<Configuration> converted = new ArrayList<Configuration>();
+            for (List<String> configuration : configurations) {
+                converted.add(jadd.toConfiguration(configuration));
+            }
+            double[] values = function.evalAll(converted);
+
+            Assert.assertEquals(count, values.length);
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(function.eval(configurations.get(i)), values[i], 0);
+                Assert.assertEquals(values[i], function.eval(converted.get(i)), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testPackedConfigurations() throws UnrecognizedVariableException {
+        VariableStore variableStore = function.getVariableStore();
+        int words = variableStore.getPresenceBitsLength();
+        Assert.assertEquals(2, words);
+
+        List<List<String>> configurations = randomConfigurations(new Random(7), 100);
+        long[] bits = new long[configurations.size() * words];
+        for (int i = 0; i < configurations.size(); i++) {
+            variableStore.toPresenceBits(configurations.get(i), bits, i * words);
+        }
+        double[] values = new double[configurations.size()];
+        function.eval(bits, words, values);
+
+        for (int i = 0; i < configurations.size(); i++) {
+            Assert.assertEquals(function.eval(configurations.get(i)), values[i], 0);
+        }
+    }
+
+    @Test(expected = UnrecognizedVariableException.class)
+    public void testUnknownVariable() throws UnrecognizedVariableException {
+        jadd.toConfiguration(Arrays.asList("V0", "Unknown"));
+    }
+
+    private List<List<String>> randomConfigurations(Random random, int count) {
+        List<List<String>> configurations = new ArrayList<List<String>>();
+        for (int i = 0; i < count; i++) {
+            List<String> configuration = new ArrayList<String>();
+            for (String variable : variables) {
+                if (random.nextBoolean()) {
+                    configuration.add(variable);
+                }
+            }
+            configurations.add(configuration);
+        }
+        return configurations;
+    }
+
+}
@@ -0,0 +1,92 @@
+package jadd;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ADDScopeTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Arrays.asList(new Object[][] {{BackendType.CUDD}, {BackendType.JAVA}});
+    }
+
+    @Parameter
+    public BackendType backendType;
+
+    private JADD jadd;
+    private ADD a;
+    private ADD b;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD(backendType);
+        a = jadd.getVariable("A");
+        b = jadd.getVariable("B");
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testClosingScopeReleasesIntermediates() {
+        long liveNodes = jadd.getLiveNodeCount();
+        try (ADDScope ignored = jadd.openScope()) {
+            a.plus(b).times(a.minus(b)).plus(jadd.makeConstant(0.5));
+            Assert.assertTrue(jadd.getLiveNodeCount() > liveNodes);
+        }
+        Assert.assertEquals(liveNodes, jadd.getLiveNodeCount());
+    }
+
+    @Test
+    public void testKeptADDsSurviveGarbageCollection() throws UnrecognizedVariableException {
+        long liveNodes = jadd.getLiveNodeCount();
+        ADD result;
+        try (ADDScope scope = jadd.openScope()) {
+            result = scope.keep(a.plus(b).times(jadd.makeConstant(0.5)));
+        }
+        // Reordering triggers a garbage collection.
+        jadd.reorderVariables();
+        Assert.assertEquals(1.0, result.eval(new String[]{"A", "B"}), 1E-14);
+        Assert.assertEquals(0.5, result.eval(new String[]{"B"}), 1E-14);
+
+        result.close();
+        Assert.assertEquals(liveNodes, jadd.getLiveNodeCount());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testNestedScopeHandsKeptADDsToEnclosingOne() {
+        long liveNodes = jadd.getLiveNodeCount();
+        try (ADDScope outer = jadd.openScope()) {
+            try (ADDScope inner = jadd.openScope()) {
+                inner.keep(a.times(b).plus(b));
+            }
+            Assert.assertTrue(jadd.getLiveNodeCount() > liveNodes);
+        }
+        Assert.assertEquals(liveNodes, jadd.getLiveNodeCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScopesMustBeClosedInReverseOrder() {
+        ADDScope outer = jadd.openScope();
+        jadd.openScope();
+        outer.close();
+    }
+
+    @Test
+    public void testVariablesAreNeverReleased() throws UnrecognizedVariableException {
+        a.close();
+        a.close();
+        jadd.reorderVariables();
+        Assert.assertEquals(1.0, jadd.getVariable("A").eval(new String[]{"A"}), 0);
+        Assert.assertEquals(0.0, jadd.getVariable("A").eval(new String[]{"B"}), 0);
+    }
+
+}
@@ -0,0 +1,121 @@
+package jadd;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ConfigurationEnumerationTest {
+
+    private static final String[] VARIABLES = {"A", "B", "C", "D", "E", "F", "G", "H", "I", "J"};
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Arrays.asList(new Object[][] {{BackendType.CUDD}, {BackendType.JAVA}});
+    }
+
+    @Parameter
+    public BackendType backendType;
+
+    private JADD jadd;
+    private ADD function;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD(backendType);
+        for (String variable : VARIABLES) {
+            jadd.getVariable(variable);
+        }
+        // A, B or C (but not all of them), D implies E, and anything for the rest.
+        ADD a = jadd.getVariable("A");
+        ADD b = jadd.getVariable("B");
+        ADD c = jadd.getVariable("C");
+        ADD oneOf = a.or(b).or(c).times(a.times(b).times(c).complement());
+        ADD implication = jadd.getVariable("D").complement().or(jadd.getVariable("E"));
+        function = oneOf.times(implication).times(jadd.makeConstant(0.5));
+    }
+
+    @Test
+    public void testEnumeratesExactlyTheValidConfigurations() throws UnrecognizedVariableException {
+        Set<Set<String>> expected = bruteForce();
+        List<Set<String>> enumerated = function.getExpandedConfigurations()
+                .map(c -> new HashSet<String>(c.getFeatures()))
+                .collect(Collectors.toList());
+
+        Assert.assertEquals(expected.size(), enumerated.size());
+        Assert.assertEquals(expected, new HashSet<Set<String>>(enumerated));
+        Assert.assertEquals(expected.size(), function.getExpandedConfigurations().count());
+    }
+
+    @Test
+    public void testSplitsIntoDisjointParts() {
+        Spliterator<long[]> whole = function.getExpandedPresenceBits().spliterator();
+        long size = whole.estimateSize();
+        Spliterator<long[]> part = whole.trySplit();
+
+        Assert.assertNotNull(part);
+        Assert.assertTrue(part.estimateSize() > 0 && whole.estimateSize() > 0);
+        Assert.assertEquals(size, part.estimateSize() + whole.estimateSize());
+
+        Set<List<Long>> seen = new HashSet<List<Long>>();
+        long[] count = new long[1];
+        for (Spliterator<long[]> spliterator : Arrays.asList(part, whole)) {
+            spliterator.forEachRemaining(bits -> {
+                seen.add(Arrays.stream(bits).boxed().collect(Collectors.toList()));
+                count[0]++;
+            });
+        }
+        Assert.assertEquals(size, count[0]);
+        Assert.assertEquals(size, seen.size());
+    }
+
+    @Test
+    public void testEnumerationFollowsVariableOrder() throws UnrecognizedVariableException {
+        Set<Set<String>> expected = bruteForce();
+        String[] reversed = VARIABLES.clone();
+        Collections.reverse(Arrays.asList(reversed));
+        jadd.setVariableOrder(reversed);
+
+        Set<Set<String>> enumerated = function.getExpandedConfigurations()
+                .map(c -> new HashSet<String>(c.getFeatures()))
+                .collect(Collectors.toSet());
+        Assert.assertEquals(expected, enumerated);
+    }
+
+    @Test
+    public void testZeroHasNoConfigurations() {
+        Assert.assertEquals(0, jadd.makeConstant(0).getExpandedConfigurations().count());
+        Assert.assertEquals(1 << VARIABLES.length,
+                            jadd.makeConstant(1).getExpandedConfigurations().count());
+    }
+
+    private Set<Set<String>> bruteForce() throws UnrecognizedVariableException {
+        Set<Set<String>> valid = new HashSet<Set<String>>();
+        for (int config = 0; config < (1 << VARIABLES.length); config++) {
+            Set<String> variables = new HashSet<String>();
+            for (int i = 0; i < VARIABLES.length; i++) {
+                if ((config & (1 << i)) != 0) {
+                    variables.add(VARIABLES[i]);
+                }
+            }
+            if (function.eval(variables.toArray(new String[variables.size()])) != 0) {
+                valid.add(variables);
+            }
+        }
+        return valid;
+    }
+
+}
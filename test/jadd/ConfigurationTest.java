@@ -0,0 +1,75 @@
+package jadd;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigurationTest {
+
+    private JADD jadd;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD();
+        for (int i = 0; i < 100; i++) {
+            jadd.getVariable("F" + i);
+        }
+    }
+
+    @Test
+    public void testEqualityIgnoresOrderAndWidth() throws UnrecognizedVariableException {
+        Configuration ab = jadd.toConfiguration(Arrays.asList("F1", "F70"));
+        Configuration ba = jadd.toConfiguration(Arrays.asList("F70", "F1"));
+        Configuration narrow = jadd.getVariableStore().toConfiguration(new long[] {1L << 1, 1L << (70 - 64), 0, 0});
+
+        Assert.assertEquals(ab, ba);
+        Assert.assertEquals(ab, narrow);
+        Assert.assertEquals(ab.hashCode(), narrow.hashCode());
+        Assert.assertNotEquals(ab, jadd.toConfiguration(Arrays.asList("F1")));
+
+        Set<Configuration> set = new HashSet<Configuration>(Arrays.asList(ab, ba, narrow));
+        Assert.assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testFeatures() throws UnrecognizedVariableException {
+        Configuration configuration = jadd.toConfiguration(Arrays.asList("F99", "F0", "F64"));
+
+        Assert.assertEquals(3, configuration.size());
+        Assert.assertTrue(configuration.contains("F64"));
+        Assert.assertFalse(configuration.contains("F63"));
+        Assert.assertFalse(configuration.contains("Unknown"));
+        Assert.assertEquals(Arrays.asList("F0", "F64", "F99"), configuration.getFeatures());
+        Assert.assertEquals("[F0, F64, F99]", configuration.toString());
+        Assert.assertEquals(0, jadd.toConfiguration(Arrays.<String>asList()).size());
+    }
+
+    @Test
+    public void testSubsetAndProjection() throws UnrecognizedVariableException {
+        Configuration big = jadd.toConfiguration(Arrays.asList("F1", "F2", "F80"));
+        Configuration small = jadd.toConfiguration(Arrays.asList("F2", "F80"));
+
+        Assert.assertTrue(small.isSubsetOf(big));
+        Assert.assertFalse(big.isSubsetOf(small));
+        Assert.assertTrue(jadd.toConfiguration(Arrays.<String>asList()).isSubsetOf(small));
+
+        Assert.assertEquals(jadd.toConfiguration(Arrays.asList("F2")),
+                            big.project(Arrays.asList("F2", "F3", "Unknown")));
+        Assert.assertEquals(small, big.project(small));
+        Assert.assertEquals(jadd.toConfiguration(Arrays.asList("F1")),
+                            big.project(jadd.toConfiguration(Arrays.asList("F1", "F50"))));
+    }
+
+    @Test
+    public void testConfigurationsFromOtherManagersDiffer() throws UnrecognizedVariableException {
+        JADD other = new JADD();
+        other.getVariable("F0");
+        Assert.assertNotEquals(jadd.toConfiguration(Arrays.asList("F0")),
+                               other.toConfiguration(Arrays.asList("F0")));
+    }
+
+}
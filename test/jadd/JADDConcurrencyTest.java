@@ -0,0 +1,128 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class JADDConcurrencyTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Arrays.asList(new Object[][] {{BackendType.CUDD}, {BackendType.JAVA}});
+    }
+
+    @Parameter
+    public BackendType backendType;
+
+    private static final String[] VARIABLES = {"A", "B", "C", "D", "E", "F"};
+    private static final int THREADS = 8;
+    private static final int TASKS = 200;
+
+    private JADD jadd;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD(backendType);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testConcurrentOperationsYieldSequentialResults() throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < TASKS; i++) {
+            final int seed = i;
+            tasks.add(() -> {
+                try (ADDScope ignored = jadd.openScope()) {
+                    ADD function = buildFunction(seed);
+                    for (int config = 0; config < (1 << VARIABLES.length); config++) {
+                        Assert.assertEquals(expectedValue(seed, config),
+                                            function.eval(toConfiguration(config)),
+                                            1E-12);
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<Void> result : executor.invokeAll(tasks)) {
+            result.get();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testConfigurationsCanBeEnumeratedWhileOperating() throws Exception {
+        buildFunction(0);
+        ADD featureModel = jadd.getVariable("A").or(jadd.getVariable("B"));
+        Future<Void> operations = executor.submit(() -> {
+            for (int i = 0; i < TASKS; i++) {
+                try (ADDScope ignored = jadd.openScope()) {
+                    buildFunction(i);
+                }
+            }
+            return null;
+        });
+        for (int i = 0; i < 10; i++) {
+            // All but the 16 configurations with neither A nor B.
+            Assert.assertEquals(48, featureModel.getExpandedConfigurations()
+                    .collect(Collectors.toSet())
+                    .size());
+        }
+        operations.get();
+    }
+
+    /**
+     * (A*seed + B*C) * (1 - D) + E*F/2
+     */
+    private ADD buildFunction(int seed) {
+        ADD[] vars = new ADD[VARIABLES.length];
+        for (int i = 0; i < vars.length; i++) {
+            vars[i] = jadd.getVariable(VARIABLES[i]);
+        }
+        return vars[0].times(jadd.makeConstant(seed))
+                .plus(vars[1].times(vars[2]))
+                .times(jadd.makeConstant(1).minus(vars[3]))
+                .plus(vars[4].and(vars[5]).dividedBy(jadd.makeConstant(2)));
+    }
+
+    private static double expectedValue(int seed, int config) {
+        double[] x = new double[VARIABLES.length];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = (config >> i) & 1;
+        }
+        return (x[0]*seed + x[1]*x[2]) * (1 - x[3]) + x[4]*x[5]/2;
+    }
+
+    private static String[] toConfiguration(int config) {
+        List<String> configuration = new ArrayList<String>();
+        for (int i = 0; i < VARIABLES.length; i++) {
+            if (((config >> i) & 1) == 1) {
+                configuration.add(VARIABLES[i]);
+            }
+        }
+        return configuration.toArray(new String[configuration.size()]);
+    }
+
+}
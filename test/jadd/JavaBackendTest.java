@@ -0,0 +1,140 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the pure-Java backend against CUDD.
+ */
+public class JavaBackendTest {
+
+    private static final String[] VARIABLES = {"A", "B", "C", "D", "E", "F", "G"};
+
+    private JADD cudd;
+    private JADD java;
+
+    @Before
+    public void setUp() throws Exception {
+        cudd = new JADD(BackendType.CUDD);
+        java = new JADD(BackendType.JAVA);
+        for (String variable : VARIABLES) {
+            cudd.getVariable(variable);
+            java.getVariable(variable);
+        }
+    }
+
+    @Test
+    public void testRandomFunctionsMatchCudd() throws UnrecognizedVariableException {
+        for (int seed = 0; seed < 50; seed++) {
+            ADD expected = randomFunction(cudd, new Random(seed), 6);
+            ADD actual = randomFunction(java, new Random(seed), 6);
+
+            Assert.assertEquals("seed " + seed, expected.getNodeCount(), actual.getNodeCount());
+            Assert.assertEquals("seed " + seed, expected.isConstant(), actual.isConstant());
+            Assert.assertEquals("seed " + seed,
+                                expected.getTerminalsDifferentThanZeroCount(),
+                                actual.getTerminalsDifferentThanZeroCount());
+            Assert.assertEquals("seed " + seed,
+                                expected.getPathsToNonZeroTerminalsCount(),
+                                actual.getPathsToNonZeroTerminalsCount(),
+                                0);
+            Assert.assertEquals("seed " + seed, expected.getVariables(), actual.getVariables());
+            assertSameValues(expected, actual);
+        }
+    }
+
+    @Test
+    public void testReorderingPreservesFunctions() throws UnrecognizedVariableException {
+        List<ADD> functions = new ArrayList<ADD>();
+        List<ADD> expected = new ArrayList<ADD>();
+        for (int seed = 0; seed < 20; seed++) {
+            functions.add(randomFunction(java, new Random(seed), 6));
+            expected.add(randomFunction(cudd, new Random(seed), 6));
+        }
+
+        java.reorderVariables();
+        for (int i = 0; i < functions.size(); i++) {
+            assertSameValues(expected.get(i), functions.get(i));
+        }
+
+        String[] reversed = VARIABLES.clone();
+        Collections.reverse(Arrays.asList(reversed));
+        java.setVariableOrder(reversed);
+        Assert.assertEquals(Arrays.asList(reversed), java.getVariable("A").getVariableOrder());
+        cudd.setVariableOrder(reversed);
+        for (int i = 0; i < functions.size(); i++) {
+            assertSameValues(expected.get(i), functions.get(i));
+            Assert.assertEquals(expected.get(i).getNodeCount(), functions.get(i).getNodeCount());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testGarbageCollectionKeepsReferencedNodes() throws UnrecognizedVariableException {
+        ADD kept;
+        // Intermediate results must be released deterministically, lest
+        // the live node count change behind our back.
+        try (ADDScope scope = java.openScope()) {
+            kept = scope.keep(randomFunction(java, new Random(42), 8));
+        }
+        ADD expected = randomFunction(cudd, new Random(42), 8);
+        long liveNodes = java.getLiveNodeCount();
+        try (ADDScope ignored = java.openScope()) {
+            for (int seed = 0; seed < 20; seed++) {
+                randomFunction(java, new Random(seed), 8);
+            }
+        }
+        java.getBackend().collectGarbage();
+
+        Assert.assertEquals(liveNodes, java.getLiveNodeCount());
+        assertSameValues(expected, kept);
+        // Freed nodes are reused without disturbing canonicity.
+        ADD rebuilt = randomFunction(java, new Random(42), 8);
+        Assert.assertEquals(kept, rebuilt);
+    }
+
+    private static ADD randomFunction(JADD jadd, Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            if (random.nextBoolean()) {
+                return jadd.getVariable(VARIABLES[random.nextInt(VARIABLES.length)]);
+            }
+            return jadd.makeConstant(random.nextInt(5) / 4.0);
+        }
+        ADD left = randomFunction(jadd, random, depth - 1);
+        ADD right = randomFunction(jadd, random, depth - 1);
+        switch (random.nextInt(6)) {
+        case 0:
+            return left.plus(right);
+        case 1:
+            return left.minus(right);
+        case 2:
+            return left.times(right);
+        case 3:
+            return left.or(right);
+        case 4:
+            return left.complement().times(right);
+        default:
+            return jadd.getVariable(VARIABLES[random.nextInt(VARIABLES.length)]).ifThenElse(left, right);
+        }
+    }
+
+    private static void assertSameValues(ADD expected, ADD actual) throws UnrecognizedVariableException {
+        for (int config = 0; config < (1 << VARIABLES.length); config++) {
+            List<String> variables = new ArrayList<String>();
+            for (int i = 0; i < VARIABLES.length; i++) {
+                if ((config & (1 << i)) != 0) {
+                    variables.add(VARIABLES[i]);
+                }
+            }
+            Assert.assertEquals(expected.eval(variables), actual.eval(variables), 1E-12);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ManagerSettingsTest {
+
+    private static final int PAIRS = 8;
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Arrays.asList(new Object[][] {{BackendType.CUDD}, {BackendType.JAVA}});
+    }
+
+    @Parameter
+    public BackendType backendType;
+
+    @Test
+    public void testConvergingReorderingKeepsValues() throws UnrecognizedVariableException {
+        JADD jadd = new JADD(backendType, new ManagerSettings().setReorderingMethod(ReorderingMethod.SIFT_CONVERGE));
+        ADD function = makeBadlyOrderedFunction(jadd);
+        double[] before = evalAll(jadd, function);
+        long nodesBefore = function.getNodeCount();
+
+        jadd.reorderVariables();
+
+        Assert.assertTrue(function.getReorderingsCount() > 0);
+        Assert.assertTrue(function.getNodeCount() < nodesBefore);
+        Assert.assertArrayEquals(before, evalAll(jadd, function), 0);
+    }
+
+    @Test
+    public void testAutomaticReordering() throws UnrecognizedVariableException {
+        JADD jadd = new JADD(backendType, new ManagerSettings()
+                .setAutoReordering(true)
+                .setFirstReorderingThreshold(100));
+        ADD function = makeBadlyOrderedFunction(jadd);
+        // Keep allocating until the manager collects garbage (and reorders).
+        ADD sum = jadd.makeConstant(0);
+        for (int i = 0; i < 200 && function.getReorderingsCount() == 0; i++) {
+            sum = sum.plus(function.times(jadd.makeConstant(i)));
+        }
+
+        Assert.assertTrue(function.getReorderingsCount() > 0);
+        JADD reference = new JADD(backendType);
+        Assert.assertArrayEquals(evalAll(reference, makeBadlyOrderedFunction(reference)),
+                                 evalAll(jadd, function),
+                                 0);
+    }
+
+    @Test
+    public void testCacheStatistics() {
+        JADD jadd = new JADD(backendType, new ManagerSettings().setCacheSlots(1 << 12));
+        double lookUps = jadd.getCacheLookUps();
+        double hits = jadd.getCacheHits();
+        ADD function = makeBadlyOrderedFunction(jadd);
+        function.plus(function);
+        function.plus(function);
+
+        Assert.assertTrue(jadd.getCacheLookUps() > lookUps);
+        Assert.assertTrue(jadd.getCacheHits() > hits);
+        Assert.assertTrue(jadd.getCacheHits() <= jadd.getCacheLookUps());
+    }
+
+    @Test(expected = ResourceLimitException.class)
+    public void testNodeLimit() {
+        // CUDD only honors the limit when it runs out of free nodes.
+        Assume.assumeTrue(backendType == BackendType.JAVA);
+        JADD jadd = new JADD(backendType, new ManagerSettings().setMaxLiveNodes(64));
+        makeBadlyOrderedFunction(jadd);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNegativeLimits() {
+        new ManagerSettings().setMaxLiveNodes(-1);
+    }
+
+    /**
+     * x1*y1 + ... + xn*yn, with all x variables above all y variables,
+     * which is exponential in n (and linear once the pairs are adjacent).
+     */
+    private static ADD makeBadlyOrderedFunction(JADD jadd) {
+        for (int i = 0; i < PAIRS; i++) {
+            jadd.getVariable("x" + i);
+        }
+        for (int i = 0; i < PAIRS; i++) {
+            jadd.getVariable("y" + i);
+        }
+        ADD function = jadd.makeConstant(0);
+        for (int i = 0; i < PAIRS; i++) {
+            ADD pair = jadd.getVariable("x" + i).times(jadd.getVariable("y" + i));
+            function = function.plus(pair.times(jadd.makeConstant(i + 1)));
+        }
+        return function;
+    }
+
+    private static double[] evalAll(JADD jadd, ADD function) throws UnrecognizedVariableException {
+        double[] values = new double[1 << (2 * PAIRS)];
+        for (int config = 0; config < values.length; config++) {
+            List<String> variables = new ArrayList<String>();
+            for (int i = 0; i < PAIRS; i++) {
+                if ((config & (1 << i)) != 0) {
+                    variables.add("x" + i);
+                }
+                if ((config & (1 << (PAIRS + i))) != 0) {
+                    variables.add("y" + i);
+                }
+            }
+            values[config] = function.eval(variables.toArray(new String[variables.size()]));
+        }
+        return values;
+    }
+
+}
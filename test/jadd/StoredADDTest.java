@@ -0,0 +1,126 @@
+package jadd;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class StoredADDTest {
+
+    private static final String[] VARIABLES = {"A", "B", "C", "D", "E", "F"};
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Arrays.asList(new Object[][] {{BackendType.CUDD}, {BackendType.JAVA}});
+    }
+
+    @Parameter
+    public BackendType backendType;
+
+    private JADD jadd;
+    private ADD function;
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD(backendType);
+        for (String variable : VARIABLES) {
+            jadd.getVariable(variable);
+        }
+        ADD a = jadd.getVariable("A");
+        ADD b = jadd.getVariable("B");
+        ADD c = jadd.getVariable("C");
+        function = a.times(jadd.makeConstant(0.9))
+                .plus(b.times(c).times(jadd.makeConstant(0.05)))
+                .times(jadd.getVariable("E").complement().or(jadd.getVariable("F")));
+        file = Files.createTempFile("stored", ".add");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testStoredADDEvaluatesAsTheOriginal() throws Exception {
+        jadd.store(function, file);
+        StoredADD stored = StoredADD.open(file);
+
+        Assert.assertEquals(Arrays.asList(VARIABLES), stored.getVariableNames());
+        Assert.assertTrue(stored.getNodeCount() > function.getTerminalValues().length);
+        for (List<String> configuration : allConfigurations()) {
+            Assert.assertEquals(function.eval(configuration), stored.eval(configuration), 0);
+        }
+    }
+
+    @Test
+    public void testLoadIntoAnotherManager() throws Exception {
+        jadd.reorderVariables();
+        function.store(file);
+
+        // Variables are matched by name, whatever their indices.
+        JADD other = new JADD(backendType);
+        other.getVariable("F");
+        other.getVariable("Z");
+        ADD loaded = other.load(file);
+
+        for (List<String> configuration : allConfigurations()) {
+            Assert.assertEquals(function.eval(configuration), loaded.eval(configuration), 0);
+        }
+    }
+
+    @Test
+    public void testLoadIntoSameManager() throws Exception {
+        jadd.store(function, file);
+        ADD loaded = jadd.load(file);
+        Assert.assertEquals(function, loaded);
+    }
+
+    @Test(expected = UnrecognizedVariableException.class)
+    public void testUnknownVariable() throws Exception {
+        function.store(file);
+        StoredADD.open(file).eval(new String[] {"A", "Unknown"});
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAStoredADD() throws Exception {
+        Files.write(file, "digraph \"DD\" {}".getBytes());
+        StoredADD.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws Exception {
+        function.store(file);
+        byte[] contents = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(contents, contents.length - 3));
+        StoredADD.open(file);
+    }
+
+    private List<List<String>> allConfigurations() {
+        List<List<String>> configurations = new ArrayList<List<String>>();
+        for (int config = 0; config < (1 << VARIABLES.length); config++) {
+            List<String> configuration = new ArrayList<String>();
+            for (int i = 0; i < VARIABLES.length; i++) {
+                if ((config & (1 << i)) != 0) {
+                    configuration.add(VARIABLES[i]);
+                }
+            }
+            configurations.add(configuration);
+        }
+        return configurations;
+    }
+
+}
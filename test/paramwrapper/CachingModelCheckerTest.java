@@ -0,0 +1,140 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class CachingModelCheckerTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	Path cacheDirectory;
+	CountingModelChecker countingModelChecker;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+		countingModelChecker = new CountingModelChecker();
+	}
+
+	@Test
+	public void testRepeatedModelIsCheckedOnce() throws IOException {
+		try (CachingModelChecker modelChecker = new CachingModelChecker(countingModelChecker, cacheDirectory, 10, 1024)) {
+			String first = modelChecker.getReliability(makeFdtmc("r0", "1-r0"));
+			String second = modelChecker.getReliability(makeFdtmc("r0", "1-r0"));
+
+			assertEquals(first, second);
+			assertEquals(1, countingModelChecker.invocations);
+			assertEquals(1, modelChecker.getHits());
+			assertEquals(1, modelChecker.getMisses());
+		}
+	}
+
+	@Test
+	public void testCacheIsPersistedAcrossRuns() throws IOException {
+		try (CachingModelChecker modelChecker = new CachingModelChecker(countingModelChecker, cacheDirectory, 10, 1024)) {
+			modelChecker.getReliability(makeFdtmc("r0", "1-r0"));
+		}
+		try (CachingModelChecker modelChecker = new CachingModelChecker(countingModelChecker, cacheDirectory, 10, 1024)) {
+			assertEquals("1*r0", modelChecker.getReliability(makeFdtmc("r0", "1-r0")));
+			assertEquals(1, modelChecker.getHits());
+		}
+		assertEquals(1, countingModelChecker.invocations);
+	}
+
+	@Test
+	public void testDigestIgnoresTransitionsOrder() {
+		FDTMC fdtmc = makeFdtmc("r0", "1-r0");
+
+		FDTMC reordered = new FDTMC();
+		reordered.setVariableName("s");
+		State s0 = reordered.createState();
+		State s1 = reordered.createState("success");
+		State s2 = reordered.createState("error");
+		reordered.createTransition(s0, s2, null, "1-r0");
+		reordered.createTransition(s0, s1, null, "r0");
+
+		assertArrayEquals(CachingModelChecker.digest(fdtmc), CachingModelChecker.digest(reordered));
+		assertFalse(java.util.Arrays.equals(CachingModelChecker.digest(fdtmc),
+		                                    CachingModelChecker.digest(makeFdtmc("r1", "1-r1"))));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntriesAreEvicted() throws IOException {
+		try (CachingModelChecker modelChecker = new CachingModelChecker(countingModelChecker, cacheDirectory, 10, 1024)) {
+			for (int i = 0; i < 10; i++) {
+				modelChecker.getReliability(makeFdtmc("r"+i, "1-r"+i));
+			}
+			// Touches r0, so that r1 and r2 are the least recently used.
+			modelChecker.getReliability(makeFdtmc("r0", "1-r0"));
+			modelChecker.getReliability(makeFdtmc("r10", "1-r10"));
+			assertEquals(11, countingModelChecker.invocations);
+
+			modelChecker.getReliability(makeFdtmc("r0", "1-r0"));
+			modelChecker.getReliability(makeFdtmc("r3", "1-r3"));
+			assertEquals(11, countingModelChecker.invocations);
+			modelChecker.getReliability(makeFdtmc("r1", "1-r1"));
+			assertEquals(12, countingModelChecker.invocations);
+		}
+	}
+
+	@Test
+	public void testSizeBoundIsEnforced() throws IOException {
+		try (CachingModelChecker modelChecker = new CachingModelChecker(countingModelChecker, cacheDirectory, 10, 6)) {
+			modelChecker.getReliability(makeFdtmc("r0", "1-r0"));
+			modelChecker.getReliability(makeFdtmc("r1", "1-r1"));
+			modelChecker.getReliability(makeFdtmc("r0", "1-r0"));
+			assertEquals(3, countingModelChecker.invocations);
+		}
+	}
+
+	@Test
+	public void testFailuresAreNotCached() throws IOException {
+		countingModelChecker.result = "";
+		try (CachingModelChecker modelChecker = new CachingModelChecker(countingModelChecker, cacheDirectory, 10, 1024)) {
+			modelChecker.getReliability(makeFdtmc("r0", "1-r0"));
+			modelChecker.getReliability(makeFdtmc("r0", "1-r0"));
+			assertEquals(2, countingModelChecker.invocations);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	@SuppressWarnings("try")
+	public void testCacheCannotBeSharedConcurrently() throws IOException {
+		try (CachingModelChecker modelChecker = new CachingModelChecker(countingModelChecker, cacheDirectory, 10, 1024)) {
+			new CachingModelChecker(countingModelChecker, cacheDirectory, 10, 1024).close();
+		}
+	}
+
+	private static FDTMC makeFdtmc(String success, String error) {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, success);
+		fdtmc.createTransition(s0, s2, null, error);
+		return fdtmc;
+	}
+
+	private static class CountingModelChecker implements ParametricModelChecker {
+		int invocations = 0;
+		String result = null;
+
+		@Override
+		public String getReliability(FDTMC fdtmc) {
+			invocations++;
+			return (result != null) ? result : new StateEliminationModelChecker().getReliability(fdtmc);
+		}
+	}
+}
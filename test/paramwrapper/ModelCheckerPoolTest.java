@@ -0,0 +1,89 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class ModelCheckerPoolTest {
+
+	ModelCheckerPool pool;
+
+	@After
+	public void tearDown() {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void testRequestsAreServedByWorkers() {
+		pool = new ModelCheckerPool(new StateEliminationModelChecker(), 2, 1, 0);
+
+		List<CompletableFuture<String>> results = new ArrayList<CompletableFuture<String>>();
+		for (int i = 0; i < 10; i++) {
+			results.add(pool.getReliabilityAsync(makeFdtmc("r"+i)));
+		}
+		for (int i = 0; i < 10; i++) {
+			assertEquals("1*r"+i, results.get(i).join());
+		}
+		assertEquals("1*r0", pool.getReliability(makeFdtmc("r0")));
+	}
+
+	@Test
+	public void testTimedOutRequestIsInterrupted() throws InterruptedException {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		ParametricModelChecker hangingModelChecker = fdtmc -> {
+			try {
+				Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return "1";
+		};
+		pool = new ModelCheckerPool(hangingModelChecker, 1, 1, 50);
+
+		assertEquals("", pool.getReliability(makeFdtmc("r0")));
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testWorkersAreLongLived() {
+		List<Thread> servingThreads = new ArrayList<Thread>();
+		ParametricModelChecker recordingModelChecker = fdtmc -> {
+			synchronized (servingThreads) {
+				servingThreads.add(Thread.currentThread());
+			}
+			return "1";
+		};
+		pool = new ModelCheckerPool(recordingModelChecker, 1, 4, 0);
+
+		for (int i = 0; i < 5; i++) {
+			pool.getReliability(makeFdtmc("r"+i));
+		}
+		assertEquals(5, servingThreads.size());
+		for (Thread thread: servingThreads) {
+			assertSame(servingThreads.get(0), thread);
+		}
+	}
+
+	private static FDTMC makeFdtmc(String success) {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, success);
+		fdtmc.createTransition(s0, s2, null, "1-"+success);
+		return fdtmc;
+	}
+}
@@ -0,0 +1,81 @@
+package paramwrapper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class NumericReachabilitySolverTest {
+
+	@Test
+	public void testAcyclicChain() {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State success = fdtmc.createState("success");
+		State error = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "0.999");
+		fdtmc.createTransition(s0, error, null, "0.001");
+		fdtmc.createTransition(s1, success, null, "0.999");
+		fdtmc.createTransition(s1, error, null, "0.001");
+
+		assertEquals(0.999*0.999, NumericReachabilitySolver.solve(fdtmc), 1E-15);
+	}
+
+	@Test
+	public void testSlowlyConvergingCycle() {
+		// Each round trip s0 -> s1 -> s0 escapes with probability 1E-4,
+		// half of the time to success.
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State success = fdtmc.createState("success");
+		State error = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "1");
+		fdtmc.createTransition(s1, s0, null, "0.9999");
+		fdtmc.createTransition(s1, success, null, "0.00005");
+		fdtmc.createTransition(s1, error, null, "0.00005");
+
+		assertEquals(0.5, NumericReachabilitySolver.solve(fdtmc), 1E-12);
+	}
+
+	@Test
+	public void testNearlyAbsorbingCycleMatchesExactElimination() {
+		// Each step around the cycle s0 -> s1 -> s2 -> s3 -> s0 fails with
+		// probability 1E-7, and s3 escapes to success with probability 1E-7.
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State[] cycle = new State[4];
+		for (int i = 0; i < cycle.length; i++) {
+			cycle[i] = fdtmc.createState();
+		}
+		State success = fdtmc.createState("success");
+		State error = fdtmc.createState("error");
+		for (int i = 0; i < cycle.length - 1; i++) {
+			fdtmc.createTransition(cycle[i], cycle[i+1], null, "0.9999999");
+			fdtmc.createTransition(cycle[i], error, null, "0.0000001");
+		}
+		fdtmc.createTransition(cycle[3], cycle[0], null, "0.9999998");
+		fdtmc.createTransition(cycle[3], success, null, "0.0000001");
+		fdtmc.createTransition(cycle[3], error, null, "0.0000001");
+
+		double numeric = NumericReachabilitySolver.solve(fdtmc);
+
+		// An unreachable parametric state forces symbolic (i.e., exact) elimination.
+		State unreachable = fdtmc.createState();
+		fdtmc.createTransition(unreachable, success, null, "p");
+		fdtmc.createTransition(unreachable, error, null, "1-p");
+		RationalFunction exact = new StateEliminationModelChecker().getReliabilityFunction(fdtmc);
+		double expected = exact.evaluate(Collections.<String, Double>emptyMap());
+
+		assertEquals(0.2, expected, 1E-6);
+		assertEquals(expected, numeric, expected * 1E-12);
+	}
+
+}
@@ -0,0 +1,122 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+/**
+ * Exercises the I/O path of ParamWrapper against a stub executable which
+ * mimics PARAM's command-line interface.
+ */
+public class ParamWrapperTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	ParamWrapper paramWrapper;
+	FDTMC fdtmc;
+
+	@Before
+	public void setUp() throws Exception {
+		Assume.assumeTrue(new File("/bin/sh").canExecute());
+		File stub = temporaryFolder.newFile("param-stub");
+		// Usage: param-stub <model> <property> --result-file <results>
+		Files.write(stub.toPath(), ("#!/bin/sh\n"
+				+ "echo \"Checking $1\"\n"
+				+ "grep -q 'param double r0;' \"$1\" || exit 1\n"
+				+ "echo '1*r0' > \"$4.out\"\n").getBytes("UTF-8"));
+		stub.setExecutable(true);
+		paramWrapper = new ParamWrapper(stub.getAbsolutePath());
+
+		fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "r0");
+		fdtmc.createTransition(s0, s2, null, "1-r0");
+	}
+
+	@After
+	public void tearDown() {
+		if (paramWrapper != null) {
+			paramWrapper.close();
+		}
+	}
+
+	@Test
+	public void testResultIsReadFromModelChecker() {
+		assertEquals("1*r0", paramWrapper.getReliability(fdtmc));
+	}
+
+	@Test
+	public void testScratchFilesAreReused() throws IOException {
+		paramWrapper.getReliability(fdtmc);
+		long filesAfterFirstRun = countFiles(paramWrapper.getScratchArea().getDirectory());
+		for (int i = 0; i < 5; i++) {
+			assertEquals("1*r0", paramWrapper.getReliability(fdtmc));
+		}
+		assertEquals(filesAfterFirstRun, countFiles(paramWrapper.getScratchArea().getDirectory()));
+	}
+
+	@Test
+	public void testScratchAreaIsDeletedOnClose() throws IOException {
+		paramWrapper.getReliability(fdtmc);
+		Path directory = paramWrapper.getScratchArea().getDirectory();
+		assertTrue(Files.isDirectory(directory));
+
+		paramWrapper.close();
+		assertFalse(Files.exists(directory));
+	}
+
+	@Test
+	public void testFailureYieldsEmptyFormula() {
+		// The stub fails for models without the r0 parameter.
+		FDTMC withOtherParameter = new FDTMC();
+		withOtherParameter.setVariableName("s");
+		State s0 = withOtherParameter.createState();
+		State s1 = withOtherParameter.createState("success");
+		State s2 = withOtherParameter.createState("error");
+		withOtherParameter.createTransition(s0, s1, null, "r1");
+		withOtherParameter.createTransition(s0, s2, null, "1-r1");
+
+		assertEquals("1*r0", paramWrapper.getReliability(fdtmc));
+		assertEquals("", paramWrapper.getReliability(withOtherParameter));
+		// A stale result must not leak into the next invocation.
+		assertEquals("", paramWrapper.getReliability(withOtherParameter));
+	}
+
+	@Test
+	public void testModelWithoutParametersIsSolvedNumerically() {
+		// The stub would fail, were it invoked.
+		FDTMC withoutParameters = new FDTMC();
+		withoutParameters.setVariableName("s");
+		State s0 = withoutParameters.createState();
+		State s1 = withoutParameters.createState("success");
+		State s2 = withoutParameters.createState("error");
+		withoutParameters.createTransition(s0, s1, null, "0.999");
+		withoutParameters.createTransition(s0, s2, null, "1 - 0.999");
+
+		assertEquals("0.999", paramWrapper.getReliability(withoutParameters));
+	}
+
+	private static long countFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class RationalFunctionTest {
+
+	@Test
+	public void testMonomialsAreHashConsed() {
+		Monomial ab = Monomial.of("a").multiply(Monomial.of("b"));
+		Monomial ba = Monomial.of("b").multiply(Monomial.of("a"));
+		assertSame(ab, ba);
+		assertSame(Monomial.of("a"), ab.divide(Monomial.of("b")));
+		assertSame(Monomial.ONE, ab.divide(ba));
+	}
+
+	@Test
+	public void testCommonMonomialFactorsAreCancelled() {
+		assertEquals(RationalFunction.parse("b/c"), RationalFunction.parse("(a*b)/(a*c)"));
+		assertEquals(RationalFunction.parse("1/(b + c)"), RationalFunction.parse("a/(a*b + a*c)"));
+		assertEquals("(1)/(1*b+1*c)", RationalFunction.parse("a/(a*b + a*c)").toString());
+	}
+
+	@Test
+	public void testExactDivisorsAreCancelled() {
+		assertEquals(RationalFunction.parse("x + 1"), RationalFunction.parse("(x^2 - 1)/(x - 1)"));
+		assertEquals(RationalFunction.parse("1/(x + 1)"), RationalFunction.parse("(x - 1)/(x^2 - 1)"));
+	}
+
+	@Test
+	public void testConstantsAreFormattedAsDecimals() {
+		assertEquals("0.9801", RationalFunction.parse("0.99*0.99").toString());
+		assertEquals("1", RationalFunction.parse("0.5 + 0.5").toString());
+		assertEquals("0", RationalFunction.parse("r - r").toString());
+		assertEquals("(1)/(3)", RationalFunction.parse("1/3").toString());
+	}
+
+	@Test
+	public void testFloatingPointEvaluation() {
+		RationalFunction function = RationalFunction.parse("(1 - r)/(1 + r^2)");
+		Map<String, Double> values = new HashMap<String, Double>();
+		values.put("r", 0.5);
+		assertEquals(0.4, function.evaluate(values), 1E-15);
+		// Extra variables are harmless.
+		values.put("s", 0.1);
+		assertEquals(0.4, function.evaluate(values), 1E-15);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEvaluationWithMissingVariable() {
+		RationalFunction.parse("1 - r").evaluate(new HashMap<String, Double>());
+	}
+
+	@Test
+	public void testCompiledEvaluation() {
+		RationalFunction function = RationalFunction.parse("(1 - r)/(1 + r^2) + 2*s^3*r");
+		// Slots need not follow any order, and there may be unused ones.
+		CompiledFunction compiled = function.compile(Arrays.asList("unused", "s", "r"));
+		Map<String, Double> values = new HashMap<String, Double>();
+		for (double r = 0; r <= 1; r += 0.25) {
+			for (double s = 0; s <= 1; s += 0.25) {
+				values.put("r", r);
+				values.put("s", s);
+				assertEquals(function.evaluate(values), compiled.evaluate(new double[] {42, s, r}), 1E-15);
+			}
+		}
+		assertEquals(0.5, RationalFunction.parse("0.5").compile(Arrays.asList()).evaluate(new double[0]), 0);
+	}
+
+	@Test
+	public void testCompiledBatchEvaluation() {
+		RationalFunction function = RationalFunction.parse("(1 - r)/(1 + r^2) + 2*s^3*r");
+		CompiledFunction compiled = function.compile(Arrays.asList("unused", "s", "r"));
+		// Columns are longer than needed, and unused ones may be missing.
+		double[][] columns = {null, new double[30], new double[30]};
+		for (int row = 0; row < 25; row++) {
+			columns[1][row] = (row % 5) * 0.25;
+			columns[2][row] = (row / 5) * 0.25;
+		}
+		double[] results = new double[25];
+		compiled.evaluate(columns, 25, results);
+		for (int row = 0; row < 25; row++) {
+			double[] values = {42, columns[1][row], columns[2][row]};
+			assertEquals(compiled.evaluate(values), results[row], 0);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompilationWithMissingSlot() {
+		RationalFunction.parse("r/(1 - s)").compile(Arrays.asList("r"));
+	}
+
+	@Test
+	public void testGenericEvaluation() {
+		Arithmetic<Double> doubles = new Arithmetic<Double>() {
+			@Override
+			public Double constant(double value) {
+				return value;
+			}
+
+			@Override
+			public Double add(Double a, Double b) {
+				return a + b;
+			}
+
+			@Override
+			public Double subtract(Double a, Double b) {
+				return a - b;
+			}
+
+			@Override
+			public Double multiply(Double a, Double b) {
+				return a * b;
+			}
+
+			@Override
+			public Double divide(Double a, Double b) {
+				return a / b;
+			}
+		};
+		RationalFunction function = RationalFunction.parse("(r0*rFail - r0)/(r0*rFail - 1)");
+		Map<String, Double> values = new HashMap<String, Double>();
+		values.put("r0", 0.9);
+		values.put("rFail", 0.2);
+		assertEquals(function.evaluate(values), function.evaluate(values, doubles), 1E-15);
+		assertEquals(0.72/0.82, function.evaluate(values, doubles), 1E-15);
+	}
+
+}
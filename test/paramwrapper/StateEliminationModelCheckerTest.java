@@ -0,0 +1,222 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.io.PrintStream;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class StateEliminationModelCheckerTest {
+
+	StateEliminationModelChecker modelChecker;
+	FDTMC fdtmc;
+
+	@Before
+	public void setUp() throws Exception {
+		modelChecker = new StateEliminationModelChecker();
+		fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+	}
+
+	@Test
+	public void testReliabilityWithOneSuccessState() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s3, null, "1-r0");
+		fdtmc.createTransition(s0, s1, null, "r0");
+		fdtmc.createTransition(s1, s2, null, "1-rFail");
+		fdtmc.createTransition(s1, s3, null, "rFail");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("-1*r0*rFail+1*r0", formula);
+	}
+
+	@Test
+	public void testReliabilityWithTwoSuccessStates() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s3, null, "1-r0");
+		fdtmc.createTransition(s0, s1, null, "r0");
+		fdtmc.createTransition(s1, s2, null, "1-rFail");
+		fdtmc.createTransition(s1, s3, null, "rFail");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("1*r0", formula);
+	}
+
+	@Test
+	public void testReliabilityWithNoSuccessState() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState();
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s3, null, "1-r0");
+		fdtmc.createTransition(s0, s1, null, "r0");
+		fdtmc.createTransition(s1, s2, null, "1-rFail");
+		fdtmc.createTransition(s1, s3, null, "rFail");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("0", formula);
+	}
+
+	@Test
+	public void testReliabilityWithNoParameters() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s3, null, "0.01");
+		fdtmc.createTransition(s0, s1, null, "0.99");
+		fdtmc.createTransition(s1, s2, null, "0.99");
+		fdtmc.createTransition(s1, s3, null, "0.01");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals(0.9801, Double.parseDouble(formula), 1E-15);
+	}
+
+	@Test
+	public void testReliabilityWithLoop() {
+		// Retries s1 with probability 1/2 until it either succeeds or fails.
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "1");
+		fdtmc.createTransition(s1, s1, null, "0.5");
+		fdtmc.createTransition(s1, s2, null, "0.5 - 0.5*rFail");
+		fdtmc.createTransition(s1, s3, null, "0.5*rFail");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("-1*rFail+1", formula);
+	}
+
+	@Test
+	public void testReliabilityWithRationalResult() {
+		// The initial state may be revisited, which yields a proper quotient.
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s0, null, "r0*rFail");
+		fdtmc.createTransition(s0, s1, null, "r0 - r0*rFail");
+		fdtmc.createTransition(s0, s2, null, "1 - r0");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("(1*r0*rFail-1*r0)/(1*r0*rFail-1)", formula);
+	}
+
+	@Test
+	public void testReliabilityWithScientificNotation() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "1 - 1.0E-4");
+		fdtmc.createTransition(s0, s2, null, "1.0E-4");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals(0.9999, Double.parseDouble(formula), 1E-15);
+	}
+
+	@Test
+	public void testReliabilityWithNoParametersAndLoop() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "1");
+		fdtmc.createTransition(s1, s0, null, "0.5");
+		fdtmc.createTransition(s1, s2, null, "0.4");
+		fdtmc.createTransition(s1, s3, null, "0.1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals(0.8, Double.parseDouble(formula), 1E-15);
+	}
+
+	@Test
+	public void testEliminationOrdersYieldSameReliability() {
+		// States s1 and s2 form a cycle, each one reachable from s0.
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState();
+		State s3 = fdtmc.createState("success");
+		State s4 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "pA");
+		fdtmc.createTransition(s0, s2, null, "1 - pA");
+		fdtmc.createTransition(s1, s2, null, "0.5");
+		fdtmc.createTransition(s1, s3, null, "0.5*pB");
+		fdtmc.createTransition(s1, s4, null, "0.5 - 0.5*pB");
+		fdtmc.createTransition(s2, s1, null, "0.5");
+		fdtmc.createTransition(s2, s3, null, "0.4");
+		fdtmc.createTransition(s2, s4, null, "0.1");
+
+		for (EliminationOrder heuristic: EliminationOrder.values()) {
+			RecordingCollector collector = new RecordingCollector();
+			modelChecker = new StateEliminationModelChecker(collector, heuristic);
+			String formula = modelChecker.getReliability(fdtmc);
+			double reliability = ProbabilityParser.evaluate(formula.replace("pA", "(0.3)").replace("pB", "(0.9)"));
+			assertEquals(heuristic.toString(), 0.3*0.65/0.75 + 0.7*(0.5*0.65/0.75 + 0.4), reliability, 1E-12);
+
+			assertEquals(heuristic, collector.heuristic);
+			assertFalse(collector.order.isEmpty());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstantEvaluationRejectsVariables() {
+		ProbabilityParser.evaluate("0.5*pA");
+	}
+
+	private static class RecordingCollector implements IModelCollector {
+		EliminationOrder heuristic;
+		List<Integer> order;
+
+		@Override
+		public void collectModel(int variables, int states) {
+			// NO-OP
+		}
+
+		@Override
+		public void collectModelCheckingTime(long elapsedTimeNanos) {
+			// NO-OP
+		}
+
+		@Override
+		public void collectEliminationOrder(EliminationOrder heuristic, List<Integer> order) {
+			this.heuristic = heuristic;
+			this.order = order;
+		}
+
+		@Override
+		public void printStats(PrintStream out) {
+			// NO-OP
+		}
+	}
+
+	@Test
+	public void testMalformedProbability() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		fdtmc.createTransition(s0, s1, null, "1 - (r0");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("", formula);
+	}
+}
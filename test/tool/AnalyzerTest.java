@@ -12,12 +12,11 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import paramwrapper.StateEliminationModelChecker;
 import tool.analyzers.IReliabilityAnalysisResults;
 import expressionsolver.ExpressionSolver;
 
 public class AnalyzerTest {
-    private static final String PARAM_PATH = "/opt/param-2-3-64";
-
     String fmBSN = "Root  &&  (!Root  ||  Monitoring)  &&  (!Root  ||  Storage)  &&  (!Monitoring  ||  Root)  &&  (!Storage  ||  Root)  &&  (!Monitoring  ||  SensorInformation)  &&  (!Monitoring  ||  Sensor)  &&  (!SensorInformation  ||  Monitoring)  &&  (!Sensor  ||  Monitoring)  &&  (!SensorInformation  ||  Oxygenation  ||  PulseRate  ||  Temperature  ||  Position  ||  Fall)  &&  (!Oxygenation  ||  SensorInformation)  &&  (!PulseRate  ||  SensorInformation)  &&  (!Temperature  ||  SensorInformation)  &&  (!Position  ||  SensorInformation)  &&  (!Fall  ||  SensorInformation)  &&  (!Sensor  ||  SPO2  ||  ECG  ||  TEMP  ||  ACC)  &&  (!SPO2  ||  Sensor)  &&  (!ECG  ||  Sensor)  &&  (!TEMP  ||  Sensor)  &&  (!ACC  ||  Sensor)  &&  (!Storage  ||  SQLite  ||  Memory  ||  File)  &&  (!SQLite  ||  Storage)  &&  (!Memory  ||  Storage)  &&  (!File  ||  Storage)  &&  (!SQLite  ||  !Memory)  &&  (!SQLite  ||  !File)  &&  (!Memory  ||  !File)  &&  (!Oxygenation  ||  SPO2)  &&  (!PulseRate  ||  SPO2  ||  ECG)  &&  (!Fall  ||  ACC)  &&  (!Position  ||  ACC)  &&  (!Temperature  ||  TEMP)  &&  True  &&  !False  &&  (PulseRate  ||  ACC  ||  Memory  ||  Temperature  ||  Position  ||  Storage  ||  SensorInformation  ||  Sensor  ||  TEMP  ||  Monitoring  ||  Oxygenation  ||  File  ||  SQLite  ||  ECG  ||  Fall  ||  SPO2  ||  True)";
     JADD jadd;
     ExpressionSolver solver;
@@ -27,7 +26,7 @@ public class AnalyzerTest {
     public void setUp() throws Exception {
         jadd = new JADD();
         solver = new ExpressionSolver(jadd);
-        analyzer = new Analyzer(jadd, fmBSN, PARAM_PATH);
+        analyzer = new Analyzer(jadd, fmBSN, new StateEliminationModelChecker());
     }
 
     @Test
@@ -151,7 +150,7 @@ public class AnalyzerTest {
                 "SPO2"};
         configurations.add(Arrays.asList(noneConfig));
 
-        IReliabilityAnalysisResults reliability = analyzer.evaluateFeatureProductBasedReliability(node, configurations.stream());
+        IReliabilityAnalysisResults reliability = analyzer.evaluateFeatureProductBasedReliability(node, configurations.stream().map(analyzer::toConfiguration));
         Assert.assertEquals("Configuration with SQLite",
                 0.9920279440699441, reliability.getResult(sqliteConfig), 1E-14);
         Assert.assertEquals("Configuration with Memory",
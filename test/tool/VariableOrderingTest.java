@@ -0,0 +1,108 @@
+package tool;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import jadd.BackendType;
+import jadd.JADD;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import paramwrapper.StateEliminationModelChecker;
+import expressionsolver.ExpressionSolver;
+
+public class VariableOrderingTest {
+
+    /**
+     * Two independent chains of implications whose links are interleaved
+     * in order of first occurrence.
+     */
+    private static final String BSN = "Root  &&  (!Root  ||  Monitoring)  &&  (!Root  ||  Storage)  &&  (!Monitoring  ||  Root)  &&  (!Storage  ||  Root)  &&  (!Monitoring  ||  SensorInformation)  &&  (!Monitoring  ||  Sensor)  &&  (!SensorInformation  ||  Monitoring)  &&  (!Sensor  ||  Monitoring)  &&  (!SensorInformation  ||  Oxygenation  ||  PulseRate  ||  Temperature  ||  Position  ||  Fall)  &&  (!Oxygenation  ||  SensorInformation)  &&  (!PulseRate  ||  SensorInformation)  &&  (!Temperature  ||  SensorInformation)  &&  (!Position  ||  SensorInformation)  &&  (!Fall  ||  SensorInformation)  &&  (!Sensor  ||  SPO2  ||  ECG  ||  TEMP  ||  ACC)  &&  (!SPO2  ||  Sensor)  &&  (!ECG  ||  Sensor)  &&  (!TEMP  ||  Sensor)  &&  (!ACC  ||  Sensor)  &&  (!Storage  ||  SQLite  ||  Memory  ||  File)  &&  (!SQLite  ||  Storage)  &&  (!Memory  ||  Storage)  &&  (!File  ||  Storage)  &&  (!SQLite  ||  !Memory)  &&  (!SQLite  ||  !File)  &&  (!Memory  ||  !File)  &&  (!Oxygenation  ||  SPO2)  &&  (!PulseRate  ||  SPO2  ||  ECG)  &&  (!Fall  ||  ACC)  &&  (!Position  ||  ACC)  &&  (!Temperature  ||  TEMP)  &&  True  &&  !False  &&  (PulseRate  ||  ACC  ||  Memory  ||  Temperature  ||  Position  ||  Storage  ||  SensorInformation  ||  Sensor  ||  TEMP  ||  Monitoring  ||  Oxygenation  ||  File  ||  SQLite  ||  ECG  ||  Fall  ||  SPO2  ||  True)";
+
+    private static final String INTERLEAVED = "(!A1  ||  A2)  &&  (!B1  ||  B2)  &&  (!A2  ||  A3)  &&  (!B2  ||  B3)"
+            + "  &&  (!A3  ||  A4)  &&  (!B3  ||  B4)  &&  True  &&  !False  &&  (A1  ||  B1  ||  True)";
+
+    @Test
+    public void testParseClauses() {
+        List<Set<String>> clauses = VariableOrdering.parseClauses("Root  &&  (!Root  ||  A  ||  !B)  &&  True  &&  !False  &&  (A  ||  True)");
+        Assert.assertEquals(2, clauses.size());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("Root")), clauses.get(0));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("Root", "A", "B")), clauses.get(1));
+    }
+
+    @Test
+    public void testForceShrinksTheFeatureModel() {
+        List<String> order = VariableOrdering.force(BSN);
+        Set<String> variables = new HashSet<String>();
+        VariableOrdering.parseClauses(BSN).forEach(variables::addAll);
+        Assert.assertEquals(variables.size(), order.size());
+        Assert.assertEquals(variables, new HashSet<String>(order));
+
+        // Features are created in alphabetical order, rather than in that
+        // of their first occurrence, which is already a fair one.
+        JADD unordered = new JADD(BackendType.JAVA);
+        new TreeSet<String>(variables).forEach(unordered::getVariable);
+        int unorderedSize = new ExpressionSolver(unordered).encodeFormula(BSN).getNodeCount();
+        JADD ordered = new JADD(BackendType.JAVA);
+        order.forEach(ordered::getVariable);
+        int orderedSize = new ExpressionSolver(ordered).encodeFormula(BSN).getNodeCount();
+
+        Assert.assertTrue(orderedSize + " vs. " + unorderedSize, orderedSize < unorderedSize);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        List<String> order = VariableOrdering.force(INTERLEAVED);
+        Path file = Files.createTempFile("variable", ".order");
+        try {
+            VariableOrdering.write(order, file);
+            Assert.assertEquals(order, VariableOrdering.read(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testAnalyzerCreatesVariablesInStaticOrder() throws Exception {
+        List<String> order = Arrays.asList("B4", "A1", "B3", "A2", "B2", "A3", "B1", "A4");
+        Analyzer analyzer = new Analyzer(new JADD(BackendType.JAVA), INTERLEAVED,
+                                         new StateEliminationModelChecker(), null, null, order);
+        Assert.assertEquals(order, analyzer.getVariableOrder());
+        Assert.assertTrue(analyzer.isValidConfiguration(analyzer.toConfiguration(Arrays.asList("A1", "A2", "A3", "A4"))));
+        Assert.assertFalse(analyzer.isValidConfiguration(analyzer.toConfiguration(Arrays.asList("A1", "B2"))));
+    }
+
+    @Test
+    public void testUnknownNamesInLoadedOrderAreIgnored() throws Exception {
+        Path file = Files.createTempFile("variable", ".order");
+        try {
+            VariableOrdering.write(Arrays.asList("B1", "Phantom", "A1"), file);
+            Analyzer analyzer = new Analyzer(new JADD(BackendType.JAVA), INTERLEAVED,
+                                             new StateEliminationModelChecker(), null, null,
+                                             VariableOrdering.read(file));
+            Analyzer unordered = new Analyzer(new JADD(BackendType.JAVA), INTERLEAVED,
+                                              new StateEliminationModelChecker(), null, null, null);
+
+            Assert.assertFalse(analyzer.getVariableOrder().contains("Phantom"));
+            Assert.assertEquals(Arrays.asList("B1", "A1"), analyzer.getVariableOrder().subList(0, 2));
+            Assert.assertEquals(unordered.getValidConfigurations().count(),
+                                analyzer.getValidConfigurations().count());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSiftingIsTheDefault() {
+        Assert.assertNull(VariableOrdering.createVariableOrder(VariableOrderingStrategy.SIFT, INTERLEAVED));
+        Assert.assertEquals(VariableOrdering.force(INTERLEAVED),
+                            VariableOrdering.createVariableOrder(VariableOrderingStrategy.FORCE, INTERLEAVED));
+    }
+
+}
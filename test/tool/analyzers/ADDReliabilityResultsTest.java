@@ -0,0 +1,153 @@
+package tool.analyzers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import jadd.ADD;
+import jadd.BackendType;
+import jadd.Configuration;
+import jadd.JADD;
+import jadd.UnrecognizedVariableException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ADDReliabilityResultsTest {
+
+    private static final String[] VARIABLES = {"A", "B", "C", "D", "E", "F", "G", "H"};
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Arrays.asList(new Object[][] {{BackendType.CUDD}, {BackendType.JAVA}});
+    }
+
+    @Parameter
+    public BackendType backendType;
+
+    private JADD jadd;
+    private ADD function;
+    private ADDReliabilityResults results;
+    /** Reliability of each valid configuration, computed by brute force. */
+    private List<Double> reliabilities;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD(backendType);
+        for (String variable : VARIABLES) {
+            jadd.getVariable(variable);
+        }
+        // Valid if A is present, and each feature lowers the reliability.
+        ADD reliability = jadd.makeConstant(1);
+        for (int i = 1; i < VARIABLES.length; i++) {
+            ADD penalty = jadd.getVariable(VARIABLES[i]).times(jadd.makeConstant(1.0 / (i + 2)));
+            reliability = reliability.times(jadd.makeConstant(1).minus(penalty));
+        }
+        function = reliability.times(jadd.getVariable("A"));
+        results = new ADDReliabilityResults(function);
+
+        reliabilities = new ArrayList<Double>();
+        for (List<String> configuration : allConfigurations()) {
+            double value = function.eval(configuration);
+            if (value != 0) {
+                reliabilities.add(value);
+            }
+        }
+    }
+
+    @Test
+    public void testMinimumAndMaximum() {
+        Assert.assertEquals(reliabilities.stream().min(Double::compare).get(),
+                            results.getMinimumReliability(), 0);
+        Assert.assertEquals(reliabilities.stream().max(Double::compare).get(),
+                            results.getMaximumReliability(), 0);
+        try (ADD least = results.getLeastReliableConfigurations();
+             ADD most = results.getMostReliableConfigurations()) {
+            Assert.assertEquals(1, least.getNonZeroConfigurationsCount(), 0);
+            Assert.assertEquals(1, most.getNonZeroConfigurationsCount(), 0);
+            Assert.assertEquals(Arrays.asList(VARIABLES),
+                                least.getExpandedConfigurations().findFirst().get().getFeatures());
+            Assert.assertEquals(Arrays.asList("A"),
+                                most.getExpandedConfigurations().findFirst().get().getFeatures());
+        }
+    }
+
+    @Test
+    public void testConfigurationsBelowThreshold() throws UnrecognizedVariableException {
+        for (double threshold : new double[] {0.05, 0.2, 0.5, 1, 2}) {
+            long expected = reliabilities.stream().filter(r -> r < threshold).count();
+            Assert.assertEquals(expected, results.countConfigurationsBelow(threshold), 0);
+
+            try (ADD below = results.getConfigurationsBelow(threshold)) {
+                for (List<String> configuration : allConfigurations()) {
+                    double value = function.eval(configuration);
+                    boolean isBelow = value != 0 && value < threshold;
+                    Assert.assertEquals(isBelow ? 1 : 0, below.eval(configuration), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMostReliable() {
+        List<Double> sorted = reliabilities.stream()
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+        for (int k : new int[] {1, 5, sorted.size(), sorted.size() + 10}) {
+            Map<Configuration, Double> top = results.getMostReliable(k);
+            Assert.assertEquals(Math.min(k, sorted.size()), top.size());
+            Assert.assertEquals(sorted.subList(0, top.size()), new ArrayList<Double>(top.values()));
+            for (Map.Entry<Configuration, Double> entry : top.entrySet()) {
+                Assert.assertEquals(entry.getValue(), function.eval(entry.getKey()), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testNoValidConfigurations() {
+        ADDReliabilityResults none = new ADDReliabilityResults(jadd.makeConstant(0));
+        Assert.assertTrue(Double.isNaN(none.getMinimumReliability()));
+        Assert.assertTrue(Double.isNaN(none.getMaximumReliability()));
+        Assert.assertEquals(0, none.countConfigurationsBelow(1), 0);
+        Assert.assertTrue(none.getMostReliable(3).isEmpty());
+    }
+
+    @Test
+    public void testUnsatisfiableFeatureModel() {
+        // Every configuration is invalid under "A && !A".
+        ADD featureModel = jadd.getVariable("A").times(jadd.getVariable("A").complement());
+        ADDReliabilityResults none = new ADDReliabilityResults(function.times(featureModel));
+        try (ADD least = none.getLeastReliableConfigurations();
+             ADD most = none.getMostReliableConfigurations()) {
+            Assert.assertTrue(least.isConstant());
+            Assert.assertTrue(most.isConstant());
+            Assert.assertArrayEquals(new double[] {0}, least.getTerminalValues(), 0);
+            Assert.assertArrayEquals(new double[] {0}, most.getTerminalValues(), 0);
+        }
+    }
+
+    private List<List<String>> allConfigurations() {
+        List<List<String>> configurations = new ArrayList<List<String>>();
+        for (int config = 0; config < (1 << VARIABLES.length); config++) {
+            List<String> configuration = new ArrayList<String>();
+            for (int i = 0; i < VARIABLES.length; i++) {
+                if ((config & (1 << i)) != 0) {
+                    configuration.add(VARIABLES[i]);
+                }
+            }
+            configurations.add(configuration);
+        }
+        return configurations;
+    }
+
+}
@@ -0,0 +1,159 @@
+package tool.analyzers.buildingblocks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import jadd.ADD;
+import jadd.ADDScope;
+import jadd.BackendType;
+import jadd.Configuration;
+import jadd.JADD;
+import jadd.UnrecognizedVariableException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import expressionsolver.ExpressionSolver;
+import tool.analyzers.buildingblocks.PresenceConditionCache.CompiledPresenceCondition;
+
+@RunWith(Parameterized.class)
+public class PresenceConditionCacheTest {
+
+    private static final String[] VARIABLES = {"A", "B", "C", "D"};
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Arrays.asList(new Object[][] {{BackendType.CUDD}, {BackendType.JAVA}});
+    }
+
+    @Parameter
+    public BackendType backendType;
+
+    private JADD jadd;
+    private ExpressionSolver expressionSolver;
+    private PresenceConditionCache cache;
+
+    @Before
+    public void setUp() {
+        jadd = new JADD(backendType);
+        for (String variable : VARIABLES) {
+            jadd.getVariable(variable);
+        }
+        expressionSolver = new ExpressionSolver(jadd);
+        cache = new PresenceConditionCache(expressionSolver);
+    }
+
+    @Test
+    public void testCompilesEqualConditionsOnce() {
+        CompiledPresenceCondition compiled = cache.get("A && !B");
+        Assert.assertSame(compiled, cache.get("A&&!B"));
+        Assert.assertSame(compiled, cache.get(" A &&  ! B "));
+        Assert.assertEquals(1, cache.size());
+
+        cache.get("A || B");
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testAgreesWithEncodedFormula() throws UnrecognizedVariableException {
+        for (String condition : new String[] {"True", "false", "A", "A && !B", "(A || C) && !(B && D)"}) {
+            ADD expected = expressionSolver.encodeFormula(condition);
+            CompiledPresenceCondition compiled = cache.get(condition);
+            Assert.assertEquals(expected, compiled.getEncoding());
+            for (Configuration configuration : allConfigurations()) {
+                Assert.assertEquals(expected.eval(configuration) == 1.0,
+                                    compiled.isPresent(configuration));
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testEncodingsOutliveScopes() throws UnrecognizedVariableException {
+        ADD encoding;
+        try (ADDScope outer = jadd.openScope()) {
+            try (ADDScope inner = jadd.openScope()) {
+                encoding = cache.encode("A && B");
+            }
+        }
+        // Reordering triggers a garbage collection.
+        jadd.reorderVariables();
+        Assert.assertSame(encoding, cache.encode("A && B"));
+        Assert.assertEquals(1, encoding.eval(new String[] {"A", "B"}), 0);
+        Assert.assertEquals(0, encoding.eval(new String[] {"A"}), 0);
+    }
+
+    @Test
+    public void testConcurrentLookUps() throws UnrecognizedVariableException {
+        List<Configuration> configurations = allConfigurations();
+        String[] conditions = {"A", "A && B", "!C", "B || D", "A && (C || !D)"};
+        long present = IntStream.range(0, 1000).parallel()
+                .filter(i -> cache.isPresent(conditions[i % conditions.length],
+                                             configurations.get(i % configurations.size())))
+                .count();
+
+        long expected = 0;
+        for (int i = 0; i < 1000; i++) {
+            ADD encoding = expressionSolver.encodeFormula(conditions[i % conditions.length]);
+            if (encoding.eval(configurations.get(i % configurations.size())) == 1.0) {
+                expected++;
+            }
+        }
+        Assert.assertEquals(expected, present);
+        Assert.assertEquals(conditions.length, cache.size());
+    }
+
+    @Test
+    public void testClearReleasesEncodings() {
+        long liveNodes = jadd.getLiveNodeCount();
+        cache.get("A && (B || C)");
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(liveNodes, jadd.getLiveNodeCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidConditions() {
+        cache.get("A && || B");
+    }
+
+    @Test
+    public void testWhitespaceSeparatesTokens() {
+        List<String> variableOrder = jadd.getVariableOrder();
+        for (String condition : new String[] {"A && B C", "A & & B", "A | | B"}) {
+            try {
+                cache.get(condition);
+                Assert.fail("Accepted " + condition);
+            } catch (IllegalArgumentException e) {
+                // Expected, as by ExpressionSolver.encodeFormula.
+                Assert.assertNull(expressionSolver.encodeFormula(condition));
+            }
+        }
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(variableOrder, jadd.getVariableOrder());
+        Assert.assertNotSame(cache.get("A && BC"), cache.get("A && B&&C"));
+    }
+
+    private List<Configuration> allConfigurations() throws UnrecognizedVariableException {
+        List<Configuration> configurations = new ArrayList<Configuration>();
+        for (int config = 0; config < (1 << VARIABLES.length); config++) {
+            List<String> features = new ArrayList<String>();
+            for (int i = 0; i < VARIABLES.length; i++) {
+                if ((config & (1 << i)) != 0) {
+                    features.add(VARIABLES[i]);
+                }
+            }
+            configurations.add(jadd.toConfiguration(features));
+        }
+        return configurations;
+    }
+
+}
@@ -0,0 +1,102 @@
+package tool.analyzers.buildingblocks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import jadd.BackendType;
+import jadd.Configuration;
+import jadd.JADD;
+import jadd.UnrecognizedVariableException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProductIterationHelperTest {
+
+    private static final int VARIABLES = 11;
+
+    private List<Configuration> configurations;
+
+    @Before
+    public void setUp() throws UnrecognizedVariableException {
+        JADD jadd = new JADD(BackendType.JAVA);
+        for (int i = 0; i < VARIABLES; i++) {
+            jadd.getVariable("f" + i);
+        }
+        configurations = new ArrayList<Configuration>();
+        for (int config = 0; config < (1 << VARIABLES); config++) {
+            List<String> features = new ArrayList<String>();
+            for (int i = 0; i < VARIABLES; i++) {
+                if ((config & (1 << i)) != 0) {
+                    features.add("f" + i);
+                }
+            }
+            configurations.add(jadd.toConfiguration(features));
+        }
+    }
+
+    @Test
+    public void testFailedEvaluationsAreNull() {
+        for (ConcurrencyStrategy concurrencyStrategy : ConcurrencyStrategy.values()) {
+            Map<Configuration, Double> results = ProductIterationHelper.evaluate(c -> c.contains("f0") ? null : (double) c.size(),
+                                                                                 configurations.stream(),
+                                                                                 concurrencyStrategy);
+            assertResults(results);
+        }
+    }
+
+    @Test
+    public void testBlocksCoverAllConfigurations() {
+        for (ConcurrencyStrategy concurrencyStrategy : ConcurrencyStrategy.values()) {
+            Map<Configuration, Double> results = ProductIterationHelper.evaluateInBlocks((block, values, failed) -> {
+                Assert.assertTrue(block.size() <= ProductIterationHelper.BLOCK_SIZE);
+                for (int i = 0; i < values.length; i++) {
+                    failed[i] = block.get(i).contains("f0");
+                    values[i] = block.get(i).size();
+                }
+            }, configurations.stream(), concurrencyStrategy);
+            assertResults(results);
+        }
+    }
+
+    @Test
+    public void testBlocksMatchProductWiseEvaluation() {
+        // Failures and legitimately computed NaNs (e.g., 0/0) must not be mixed up.
+        Function<Configuration, Double> eval = c -> c.contains("f0") ? null
+                : (c.contains("f1") ? 0.0 / 0.0 : (double) c.size());
+        for (ConcurrencyStrategy concurrencyStrategy : ConcurrencyStrategy.values()) {
+            Map<Configuration, Double> productWise = ProductIterationHelper.evaluate(eval,
+                                                                                     configurations.stream(),
+                                                                                     concurrencyStrategy);
+            Map<Configuration, Double> blockWise = ProductIterationHelper.evaluateInBlocks((block, values, failed) -> {
+                for (int i = 0; i < values.length; i++) {
+                    Double value = eval.apply(block.get(i));
+                    failed[i] = value == null;
+                    values[i] = failed[i] ? 0 : value;
+                }
+            }, configurations.stream(), concurrencyStrategy);
+            Assert.assertEquals(productWise, blockWise);
+            for (Configuration configuration : configurations) {
+                if (!configuration.contains("f0") && configuration.contains("f1")) {
+                    Assert.assertTrue(Double.isNaN(blockWise.get(configuration)));
+                }
+            }
+        }
+    }
+
+    private void assertResults(Map<Configuration, Double> results) {
+        Assert.assertEquals(configurations.size(), results.size());
+        for (Configuration configuration : configurations) {
+            Assert.assertTrue(results.containsKey(configuration));
+            if (configuration.contains("f0")) {
+                Assert.assertNull(results.get(configuration));
+            } else {
+                Assert.assertEquals(configuration.size(), results.get(configuration), 0);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package ui;
+
+import jadd.Configuration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import paramwrapper.StateEliminationModelChecker;
+import tool.Analyzer;
+import tool.RDGNode;
+import tool.analyzers.IReliabilityAnalysisResults;
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class CommandLineInterfaceTest {
+
+    @Test
+    public void testFailedProductsAreReported() throws Exception {
+        Analyzer analyzer = new Analyzer("Root", new StateEliminationModelChecker(), null, null);
+        // The parameter "unbound" stands for no dependency, so the product
+        // cannot be analyzed.
+        FDTMC fdtmc = new FDTMC();
+        fdtmc.setVariableName("sUnbound");
+        State init = fdtmc.createInitialState();
+        fdtmc.createTransition(init, fdtmc.createSuccessState(), "", "unbound");
+        fdtmc.createTransition(init, fdtmc.createErrorState(), "", "1-unbound");
+        RDGNode node = new RDGNode("unboundParameter", "Root", fdtmc);
+
+        Configuration valid = analyzer.toConfiguration(Arrays.asList("Root"));
+        Configuration invalid = analyzer.toConfiguration(Collections.<String>emptyList());
+        IReliabilityAnalysisResults results = analyzer.evaluateProductBasedReliability(node, Stream.of(valid));
+
+        Map<Boolean, List<Configuration>> splitConfigs = new HashMap<Boolean, List<Configuration>>();
+        splitConfigs.put(true, new ArrayList<Configuration>(Arrays.asList(valid)));
+        splitConfigs.put(false, new ArrayList<Configuration>(Arrays.asList(invalid)));
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        CommandLineInterface.printAnalysisResults(new PrintStream(report, true, "UTF-8"), splitConfigs, results);
+
+        String printed = report.toString("UTF-8");
+        Assert.assertTrue(printed, printed.contains(valid + " --> FAILED"));
+        Assert.assertTrue(printed, printed.contains(invalid + " --> INVALID"));
+    }
+
+}